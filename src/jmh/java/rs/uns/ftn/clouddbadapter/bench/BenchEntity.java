@@ -0,0 +1,33 @@
+package rs.uns.ftn.clouddbadapter.bench;
+
+import rs.uns.ftn.clouddbadapter.entity.Entity;
+import rs.uns.ftn.clouddbadapter.entity.Id;
+
+/** Typical flat entity used by the mapper and ORM benchmarks. */
+@Entity(collection = "bench")
+public class BenchEntity {
+    @Id
+    private String id;
+    private String name;
+    private String email;
+    private Integer age;
+    private Long createdAt;
+    private Boolean active;
+    private String city;
+    private String country;
+
+    public BenchEntity() {}
+
+    public static BenchEntity sample(int n) {
+        BenchEntity e = new BenchEntity();
+        e.id = "id-" + n;
+        e.name = "User " + n;
+        e.email = "user" + n + "@example.com";
+        e.age = 20 + n % 50;
+        e.createdAt = 1_700_000_000_000L + n;
+        e.active = n % 2 == 0;
+        e.city = "Novi Sad";
+        e.country = "RS";
+        return e;
+    }
+}
@@ -0,0 +1,42 @@
+package rs.uns.ftn.clouddbadapter.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic document shapes shared by the benchmarks, so runs are comparable.
+ */
+public final class Documents {
+
+    private Documents() {}
+
+    /** A flat document with a mix of scalar types, the common case for the ORM. */
+    public static Map<String, Object> flat(int fields) {
+        Map<String, Object> doc = new HashMap<>();
+        for (int i = 0; i < fields; i++) {
+            switch (i % 4) {
+                case 0 -> doc.put("s" + i, "value-" + i);
+                case 1 -> doc.put("i" + i, i * 31);
+                case 2 -> doc.put("l" + i, 1_000_000_000_000L + i);
+                default -> doc.put("b" + i, i % 2 == 0);
+            }
+        }
+        return doc;
+    }
+
+    /**
+     * A nested document: 'depth' levels of maps, each with 'fanout' scalar fields,
+     * a list of 'fanout' small maps and the next level.
+     */
+    public static Map<String, Object> nested(int depth, int fanout) {
+        Map<String, Object> doc = flat(fanout);
+        if (depth == 0) return doc;
+        List<Object> items = new ArrayList<>(fanout);
+        for (int i = 0; i < fanout; i++) items.add(Map.of("k", "item-" + i, "n", i));
+        doc.put("items", items);
+        doc.put("child", nested(depth - 1, fanout));
+        return doc;
+    }
+}
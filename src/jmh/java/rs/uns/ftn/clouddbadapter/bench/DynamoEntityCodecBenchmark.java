@@ -0,0 +1,55 @@
+package rs.uns.ftn.clouddbadapter.bench;
+
+import org.openjdk.jmh.annotations.*;
+import rs.uns.ftn.clouddbadapter.entity.EntityMapper;
+import rs.uns.ftn.clouddbadapter.store.dynamo.DynamoEntityCodec;
+import rs.uns.ftn.clouddbadapter.store.dynamo.DynamoMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Entity <-> DynamoDB item: through an intermediate Map versus the direct codec. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamoEntityCodecBenchmark {
+
+    @Param({"reflective", "generated"})
+    public String mapping;
+
+    private Class<?> type;
+    private Object entity;
+    private Map<String, AttributeValue> item;
+
+    @Setup
+    public void setup() {
+        boolean generated = "generated".equals(mapping);
+        type = generated ? GeneratedBenchEntity.class : BenchEntity.class;
+        entity = generated ? GeneratedBenchEntity.sample(42) : BenchEntity.sample(42);
+        item = DynamoEntityCodec.toItem("id-42", entity);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> encodeViaMap() {
+        return DynamoMapper.toAttributes("id-42", EntityMapper.toMap(entity));
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> encodeDirect() {
+        return DynamoEntityCodec.toItem("id-42", entity);
+    }
+
+    @Benchmark
+    public Object decodeViaMap() {
+        return EntityMapper.fromMap(type, DynamoMapper.fromAttributes(item));
+    }
+
+    @Benchmark
+    public Object decodeDirect() {
+        return DynamoEntityCodec.fromItem(type, item);
+    }
+}
@@ -0,0 +1,56 @@
+package rs.uns.ftn.clouddbadapter.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import rs.uns.ftn.clouddbadapter.store.dynamo.DynamoMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Map <-> AttributeValue conversion on flat and deeply nested documents. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamoMapperBenchmark {
+
+    @Param({"flat", "nested"})
+    public String shape;
+
+    private Map<String, Object> document;
+    private Map<String, AttributeValue> item;
+
+    @Setup
+    public void setup() {
+        document = "flat".equals(shape) ? Documents.flat(20) : Documents.nested(5, 6);
+        item = DynamoMapper.toAttributes("id-1", document);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> toAttributes() {
+        return DynamoMapper.toAttributes("id-1", document);
+    }
+
+    @Benchmark
+    public Map<String, Object> fromAttributes() {
+        return DynamoMapper.fromAttributes(item);
+    }
+
+    /** Typical list/scan consumer: decode an item and read two of its fields. */
+    @Benchmark
+    public void fromAttributesReadTwo(Blackhole bh) {
+        Map<String, Object> doc = DynamoMapper.fromAttributes(item);
+        bh.consume(doc.get("s0"));
+        bh.consume(doc.get("i1"));
+    }
+
+    @Benchmark
+    public void lazyAttributesReadTwo(Blackhole bh) {
+        Map<String, Object> doc = DynamoMapper.lazyAttributes(item);
+        bh.consume(doc.get("s0"));
+        bh.consume(doc.get("i1"));
+    }
+}
@@ -0,0 +1,44 @@
+package rs.uns.ftn.clouddbadapter.bench;
+
+import org.openjdk.jmh.annotations.*;
+import rs.uns.ftn.clouddbadapter.orm.SimpleEntityManager;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimpleEntityManager save/find against {@link InMemoryStore}: mapping, validation and
+ * store plumbing without any network, i.e. the client-side overhead per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityManagerBenchmark {
+
+    private static final int ENTITIES = 1024;
+
+    private SimpleEntityManager em;
+    private BenchEntity[] entities;
+    private int next;
+
+    @Setup
+    public void setup() {
+        em = new SimpleEntityManager(new InMemoryStore());
+        entities = new BenchEntity[ENTITIES];
+        for (int i = 0; i < ENTITIES; i++) entities[i] = em.save(BenchEntity.sample(i));
+    }
+
+    @Benchmark
+    public BenchEntity save() {
+        return em.save(entities[next++ & (ENTITIES - 1)]);
+    }
+
+    @Benchmark
+    public Optional<BenchEntity> find() {
+        return em.find(BenchEntity.class, "id-" + (next++ & (ENTITIES - 1)));
+    }
+}
@@ -0,0 +1,45 @@
+package rs.uns.ftn.clouddbadapter.bench;
+
+import org.openjdk.jmh.annotations.*;
+import rs.uns.ftn.clouddbadapter.entity.EntityMapper;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POJO <-> Map mapping, run on every ORM save and find: reflective (cached MethodHandles)
+ * versus the mapper generated by the annotation processor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityMapperBenchmark {
+
+    @Param({"reflective", "generated"})
+    public String mapping;
+
+    private Class<?> type;
+    private Object entity;
+    private Map<String, Object> map;
+
+    @Setup
+    public void setup() {
+        boolean generated = "generated".equals(mapping);
+        type = generated ? GeneratedBenchEntity.class : BenchEntity.class;
+        entity = generated ? GeneratedBenchEntity.sample(42) : BenchEntity.sample(42);
+        map = EntityMapper.toMap(entity);
+    }
+
+    @Benchmark
+    public Map<String, Object> toMap() {
+        return EntityMapper.toMap(entity);
+    }
+
+    @Benchmark
+    public Object fromMap() {
+        return EntityMapper.fromMap(type, map);
+    }
+}
@@ -0,0 +1,36 @@
+package rs.uns.ftn.clouddbadapter.bench;
+
+import rs.uns.ftn.clouddbadapter.entity.Entity;
+import rs.uns.ftn.clouddbadapter.entity.Id;
+
+/**
+ * Same shape as {@link BenchEntity}, but with package-private fields so the annotation
+ * processor can generate a mapper for it (BenchEntity stays on the reflective path).
+ */
+@Entity(collection = "bench")
+public class GeneratedBenchEntity {
+    @Id
+    String id;
+    String name;
+    String email;
+    Integer age;
+    Long createdAt;
+    Boolean active;
+    String city;
+    String country;
+
+    public GeneratedBenchEntity() {}
+
+    public static GeneratedBenchEntity sample(int n) {
+        GeneratedBenchEntity e = new GeneratedBenchEntity();
+        e.id = "id-" + n;
+        e.name = "User " + n;
+        e.email = "user" + n + "@example.com";
+        e.age = 20 + n % 50;
+        e.createdAt = 1_700_000_000_000L + n;
+        e.active = n % 2 == 0;
+        e.city = "Novi Sad";
+        e.country = "RS";
+        return e;
+    }
+}
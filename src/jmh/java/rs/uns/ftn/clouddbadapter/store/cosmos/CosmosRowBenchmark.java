@@ -0,0 +1,59 @@
+package rs.uns.ftn.clouddbadapter.store.cosmos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import rs.uns.ftn.clouddbadapter.bench.Documents;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-row ObjectNode -> Map conversion done for every document CosmosAdapter lists
+ * or queries, read the way a typical caller does (two fields). Lives in the adapter's
+ * package to reach the package-private codec.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CosmosRowBenchmark {
+
+    @Param({"flat", "nested"})
+    public String shape;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ObjectNode row;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> doc = "flat".equals(shape) ? Documents.flat(20) : Documents.nested(5, 6);
+        row = mapper.valueToTree(doc);
+    }
+
+    /** The previous per-row conversion: a new ObjectMapper and a full copy for every row. */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void convertPerRowMapper(Blackhole bh) {
+        read(new ObjectMapper().convertValue(row, Map.class), bh);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void convertSharedMapper(Blackhole bh) {
+        read(mapper.convertValue(row, Map.class), bh);
+    }
+
+    @Benchmark
+    public void lazy(Blackhole bh) {
+        read(CosmosCodec.shared().lazy(row), bh);
+    }
+
+    private static void read(Map<String, Object> doc, Blackhole bh) {
+        bh.consume(doc.get("s0"));
+        bh.consume(doc.get("i1"));
+    }
+}
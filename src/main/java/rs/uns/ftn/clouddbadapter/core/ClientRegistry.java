@@ -0,0 +1,331 @@
+package rs.uns.ftn.clouddbadapter.core;
+
+import com.azure.cosmos.CosmosAsyncClient;
+import com.azure.cosmos.CosmosClient;
+import com.azure.cosmos.CosmosClientBuilder;
+import com.azure.cosmos.DirectConnectionConfig;
+import com.azure.cosmos.GatewayConnectionConfig;
+import com.google.api.gax.grpc.ChannelPoolSettings;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import rs.uns.ftn.clouddbadapter.store.AsyncDocumentStore;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.WarmableStore;
+import rs.uns.ftn.clouddbadapter.store.changes.ChangeFeed;
+import rs.uns.ftn.clouddbadapter.store.cosmos.CosmosAdapter;
+import rs.uns.ftn.clouddbadapter.store.cosmos.CosmosAsyncAdapter;
+import rs.uns.ftn.clouddbadapter.store.cosmos.CosmosChangeFeed;
+import rs.uns.ftn.clouddbadapter.store.dynamo.DynamoDbAdapter;
+import rs.uns.ftn.clouddbadapter.store.dynamo.DynamoDbAsyncAdapter;
+import rs.uns.ftn.clouddbadapter.store.dynamo.DynamoDbChangeFeed;
+import rs.uns.ftn.clouddbadapter.store.firestore.FirestoreAdapter;
+import rs.uns.ftn.clouddbadapter.store.firestore.FirestoreAsyncAdapter;
+import rs.uns.ftn.clouddbadapter.store.firestore.FirestoreChangeFeed;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares SDK clients and adapters: one client per provider and account, built with the
+ * pool size and timeouts of a {@link ClientSettings}. SDK clients are thread-safe and
+ * expensive (connection pools, TLS sessions, metadata caches, background threads), so an
+ * application should build each of them once; {@link DocumentStoreFactory} uses
+ * {@link #shared()}.
+ *
+ * Accounts are keyed by AWS region + access key + secret, Cosmos endpoint + key and GCP
+ * project id; secrets enter the key only as a SHA-256 fingerprint, so a rotated secret gets
+ * a new client instead of the one built with the old secret.
+ * Adapters returned by {@link #store} / {@link #asyncStore} are shared too, so their
+ * container/collection handle caches are reused by every caller.
+ *
+ * Typical startup:
+ *   ClientRegistry registry = ClientRegistry.shared();
+ *   DocumentStore store = registry.store(Provider.AZURE);
+ *   ClientRegistry.warmUp(store, List.of("users", "orders"));   // before taking traffic
+ */
+public final class ClientRegistry implements AutoCloseable {
+
+    /** Cosmos does not accept a network request timeout above 10 seconds. */
+    private static final Duration MAX_COSMOS_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private record Key(String kind, String account) {}
+
+    private static final class Holder {
+        static final ClientRegistry SHARED = new ClientRegistry(ClientSettings.fromEnv());
+    }
+
+    private final ClientSettings settings;
+    private final Map<Key, Object> instances = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public ClientRegistry(ClientSettings settings) {
+        this.settings = settings;
+    }
+
+    /** Process-wide registry configured from ENV (see {@link ClientSettings#fromEnv()}). */
+    public static ClientRegistry shared() {
+        return Holder.SHARED;
+    }
+
+    public ClientSettings settings() {
+        return settings;
+    }
+
+    // ==== adapters ====
+
+    /** Shared adapter for the provider's default account (same ENV as the adapters' no-arg constructors). */
+    public DocumentStore store(Provider p) {
+        // the client is resolved first: computeIfAbsent must not nest another lookup
+        return switch (p) {
+            case AWS -> {
+                DynamoDbClient c = dynamo();
+                yield get(new Key("store", "aws"), () -> new DynamoDbAdapter(c));
+            }
+            case GCP -> {
+                Firestore c = firestore();
+                yield get(new Key("store", "gcp"), () -> new FirestoreAdapter(c));
+            }
+            case AZURE -> {
+                CosmosClient c = cosmos();
+                yield get(new Key("store", "azure"), () -> new CosmosAdapter(c, cosmosDatabase()));
+            }
+        };
+    }
+
+    /** Shared non-blocking adapter for the provider's default account. */
+    public AsyncDocumentStore asyncStore(Provider p) {
+        return switch (p) {
+            case AWS -> {
+                DynamoDbAsyncClient c = dynamoAsync();
+                yield get(new Key("async-store", "aws"), () -> new DynamoDbAsyncAdapter(c));
+            }
+            case GCP -> {
+                Firestore c = firestore();
+                yield get(new Key("async-store", "gcp"), () -> new FirestoreAsyncAdapter(c));
+            }
+            case AZURE -> {
+                CosmosAsyncClient c = cosmosAsync();
+                yield get(new Key("async-store", "azure"), () -> new CosmosAsyncAdapter(c, cosmosDatabase()));
+            }
+        };
+    }
+
+    /** Shared change feed for the provider's default account (see {@link ChangeFeed}). */
+    public ChangeFeed changeFeed(Provider p) {
+        return switch (p) {
+            case AWS -> {
+                DynamoDbClient c = dynamo();
+                DynamoDbStreamsClient s = dynamoStreams();
+                yield get(new Key("changes", "aws"), () -> new DynamoDbChangeFeed(c, s));
+            }
+            case GCP -> {
+                Firestore c = firestore();
+                yield get(new Key("changes", "gcp"), () -> new FirestoreChangeFeed(c));
+            }
+            case AZURE -> {
+                CosmosClient c = cosmos();
+                yield get(new Key("changes", "azure"), () -> new CosmosChangeFeed(c, cosmosDatabase()));
+            }
+        };
+    }
+
+    /**
+     * Opens connections and primes metadata for the given collections (see {@link WarmableStore}).
+     * Stores that cannot be warmed up (custom implementations) are left alone.
+     */
+    public static void warmUp(Object store, Collection<String> collections) {
+        if (store instanceof WarmableStore w) w.warmUp(collections);
+    }
+
+    // ==== DynamoDB ====
+
+    /** Client for AWS_REGION with AWS_ACCESS_KEY_ID / AWS_SECRET_ACCESS_KEY, as {@link DynamoDbAdapter#defaultClient()}. */
+    public DynamoDbClient dynamo() {
+        return dynamo(env("AWS_REGION", "us-east-1"), env("AWS_ACCESS_KEY_ID", "dummy"), env("AWS_SECRET_ACCESS_KEY", "dummy"));
+    }
+
+    public DynamoDbClient dynamo(String region, String accessKey, String secretKey) {
+        return get(new Key("dynamo", region + "/" + accessKey + "/" + fingerprint(secretKey)), () -> DynamoDbClient.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .region(Region.of(region))
+                .httpClientBuilder(settings.awsHttpClient() != null ? settings.awsHttpClient() : ApacheHttpClient.builder()
+                        .maxConnections(settings.maxConnections())
+                        .connectionTimeout(settings.connectTimeout())
+                        .socketTimeout(settings.requestTimeout())
+                        .connectionAcquisitionTimeout(settings.acquireTimeout())
+                        .connectionMaxIdleTime(settings.idleTimeout())
+                        .tcpKeepAlive(true))
+                .overrideConfiguration(o -> o.apiCallAttemptTimeout(settings.requestTimeout()))
+                .build());
+    }
+
+    public DynamoDbAsyncClient dynamoAsync() {
+        return dynamoAsync(env("AWS_REGION", "us-east-1"), env("AWS_ACCESS_KEY_ID", "dummy"), env("AWS_SECRET_ACCESS_KEY", "dummy"));
+    }
+
+    public DynamoDbAsyncClient dynamoAsync(String region, String accessKey, String secretKey) {
+        return get(new Key("dynamo-async", region + "/" + accessKey + "/" + fingerprint(secretKey)), () -> DynamoDbAsyncClient.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .region(Region.of(region))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(settings.maxConnections())
+                        .connectionTimeout(settings.connectTimeout())
+                        .readTimeout(settings.requestTimeout())
+                        .connectionAcquisitionTimeout(settings.acquireTimeout())
+                        .connectionMaxIdleTime(settings.idleTimeout())
+                        .tcpKeepAlive(true))
+                .overrideConfiguration(o -> o.apiCallAttemptTimeout(settings.requestTimeout()))
+                .build());
+    }
+
+    /** Streams client for the same account as {@link #dynamo()}, used by the change feed. */
+    public DynamoDbStreamsClient dynamoStreams() {
+        return dynamoStreams(env("AWS_REGION", "us-east-1"), env("AWS_ACCESS_KEY_ID", "dummy"), env("AWS_SECRET_ACCESS_KEY", "dummy"));
+    }
+
+    public DynamoDbStreamsClient dynamoStreams(String region, String accessKey, String secretKey) {
+        return get(new Key("dynamo-streams", region + "/" + accessKey + "/" + fingerprint(secretKey)), () -> DynamoDbStreamsClient.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .region(Region.of(region))
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(settings.maxConnections())
+                        .connectionTimeout(settings.connectTimeout())
+                        .socketTimeout(settings.requestTimeout())
+                        .connectionAcquisitionTimeout(settings.acquireTimeout())
+                        .connectionMaxIdleTime(settings.idleTimeout())
+                        .tcpKeepAlive(true))
+                .overrideConfiguration(o -> o.apiCallAttemptTimeout(settings.requestTimeout()))
+                .build());
+    }
+
+    // ==== Cosmos ====
+
+    /** Client for AZURE_COSMOS_ENDPOINT / AZURE_COSMOS_KEY, as {@link CosmosAdapter#CosmosAdapter()}. */
+    public CosmosClient cosmos() {
+        return cosmos(cosmosEnv("AZURE_COSMOS_ENDPOINT"), cosmosEnv("AZURE_COSMOS_KEY"));
+    }
+
+    public CosmosClient cosmos(String endpoint, String key) {
+        return get(new Key("cosmos", endpoint + "/" + fingerprint(key)), () -> cosmosBuilder(endpoint, key).buildClient());
+    }
+
+    public CosmosAsyncClient cosmosAsync() {
+        return cosmosAsync(cosmosEnv("AZURE_COSMOS_ENDPOINT"), cosmosEnv("AZURE_COSMOS_KEY"));
+    }
+
+    public CosmosAsyncClient cosmosAsync(String endpoint, String key) {
+        return get(new Key("cosmos-async", endpoint + "/" + fingerprint(key)), () -> cosmosBuilder(endpoint, key).buildAsyncClient());
+    }
+
+    private CosmosClientBuilder cosmosBuilder(String endpoint, String key) {
+        CosmosClientBuilder b = new CosmosClientBuilder().endpoint(endpoint).key(key);
+        if (settings.cosmosDirectMode()) {
+            Duration requestTimeout = settings.requestTimeout().compareTo(MAX_COSMOS_REQUEST_TIMEOUT) > 0
+                    ? MAX_COSMOS_REQUEST_TIMEOUT : settings.requestTimeout();
+            return b.directMode(DirectConnectionConfig.getDefaultConfig()
+                    .setMaxConnectionsPerEndpoint(settings.maxConnections())
+                    .setConnectTimeout(settings.connectTimeout())
+                    .setIdleConnectionTimeout(settings.idleTimeout())
+                    .setNetworkRequestTimeout(requestTimeout));
+        }
+        // Gateway mode is the default: plain HTTPS, works with the emulator and behind firewalls
+        return b.gatewayMode(GatewayConnectionConfig.getDefaultConfig()
+                .setMaxConnectionPoolSize(settings.maxConnections())
+                .setIdleConnectionTimeout(settings.idleTimeout()));
+    }
+
+    private static String cosmosDatabase() {
+        return env("COSMOS_DB", "appdb");
+    }
+
+    private static String cosmosEnv(String name) {
+        String v = System.getenv(name);
+        if (v == null || v.isBlank()) {
+            throw new IllegalArgumentException("AZURE_COSMOS_ENDPOINT and AZURE_COSMOS_KEY must be set");
+        }
+        return v;
+    }
+
+    // ==== Firestore ====
+
+    /** Client for the default project (GOOGLE_APPLICATION_CREDENTIALS / environment). */
+    public Firestore firestore() {
+        return firestore(null);
+    }
+
+    /** @param projectId GCP project, or null for the environment's default project. */
+    public Firestore firestore(String projectId) {
+        return get(new Key("firestore", String.valueOf(projectId)), () -> {
+            FirestoreOptions.Builder b = FirestoreOptions.getDefaultInstance().toBuilder();
+            if (projectId != null) b.setProjectId(projectId);
+            // the emulator needs the plaintext channel the default options set up
+            if (settings.firestoreChannels() > 0 && System.getenv("FIRESTORE_EMULATOR_HOST") == null) {
+                b.setChannelProvider(FirestoreOptions.getDefaultTransportChannelProviderBuilder()
+                        .setChannelPoolSettings(ChannelPoolSettings.staticallySized(settings.firestoreChannels()))
+                        .build());
+            }
+            return b.build().getService();
+        });
+    }
+
+    // ==== lifecycle ====
+
+    /** Closes every client built by this registry. Further lookups fail. */
+    @Override
+    public void close() {
+        closed = true;
+        List<Exception> errors = new ArrayList<>();
+        for (Object o : instances.values()) {
+            if (!(o instanceof AutoCloseable c) || o instanceof DocumentStore || o instanceof AsyncDocumentStore) continue;
+            try {
+                c.close();
+            } catch (Exception e) {
+                errors.add(e);
+            }
+        }
+        instances.clear();
+        if (!errors.isEmpty()) {
+            IllegalStateException e = new IllegalStateException("Failed to close " + errors.size() + " client(s)", errors.get(0));
+            errors.subList(1, errors.size()).forEach(e::addSuppressed);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Key key, Supplier<T> factory) {
+        if (closed) throw new IllegalStateException("ClientRegistry is closed");
+        Object v = instances.get(key);
+        return (T) (v != null ? v : instances.computeIfAbsent(key, k -> factory.get()));
+    }
+
+    /** SHA-256 of a secret, so registry keys tell credentials apart without holding them. */
+    private static String fingerprint(String secret) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(String.valueOf(secret).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private static String env(String name, String def) {
+        return System.getenv().getOrDefault(name, def);
+    }
+}
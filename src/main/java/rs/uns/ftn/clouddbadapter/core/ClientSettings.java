@@ -0,0 +1,203 @@
+package rs.uns.ftn.clouddbadapter.core;
+
+import software.amazon.awssdk.http.SdkHttpClient;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Connection settings applied by {@link ClientRegistry} when it builds SDK clients.
+ *
+ * The same pool size and timeouts are mapped onto each provider's transport:
+ *  - DynamoDB: Apache HTTP client (sync) / Netty (async) connection pool, plus SDK call timeouts
+ *  - Cosmos:   gateway pool size, or direct-mode (TCP) connections per endpoint
+ *  - Firestore: number of gRPC channels
+ *
+ * Example:
+ *   ClientSettings s = ClientSettings.builder()
+ *       .maxConnections(200)
+ *       .requestTimeout(Duration.ofSeconds(3))
+ *       .cosmosDirectMode(true)
+ *       .build();
+ */
+public final class ClientSettings {
+
+    private final int maxConnections;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final Duration acquireTimeout;
+    private final Duration idleTimeout;
+    private final boolean cosmosDirectMode;
+    private final int firestoreChannels;
+    private final SdkHttpClient.Builder<?> awsHttpClient;
+
+    private ClientSettings(Builder b) {
+        this.maxConnections = b.maxConnections;
+        this.connectTimeout = b.connectTimeout;
+        this.requestTimeout = b.requestTimeout;
+        this.acquireTimeout = b.acquireTimeout;
+        this.idleTimeout = b.idleTimeout;
+        this.cosmosDirectMode = b.cosmosDirectMode;
+        this.firestoreChannels = b.firestoreChannels;
+        this.awsHttpClient = b.awsHttpClient;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** SDK-friendly defaults. */
+    public static ClientSettings defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Defaults overridden from ENV (unset variables keep the default):
+     *  - DB_MAX_CONNECTIONS      pool size per client
+     *  - DB_CONNECT_TIMEOUT_MS   TCP/TLS connect timeout
+     *  - DB_REQUEST_TIMEOUT_MS   timeout of one request attempt
+     *  - COSMOS_CONNECTION_MODE  gateway (default, works with the emulator) | direct
+     *  - FIRESTORE_CHANNELS      gRPC channel pool size (0 = SDK default)
+     */
+    public static ClientSettings fromEnv() {
+        Builder b = builder();
+        String v;
+        if ((v = System.getenv("DB_MAX_CONNECTIONS")) != null && !v.isBlank()) b.maxConnections(Integer.parseInt(v.trim()));
+        if ((v = System.getenv("DB_CONNECT_TIMEOUT_MS")) != null && !v.isBlank()) b.connectTimeout(Duration.ofMillis(Long.parseLong(v.trim())));
+        if ((v = System.getenv("DB_REQUEST_TIMEOUT_MS")) != null && !v.isBlank()) b.requestTimeout(Duration.ofMillis(Long.parseLong(v.trim())));
+        if ((v = System.getenv("COSMOS_CONNECTION_MODE")) != null && !v.isBlank()) {
+            b.cosmosDirectMode(switch (v.trim().toLowerCase()) {
+                case "direct" -> true;
+                case "gateway" -> false;
+                default -> throw new IllegalArgumentException("Unknown COSMOS_CONNECTION_MODE: " + v);
+            });
+        }
+        if ((v = System.getenv("FIRESTORE_CHANNELS")) != null && !v.isBlank()) b.firestoreChannels(Integer.parseInt(v.trim()));
+        return b.build();
+    }
+
+    /** Maximum pooled connections per client (per endpoint in Cosmos direct mode). */
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    public Duration connectTimeout() {
+        return connectTimeout;
+    }
+
+    /** Timeout of a single request attempt (socket read / network request timeout). */
+    public Duration requestTimeout() {
+        return requestTimeout;
+    }
+
+    /** How long a caller waits for a free pooled connection before failing. */
+    public Duration acquireTimeout() {
+        return acquireTimeout;
+    }
+
+    /** Pooled connections idle for longer than this are closed. */
+    public Duration idleTimeout() {
+        return idleTimeout;
+    }
+
+    public boolean cosmosDirectMode() {
+        return cosmosDirectMode;
+    }
+
+    /** gRPC channels per Firestore client; 0 keeps the SDK default. */
+    public int firestoreChannels() {
+        return firestoreChannels;
+    }
+
+    /** Custom transport for the sync DynamoDB client, or null for the tuned Apache client. */
+    public SdkHttpClient.Builder<?> awsHttpClient() {
+        return awsHttpClient;
+    }
+
+    @Override
+    public String toString() {
+        return "ClientSettings{maxConnections=" + maxConnections
+                + ", connectTimeout=" + connectTimeout
+                + ", requestTimeout=" + requestTimeout
+                + ", acquireTimeout=" + acquireTimeout
+                + ", idleTimeout=" + idleTimeout
+                + ", cosmosDirectMode=" + cosmosDirectMode
+                + ", firestoreChannels=" + firestoreChannels
+                + ", awsHttpClient=" + (awsHttpClient == null ? "apache" : awsHttpClient.getClass().getSimpleName())
+                + '}';
+    }
+
+    public static final class Builder {
+        private int maxConnections = 50;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration requestTimeout = Duration.ofSeconds(5);
+        private Duration acquireTimeout = Duration.ofSeconds(2);
+        private Duration idleTimeout = Duration.ofMinutes(1);
+        private boolean cosmosDirectMode;
+        private int firestoreChannels;
+        private SdkHttpClient.Builder<?> awsHttpClient;
+
+        private Builder() {}
+
+        public Builder maxConnections(int n) {
+            if (n <= 0) throw new IllegalArgumentException("maxConnections must be positive");
+            this.maxConnections = n;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration d) {
+            this.connectTimeout = positive(d);
+            return this;
+        }
+
+        public Builder requestTimeout(Duration d) {
+            this.requestTimeout = positive(d);
+            return this;
+        }
+
+        public Builder acquireTimeout(Duration d) {
+            this.acquireTimeout = positive(d);
+            return this;
+        }
+
+        public Builder idleTimeout(Duration d) {
+            this.idleTimeout = positive(d);
+            return this;
+        }
+
+        /**
+         * Direct mode talks TCP to the replicas instead of HTTPS through the gateway:
+         * one hop less per request, but needs open ports 10000-20000 (not the emulator default).
+         */
+        public Builder cosmosDirectMode(boolean direct) {
+            this.cosmosDirectMode = direct;
+            return this;
+        }
+
+        public Builder firestoreChannels(int n) {
+            if (n < 0) throw new IllegalArgumentException("firestoreChannels must be >= 0");
+            this.firestoreChannels = n;
+            return this;
+        }
+
+        /**
+         * Replaces the Apache transport of the sync DynamoDB client, e.g. with
+         * UrlConnectionHttpClient.builder() or AwsCrtHttpClient.builder() (their artifacts must
+         * be on the classpath). The builder is used as is: pool and timeouts are not applied to it.
+         */
+        public Builder awsHttpClient(SdkHttpClient.Builder<?> builder) {
+            this.awsHttpClient = builder;
+            return this;
+        }
+
+        public ClientSettings build() {
+            return new ClientSettings(this);
+        }
+
+        private static Duration positive(Duration d) {
+            Objects.requireNonNull(d, "duration");
+            if (d.isNegative() || d.isZero()) throw new IllegalArgumentException("duration must be positive");
+            return d;
+        }
+    }
+}
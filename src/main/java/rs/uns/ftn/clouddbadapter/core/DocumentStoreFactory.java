@@ -1,9 +1,8 @@
 package rs.uns.ftn.clouddbadapter.core;
 
+import rs.uns.ftn.clouddbadapter.store.AsyncDocumentStore;
 import rs.uns.ftn.clouddbadapter.store.DocumentStore;
-import rs.uns.ftn.clouddbadapter.store.dynamo.DynamoDbAdapter;
-import rs.uns.ftn.clouddbadapter.store.firestore.FirestoreAdapter;
-import rs.uns.ftn.clouddbadapter.store.cosmos.CosmosAdapter;
+import rs.uns.ftn.clouddbadapter.store.changes.ChangeFeed;
 
 /**
  * Chooses a concrete adapter based on CLOUD_PROVIDER env var or parameter: aws | gcp | azure.
@@ -22,15 +21,55 @@ public final class DocumentStoreFactory {
 
 
     /**
-     * Creates a DocumentStore instance for the given provider enum value.
+     * Returns the DocumentStore for the given provider enum value. Adapters and their SDK clients
+     * come from {@link ClientRegistry#shared()}, so repeated calls share one client per account.
+     *
+     * The result is a process-wide singleton: every call for the same provider returns the same
+     * adapter, configured once from ENV for the life of the process, and state kept in it
+     * (handle caches, open connections) is shared by all its callers. Do not close it or its
+     * client; build a separate {@link ClientRegistry} for an instance of your own.
      * @param p the cloud provider enum value (AWS, GCP, AZURE)
      * @return concrete adapter implementing DocumentStore
      */
     public static DocumentStore from(Provider p) {
-        return switch (p) {
-            case AWS   -> new DynamoDbAdapter();
-            case GCP   -> new FirestoreAdapter();
-            case AZURE -> new CosmosAdapter();
-        };
+        return ClientRegistry.shared().store(p);
+    }
+
+    /**
+     * Returns a non-blocking AsyncDocumentStore for the provider configured via CLOUD_PROVIDER (default 'aws').
+     * @throws IllegalArgumentException if the provider value is unrecognized.
+     */
+    public static AsyncDocumentStore asyncFromEnv() {
+        String p = System.getenv().getOrDefault("CLOUD_PROVIDER", "aws");
+        return asyncFrom(Provider.parse(p));
+    }
+
+    /**
+     * Returns a non-blocking AsyncDocumentStore backed by the provider's shared async client
+     * (see {@link ClientRegistry#shared()}); like {@link #from}, a process-wide singleton.
+     * @param p the cloud provider enum value (AWS, GCP, AZURE)
+     * @return concrete async adapter implementing AsyncDocumentStore
+     */
+    public static AsyncDocumentStore asyncFrom(Provider p) {
+        return ClientRegistry.shared().asyncStore(p);
+    }
+
+    /**
+     * Returns the change feed for the provider configured via CLOUD_PROVIDER (default 'aws').
+     * @throws IllegalArgumentException if the provider value is unrecognized.
+     */
+    public static ChangeFeed changeFeedFromEnv() {
+        String p = System.getenv().getOrDefault("CLOUD_PROVIDER", "aws");
+        return changeFeedFrom(Provider.parse(p));
+    }
+
+    /**
+     * Returns the provider's native change feed (DynamoDB Streams, Cosmos change feed,
+     * Firestore listener), sharing the clients of {@link ClientRegistry#shared()}; like
+     * {@link #from}, a process-wide singleton.
+     * @param p the cloud provider enum value (AWS, GCP, AZURE)
+     */
+    public static ChangeFeed changeFeedFrom(Provider p) {
+        return ClientRegistry.shared().changeFeed(p);
     }
 }
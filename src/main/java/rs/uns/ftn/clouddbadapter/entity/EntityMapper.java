@@ -1,13 +1,16 @@
 package rs.uns.ftn.clouddbadapter.entity;
 
 
-import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.Set;
 
 /**
  * Reflection helper for mapping annotated entities (<@Entity>, <@Id>)
  * to and from plain Map<String,Object>.
+ * Class metadata is resolved once per class (see EntityMetadata) and reused.
  */
 public final class EntityMapper {
 
@@ -15,71 +18,138 @@ public final class EntityMapper {
 
     /** Returns the collection name for the given class. */
     public static String collection(Class<?> type) {
-        Entity ann = type.getAnnotation(Entity.class);
-        if (ann == null)
+        String collection = EntityMetadata.of(type).collection;
+        if (collection == null)
             throw new IllegalArgumentException("Missing @Entity on " + type.getName());
-        return ann.collection();
+        return collection;
     }
 
-    /** Returns the ID field for this type (field annotated with @Id), or throws. */
-    private static Field idField(Class<?> type) {
-        for (Field f : type.getDeclaredFields()) {
-            if (f.isAnnotationPresent(Id.class)) {
-                f.setAccessible(true);
-                return f;
-            }
-        }
-        throw new IllegalStateException("No @Id field in " + type.getName());
+    /** Returns the ID property for this type (field annotated with @Id), or throws. */
+    private static EntityMetadata.Property idProperty(Class<?> type) {
+        EntityMetadata.Property id = EntityMetadata.of(type).id;
+        if (id == null) throw new IllegalStateException("No @Id field in " + type.getName());
+        return id;
     }
 
     /** Reads the ID value from the entity, or null if none. */
     public static String idValue(Object entity) {
+        EntityMetadata meta = EntityMetadata.of(entity.getClass());
+        if (meta.mapper != null) return meta.mapper.idValue(entity);
         try {
-            Field f = idField(entity.getClass());
-            Object v = f.get(entity);
+            Object v = idProperty(entity.getClass()).get(entity);
             return v != null ? v.toString() : null;
         } catch (Exception e) {
             throw new RuntimeException("Cannot get id", e);
         }
     }
 
-    /** Sets the ID field of the entity. */
+    /** Sets the ID field of the entity; a null id leaves a primitive field unchanged. */
     public static void setId(Object entity, String id) {
+        EntityMetadata meta = EntityMetadata.of(entity.getClass());
+        if (meta.mapper != null) {
+            meta.mapper.setId(entity, id);
+            return;
+        }
         try {
-            Field f = idField(entity.getClass());
-            f.set(entity, id);
+            EntityMetadata.Property p = idProperty(entity.getClass());
+            if (id == null && p.type.isPrimitive()) return;
+            p.set(entity, coerce(id, p.type));
         } catch (Exception e) {
             throw new RuntimeException("Cannot set id", e);
         }
     }
 
+    /** True if the type has a @Version field. */
+    public static boolean isVersioned(Class<?> type) {
+        EntityMetadata meta = EntityMetadata.of(type);
+        return meta.mapper != null ? meta.mapper.versioned() : meta.version != null;
+    }
+
+    /** Reads the version token from the entity, or null if none. */
+    public static String versionValue(Object entity) {
+        EntityMetadata meta = EntityMetadata.of(entity.getClass());
+        if (meta.mapper != null) return meta.mapper.versionValue(entity);
+        EntityMetadata.Property version = meta.version;
+        if (version == null) return null;
+        Object v = version.get(entity);
+        return v != null ? v.toString() : null;
+    }
+
+    /** Sets the @Version field of the entity (no-op if it has none). */
+    public static void setVersion(Object entity, String version) {
+        EntityMetadata meta = EntityMetadata.of(entity.getClass());
+        if (meta.mapper != null) {
+            meta.mapper.setVersion(entity, version);
+            return;
+        }
+        EntityMetadata.Property p = meta.version;
+        if (p != null && (version != null || !p.type.isPrimitive())) p.set(entity, coerce(version, p.type));
+    }
+
+    /** Returns the names of the instance fields of the given class (used as a projection field set). */
+    public static Set<String> fieldNames(Class<?> type) {
+        return EntityMetadata.of(type).fieldNames;
+    }
+
     /** Converts entity to a simple map. */
     public static Map<String, Object> toMap(Object entity) {
-        Map<String, Object> m = new HashMap<>();
-        for (Field f : entity.getClass().getDeclaredFields()) {
-            try {
-                f.setAccessible(true);
-                Object v = f.get(entity);
-                if (v != null) m.put(f.getName(), v);
-            } catch (Exception ignore) {}
+        EntityMetadata meta = EntityMetadata.of(entity.getClass());
+        if (meta.mapper != null) return meta.mapper.toMap(entity);
+        Map<String, Object> m = new HashMap<>(meta.properties.size() * 4 / 3 + 1);
+        for (EntityMetadata.Property p : meta.properties) {
+            Object v = p.get(entity);
+            if (v != null) m.put(p.name, v);
         }
         return m;
     }
 
+    /**
+     * Passes each non-null field (the entries toMap would produce) to 'sink', so store codecs
+     * can write their native representation without an intermediate Map.
+     */
+    public static void forEachField(Object entity, BiConsumer<String, Object> sink) {
+        EntityMetadata meta = EntityMetadata.of(entity.getClass());
+        if (meta.mapper != null) {
+            meta.mapper.forEachField(entity, sink);
+            return;
+        }
+        for (EntityMetadata.Property p : meta.properties) {
+            Object v = p.get(entity);
+            if (v != null) sink.accept(p.name, v);
+        }
+    }
+
     /** Creates an entity instance from a map. */
     @SuppressWarnings("unchecked")
     public static <T> T fromMap(Class<T> type, Map<String, Object> m) {
+        EntityMetadata meta = EntityMetadata.of(type);
+        if (meta.mapper != null) return (T) meta.mapper.fromMap(m);
+        return fromMap(type, m, Function.identity());
+    }
+
+    /**
+     * Creates an entity instance from store-native values (e.g. DynamoDB AttributeValues),
+     * decoding only the fields the entity has, straight into the instance.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, V> T fromMap(Class<T> type, Map<String, V> m, Function<? super V, Object> decode) {
+        EntityMetadata meta = EntityMetadata.of(type);
+        if (meta.mapper != null) return (T) meta.mapper.fromMap(m, decode);
         try {
-            T obj = type.getDeclaredConstructor().newInstance();
-            for (Field f : type.getDeclaredFields()) {
-                if (m.containsKey(f.getName())) {
-                    f.setAccessible(true);
-                    Object val = m.get(f.getName());
-                    if (val != null && !f.getType().isAssignableFrom(val.getClass())) {
-                        val = convert(val, f.getType());
-                    }
-                    f.set(obj, val);
+            if (meta.record) {
+                Object[] values = new Object[meta.properties.size()];
+                for (int i = 0; i < values.length; i++) {
+                    EntityMetadata.Property p = meta.properties.get(i);
+                    V raw = m.get(p.name);
+                    values[i] = raw == null ? null : coerce(decode.apply(raw), p.type);
                 }
+                return (T) meta.newRecord(values);
+            }
+            T obj = (T) meta.newInstance();
+            for (EntityMetadata.Property p : meta.properties) {
+                V raw = m.get(p.name);
+                if (raw == null && !m.containsKey(p.name)) continue;
+                p.set(obj, coerce(raw == null ? null : decode.apply(raw), p.type));
             }
             return obj;
         } catch (Exception e) {
@@ -87,11 +157,21 @@ public final class EntityMapper {
         }
     }
 
+    /**
+     * Converts a stored value to a field type (stores return e.g. Long or String for numbers).
+     * Public because generated mappers share it with the reflective path.
+     */
+    public static Object coerce(Object v, Class<?> target) {
+        if (v == null || target.isInstance(v)) return v;
+        return convert(v, target);
+    }
+
     private static Object convert(Object v, Class<?> target) {
         if (v == null) return null;
         if (target == String.class) return v.toString();
         if (target == int.class || target == Integer.class) return Integer.parseInt(v.toString());
         if (target == long.class || target == Long.class) return Long.parseLong(v.toString());
+        if (target == double.class || target == Double.class) return Double.parseDouble(v.toString());
         if (target == boolean.class || target == Boolean.class) return Boolean.parseBoolean(v.toString());
         return v;
     }
@@ -0,0 +1,241 @@
+package rs.uns.ftn.clouddbadapter.entity;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-class mapping metadata, built once and cached in a ClassValue (so it is unloaded
+ * together with the class). When the annotation processor generated a mapper for the class
+ * it is used as is and no reflection happens at all. Otherwise field reads/writes and
+ * instantiation go through MethodHandles adapted to Object signatures, so the hot path
+ * does no getDeclaredFields(), setAccessible() or annotation lookups.
+ *
+ * Records are read through their accessors and created through the canonical constructor,
+ * with every component passed at once; they cannot have a @Version (it is set after the
+ * entity is built) and their id cannot be generated on save.
+ */
+final class EntityMetadata {
+
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType FACTORY = MethodType.methodType(Object.class);
+
+    private static final ClassValue<EntityMetadata> CACHE = new ClassValue<>() {
+        @Override
+        protected EntityMetadata computeValue(Class<?> type) {
+            return new EntityMetadata(type);
+        }
+    };
+
+    /** One mapped instance field or record component. */
+    static final class Property {
+        final String name;
+        final Class<?> type;
+        private final Class<?> owner;
+        private final MethodHandle getter;
+        /** Null for a record component. */
+        private final MethodHandle setter;
+
+        private Property(Field f, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            f.setAccessible(true);
+            this.name = f.getName();
+            this.type = f.getType();
+            this.owner = f.getDeclaringClass();
+            this.getter = lookup.unreflectGetter(f).asType(GETTER);
+            this.setter = lookup.unreflectSetter(f).asType(SETTER);
+        }
+
+        private Property(RecordComponent c, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            c.getAccessor().setAccessible(true);
+            this.name = c.getName();
+            this.type = c.getType();
+            this.owner = c.getDeclaringRecord();
+            this.getter = lookup.unreflect(c.getAccessor()).asType(GETTER);
+            this.setter = null;
+        }
+
+        Object get(Object target) {
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw new RuntimeException("Cannot read " + name, t);
+            }
+        }
+
+        void set(Object target, Object value) {
+            if (setter == null) throw new UnsupportedOperationException("Cannot write " + name + " of record " + owner.getName());
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw new RuntimeException("Cannot write " + name, t);
+            }
+        }
+    }
+
+    final Class<?> type;
+    /** Compile-time generated mapper, or null (then the reflective fields below are used). */
+    final GeneratedMapper<Object> mapper;
+    /** Collection from @Entity, or null (projection classes need no annotation). */
+    final String collection;
+    /** Regular fields: everything except @Version, in declaration order. */
+    final List<Property> properties;
+    /** The @Id field, or null. */
+    final Property id;
+    /** The @Version field, or null. */
+    final Property version;
+    /** Names of all mapped fields including @Id (used as a projection field set). */
+    final Set<String> fieldNames;
+    /** True for a record: built by {@link #newRecord} from all 'properties' at once. */
+    final boolean record;
+    /**
+     * No-arg constructor adapted to ()Object, or for a record the canonical constructor
+     * adapted to (Object[])Object; null if the class has none.
+     */
+    private final MethodHandle factory;
+    /** A record's component defaults (0, false) for components missing from a document. */
+    private final Object[] defaults;
+
+    private EntityMetadata(Class<?> type) {
+        this.type = type;
+        Entity entity = type.getAnnotation(Entity.class);
+        this.mapper = entity != null ? generatedMapper(type) : null;
+        if (mapper != null) {
+            this.collection = mapper.collection();
+            this.properties = List.of();
+            this.id = null;
+            this.version = null;
+            this.fieldNames = mapper.fieldNames();
+            this.record = false;
+            this.factory = null;
+            this.defaults = null;
+            return;
+        }
+        this.collection = entity != null ? entity.collection() : null;
+        this.record = type.isRecord();
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<Property> props = new ArrayList<>();
+        Set<String> names = new LinkedHashSet<>();
+        Property idProp = null;
+        Property versionProp = null;
+        try {
+            if (record) {
+                for (RecordComponent c : type.getRecordComponents()) {
+                    Field f = type.getDeclaredField(c.getName());
+                    if (f.isAnnotationPresent(Version.class)) {
+                        throw new IllegalStateException("@Version on record " + type.getName() + " is not supported: records are immutable");
+                    }
+                    Property p = new Property(c, lookup);
+                    if (idProp == null && f.isAnnotationPresent(Id.class)) idProp = p;
+                    props.add(p);
+                    names.add(p.name);
+                }
+            } else {
+                for (Field f : type.getDeclaredFields()) {
+                    if (Modifier.isStatic(f.getModifiers()) || f.isSynthetic()) continue;
+                    Property p = new Property(f, lookup);
+                    if (f.isAnnotationPresent(Version.class)) {
+                        if (versionProp == null) versionProp = p;
+                        continue; // kept by the store, not as a document field
+                    }
+                    if (idProp == null && f.isAnnotationPresent(Id.class)) idProp = p;
+                    props.add(p);
+                    names.add(p.name);
+                }
+            }
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            throw new IllegalStateException("Cannot access fields of " + type.getName(), e);
+        }
+        this.properties = List.copyOf(props);
+        this.id = idProp;
+        this.version = versionProp;
+        this.fieldNames = Collections.unmodifiableSet(names);
+        this.factory = record ? canonicalConstructor(type, lookup) : factory(type, lookup);
+        this.defaults = record ? props.stream().map(p -> p.type.isPrimitive() ? Array.get(Array.newInstance(p.type, 1), 0) : null).toArray() : null;
+    }
+
+    /** Loads {@code <pkg>.<Outer_Inner>_Mapper} if the processor generated one. */
+    @SuppressWarnings("unchecked")
+    private static GeneratedMapper<Object> generatedMapper(Class<?> type) {
+        String pkg = type.getPackageName();
+        String simple = pkg.isEmpty() ? type.getName() : type.getName().substring(pkg.length() + 1);
+        String name = (pkg.isEmpty() ? "" : pkg + ".") + simple.replace('$', '_') + GeneratedMapper.SUFFIX;
+        try {
+            Class<?> c = Class.forName(name, true, type.getClassLoader());
+            if (!GeneratedMapper.class.isAssignableFrom(c)) return null;
+            return (GeneratedMapper<Object>) c.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null; // stale or broken generated class: the reflective path still works
+        }
+    }
+
+    private static MethodHandle factory(Class<?> type, MethodHandles.Lookup lookup) {
+        if (Modifier.isAbstract(type.getModifiers()) || type.isInterface()) return null;
+        try {
+            Constructor<?> ctor = type.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            return lookup.unreflectConstructor(ctor).asType(FACTORY);
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            return null; // reported by newInstance(), only if the class is actually materialized
+        }
+    }
+
+    private static MethodHandle canonicalConstructor(Class<?> type, MethodHandles.Lookup lookup) {
+        RecordComponent[] components = type.getRecordComponents();
+        Class<?>[] types = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) types[i] = components[i].getType();
+        try {
+            Constructor<?> ctor = type.getDeclaredConstructor(types);
+            ctor.setAccessible(true);
+            return lookup.unreflectConstructor(ctor)
+                    .asSpreader(Object[].class, components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            return null; // reported by newRecord(), only if the record is actually materialized
+        }
+    }
+
+    static EntityMetadata of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    Object newInstance() {
+        if (record) throw new IllegalStateException("Record " + type.getName() + " is created with all its components");
+        if (factory == null) throw new RuntimeException("No accessible no-arg constructor in " + type.getName());
+        try {
+            return (Object) factory.invokeExact();
+        } catch (Throwable t) {
+            throw new RuntimeException("Cannot create " + type.getName(), t);
+        }
+    }
+
+    /**
+     * Creates a record from its component values in declaration order, already coerced to the
+     * component types; null for a primitive component means its default.
+     */
+    Object newRecord(Object[] values) {
+        if (factory == null) throw new RuntimeException("No accessible canonical constructor in " + type.getName());
+        Object[] args = values.clone();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == null) args[i] = defaults[i];
+        }
+        try {
+            return (Object) factory.invokeExact(args);
+        } catch (Throwable t) {
+            throw new RuntimeException("Cannot create " + type.getName(), t);
+        }
+    }
+}
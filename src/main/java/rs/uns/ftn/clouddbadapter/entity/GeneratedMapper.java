@@ -0,0 +1,55 @@
+package rs.uns.ftn.clouddbadapter.entity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Typed mapper generated at compile time for an @Entity class by
+ * {@link rs.uns.ftn.clouddbadapter.entity.processor.EntityMapperProcessor}.
+ * EntityMapper picks it up automatically (class {@code <Entity>_Mapper} next to the entity,
+ * nested names joined with '_') and falls back to reflection when there is none.
+ * Behaves exactly like the reflective path: null fields are not written, @Version is not a field.
+ */
+public interface GeneratedMapper<T> {
+
+    /** Suffix of generated mapper class names. */
+    String SUFFIX = "_Mapper";
+
+    String collection();
+
+    /** Mapped field names, including the id (used as a projection field set). */
+    Set<String> fieldNames();
+
+    Map<String, Object> toMap(T entity);
+
+    T fromMap(Map<String, Object> m);
+
+    /** Passes each non-null field to 'sink' (what toMap would contain, without building the map). */
+    default void forEachField(T entity, BiConsumer<String, Object> sink) {
+        toMap(entity).forEach(sink);
+    }
+
+    /** Like fromMap, but the values are store-native and decoded with 'decode' field by field. */
+    default <V> T fromMap(Map<String, V> m, Function<? super V, Object> decode) {
+        Map<String, Object> decoded = new HashMap<>();
+        m.forEach((k, v) -> decoded.put(k, v == null ? null : decode.apply(v)));
+        return fromMap(decoded);
+    }
+
+    String idValue(T entity);
+
+    void setId(T entity, String id);
+
+    default boolean versioned() {
+        return false;
+    }
+
+    default String versionValue(T entity) {
+        return null;
+    }
+
+    default void setVersion(T entity, String version) {}
+}
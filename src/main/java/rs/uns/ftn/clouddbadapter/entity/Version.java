@@ -0,0 +1,21 @@
+package rs.uns.ftn.clouddbadapter.entity;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks a String field that holds the entity's optimistic-concurrency version.
+ * The value is an opaque token maintained by the EntityManager (DynamoDB version number,
+ * Cosmos ETag, Firestore update time); it is not stored as a regular document field.
+ * A null version means the entity is new, and save() then fails if the id already exists.
+ *
+ * Example:
+ * @Version
+ * private String version;
+ */
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface Version {}
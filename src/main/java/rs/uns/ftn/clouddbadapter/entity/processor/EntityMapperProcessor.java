@@ -0,0 +1,280 @@
+package rs.uns.ftn.clouddbadapter.entity.processor;
+
+import rs.uns.ftn.clouddbadapter.entity.Entity;
+import rs.uns.ftn.clouddbadapter.entity.GeneratedMapper;
+import rs.uns.ftn.clouddbadapter.entity.Id;
+import rs.uns.ftn.clouddbadapter.entity.Version;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a {@link GeneratedMapper} ({@code <Entity>_Mapper}) for every @Entity class, so
+ * EntityMapper can map it with plain field/getter/setter calls instead of reflection.
+ *
+ * Registered through META-INF/services, so it runs for any project that compiles entities
+ * with this library on the classpath. Non-private fields are accessed directly, private ones
+ * through getX/isX and setX. Classes the generated code cannot reach (private or inner classes,
+ * final fields, missing accessors or no-arg constructor, no @Id) get a note and keep using the
+ * reflective path.
+ */
+@SupportedAnnotationTypes("rs.uns.ftn.clouddbadapter.entity.Entity")
+public class EntityMapperProcessor extends AbstractProcessor {
+
+    private static final String MAPPER = "rs.uns.ftn.clouddbadapter.entity.EntityMapper";
+
+    /** How generated code reads and writes one field. */
+    private record Accessor(String name, TypeMirror type, String read, String writeMethod, boolean id) {
+
+        boolean primitive() {
+            return type.getKind().isPrimitive();
+        }
+
+        String write(String target, String value) {
+            return writeMethod != null
+                    ? target + "." + writeMethod + "(" + value + ");"
+                    : target + "." + name + " = " + value + ";";
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element e : round.getElementsAnnotatedWith(Entity.class)) {
+            if (e.getKind() != ElementKind.CLASS) continue;
+            TypeElement type = (TypeElement) e;
+            try {
+                generate(type);
+            } catch (Unsupported u) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "No generated mapper for " + type.getQualifiedName() + " (" + u.getMessage()
+                                + "); it will be mapped reflectively", type);
+            } catch (IOException io) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot write mapper for " + type.getQualifiedName() + ": " + io.getMessage(), type);
+            }
+        }
+        return false; // other processors may still want @Entity
+    }
+
+    private static final class Unsupported extends Exception {
+        Unsupported(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private void generate(TypeElement type) throws Unsupported, IOException {
+        checkReachable(type);
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) throw new Unsupported("abstract class");
+        if (type.getKind() == ElementKind.RECORD) throw new Unsupported("record");
+        if (!type.getTypeParameters().isEmpty()) throw new Unsupported("generic class");
+        checkConstructor(type);
+
+        List<Accessor> fields = new ArrayList<>();
+        Accessor version = null;
+        boolean hasId = false;
+        for (VariableElement f : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> mods = f.getModifiers();
+            if (mods.contains(Modifier.STATIC)) continue;
+            if (mods.contains(Modifier.FINAL)) throw new Unsupported("final field " + f.getSimpleName());
+            boolean isId = !hasId && f.getAnnotation(Id.class) != null;
+            Accessor a = accessor(type, f, isId);
+            if (f.getAnnotation(Version.class) != null) {
+                if (version == null) version = a;
+                continue;
+            }
+            hasId |= isId;
+            fields.add(a);
+        }
+        if (!hasId) throw new Unsupported("no @Id field");
+
+        String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binary = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String simple = (pkg.isEmpty() ? binary : binary.substring(pkg.length() + 1)).replace('$', '_')
+                + GeneratedMapper.SUFFIX;
+        String qualified = pkg.isEmpty() ? simple : pkg + "." + simple;
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualified, type);
+        try (Writer w = file.openWriter()) {
+            w.write(source(type, pkg, simple, fields, version));
+        }
+    }
+
+    private static void checkReachable(TypeElement type) throws Unsupported {
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) throw new Unsupported("private class");
+            if (e.getEnclosingElement() instanceof TypeElement && !e.getModifiers().contains(Modifier.STATIC)) {
+                throw new Unsupported("inner (non-static) class");
+            }
+        }
+    }
+
+    private static void checkConstructor(TypeElement type) throws Unsupported {
+        for (ExecutableElement c : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE)) return;
+        }
+        throw new Unsupported("no non-private no-arg constructor");
+    }
+
+    private Accessor accessor(TypeElement type, VariableElement f, boolean id) throws Unsupported {
+        String name = f.getSimpleName().toString();
+        TypeMirror t = f.asType();
+        if (!f.getModifiers().contains(Modifier.PRIVATE)) return new Accessor(name, t, "e." + name, null, id);
+
+        String cap = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        String getter = null;
+        String setter = null;
+        for (ExecutableElement m : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            Set<Modifier> mods = m.getModifiers();
+            if (mods.contains(Modifier.PRIVATE) || mods.contains(Modifier.STATIC)) continue;
+            String mn = m.getSimpleName().toString();
+            if (m.getParameters().isEmpty() && processingEnv.getTypeUtils().isSameType(m.getReturnType(), t)
+                    && (mn.equals("get" + cap) || (t.getKind() == TypeKind.BOOLEAN && mn.equals("is" + cap)))) {
+                getter = mn;
+            } else if (mn.equals("set" + cap) && m.getParameters().size() == 1
+                    && processingEnv.getTypeUtils().isSameType(m.getParameters().get(0).asType(), t)) {
+                setter = mn;
+            }
+        }
+        if (getter == null || setter == null) throw new Unsupported("private field " + name + " without getter/setter");
+        return new Accessor(name, t, "e." + getter + "()", setter, id);
+    }
+
+    private String erasure(TypeMirror t) {
+        return processingEnv.getTypeUtils().erasure(t).toString();
+    }
+
+    /** Value from the map 'v', converted the same way the reflective path does. */
+    private String converted(TypeMirror t) {
+        String erased = erasure(t);
+        return "(" + erased + ") " + MAPPER + ".coerce(v, " + erased + ".class)";
+    }
+
+    private String source(TypeElement type, String pkg, String simple, List<Accessor> fields, Accessor version) {
+        String entity = type.getQualifiedName().toString();
+        String collection = type.getAnnotation(Entity.class).collection();
+        Accessor id = fields.stream().filter(Accessor::id).findFirst().orElseThrow();
+
+        StringBuilder s = new StringBuilder();
+        if (!pkg.isEmpty()) s.append("package ").append(pkg).append(";\n\n");
+        s.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        s.append("public final class ").append(simple)
+                .append(" implements rs.uns.ftn.clouddbadapter.entity.GeneratedMapper<").append(entity).append("> {\n\n");
+
+        s.append("    private static final java.util.Set<String> FIELD_NAMES = java.util.Collections.unmodifiableSet(\n")
+                .append("            new java.util.LinkedHashSet<>(java.util.Arrays.asList(");
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) s.append(", ");
+            s.append(literal(fields.get(i).name()));
+        }
+        s.append(")));\n\n");
+
+        s.append("    @Override\n    public String collection() {\n        return ").append(literal(collection)).append(";\n    }\n\n");
+        s.append("    @Override\n    public java.util.Set<String> fieldNames() {\n        return FIELD_NAMES;\n    }\n\n");
+
+        s.append("    @Override\n    public java.util.Map<String, Object> toMap(").append(entity).append(" e) {\n");
+        s.append("        java.util.Map<String, Object> m = new java.util.HashMap<>(")
+                .append(fields.size() * 4 / 3 + 1).append(");\n");
+        s.append("        Object v;\n");
+        for (Accessor a : fields) {
+            if (a.primitive()) {
+                s.append("        m.put(").append(literal(a.name())).append(", ").append(a.read()).append(");\n");
+            } else {
+                s.append("        v = ").append(a.read()).append(";\n");
+                s.append("        if (v != null) m.put(").append(literal(a.name())).append(", v);\n");
+            }
+        }
+        s.append("        return m;\n    }\n\n");
+
+        s.append("    @Override\n    public void forEachField(").append(entity)
+                .append(" e, java.util.function.BiConsumer<String, Object> sink) {\n");
+        s.append("        Object v;\n");
+        for (Accessor a : fields) {
+            if (a.primitive()) {
+                s.append("        sink.accept(").append(literal(a.name())).append(", ").append(a.read()).append(");\n");
+            } else {
+                s.append("        v = ").append(a.read()).append(";\n");
+                s.append("        if (v != null) sink.accept(").append(literal(a.name())).append(", v);\n");
+            }
+        }
+        s.append("    }\n\n");
+
+        s.append("    @Override\n");
+        s.append("    public ").append(entity).append(" fromMap(java.util.Map<String, Object> m) {\n");
+        s.append("        return fromMap(m, java.util.function.Function.identity());\n    }\n\n");
+
+        s.append("    @Override\n    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        s.append("    public <V> ").append(entity)
+                .append(" fromMap(java.util.Map<String, V> m, java.util.function.Function<? super V, Object> decode) {\n");
+        s.append("        ").append(entity).append(" e = new ").append(entity).append("();\n");
+        s.append("        V raw;\n        Object v;\n");
+        for (Accessor a : fields) {
+            s.append("        raw = m.get(").append(literal(a.name())).append(");\n");
+            // primitives keep their default for null; references take an explicit null like the reflective path
+            s.append(a.primitive()
+                    ? "        if (raw != null) {\n"
+                    : "        if (raw != null || m.containsKey(" + literal(a.name()) + ")) {\n");
+            s.append("            v = raw == null ? null : decode.apply(raw);\n");
+            s.append(a.primitive() ? "            if (v != null) " : "            ")
+                    .append(a.write("e", converted(a.type()))).append("\n");
+            s.append("        }\n");
+        }
+        s.append("        return e;\n    }\n\n");
+
+        s.append("    @Override\n    public String idValue(").append(entity).append(" e) {\n");
+        if (id.primitive()) {
+            s.append("        return String.valueOf(").append(id.read()).append(");\n    }\n\n");
+        } else {
+            s.append("        Object v = ").append(id.read()).append(";\n");
+            s.append("        return v != null ? v.toString() : null;\n    }\n\n");
+        }
+
+        s.append("    @Override\n    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        s.append("    public void setId(").append(entity).append(" e, String v) {\n");
+        // a primitive keeps its value for null, as in fromMap
+        s.append(id.primitive() ? "        if (v != null) " : "        ").append(id.write("e", converted(id.type()))).append("\n    }\n");
+
+        if (version != null) {
+            s.append("\n    @Override\n    public boolean versioned() {\n        return true;\n    }\n\n");
+            s.append("    @Override\n    public String versionValue(").append(entity).append(" e) {\n");
+            s.append("        Object v = ").append(version.read()).append(";\n");
+            s.append("        return v != null ? v.toString() : null;\n    }\n\n");
+            s.append("    @Override\n    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+            s.append("    public void setVersion(").append(entity).append(" e, String v) {\n");
+            s.append(version.primitive() ? "        if (v != null) " : "        ")
+                    .append(version.write("e", converted(version.type()))).append("\n    }\n");
+        }
+        s.append("}\n");
+        return s.toString();
+    }
+
+    private static String literal(String value) {
+        StringBuilder s = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> s.append("\\\"");
+                case '\\' -> s.append("\\\\");
+                case '\n' -> s.append("\\n");
+                default -> s.append(c);
+            }
+        }
+        return s.append('"').toString();
+    }
+}
@@ -1,7 +1,12 @@
 package rs.uns.ftn.clouddbadapter.orm;
 
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.Page;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Minimal ORM-like facade over the raw DocumentStore.
@@ -12,6 +17,8 @@ public interface EntityManager {
      * Saves (creates or updates) the given entity.
      * If @Id is null/empty, an ID will be generated.
      * Returns the (possibly mutated) entity with ID set.
+     * Entities with a @Version field are saved conditionally and get the new version set;
+     * a concurrent change throws BaseAdapter.VersionConflict.
      */
     <T> T save(T entity);
 
@@ -29,4 +36,44 @@ public interface EntityManager {
      * Returns up to 'limit' entities from the collection.
      */
     <T> List<T> list(Class<T> type, int limit);
+
+    /**
+     * Saves all given entities, generating IDs where missing.
+     * Entities are grouped per collection and written with the store's batch API.
+     */
+    <T> List<T> saveAll(List<T> entities);
+
+    /**
+     * Loads all entities with the given ids in as few round trips as possible.
+     * Ids that are not found are skipped; result order follows 'ids'.
+     */
+    <T> List<T> findAll(Class<T> type, Collection<String> ids);
+
+    /**
+     * Reads one page of entities starting at 'cursor' (null = beginning).
+     * Pass the returned page's cursor back in to continue; null means no more pages.
+     */
+    <T> Page<T> listPage(Class<T> type, int pageSize, String cursor);
+
+    /**
+     * Lazily streams all entities of the collection, fetching one page at a time.
+     */
+    <T> Stream<T> stream(Class<T> type, int pageSize);
+
+    /**
+     * Loads only the fields declared on 'projection' from the collection of 'entityType'.
+     * The projection class needs a no-arg constructor; its field names select what is fetched.
+     */
+    <P> Optional<P> find(Class<?> entityType, String id, Class<P> projection);
+
+    /**
+     * Returns up to 'limit' projections from the collection of 'entityType'.
+     */
+    <P> List<P> list(Class<?> entityType, int limit, Class<P> projection);
+
+    /**
+     * Runs a server-side filtered query on the entity's collection and returns one page.
+     * Continue with {@code query.withCursor(page.cursor())}.
+     */
+    <T> Page<T> query(Class<T> type, DocumentQuery query);
 }
@@ -1,10 +1,14 @@
 package rs.uns.ftn.clouddbadapter.orm;
 
 import rs.uns.ftn.clouddbadapter.entity.EntityMapper;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
 import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.EntityCodecStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Tiny ORM-like implementation backed by the generic DocumentStore.
@@ -13,9 +17,12 @@ import java.util.stream.Collectors;
 public final class SimpleEntityManager implements EntityManager {
 
     private final DocumentStore store;
+    /** Set when the store is an adapter with a native entity codec: save/find then skip the Map. */
+    private final EntityCodecStore codecStore;
 
     public SimpleEntityManager(DocumentStore store) {
         this.store = Objects.requireNonNull(store, "store");
+        this.codecStore = store instanceof EntityCodecStore s ? s : null;
     }
 
     @Override
@@ -32,17 +39,41 @@ public final class SimpleEntityManager implements EntityManager {
         }
 
         // convert POJO -> Map and persist
-        Map<String, Object> data = EntityMapper.toMap(entity);
-        store.updateById(collection, id, data); // full overwrite (upsert)
+        if (EntityMapper.isVersioned(type)) {
+            saveVersioned(collection, id, entity, EntityMapper.toMap(entity));
+        } else if (codecStore != null) {
+            codecStore.putEntity(collection, id, entity); // full overwrite (upsert), no intermediate Map
+        } else {
+            store.updateById(collection, id, EntityMapper.toMap(entity)); // full overwrite (upsert)
+        }
 
         return entity; // entity now has id set
     }
 
+    /**
+     * @Version entities are written with compareAndSet against the version they were read at,
+     * so a concurrent save fails with VersionConflict instead of being silently overwritten.
+     */
+    private void saveVersioned(String collection, String id, Object entity, Map<String, Object> data) {
+        // null fields are sent explicitly so they are cleared on stores that only update given fields
+        for (String name : EntityMapper.fieldNames(entity.getClass())) data.putIfAbsent(name, null);
+        String version = store.compareAndSet(collection, id, data, EntityMapper.versionValue(entity));
+        EntityMapper.setVersion(entity, version);
+    }
+
     @Override
     public <T> Optional<T> find(Class<T> type, String id) {
         Objects.requireNonNull(type, "type");
         Objects.requireNonNull(id, "id");
         String collection = EntityMapper.collection(type);
+        if (EntityMapper.isVersioned(type)) {
+            return store.getVersioned(collection, id).map(v -> {
+                T entity = EntityMapper.fromMap(type, v.data());
+                EntityMapper.setVersion(entity, v.version());
+                return entity;
+            });
+        }
+        if (codecStore != null) return codecStore.getEntity(collection, id, type);
         return store.getById(collection, id).map(m -> EntityMapper.fromMap(type, m));
     }
 
@@ -62,4 +93,87 @@ public final class SimpleEntityManager implements EntityManager {
                 .map(m -> EntityMapper.fromMap(type, m))
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public <P> Optional<P> find(Class<?> entityType, String id, Class<P> projection) {
+        Objects.requireNonNull(entityType, "entityType");
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(projection, "projection");
+        String collection = EntityMapper.collection(entityType);
+        return store.getById(collection, id, EntityMapper.fieldNames(projection))
+                .map(m -> EntityMapper.fromMap(projection, m));
+    }
+
+    @Override
+    public <P> List<P> list(Class<?> entityType, int limit, Class<P> projection) {
+        Objects.requireNonNull(entityType, "entityType");
+        Objects.requireNonNull(projection, "projection");
+        String collection = EntityMapper.collection(entityType);
+        return store.list(collection, limit, EntityMapper.fieldNames(projection)).stream()
+                .map(m -> EntityMapper.fromMap(projection, m))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public <T> Page<T> listPage(Class<T> type, int pageSize, String cursor) {
+        Objects.requireNonNull(type, "type");
+        String collection = EntityMapper.collection(type);
+        return store.listPage(collection, pageSize, cursor).map(m -> EntityMapper.fromMap(type, m));
+    }
+
+    @Override
+    public <T> Stream<T> stream(Class<T> type, int pageSize) {
+        Objects.requireNonNull(type, "type");
+        String collection = EntityMapper.collection(type);
+        return store.stream(collection, pageSize).map(m -> EntityMapper.fromMap(type, m));
+    }
+
+    @Override
+    public <T> Page<T> query(Class<T> type, DocumentQuery query) {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(query, "query");
+        String collection = EntityMapper.collection(type);
+        return store.query(collection, query).map(m -> EntityMapper.fromMap(type, m));
+    }
+
+    @Override
+    public <T> List<T> saveAll(List<T> entities) {
+        Objects.requireNonNull(entities, "entities");
+
+        // collection -> (id -> data), keeping insertion order per collection
+        Map<String, Map<String, Map<String, Object>>> byCollection = new LinkedHashMap<>();
+        for (T entity : entities) {
+            Objects.requireNonNull(entity, "entity");
+            if (EntityMapper.isVersioned(entity.getClass())) {
+                save(entity); // conditional writes are not batched
+                continue;
+            }
+            String collection = EntityMapper.collection(entity.getClass());
+            String id = EntityMapper.idValue(entity);
+            if (id == null || id.isBlank()) {
+                id = UUID.randomUUID().toString();
+                EntityMapper.setId(entity, id);
+            }
+            byCollection.computeIfAbsent(collection, k -> new LinkedHashMap<>())
+                    .put(id, EntityMapper.toMap(entity));
+        }
+        byCollection.forEach(store::putAll);
+
+        return entities;
+    }
+
+    @Override
+    public <T> List<T> findAll(Class<T> type, Collection<String> ids) {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(ids, "ids");
+        String collection = EntityMapper.collection(type);
+        Map<String, Map<String, Object>> found = store.getAll(collection, ids);
+
+        List<T> out = new ArrayList<>(found.size());
+        for (String id : new LinkedHashSet<>(ids)) {
+            Map<String, Object> m = found.get(id);
+            if (m != null) out.add(EntityMapper.fromMap(type, m));
+        }
+        return out;
+    }
 }
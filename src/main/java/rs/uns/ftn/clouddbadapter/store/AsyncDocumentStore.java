@@ -0,0 +1,24 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link DocumentStore}.
+ * Every call returns immediately; the future completes when the cloud round trip does.
+ * Failures complete the future exceptionally with a {@link BaseAdapter.StoreException}.
+ */
+public interface AsyncDocumentStore {
+
+    CompletableFuture<Void> create(String collection, String id, Map<String, Object> data);
+
+    CompletableFuture<Optional<Map<String, Object>>> getById(String collection, String id);
+
+    CompletableFuture<Void> updateById(String collection, String id, Map<String, Object> data);
+
+    CompletableFuture<Void> deleteById(String collection, String id);
+
+    CompletableFuture<List<Map<String, Object>>> list(String collection, int limit);
+}
@@ -1,7 +1,23 @@
 package rs.uns.ftn.clouddbadapter.store;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Template class that enforces validation and provides a unified upsert logic.
@@ -9,6 +25,9 @@ import java.util.Optional;
  */
 public abstract class BaseAdapter implements DocumentStore {
 
+    /** Largest page requested from the provider when list() is satisfied by paging. */
+    protected static final int MAX_LIST_PAGE_SIZE = 1000;
+
     @Override
     public final void create(String c, String id, Map<String, Object> d) {
         validate(c, id, d);
@@ -37,21 +56,249 @@ public abstract class BaseAdapter implements DocumentStore {
         doDelete(c, id);
     }
 
+    @Override
+    public final void patch(String c, String id, Map<String, Object> changes) {
+        validate(c, id, changes);
+        if (changes.isEmpty()) throw new IllegalArgumentException("changes empty");
+        if (changes.containsKey("id")) throw new IllegalArgumentException("id cannot be patched");
+        doPatch(c, id, PatchOp.normalize(changes));
+    }
+
+    @Override
+    public final Optional<Versioned> getVersioned(String c, String id) {
+        validate(c, id);
+        return doGetVersioned(c, id);
+    }
+
+    @Override
+    public final String compareAndSet(String c, String id, Map<String, Object> d, String expectedVersion) {
+        validate(c, id, d);
+        return doCompareAndSet(c, id, d, expectedVersion);
+    }
+
+    @Override
+    public final Page<Map<String, Object>> query(String c, DocumentQuery q) {
+        validateCollection(c);
+        if (q == null) throw new IllegalArgumentException("query null");
+        return doQuery(c, q);
+    }
+
+    @Override
+    public final Optional<Map<String, Object>> getById(String c, String id, Set<String> fields) {
+        validate(c, id);
+        if (!Projections.isProjection(fields)) return doGet(c, id);
+        return doGet(c, id, fields);
+    }
+
+    /**
+     * Returns up to 'limit' documents, following provider cursors across pages
+     * instead of stopping after the first one.
+     */
+    @Override
+    public final List<Map<String, Object>> list(String c, int limit) {
+        return list(c, limit, null);
+    }
+
+    @Override
+    public final List<Map<String, Object>> list(String c, int limit, Set<String> fields) {
+        validateCollection(c);
+        if (limit <= 0) return new ArrayList<>();
+        int pageSize = Math.min(limit, MAX_LIST_PAGE_SIZE);
+        return Page.stream(null, cursor -> listPage(c, pageSize, cursor, fields))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public final Page<Map<String, Object>> listPage(String c, int pageSize, String cursor) {
+        return listPage(c, pageSize, cursor, null);
+    }
+
+    @Override
+    public final Page<Map<String, Object>> listPage(String c, int pageSize, String cursor, Set<String> fields) {
+        validateCollection(c);
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be positive");
+        if (!Projections.isProjection(fields)) return doListPage(c, pageSize, cursor);
+        return doListPage(c, pageSize, cursor, fields);
+    }
+
+    @Override
+    public final Map<String, Map<String, Object>> getAll(String c, Collection<String> ids) {
+        Set<String> unique = validateIds(c, ids);
+        if (unique.isEmpty()) return new LinkedHashMap<>();
+        return doGetAll(c, unique);
+    }
+
+    @Override
+    public final void putAll(String c, Map<String, Map<String, Object>> docs) {
+        validateCollection(c);
+        if (docs == null) throw new IllegalArgumentException("documents null");
+        for (Map.Entry<String, Map<String, Object>> e : docs.entrySet()) {
+            validate(c, e.getKey(), e.getValue());
+        }
+        if (docs.isEmpty()) return;
+        doPutAll(c, docs);
+    }
+
+    @Override
+    public final void deleteAll(String c, Collection<String> ids) {
+        Set<String> unique = validateIds(c, ids);
+        if (unique.isEmpty()) return;
+        doDeleteAll(c, unique);
+    }
+
+    @Override
+    public final void parallelScan(String c, int segments, int pageSize, SegmentHandler handler) {
+        if (segments <= 0) throw new IllegalArgumentException("segments must be positive");
+        AtomicInteger n = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(segments, r -> {
+            Thread t = new Thread(r, "scan-" + c + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            parallelScan(c, segments, pageSize, pool, handler);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Override
+    public final void parallelScan(String c, int segments, int pageSize, ExecutorService executor, SegmentHandler handler) {
+        validateCollection(c);
+        if (segments <= 0) throw new IllegalArgumentException("segments must be positive");
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be positive");
+        if (executor == null || handler == null) throw new IllegalArgumentException("executor/handler null");
+
+        List<Function<String, Page<Map<String, Object>>>> readers = doSegments(c, segments, pageSize);
+        // segments are awaited in completion order, so the first failure cancels the rest at once
+        CompletionService<Void> done = new ExecutorCompletionService<>(executor);
+        List<Future<Void>> futures = new ArrayList<>(readers.size());
+        try {
+            for (int i = 0; i < readers.size(); i++) {
+                int segment = i;
+                Function<String, Page<Map<String, Object>>> reader = readers.get(i);
+                futures.add(done.submit(() -> {
+                    String cursor = null;
+                    do {
+                        Page<Map<String, Object>> page = reader.apply(cursor);
+                        if (!page.items().isEmpty()) handler.accept(segment, page.items());
+                        cursor = page.cursor();
+                    } while (cursor != null && !Thread.currentThread().isInterrupted());
+                    return null;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) done.take().get();
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof StoreException se) throw se;
+            throw new StoreException("Parallel scan failed", e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new StoreException("Parallel scan interrupted", e);
+        } catch (RuntimeException e) { // e.g. the executor rejected a segment
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        }
+    }
+
     // ==== methods cloud adapters implement ====
     protected abstract void doCreate(String c, String id, Map<String,Object> d);
     protected abstract Optional<Map<String,Object>> doGet(String c, String id);
     protected abstract void doUpdate(String c, String id, Map<String,Object> d);
     protected abstract void doDelete(String c, String id);
+    protected abstract Page<Map<String,Object>> doListPage(String c, int pageSize, String cursor);
+    protected abstract Page<Map<String,Object>> doQuery(String c, DocumentQuery q);
+    protected abstract Optional<Versioned> doGetVersioned(String c, String id);
+    protected abstract String doCompareAndSet(String c, String id, Map<String,Object> d, String expectedVersion);
+
+    /**
+     * Default is an optimistic read-modify-write: the patched document is written with
+     * compare-and-set against the version it was read at, and re-read and patched again when
+     * someone else wrote in between, so no concurrent change is lost. Providers override it
+     * with a native partial update.
+     */
+    protected void doPatch(String c, String id, Map<String, PatchOp> ops) {
+        while (true) {
+            Versioned current = doGetVersioned(c, id).orElseThrow(() -> new NotFound("Document not found: " + id));
+            Map<String, Object> doc = new HashMap<>(current.data());
+            PatchOp.applyTo(doc, ops);
+            try {
+                doCompareAndSet(c, id, doc, current.version());
+                return;
+            } catch (VersionConflict changed) {
+                // a concurrent write won; patch what it left
+            }
+        }
+    }
+
+    // ==== projection hooks (defaults fetch everything and trim client-side) ====
+    protected Optional<Map<String,Object>> doGet(String c, String id, Set<String> fields) {
+        return doGet(c, id).map(d -> Projections.apply(d, fields));
+    }
+
+    protected Page<Map<String,Object>> doListPage(String c, int pageSize, String cursor, Set<String> fields) {
+        return doListPage(c, pageSize, cursor).map(d -> Projections.apply(d, fields));
+    }
+
+    // ==== batch hooks (defaults fall back to one call per document) ====
+    protected Map<String, Map<String,Object>> doGetAll(String c, Collection<String> ids) {
+        Map<String, Map<String,Object>> out = new LinkedHashMap<>();
+        for (String id : ids) doGet(c, id).ifPresent(d -> out.put(id, d));
+        return out;
+    }
+
+    protected void doPutAll(String c, Map<String, Map<String,Object>> docs) {
+        docs.forEach((id, d) -> doUpdate(c, id, d));
+    }
+
+    protected void doDeleteAll(String c, Collection<String> ids) {
+        for (String id : ids) doDelete(c, id);
+    }
+
+    /**
+     * Splits the collection into independent segment readers (cursor -> page).
+     * Providers return their native split, which may contain more or fewer than
+     * 'segments' readers; the default is a single sequential segment.
+     */
+    protected List<Function<String, Page<Map<String,Object>>>> doSegments(String c, int segments, int pageSize) {
+        return List.of(cursor -> doListPage(c, pageSize, cursor));
+    }
+
+    /** Splits items into consecutive chunks of at most 'size' elements (provider batch limits). */
+    protected static <T> List<List<T>> chunks(Collection<T> items, int size) {
+        List<T> all = items instanceof List<T> l ? l : new ArrayList<>(items);
+        List<List<T>> out = new ArrayList<>((all.size() + size - 1) / size);
+        for (int from = 0; from < all.size(); from += size) {
+            out.add(all.subList(from, Math.min(from + size, all.size())));
+        }
+        return out;
+    }
 
     // ==== shared validation ====
-    protected void validate(String c, String id) {
+    protected void validateCollection(String c) {
         if (c == null || c.isBlank()) throw new IllegalArgumentException("collection empty");
+    }
+    protected void validate(String c, String id) {
+        validateCollection(c);
         if (id == null || id.isBlank()) throw new IllegalArgumentException("id empty");
     }
     protected void validate(String c, String id, Map<String,Object> d) {
         validate(c, id);
         if (d == null) throw new IllegalArgumentException("data null");
     }
+    /** Validates every id and drops duplicates (some providers reject repeated keys in one batch). */
+    protected Set<String> validateIds(String c, Collection<String> ids) {
+        validateCollection(c);
+        if (ids == null) throw new IllegalArgumentException("ids null");
+        Set<String> unique = new LinkedHashSet<>();
+        for (String id : ids) {
+            validate(c, id);
+            unique.add(id);
+        }
+        return unique;
+    }
 
     // ==== unified exception model ====
     public static class StoreException extends RuntimeException {
@@ -61,4 +308,14 @@ public abstract class BaseAdapter implements DocumentStore {
     public static class AlreadyExists extends StoreException {
         public AlreadyExists(String m) { super(m); }
     }
+    public static class NotFound extends StoreException {
+        public NotFound(String m) { super(m); }
+    }
+    public static class VersionConflict extends StoreException {
+        public VersionConflict(String m) { super(m); }
+    }
+    /** Shed on the client side (queue full or wait timed out) to protect the provider; retry later. */
+    public static class Overloaded extends StoreException {
+        public Overloaded(String m) { super(m); }
+    }
 }
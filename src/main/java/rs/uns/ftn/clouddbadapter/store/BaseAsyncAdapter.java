@@ -0,0 +1,94 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.AlreadyExists;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Async twin of {@link BaseAdapter}: same validation and create-or-update logic,
+ * but the low-level doX() hooks return futures instead of blocking.
+ * Argument errors are still thrown synchronously.
+ */
+public abstract class BaseAsyncAdapter implements AsyncDocumentStore {
+
+    @Override
+    public final CompletableFuture<Void> create(String c, String id, Map<String, Object> d) {
+        validate(c, id, d);
+        return doCreate(c, id, d).exceptionallyCompose(t -> unwrap(t) instanceof AlreadyExists
+                ? doUpdate(c, id, d)
+                : CompletableFuture.failedFuture(unwrap(t)));
+    }
+
+    @Override
+    public final CompletableFuture<Optional<Map<String, Object>>> getById(String c, String id) {
+        validate(c, id);
+        return doGet(c, id);
+    }
+
+    @Override
+    public final CompletableFuture<Void> updateById(String c, String id, Map<String, Object> d) {
+        validate(c, id, d);
+        return doUpdate(c, id, d);
+    }
+
+    @Override
+    public final CompletableFuture<Void> deleteById(String c, String id) {
+        validate(c, id);
+        return doDelete(c, id);
+    }
+
+    @Override
+    public final CompletableFuture<List<Map<String, Object>>> list(String c, int limit) {
+        validateCollection(c);
+        if (limit <= 0) return CompletableFuture.completedFuture(new ArrayList<>());
+        return doList(c, limit);
+    }
+
+    // ==== methods cloud adapters implement ====
+    protected abstract CompletableFuture<Void> doCreate(String c, String id, Map<String,Object> d);
+    protected abstract CompletableFuture<Optional<Map<String,Object>>> doGet(String c, String id);
+    protected abstract CompletableFuture<Void> doUpdate(String c, String id, Map<String,Object> d);
+    protected abstract CompletableFuture<Void> doDelete(String c, String id);
+    /** Up to 'limit' (> 0) documents of the collection. */
+    protected abstract CompletableFuture<List<Map<String,Object>>> doList(String c, int limit);
+
+    // ==== shared validation ====
+    protected void validateCollection(String c) {
+        if (c == null || c.isBlank()) throw new IllegalArgumentException("collection empty");
+    }
+    protected void validate(String c, String id) {
+        validateCollection(c);
+        if (id == null || id.isBlank()) throw new IllegalArgumentException("id empty");
+    }
+    protected void validate(String c, String id, Map<String,Object> d) {
+        validate(c, id);
+        if (d == null) throw new IllegalArgumentException("data null");
+    }
+
+    // ==== error translation ====
+
+    /** Strips the CompletionException/ExecutionException wrappers futures add around the real cause. */
+    protected static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    /** Completes with the same value, or fails with a StoreException carrying 'message'. */
+    protected static <T> CompletableFuture<T> translate(CompletableFuture<T> f, String message) {
+        return f.handle((v, t) -> {
+            if (t == null) return v;
+            Throwable cause = unwrap(t);
+            if (cause instanceof StoreException se) throw se;
+            throw new StoreException(message, cause);
+        });
+    }
+}
@@ -0,0 +1,141 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Provider-neutral filtered query, evaluated on the server by {@link DocumentStore#query}.
+ * Filters are AND-ed; field names are top-level attributes.
+ *
+ * Example:
+ *   DocumentQuery q = DocumentQuery.builder()
+ *       .eq("tenant", "acme")
+ *       .gte("age", 18)
+ *       .in("status", List.of("active", "trial"))
+ *       .orderBy("age", true)
+ *       .limit(50)
+ *       .build();
+ *   Page<Map<String,Object>> page = store.query("users", q);
+ *   Page<Map<String,Object>> next = store.query("users", q.withCursor(page.cursor()));
+ *
+ * On DynamoDB the query must be answerable by the table key or a secondary index
+ * (an equality filter on its partition key); set {@link Builder#allowScan()} to permit
+ * a Scan with a FilterExpression instead.
+ */
+public final class DocumentQuery {
+
+    public enum Op { EQ, LT, LTE, GT, GTE, IN }
+
+    /** One condition; for IN the value is a non-empty List. */
+    public record Filter(String field, Op op, Object value) {}
+
+    private final List<Filter> filters;
+    private final String orderBy;
+    private final boolean ascending;
+    private final int limit;
+    private final String cursor;
+    private final boolean allowScan;
+
+    private DocumentQuery(Builder b, String cursor) {
+        this.filters = List.copyOf(b.filters);
+        this.orderBy = b.orderBy;
+        this.ascending = b.ascending;
+        this.limit = b.limit;
+        this.cursor = cursor;
+        this.allowScan = b.allowScan;
+    }
+
+    private DocumentQuery(DocumentQuery q, String cursor) {
+        this.filters = q.filters;
+        this.orderBy = q.orderBy;
+        this.ascending = q.ascending;
+        this.limit = q.limit;
+        this.cursor = cursor;
+        this.allowScan = q.allowScan;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Same query, continuing after the given page cursor (null = first page). */
+    public DocumentQuery withCursor(String cursor) {
+        return new DocumentQuery(this, cursor);
+    }
+
+    public List<Filter> filters() { return filters; }
+
+    /** Field to sort by, or null for provider order. */
+    public String orderBy() { return orderBy; }
+
+    public boolean ascending() { return ascending; }
+
+    /** Maximum number of documents per page. */
+    public int limit() { return limit; }
+
+    public String cursor() { return cursor; }
+
+    /** Whether a full scan with server-side filtering is acceptable when no index fits. */
+    public boolean allowScan() { return allowScan; }
+
+    @Override
+    public String toString() {
+        return "DocumentQuery{filters=" + filters + ", orderBy=" + orderBy + (ascending ? " asc" : " desc")
+                + ", limit=" + limit + ", allowScan=" + allowScan + "}";
+    }
+
+    public static final class Builder {
+        private final List<Filter> filters = new ArrayList<>();
+        private String orderBy;
+        private boolean ascending = true;
+        private int limit = 100;
+        private boolean allowScan;
+
+        private Builder() {}
+
+        public Builder eq(String field, Object value) { return add(field, Op.EQ, value); }
+        public Builder lt(String field, Object value) { return add(field, Op.LT, value); }
+        public Builder lte(String field, Object value) { return add(field, Op.LTE, value); }
+        public Builder gt(String field, Object value) { return add(field, Op.GT, value); }
+        public Builder gte(String field, Object value) { return add(field, Op.GTE, value); }
+
+        public Builder in(String field, Collection<?> values) {
+            if (values == null || values.isEmpty()) throw new IllegalArgumentException("IN needs at least one value");
+            return add(field, Op.IN, List.copyOf(values));
+        }
+
+        public Builder orderBy(String field, boolean ascending) {
+            this.orderBy = requireField(field);
+            this.ascending = ascending;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            if (limit <= 0) throw new IllegalArgumentException("limit must be positive");
+            this.limit = limit;
+            return this;
+        }
+
+        /** Explicitly permits a full scan with server-side filtering when no index can serve the query. */
+        public Builder allowScan() {
+            this.allowScan = true;
+            return this;
+        }
+
+        public DocumentQuery build() {
+            return new DocumentQuery(this, null);
+        }
+
+        private Builder add(String field, Op op, Object value) {
+            filters.add(new Filter(requireField(field), op, Objects.requireNonNull(value, "value")));
+            return this;
+        }
+
+        private static String requireField(String field) {
+            if (field == null || field.isBlank()) throw new IllegalArgumentException("field empty");
+            return field;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package rs.uns.ftn.clouddbadapter.store;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
 
 /**
  * Core provider-neutral CRUD interface.
@@ -19,4 +23,124 @@ public interface DocumentStore {
     void deleteById(String collection, String id);
 
     List<Map<String, Object>> list(String collection, int limit);
+
+    // ==== batch operations ====
+
+    /**
+     * Loads many documents in as few round trips as the provider allows.
+     * Returns id -> document; ids that do not exist are absent from the result.
+     */
+    Map<String, Map<String, Object>> getAll(String collection, Collection<String> ids);
+
+    /**
+     * Upserts many documents (id -> data) using provider-native batch writes.
+     * Not atomic: on failure some documents may already be written.
+     */
+    void putAll(String collection, Map<String, Map<String, Object>> documents);
+
+    /**
+     * Deletes many documents by id (missing ids are ignored).
+     */
+    void deleteAll(String collection, Collection<String> ids);
+
+    // ==== cursor-based paging ====
+
+    /**
+     * Reads one page of up to 'pageSize' documents, starting at 'cursor' (null = from the beginning).
+     * The returned page carries the cursor for the next page, or null when the collection is exhausted.
+     */
+    Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor);
+
+    /**
+     * Lazily streams the whole collection, fetching one page of 'pageSize' at a time.
+     */
+    default Stream<Map<String, Object>> stream(String collection, int pageSize) {
+        return stream(collection, pageSize, null);
+    }
+
+    /**
+     * Lazily streams the collection starting at a cursor previously returned by {@link #listPage}.
+     */
+    default Stream<Map<String, Object>> stream(String collection, int pageSize, String cursor) {
+        return Page.stream(cursor, c -> listPage(collection, pageSize, c));
+    }
+
+    // ==== parallel scan ====
+
+    /**
+     * Scans the whole collection split into provider-native segments, running at most
+     * 'segments' of them at once on an internal bounded pool. Blocks until every segment
+     * is done; the first failure cancels the remaining segments and is rethrown.
+     */
+    void parallelScan(String collection, int segments, int pageSize, SegmentHandler handler);
+
+    /**
+     * Same as {@link #parallelScan(String, int, int, SegmentHandler)} but runs the segments
+     * on the caller's executor, which then bounds the parallelism.
+     */
+    void parallelScan(String collection, int segments, int pageSize, ExecutorService executor, SegmentHandler handler);
+
+    // ==== projections ====
+    // 'fields' are top-level field names; "id" is always returned. Null or empty means all fields.
+
+    /**
+     * Like {@link #getById(String, String)} but only fetches the given fields.
+     */
+    Optional<Map<String, Object>> getById(String collection, String id, Set<String> fields);
+
+    /**
+     * Like {@link #list(String, int)} but only fetches the given fields.
+     */
+    List<Map<String, Object>> list(String collection, int limit, Set<String> fields);
+
+    /**
+     * Like {@link #listPage(String, int, String)} but only fetches the given fields.
+     */
+    Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor, Set<String> fields);
+
+    // ==== partial updates ====
+
+    /**
+     * Changes only the given fields of an existing document, without sending the rest of it.
+     * Values are either plain (set) or {@link PatchOp}s (remove, increment, append).
+     * The changes are applied all-or-nothing on every provider, however many there are.
+     * @throws BaseAdapter.NotFound if the document does not exist.
+     */
+    void patch(String collection, String id, Map<String, Object> changes);
+
+    // ==== filtered queries ====
+
+    /**
+     * Runs a filtered query on the server and returns one page of matches.
+     * Continue with {@code query.withCursor(page.cursor())}. Pages may hold fewer than
+     * 'limit' documents while still having a cursor (e.g. DynamoDB filters after reading).
+     */
+    Page<Map<String, Object>> query(String collection, DocumentQuery query);
+
+    // ==== optimistic concurrency ====
+
+    /**
+     * Reads a document together with its version token (DynamoDB version attribute,
+     * Cosmos ETag, Firestore update time).
+     */
+    Optional<Versioned> getVersioned(String collection, String id);
+
+    /**
+     * Writes 'data' only if the document is still at 'expectedVersion'
+     * (null = only if the document does not exist yet) and returns the new version.
+     * Unversioned writes to the same document (updateById, putAll, patch) also change its
+     * version, to one it has not had before.
+     * @throws BaseAdapter.VersionConflict if someone else changed (or deleted) the document first.
+     */
+    String compareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion);
+
+    // ==== identity ====
+
+    /**
+     * The provider serving this store, as in CLOUD_PROVIDER ("aws", "gcp", "azure") for the
+     * built-in adapters; decorators report their delegate's. Used to tag metrics.
+     */
+    default String provider() {
+        return getClass().getSimpleName();
+    }
 }
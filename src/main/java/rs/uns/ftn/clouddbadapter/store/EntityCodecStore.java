@@ -0,0 +1,17 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.Optional;
+
+/**
+ * Implemented by adapters that can encode and decode entities natively, without going
+ * through a Map<String,Object>. SimpleEntityManager uses it for unversioned save/find
+ * when its store is such an adapter.
+ */
+public interface EntityCodecStore {
+
+    /** Same as updateById(collection, id, EntityMapper.toMap(entity)). */
+    void putEntity(String collection, String id, Object entity);
+
+    /** Same as getById(collection, id).map(m -> EntityMapper.fromMap(type, m)). */
+    <T> Optional<T> getEntity(String collection, String id, Class<T> type);
+}
@@ -0,0 +1,134 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+
+/**
+ * Base class for DocumentStore decorators (caching, buffering, metrics, ...).
+ * Forwards every call to the wrapped store; subclasses override only what they change.
+ */
+public abstract class ForwardingDocumentStore implements DocumentStore, WarmableStore {
+
+    protected final DocumentStore delegate;
+
+    protected ForwardingDocumentStore(DocumentStore delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+    }
+
+    /** The wrapped store. */
+    public DocumentStore delegate() {
+        return delegate;
+    }
+
+    @Override
+    public void create(String collection, String id, Map<String, Object> data) {
+        delegate.create(collection, id, data);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id) {
+        return delegate.getById(collection, id);
+    }
+
+    @Override
+    public void updateById(String collection, String id, Map<String, Object> data) {
+        delegate.updateById(collection, id, data);
+    }
+
+    @Override
+    public void deleteById(String collection, String id) {
+        delegate.deleteById(collection, id);
+    }
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit) {
+        return delegate.list(collection, limit);
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getAll(String collection, Collection<String> ids) {
+        return delegate.getAll(collection, ids);
+    }
+
+    @Override
+    public void putAll(String collection, Map<String, Map<String, Object>> documents) {
+        delegate.putAll(collection, documents);
+    }
+
+    @Override
+    public void deleteAll(String collection, Collection<String> ids) {
+        delegate.deleteAll(collection, ids);
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor) {
+        return delegate.listPage(collection, pageSize, cursor);
+    }
+
+    @Override
+    public Stream<Map<String, Object>> stream(String collection, int pageSize, String cursor) {
+        return delegate.stream(collection, pageSize, cursor);
+    }
+
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, SegmentHandler handler) {
+        delegate.parallelScan(collection, segments, pageSize, handler);
+    }
+
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, ExecutorService executor, SegmentHandler handler) {
+        delegate.parallelScan(collection, segments, pageSize, executor, handler);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id, Set<String> fields) {
+        return delegate.getById(collection, id, fields);
+    }
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit, Set<String> fields) {
+        return delegate.list(collection, limit, fields);
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor, Set<String> fields) {
+        return delegate.listPage(collection, pageSize, cursor, fields);
+    }
+
+    @Override
+    public void patch(String collection, String id, Map<String, Object> changes) {
+        delegate.patch(collection, id, changes);
+    }
+
+    @Override
+    public Page<Map<String, Object>> query(String collection, DocumentQuery query) {
+        return delegate.query(collection, query);
+    }
+
+    @Override
+    public Optional<Versioned> getVersioned(String collection, String id) {
+        return delegate.getVersioned(collection, id);
+    }
+
+    @Override
+    public String compareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        return delegate.compareAndSet(collection, id, data, expectedVersion);
+    }
+
+    @Override
+    public String provider() {
+        return delegate.provider();
+    }
+
+    /** Warms the wrapped store up if it supports it; a no-op otherwise. */
+    @Override
+    public void warmUp(Collection<String> collections) {
+        if (delegate instanceof WarmableStore w) w.warmUp(collections);
+    }
+}
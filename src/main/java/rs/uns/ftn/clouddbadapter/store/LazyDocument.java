@@ -0,0 +1,136 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Map view over a provider's raw document (DynamoDB attributes, Jackson nodes) that decodes a
+ * field the first time it is read and caches the result, so callers that touch a few fields of
+ * a large page do not pay for decoding every attribute of every document.
+ *
+ * It behaves like a HashMap: any mutation, iteration, equals/hashCode or toString first decodes
+ * the whole document into a private HashMap and delegates to it from then on. The raw document
+ * is never modified. Any number of threads may read one instance concurrently (caches share
+ * instances): decoded fields are kept in a concurrent map, and the full copy is built under a
+ * lock and published safely. Like HashMap, mutation needs external synchronization.
+ */
+public final class LazyDocument<R> extends AbstractMap<String, Object> {
+
+    /** Marks a field that decoded to null (ConcurrentHashMap holds no null values). */
+    private static final Object NULL = new Object();
+
+    private final Map<String, R> raw;
+    private final Function<? super R, Object> decode;
+
+    /** Fields decoded so far by get(); null until the first one. */
+    private volatile ConcurrentHashMap<String, Object> decoded;
+    /** Full copy, once the document had to be materialized; then the only state that matters. */
+    private volatile Map<String, Object> full;
+
+    public LazyDocument(Map<String, R> raw, Function<? super R, Object> decode) {
+        this.raw = raw;
+        this.decode = decode;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Map<String, Object> f = full;
+        if (f != null) return f.get(key);
+        if (!(key instanceof String k)) return null;
+        ConcurrentHashMap<String, Object> d = decoded();
+        Object v = d.get(k);
+        if (v != null) return v == NULL ? null : v;
+        R r = raw.get(k);
+        if (r == null) return null;
+        v = decode.apply(r);
+        // a concurrent reader may have decoded it first; everyone gets the same instance
+        Object prev = d.putIfAbsent(k, v == null ? NULL : v);
+        return prev == null ? v : prev == NULL ? null : prev;
+    }
+
+    private ConcurrentHashMap<String, Object> decoded() {
+        ConcurrentHashMap<String, Object> d = decoded;
+        if (d == null) {
+            synchronized (this) {
+                d = decoded;
+                if (d == null) decoded = d = new ConcurrentHashMap<>();
+            }
+        }
+        return d;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Map<String, Object> f = full;
+        return f != null ? f.containsKey(key) : raw.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        Map<String, Object> f = full;
+        return f != null ? f.size() : raw.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** True until the document had to be fully decoded (useful to verify laziness in benchmarks). */
+    public boolean isLazy() {
+        return full == null;
+    }
+
+    private Map<String, Object> full() {
+        Map<String, Object> f = full;
+        if (f != null) return f;
+        synchronized (this) {
+            if (full == null) {
+                Map<String, Object> d = decoded;
+                Map<String, Object> m = new HashMap<>((int) (raw.size() / 0.75f) + 1);
+                for (Map.Entry<String, R> e : raw.entrySet()) {
+                    String k = e.getKey();
+                    Object v = d == null ? null : d.get(k);
+                    m.put(k, v == null ? decode.apply(e.getValue()) : v == NULL ? null : v);
+                }
+                full = m;
+                decoded = null;
+            }
+            return full;
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return full().entrySet();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return full().keySet();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return full().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return full().remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        full().putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        full().clear();
+    }
+}
@@ -0,0 +1,69 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * One page of results plus the opaque cursor to fetch the next one.
+ * The cursor is provider-specific (Dynamo start key, Cosmos continuation token,
+ * Firestore document id) and is null once the collection is exhausted.
+ */
+public record Page<T>(List<T> items, String cursor) {
+
+    public Page {
+        items = items == null ? List.of() : Collections.unmodifiableList(items);
+    }
+
+    /** True if another page may follow. */
+    public boolean hasMore() {
+        return cursor != null;
+    }
+
+    /** Converts the items while keeping the cursor. */
+    public <R> Page<R> map(Function<? super T, ? extends R> fn) {
+        List<R> out = new ArrayList<>(items.size());
+        for (T t : items) out.add(fn.apply(t));
+        return new Page<>(out, cursor);
+    }
+
+    /**
+     * Lazily streams all items, starting at 'cursor' (null = beginning).
+     * A page is only fetched when the previous one has been consumed.
+     */
+    public static <T> Stream<T> stream(String cursor, Function<String, Page<T>> fetchPage) {
+        Iterator<T> it = new Iterator<>() {
+            private Iterator<T> current = Collections.emptyIterator();
+            private String next = cursor;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                // providers may hand back empty pages that still carry a cursor
+                while (!current.hasNext()) {
+                    if (exhausted) return false;
+                    Page<T> page = fetchPage.apply(next);
+                    current = page.items().iterator();
+                    next = page.cursor();
+                    exhausted = next == null;
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
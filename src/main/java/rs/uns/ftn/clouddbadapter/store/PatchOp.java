@@ -0,0 +1,96 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One field change inside {@link DocumentStore#patch}.
+ * Plain values in the changes map mean "set"; use the factories below for the other kinds.
+ *
+ * Example:
+ *   store.patch("users", id, Map.of(
+ *       "name", "Ana",                        // set
+ *       "nickname", PatchOp.remove(),
+ *       "logins", PatchOp.increment(1),
+ *       "tags", PatchOp.append(List.of("vip"))));
+ */
+public final class PatchOp {
+
+    public enum Kind { SET, REMOVE, INCREMENT, APPEND }
+
+    private final Kind kind;
+    private final Object value;
+
+    private PatchOp(Kind kind, Object value) {
+        this.kind = kind;
+        this.value = value;
+    }
+
+    /** Sets the field to the value (creating it if absent). */
+    public static PatchOp set(Object value) {
+        return new PatchOp(Kind.SET, value);
+    }
+
+    /** Removes the field. */
+    public static PatchOp remove() {
+        return new PatchOp(Kind.REMOVE, null);
+    }
+
+    /** Atomically adds 'delta' to a numeric field (missing counts as 0). */
+    public static PatchOp increment(Number delta) {
+        return new PatchOp(Kind.INCREMENT, Objects.requireNonNull(delta, "delta"));
+    }
+
+    /** Appends the values to a list field (missing counts as an empty list). */
+    public static PatchOp append(List<?> values) {
+        return new PatchOp(Kind.APPEND, List.copyOf(Objects.requireNonNull(values, "values")));
+    }
+
+    public Kind kind() { return kind; }
+
+    public Object value() { return value; }
+
+    /** True if the increment delta has no fractional part. */
+    public boolean isIntegral() {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    /** Wraps plain values as SET, keeps PatchOps as they are. */
+    public static Map<String, PatchOp> normalize(Map<String, Object> changes) {
+        Map<String, PatchOp> out = new LinkedHashMap<>(changes.size() * 2);
+        changes.forEach((f, v) -> out.put(f, v instanceof PatchOp p ? p : set(v)));
+        return out;
+    }
+
+    /** Applies the changes to an in-memory document (used by fallbacks and decorators). */
+    public static void applyTo(Map<String, Object> doc, Map<String, PatchOp> ops) {
+        ops.forEach((field, op) -> {
+            switch (op.kind) {
+                case SET -> doc.put(field, op.value);
+                case REMOVE -> doc.remove(field);
+                case INCREMENT -> {
+                    Object cur = doc.get(field);
+                    Number n = cur instanceof Number c ? c : 0;
+                    boolean integral = op.isIntegral() && !(n instanceof Double || n instanceof Float);
+                    doc.put(field, integral
+                            ? (Object) (n.longValue() + ((Number) op.value).longValue())
+                            : (Object) (n.doubleValue() + ((Number) op.value).doubleValue()));
+                }
+                case APPEND -> {
+                    List<Object> list = new ArrayList<>();
+                    if (doc.get(field) instanceof List<?> cur) list.addAll(cur);
+                    list.addAll((List<?>) op.value);
+                    doc.put(field, list);
+                }
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return kind + (value != null ? "(" + value + ")" : "");
+    }
+}
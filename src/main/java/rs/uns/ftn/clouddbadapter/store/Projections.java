@@ -0,0 +1,39 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Helpers for field projections (reading only a subset of top-level fields).
+ * Field names are top-level attribute names; "id" is always included.
+ */
+public final class Projections {
+
+    private Projections() {}
+
+    /** True if 'fields' asks for a projection rather than the whole document. */
+    public static boolean isProjection(Set<String> fields) {
+        return fields != null && !fields.isEmpty();
+    }
+
+    /** Returns the requested fields plus "id", preserving order. */
+    public static Set<String> withId(Collection<String> fields) {
+        Set<String> out = new LinkedHashSet<>();
+        out.add("id");
+        out.addAll(fields);
+        return out;
+    }
+
+    /** Client-side projection, used where the provider cannot project or the document is already in memory. */
+    public static Map<String, Object> apply(Map<String, Object> doc, Set<String> fields) {
+        if (!isProjection(fields)) return doc;
+        Map<String, Object> out = new HashMap<>(fields.size() * 2);
+        for (String f : withId(fields)) {
+            if (doc.containsKey(f)) out.put(f, doc.get(f));
+        }
+        return out;
+    }
+}
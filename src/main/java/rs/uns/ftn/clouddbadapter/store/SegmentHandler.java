@@ -0,0 +1,19 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives the pages produced by a parallel scan.
+ * Called concurrently from several executor threads (one per segment at a time),
+ * so implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface SegmentHandler {
+
+    /**
+     * @param segment zero-based index of the segment the page belongs to
+     * @param page    non-empty page of documents
+     */
+    void accept(int segment, List<Map<String, Object>> page);
+}
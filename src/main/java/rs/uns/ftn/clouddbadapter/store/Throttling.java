@@ -0,0 +1,65 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import com.azure.cosmos.CosmosException;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+
+import java.time.Duration;
+
+/**
+ * Recognizes provider throttling in an exception's cause chain (adapters wrap SDK errors in
+ * BaseAdapter.StoreException): DynamoDB throughput/request-limit errors, Cosmos 429,
+ * Firestore RESOURCE_EXHAUSTED and client-side shedding (BaseAdapter.Overloaded).
+ */
+public final class Throttling {
+    private Throttling() {}
+
+    public static boolean isThrottle(Throwable t) {
+        for (int depth = 0; t != null && depth < 8; t = t.getCause(), depth++) {
+            if (t instanceof BaseAdapter.Overloaded) return true;
+            if (t instanceof ProvisionedThroughputExceededException || t instanceof RequestLimitExceededException) {
+                return true;
+            }
+            if (t instanceof AwsServiceException e && (e.isThrottlingException() || e.statusCode() == 429)) {
+                return true;
+            }
+            if (t instanceof CosmosException e && e.getStatusCode() == 429) return true;
+            if (t instanceof ApiException e && e.getStatusCode().getCode() == StatusCode.Code.RESOURCE_EXHAUSTED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The provider's back-off hint for a throttled call: Cosmos x-ms-retry-after-ms, or an HTTP
+     * Retry-After header (seconds) on AWS errors. Null when there is none.
+     */
+    public static Duration retryAfter(Throwable t) {
+        for (int depth = 0; t != null && depth < 8; t = t.getCause(), depth++) {
+            if (t instanceof CosmosException e) {
+                Duration d = e.getRetryAfterDuration();
+                return d == null || d.isZero() || d.isNegative() ? null : d;
+            }
+            if (t instanceof AwsServiceException e && e.awsErrorDetails() != null
+                    && e.awsErrorDetails().sdkHttpResponse() != null) {
+                return e.awsErrorDetails().sdkHttpResponse().firstMatchingHeader("Retry-After")
+                        .map(Throttling::seconds)
+                        .orElse(null);
+            }
+        }
+        return null;
+    }
+
+    private static Duration seconds(String header) {
+        try {
+            long s = Long.parseLong(header.trim());
+            return s > 0 ? Duration.ofSeconds(s) : null;
+        } catch (NumberFormatException e) {
+            return null; // HTTP-date form; not worth parsing for a back-off hint
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.Map;
+
+/**
+ * A document together with its opaque version token, as returned by {@link DocumentStore#getVersioned}.
+ */
+public record Versioned(Map<String, Object> data, String version) {}
@@ -0,0 +1,18 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.util.Collection;
+
+/**
+ * Implemented by adapters that can open connections and fetch collection metadata ahead of
+ * time. Call it once at startup, before the service takes traffic, so the first requests do
+ * not pay TLS handshakes, table/container lookups and partition map fetches.
+ */
+public interface WarmableStore {
+
+    /**
+     * Opens connections and primes per-collection metadata for the given collections.
+     * Blocks until done.
+     * @throws BaseAdapter.StoreException if a collection is missing or unreachable.
+     */
+    void warmUp(Collection<String> collections);
+}
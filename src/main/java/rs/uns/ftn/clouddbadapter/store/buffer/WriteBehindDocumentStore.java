@@ -0,0 +1,592 @@
+package rs.uns.ftn.clouddbadapter.store.buffer;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.NotFound;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.ForwardingDocumentStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
+import rs.uns.ftn.clouddbadapter.store.PatchOp;
+import rs.uns.ftn.clouddbadapter.store.Projections;
+import rs.uns.ftn.clouddbadapter.store.SegmentHandler;
+import rs.uns.ftn.clouddbadapter.store.Throttling;
+import rs.uns.ftn.clouddbadapter.store.Versioned;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Opt-in write-behind buffer in front of any DocumentStore.
+ *
+ * create/updateById/deleteById (and their batch forms) return as soon as the write is buffered.
+ * Repeated writes to the same (collection, id) are coalesced, so only the last one is sent.
+ * The buffer is flushed with the provider's batch API when it reaches 'maxBatchSize' entries,
+ * every 'flushInterval', on {@link #flush()} and on {@link #close()}.
+ *
+ * Reads by id see buffered writes (read-your-writes within this instance); list/scan calls
+ * flush first. The buffer holds at most 'maxPending' distinct keys, counting those of a flush
+ * in progress: when it is full, writers block for up to 'backpressureTimeout' and then fail.
+ *
+ * Each collection's writes are flushed as their own batch, so one failing batch does not hold
+ * back the others. Writes that failed with a retryable error (throttling, I/O) stay buffered
+ * (unless superseded) and are retried on the next flush, up to 'maxAttempts' flushes. A batch
+ * the store rejects otherwise is retried one write at a time, to single out the writes it
+ * cannot accept (an unsupported value, an oversized item, a missing table). Those, and
+ * writes out of attempts, are dropped from the buffer and kept in {@link #failedWrites()}
+ * with their error; reads no longer see them. Writes after {@link #close()} are rejected.
+ *
+ * Buffered writes are lost if the process dies before they are flushed, so use this only for
+ * data that tolerates that (counters, sessions), and always close() the store on shutdown.
+ */
+public final class WriteBehindDocumentStore extends ForwardingDocumentStore implements AutoCloseable {
+
+    private record Key(String collection, String id) {}
+
+    /** The last buffered write for a key; null data means delete. */
+    private record Write(Map<String, Object> data) {
+        boolean isDelete() { return data == null; }
+    }
+
+    /** A write given up on; null data means delete. */
+    public record FailedWrite(String collection, String id, Map<String, Object> data, RuntimeException error) {
+        public boolean isDelete() { return data == null; }
+    }
+
+    private final int maxBatchSize;
+    private final int maxPending;
+    private final int maxAttempts;
+    private final long backpressureNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private LinkedHashMap<Key, Write> pending = new LinkedHashMap<>();
+    private Map<Key, Write> inFlight = Map.of();
+    /** Keys both in 'pending' and 'inFlight', so the buffer's distinct size is known. */
+    private int overlap;
+    /** Failed flushes of the buffered write per key, for keys that failed at least once. */
+    private final Map<Key, Integer> attempts = new HashMap<>();
+    private final Map<Key, FailedWrite> failed = new LinkedHashMap<>();
+    private boolean closed;
+
+    /** Serializes flushes so two batches never race for the same key. */
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private volatile RuntimeException lastFailure;
+
+    private WriteBehindDocumentStore(Builder b) {
+        super(b.delegate);
+        this.maxBatchSize = b.maxBatchSize;
+        this.maxPending = b.maxPending;
+        this.maxAttempts = b.maxAttempts;
+        this.backpressureNanos = b.backpressureTimeout.toNanos();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "write-behind-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = b.flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder(DocumentStore delegate) {
+        return new Builder(delegate);
+    }
+
+    // ==== buffered writes ====
+
+    @Override
+    public void create(String collection, String id, Map<String, Object> data) {
+        // create falls back to update in every adapter, so it buffers as an upsert
+        updateById(collection, id, data);
+    }
+
+    @Override
+    public void updateById(String collection, String id, Map<String, Object> data) {
+        validate(collection, id);
+        if (data == null) throw new IllegalArgumentException("data null");
+        buffer(new Key(collection, id), new Write(new HashMap<>(data)));
+    }
+
+    @Override
+    public void deleteById(String collection, String id) {
+        validate(collection, id);
+        buffer(new Key(collection, id), new Write(null));
+    }
+
+    @Override
+    public void putAll(String collection, Map<String, Map<String, Object>> documents) {
+        documents.forEach((id, d) -> updateById(collection, id, d));
+    }
+
+    @Override
+    public void deleteAll(String collection, Collection<String> ids) {
+        for (String id : ids) deleteById(collection, id);
+    }
+
+    /**
+     * A patch on a buffered document is applied to the buffered copy (and so coalesced with it).
+     * Otherwise it is sent straight through, since it is already a small write.
+     */
+    @Override
+    public void patch(String collection, String id, Map<String, Object> changes) {
+        validate(collection, id);
+        if (changes == null || changes.isEmpty()) throw new IllegalArgumentException("changes empty");
+        Key key = new Key(collection, id);
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("WriteBehindDocumentStore is closed");
+            Write w = pending.get(key);
+            if (w == null) w = inFlight.get(key);
+            if (w != null) {
+                if (w.isDelete()) throw new NotFound("Document not found: " + id);
+                Map<String, Object> doc = new HashMap<>(w.data());
+                PatchOp.applyTo(doc, PatchOp.normalize(changes));
+                put(key, new Write(doc));
+                coalesced.incrementAndGet();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        delegate.patch(collection, id, changes);
+    }
+
+    private void buffer(Key key, Write write) {
+        boolean full;
+        lock.lock();
+        try {
+            long nanos = backpressureNanos;
+            while (!closed && !pending.containsKey(key) && !inFlight.containsKey(key) && size() >= maxPending) {
+                if (nanos <= 0) {
+                    throw new StoreException("Write-behind buffer full (" + maxPending + " pending writes)", lastFailure);
+                }
+                requestFlush();
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (closed) throw new IllegalStateException("WriteBehindDocumentStore is closed");
+            if (put(key, write) != null) coalesced.incrementAndGet();
+            full = pending.size() >= maxBatchSize;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreException("Interrupted while waiting for write-behind buffer space", e);
+        } finally {
+            lock.unlock();
+        }
+        if (full) requestFlush();
+    }
+
+    /** Buffers a write; returns the one it replaced in 'pending', if any. Caller holds the lock. */
+    private Write put(Key key, Write write) {
+        attempts.remove(key);
+        Write previous = pending.put(key, write);
+        if (previous == null && inFlight.containsKey(key)) overlap++;
+        return previous;
+    }
+
+    /** Distinct buffered keys, pending or being flushed. Caller holds the lock. */
+    private int size() {
+        return pending.size() + inFlight.size() - overlap;
+    }
+
+    // ==== reads see buffered writes ====
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id) {
+        Write w = buffered(new Key(collection, id));
+        if (w != null) return w.isDelete() ? Optional.empty() : Optional.of(new HashMap<>(w.data()));
+        return delegate.getById(collection, id);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id, Set<String> fields) {
+        Write w = buffered(new Key(collection, id));
+        if (w != null) {
+            return w.isDelete() ? Optional.empty() : Optional.of(Projections.apply(new HashMap<>(w.data()), fields));
+        }
+        return delegate.getById(collection, id, fields);
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getAll(String collection, Collection<String> ids) {
+        Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+        List<String> unbuffered = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Write w = buffered(new Key(collection, id));
+            if (w == null) unbuffered.add(id);
+            else if (!w.isDelete()) out.put(id, new HashMap<>(w.data()));
+        }
+        if (!unbuffered.isEmpty()) out.putAll(delegate.getAll(collection, unbuffered));
+        return out;
+    }
+
+    private Write buffered(Key key) {
+        lock.lock();
+        try {
+            Write w = pending.get(key);
+            return w != null ? w : inFlight.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit) {
+        flush();
+        return delegate.list(collection, limit);
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor) {
+        flush();
+        return delegate.listPage(collection, pageSize, cursor);
+    }
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit, Set<String> fields) {
+        flush();
+        return delegate.list(collection, limit, fields);
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor, Set<String> fields) {
+        flush();
+        return delegate.listPage(collection, pageSize, cursor, fields);
+    }
+
+    @Override
+    public Page<Map<String, Object>> query(String collection, DocumentQuery query) {
+        flush();
+        return delegate.query(collection, query);
+    }
+
+    @Override
+    public Stream<Map<String, Object>> stream(String collection, int pageSize, String cursor) {
+        flush();
+        return delegate.stream(collection, pageSize, cursor);
+    }
+
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, SegmentHandler handler) {
+        flush();
+        delegate.parallelScan(collection, segments, pageSize, handler);
+    }
+
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, ExecutorService executor, SegmentHandler handler) {
+        flush();
+        delegate.parallelScan(collection, segments, pageSize, executor, handler);
+    }
+
+    /** Flushes first, so the version read reflects every buffered write. */
+    @Override
+    public Optional<Versioned> getVersioned(String collection, String id) {
+        flush();
+        return delegate.getVersioned(collection, id);
+    }
+
+    /** Conditional writes cannot be buffered: flushes, then writes through. */
+    @Override
+    public String compareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("WriteBehindDocumentStore is closed");
+        } finally {
+            lock.unlock();
+        }
+        flush();
+        return delegate.compareAndSet(collection, id, data, expectedVersion);
+    }
+
+    // ==== flushing ====
+
+    /**
+     * Writes every buffered change to the underlying store and waits for it.
+     * If a write fails, the first error is rethrown once every collection was tried; the
+     * failed writes stay buffered for a retry or move to {@link #failedWrites()} (see above).
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Key, Write> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) return;
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                inFlight = batch;
+                overlap = 0;
+            } finally {
+                lock.unlock();
+            }
+
+            Map<Key, RuntimeException> errors = new LinkedHashMap<>();
+            boolean ok = false;
+            try {
+                write(batch, errors);
+                ok = true;
+            } finally {
+                lock.lock();
+                try {
+                    // re-queue, letting writes buffered meanwhile win; buffer() admitted new
+                    // keys only while batch + pending stayed within maxPending distinct keys
+                    LinkedHashMap<Key, Write> merged = new LinkedHashMap<>();
+                    if (!ok) {
+                        merged.putAll(batch); // write() itself broke: retry everything
+                    } else {
+                        for (Key k : batch.keySet()) {
+                            RuntimeException e = errors.get(k);
+                            if (e == null || pending.containsKey(k)) {
+                                attempts.remove(k); // written, or superseded by a newer write
+                            } else if (retryable(e) && attempts.merge(k, 1, Integer::sum) < maxAttempts) {
+                                merged.put(k, batch.get(k));
+                            } else {
+                                attempts.remove(k);
+                                failed.put(k, new FailedWrite(k.collection(), k.id(), batch.get(k).data(), e));
+                            }
+                        }
+                    }
+                    merged.putAll(pending);
+                    pending = merged;
+                    inFlight = Map.of();
+                    overlap = 0;
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            flushed.addAndGet(batch.size() - errors.size());
+            if (errors.isEmpty()) {
+                lastFailure = null;
+                return;
+            }
+            Iterator<RuntimeException> it = new LinkedHashSet<>(errors.values()).iterator();
+            RuntimeException first = it.next();
+            while (it.hasNext()) first.addSuppressed(it.next());
+            lastFailure = first;
+            throw first;
+        }
+    }
+
+    /** Writes each collection's puts and deletes as separate batches; records the keys that failed. */
+    private void write(Map<Key, Write> batch, Map<Key, RuntimeException> errors) {
+        Map<String, Map<String, Map<String, Object>>> puts = new LinkedHashMap<>();
+        Map<String, List<String>> deletes = new LinkedHashMap<>();
+        batch.forEach((k, w) -> {
+            if (w.isDelete()) deletes.computeIfAbsent(k.collection(), c -> new ArrayList<>()).add(k.id());
+            else puts.computeIfAbsent(k.collection(), c -> new LinkedHashMap<>()).put(k.id(), w.data());
+        });
+        // keys are unique after coalescing, so puts and deletes never touch the same document
+        puts.forEach((c, docs) -> {
+            try {
+                delegate.putAll(c, docs);
+            } catch (RuntimeException e) {
+                failed(c, docs.keySet(), e, errors, id -> delegate.updateById(c, id, docs.get(id)));
+            }
+        });
+        deletes.forEach((c, ids) -> {
+            try {
+                delegate.deleteAll(c, ids);
+            } catch (RuntimeException e) {
+                failed(c, ids, e, errors, id -> delegate.deleteById(c, id));
+            }
+        });
+    }
+
+    /**
+     * A batch failed: with a retryable error every write in it is retried later; otherwise the
+     * writes are sent one at a time, so only those the store rejects fail.
+     */
+    private static void failed(String collection, Collection<String> ids, RuntimeException e,
+                               Map<Key, RuntimeException> errors, Consumer<String> single) {
+        if (retryable(e) || ids.size() == 1) {
+            for (String id : ids) errors.put(new Key(collection, id), e);
+            return;
+        }
+        for (String id : ids) {
+            try {
+                single.accept(id);
+            } catch (RuntimeException one) {
+                errors.put(new Key(collection, id), one);
+            }
+        }
+    }
+
+    /** Throttling and I/O errors may pass; anything else fails the same way again. */
+    private static boolean retryable(Throwable e) {
+        if (Throttling.isThrottle(e)) return true;
+        for (int depth = 0; e != null && depth < 8; e = e.getCause(), depth++) {
+            if (e instanceof IOException) return true;
+        }
+        return false;
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushRequested.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false); // shutting down; close() flushes
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ignore) {
+            // kept in lastFailure; the writes stay buffered and are retried on the next trigger
+        }
+    }
+
+    /**
+     * Stops the background flusher and writes everything still buffered.
+     * Throws if the final flush fails; the unwritten changes are then reported by {@link #pendingCount()}.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // ==== stats ====
+
+    /** Distinct keys waiting to be written. */
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Writes that were replaced by a later write to the same key before being sent. */
+    public long coalescedCount() {
+        return coalesced.get();
+    }
+
+    /** Writes sent to the underlying store. */
+    public long flushedCount() {
+        return flushed.get();
+    }
+
+    /** Writes given up on, oldest first, with the error of their last attempt. */
+    public List<FailedWrite> failedWrites() {
+        lock.lock();
+        try {
+            return List.copyOf(failed.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the writes given up on and forgets them, e.g. to log them or write them elsewhere. */
+    public List<FailedWrite> drainFailedWrites() {
+        lock.lock();
+        try {
+            List<FailedWrite> out = List.copyOf(failed.values());
+            failed.clear();
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The error of the most recent failed flush, or null if the last flush succeeded. */
+    public RuntimeException lastFailure() {
+        return lastFailure;
+    }
+
+    private static void validate(String c, String id) {
+        if (c == null || c.isBlank()) throw new IllegalArgumentException("collection empty");
+        if (id == null || id.isBlank()) throw new IllegalArgumentException("id empty");
+    }
+
+    /**
+     * Defaults: flush at 500 buffered writes or every second, at most 10,000 pending keys,
+     * writers wait up to 30 seconds for space, a write is given up after 10 failed flushes.
+     */
+    public static final class Builder {
+        private final DocumentStore delegate;
+        private int maxBatchSize = 500;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private int maxPending = 10_000;
+        private int maxAttempts = 10;
+        private Duration backpressureTimeout = Duration.ofSeconds(30);
+
+        private Builder(DocumentStore delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+        }
+
+        /** Number of buffered keys that triggers an immediate flush. */
+        public Builder maxBatchSize(int n) {
+            if (n <= 0) throw new IllegalArgumentException("maxBatchSize must be positive");
+            this.maxBatchSize = n;
+            return this;
+        }
+
+        /** Upper bound on how long a write stays buffered when traffic is low. */
+        public Builder flushInterval(Duration d) {
+            if (d == null || d.toMillis() <= 0) throw new IllegalArgumentException("flushInterval must be positive");
+            this.flushInterval = d;
+            return this;
+        }
+
+        /** Hard cap on distinct buffered keys; writers block beyond it. */
+        public Builder maxPending(int n) {
+            if (n <= 0) throw new IllegalArgumentException("maxPending must be positive");
+            this.maxPending = n;
+            return this;
+        }
+
+        /** Flushes a write may fail with a retryable error before it moves to failedWrites(). */
+        public Builder maxAttempts(int n) {
+            if (n <= 0) throw new IllegalArgumentException("maxAttempts must be positive");
+            this.maxAttempts = n;
+            return this;
+        }
+
+        /** How long a writer waits for buffer space before failing. */
+        public Builder backpressureTimeout(Duration d) {
+            if (d == null || d.isNegative()) throw new IllegalArgumentException("backpressureTimeout must not be negative");
+            this.backpressureTimeout = d;
+            return this;
+        }
+
+        public WriteBehindDocumentStore build() {
+            if (maxPending < maxBatchSize) throw new IllegalArgumentException("maxPending must be >= maxBatchSize");
+            return new WriteBehindDocumentStore(this);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package rs.uns.ftn.clouddbadapter.store.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.ForwardingDocumentStore;
+import rs.uns.ftn.clouddbadapter.store.Projections;
+import rs.uns.ftn.clouddbadapter.store.Versioned;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-through cache in front of any DocumentStore.
+ *
+ * getById/getAll results are cached per (collection, id), including "not found" results.
+ * Writes and deletes that go through this instance invalidate the affected keys; writes made
+ * by other processes become visible once the entry's TTL expires.
+ *
+ * Eviction is size- or weight-bounded and frequency-aware (Caffeine's W-TinyLFU), so a burst
+ * of one-off ids does not flush the hot working set. Cached documents are returned as
+ * unmodifiable maps because the same instance is handed to every caller.
+ *
+ * Example:
+ *   DocumentStore store = CachingDocumentStore.builder(DocumentStoreFactory.fromEnv())
+ *       .maximumSize(50_000)
+ *       .ttl(Duration.ofMinutes(5))
+ *       .ttl("sessions", Duration.ofSeconds(10))
+ *       .build();
+ */
+public final class CachingDocumentStore extends ForwardingDocumentStore {
+
+    private record Key(String collection, String id) {}
+
+    private static final int STRIPES = 64;
+
+    private final Cache<Key, Optional<Map<String, Object>>> cache;
+    /** Invalidations per key stripe; getAll caches a loaded entry only if its stripe did not move. */
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    private CachingDocumentStore(Builder b) {
+        super(b.delegate);
+        Map<String, Duration> ttls = Map.copyOf(b.ttls);
+        Duration defaultTtl = b.defaultTtl;
+        Duration negativeTtl = b.negativeTtl;
+
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder().recordStats();
+        if (b.maximumWeight > 0) {
+            // weight ~ number of top-level fields, a cheap proxy for document size
+            caffeine.maximumWeight(b.maximumWeight)
+                    .<Key, Optional<Map<String, Object>>>weigher((k, v) -> 1 + v.map(Map::size).orElse(0));
+        } else {
+            caffeine.maximumSize(b.maximumSize);
+        }
+        this.cache = caffeine.expireAfter(new Expiry<Key, Optional<Map<String, Object>>>() {
+            @Override
+            public long expireAfterCreate(Key k, Optional<Map<String, Object>> v, long now) {
+                Duration ttl = v.isPresent() ? ttls.getOrDefault(k.collection(), defaultTtl) : negativeTtl;
+                return ttl.toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(Key k, Optional<Map<String, Object>> v, long now, long current) {
+                return expireAfterCreate(k, v, now);
+            }
+
+            @Override
+            public long expireAfterRead(Key k, Optional<Map<String, Object>> v, long now, long current) {
+                return current;
+            }
+        }).build();
+    }
+
+    public static Builder builder(DocumentStore delegate) {
+        return new Builder(delegate);
+    }
+
+    // ==== reads ====
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id) {
+        return cache.get(new Key(collection, id), k -> freeze(delegate.getById(collection, id)));
+    }
+
+    /**
+     * Projected reads are answered from a cached full document when there is one;
+     * otherwise they go to the store and are not cached (a partial document must not
+     * later be served as a full one).
+     */
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id, Set<String> fields) {
+        if (!Projections.isProjection(fields)) return getById(collection, id);
+        Optional<Map<String, Object>> cached = cache.getIfPresent(new Key(collection, id));
+        if (cached != null) return cached.map(d -> Projections.apply(d, fields));
+        return delegate.getById(collection, id, fields);
+    }
+
+    /**
+     * Serves cached entries and loads the rest with one delegate.getAll. A loaded entry is
+     * only cached if no invalidation touched its key while it was being read, so a write
+     * that raced with the load is not hidden behind the old document.
+     */
+    @Override
+    public Map<String, Map<String, Object>> getAll(String collection, Collection<String> ids) {
+        if (ids == null) throw new IllegalArgumentException("ids null");
+        Set<Key> keys = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id == null) throw new IllegalArgumentException("id empty");
+            keys.add(new Key(collection, id));
+        }
+
+        Map<Key, Optional<Map<String, Object>>> found = new HashMap<>(cache.getAllPresent(keys));
+        List<Key> missing = new ArrayList<>();
+        for (Key k : keys) {
+            if (!found.containsKey(k)) missing.add(k);
+        }
+        if (!missing.isEmpty()) {
+            long[] stamps = new long[missing.size()];
+            List<String> missingIds = new ArrayList<>(missing.size());
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = invalidations.get(stripe(missing.get(i)));
+                missingIds.add(missing.get(i).id());
+            }
+            Map<String, Map<String, Object>> loaded = delegate.getAll(collection, missingIds);
+            for (int i = 0; i < stamps.length; i++) {
+                Key k = missing.get(i);
+                Optional<Map<String, Object>> doc = freeze(Optional.ofNullable(loaded.get(k.id())));
+                long stamp = stamps[i];
+                cache.asMap().compute(k, (key, current) ->
+                        current != null || invalidations.get(stripe(key)) != stamp ? current : doc);
+                found.put(k, doc);
+            }
+        }
+
+        Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+        for (Key k : keys) found.get(k).ifPresent(d -> out.put(k.id(), d));
+        return out;
+    }
+
+    // ==== writes invalidate ====
+
+    @Override
+    public void create(String collection, String id, Map<String, Object> data) {
+        try {
+            delegate.create(collection, id, data);
+        } finally {
+            invalidate(collection, id);
+        }
+    }
+
+    @Override
+    public void updateById(String collection, String id, Map<String, Object> data) {
+        try {
+            delegate.updateById(collection, id, data);
+        } finally {
+            invalidate(collection, id);
+        }
+    }
+
+    @Override
+    public void deleteById(String collection, String id) {
+        try {
+            delegate.deleteById(collection, id);
+        } finally {
+            invalidate(collection, id);
+        }
+    }
+
+    @Override
+    public void patch(String collection, String id, Map<String, Object> changes) {
+        try {
+            delegate.patch(collection, id, changes);
+        } finally {
+            invalidate(collection, id);
+        }
+    }
+
+    @Override
+    public void putAll(String collection, Map<String, Map<String, Object>> documents) {
+        try {
+            delegate.putAll(collection, documents);
+        } finally {
+            invalidate(collection, documents.keySet());
+        }
+    }
+
+    @Override
+    public void deleteAll(String collection, Collection<String> ids) {
+        try {
+            delegate.deleteAll(collection, ids);
+        } finally {
+            invalidate(collection, ids);
+        }
+    }
+
+    // ==== optimistic concurrency: never served from the cache ====
+
+    /** Always reads through, since a stale token would only produce a conflict later. */
+    @Override
+    public Optional<Versioned> getVersioned(String collection, String id) {
+        return delegate.getVersioned(collection, id);
+    }
+
+    @Override
+    public String compareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        try {
+            return delegate.compareAndSet(collection, id, data, expectedVersion);
+        } finally {
+            invalidate(collection, id);
+        }
+    }
+
+    // ==== cache management ====
+
+    /** Drops the cached entry (positive or negative) for one document. */
+    public void invalidate(String collection, String id) {
+        Key k = new Key(collection, id);
+        invalidations.incrementAndGet(stripe(k));
+        cache.invalidate(k);
+    }
+
+    /** Drops the cached entries for the given ids. */
+    public void invalidate(String collection, Collection<String> ids) {
+        List<Key> keys = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Key k = new Key(collection, id);
+            invalidations.incrementAndGet(stripe(k));
+            keys.add(k);
+        }
+        cache.invalidateAll(keys);
+    }
+
+    /** Drops everything. */
+    public void invalidateAll() {
+        for (int i = 0; i < STRIPES; i++) invalidations.incrementAndGet(i);
+        cache.invalidateAll();
+    }
+
+    private static int stripe(Key k) {
+        return k.hashCode() & (STRIPES - 1);
+    }
+
+    /** Hit, miss, load and eviction counters since creation. */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /** Approximate number of cached entries (including negative ones). */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static Optional<Map<String, Object>> freeze(Optional<Map<String, Object>> doc) {
+        return doc.map(Collections::unmodifiableMap);
+    }
+
+    /**
+     * Configures bounds and TTLs. Defaults: 10,000 entries, 5 minute TTL, 30 second negative TTL.
+     */
+    public static final class Builder {
+        private final DocumentStore delegate;
+        private long maximumSize = 10_000;
+        private long maximumWeight;
+        private Duration defaultTtl = Duration.ofMinutes(5);
+        private Duration negativeTtl = Duration.ofSeconds(30);
+        private final Map<String, Duration> ttls = new HashMap<>();
+
+        private Builder(DocumentStore delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+        }
+
+        /** Bounds the cache by entry count. */
+        public Builder maximumSize(long entries) {
+            if (entries <= 0) throw new IllegalArgumentException("maximumSize must be positive");
+            this.maximumSize = entries;
+            this.maximumWeight = 0;
+            return this;
+        }
+
+        /** Bounds the cache by total weight, where a document weighs 1 + its number of fields. */
+        public Builder maximumWeight(long weight) {
+            if (weight <= 0) throw new IllegalArgumentException("maximumWeight must be positive");
+            this.maximumWeight = weight;
+            return this;
+        }
+
+        /** TTL for collections without a specific TTL. */
+        public Builder ttl(Duration ttl) {
+            this.defaultTtl = positive(ttl);
+            return this;
+        }
+
+        /** TTL for one collection. */
+        public Builder ttl(String collection, Duration ttl) {
+            ttls.put(Objects.requireNonNull(collection, "collection"), positive(ttl));
+            return this;
+        }
+
+        /** TTL for "not found" results; Duration.ZERO disables negative caching. */
+        public Builder negativeTtl(Duration ttl) {
+            if (ttl == null || ttl.isNegative()) throw new IllegalArgumentException("negativeTtl must not be negative");
+            this.negativeTtl = ttl;
+            return this;
+        }
+
+        public CachingDocumentStore build() {
+            return new CachingDocumentStore(this);
+        }
+
+        private static Duration positive(Duration d) {
+            if (d == null || d.isZero() || d.isNegative()) throw new IllegalArgumentException("ttl must be positive");
+            return d;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One change to a document, as delivered by a {@link ChangeFeed}.
+ *
+ * @param document  the document after the change; null for deletes
+ * @param timestamp when the provider recorded the change (approximate), or null if unknown
+ */
+public record Change(Type type, String id, Map<String, Object> document, Instant timestamp) {
+
+    public enum Type { UPSERT, DELETE }
+}
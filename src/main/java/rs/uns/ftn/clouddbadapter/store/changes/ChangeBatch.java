@@ -0,0 +1,16 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+import java.util.List;
+
+/**
+ * Changes read from one partition, in the order the provider recorded them.
+ *
+ * @param checkpoint the subscription's checkpoint including this batch; persist it once the
+ *                   batch has been processed
+ */
+public record ChangeBatch(String collection, String partition, List<Change> changes, Checkpoint checkpoint) {
+
+    public int size() {
+        return changes.size();
+    }
+}
@@ -0,0 +1,260 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.ForwardingDocumentStore;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Change feed for stores without a native one (or for tests): records every write made
+ * through this instance in an in-memory log and serves it as a {@link ChangeFeed}.
+ *
+ * Each collection's log is split into 'partitions' by document id, so changes to one
+ * document stay in order while partitions are consumed in parallel. A write and its log
+ * entry are made under a per-id lock, so the log order of a document matches the order
+ * its writes reached the store. Patches are recorded with the document read back after
+ * the patch.
+ *
+ * Only writes made through this instance are seen, and the log lives in memory: it keeps
+ * the last 'retention' changes per partition and is lost on restart. A checkpoint older
+ * than the retained log resumes at the oldest retained change. Positions carry the epoch
+ * of the instance that wrote them, so a checkpoint saved before a restart (or by another
+ * instance) resumes at the oldest retained change too, instead of skipping the first
+ * changes of the new log.
+ *
+ * Example:
+ *   ChangeCapturingDocumentStore store = ChangeCapturingDocumentStore.builder(DocumentStoreFactory.fromEnv())
+ *       .partitions(8)
+ *       .build();
+ *   store.changes("users", Checkpoint.now(), batch -> batch.changes().forEach(index::apply));
+ */
+public final class ChangeCapturingDocumentStore extends ForwardingDocumentStore implements ChangeFeed {
+
+    private static final int STRIPES = 64;
+
+    private final int partitions;
+    private final int retention;
+    private final Map<String, Log[]> logs = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final Feed feed = new Feed();
+    /** Prefix of this instance's positions; sequence numbers restart with every instance. */
+    private final String epoch = Long.toHexString(new SecureRandom().nextLong());
+
+    private ChangeCapturingDocumentStore(Builder b) {
+        super(b.delegate);
+        this.partitions = b.partitions;
+        this.retention = b.retention;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+    }
+
+    public static Builder builder(DocumentStore delegate) {
+        return new Builder(delegate);
+    }
+
+    // ==== ChangeFeed ====
+
+    @Override
+    public ChangeSubscription changes(String collection, Checkpoint from, ChangeFeedOptions options, ChangeHandler handler) {
+        return feed.changes(collection, from, options, handler);
+    }
+
+    // ==== captured writes ====
+
+    @Override
+    public void create(String collection, String id, Map<String, Object> data) {
+        write(collection, id, () -> delegate.create(collection, id, data), () -> upsert(id, data));
+    }
+
+    @Override
+    public void updateById(String collection, String id, Map<String, Object> data) {
+        write(collection, id, () -> delegate.updateById(collection, id, data), () -> upsert(id, data));
+    }
+
+    @Override
+    public void patch(String collection, String id, Map<String, Object> changes) {
+        write(collection, id, () -> delegate.patch(collection, id, changes), () -> delegate.getById(collection, id)
+                .map(doc -> upsert(id, doc))
+                .orElseGet(() -> delete(id))); // deleted concurrently by another process
+    }
+
+    @Override
+    public void deleteById(String collection, String id) {
+        write(collection, id, () -> delegate.deleteById(collection, id), () -> delete(id));
+    }
+
+    @Override
+    public String compareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        String[] version = new String[1];
+        write(collection, id, () -> version[0] = delegate.compareAndSet(collection, id, data, expectedVersion),
+                () -> upsert(id, data));
+        return version[0];
+    }
+
+    @Override
+    public void putAll(String collection, Map<String, Map<String, Object>> documents) {
+        if (documents == null) throw new IllegalArgumentException("documents null");
+        List<Change> changes = new ArrayList<>(documents.size());
+        documents.forEach((id, doc) -> changes.add(upsert(id, doc)));
+        writeAll(collection, documents.keySet(), () -> delegate.putAll(collection, documents), changes);
+    }
+
+    @Override
+    public void deleteAll(String collection, Collection<String> ids) {
+        if (ids == null) throw new IllegalArgumentException("ids null");
+        List<Change> changes = new ArrayList<>(ids.size());
+        for (String id : ids) changes.add(delete(id));
+        writeAll(collection, ids, () -> delegate.deleteAll(collection, ids), changes);
+    }
+
+    private void write(String collection, String id, Runnable call, Supplier<Change> change) {
+        ReentrantLock lock = stripes[stripe(id)];
+        lock.lock();
+        try {
+            call.run();
+            append(collection, change.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Batch writes are partial on failure, so nothing is recorded then; the caller retries.
+     * Locks are taken in stripe order so concurrent batches cannot deadlock.
+     */
+    private void writeAll(String collection, Collection<String> ids, Runnable call, List<Change> changes) {
+        BitSet used = new BitSet(STRIPES);
+        for (String id : ids) used.set(stripe(id));
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            for (int i = used.nextSetBit(0); i >= 0; i = used.nextSetBit(i + 1)) {
+                stripes[i].lock();
+                held.add(stripes[i]);
+            }
+            call.run();
+            for (Change c : changes) append(collection, c);
+        } finally {
+            for (ReentrantLock l : held) l.unlock();
+        }
+    }
+
+    private static Change upsert(String id, Map<String, Object> document) {
+        return new Change(Change.Type.UPSERT, id, Collections.unmodifiableMap(new LinkedHashMap<>(document)), Instant.now());
+    }
+
+    private static Change delete(String id) {
+        return new Change(Change.Type.DELETE, id, null, Instant.now());
+    }
+
+    private static int stripe(String id) {
+        return (id.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    private void append(String collection, Change change) {
+        log(collection)[(change.id().hashCode() & 0x7fffffff) % partitions].append(change);
+    }
+
+    private Log[] log(String collection) {
+        return logs.computeIfAbsent(collection, c -> {
+            Log[] l = new Log[partitions];
+            for (int i = 0; i < partitions; i++) l[i] = new Log(retention);
+            return l;
+        });
+    }
+
+    /** One partition of a collection's log; positions are sequence numbers. */
+    private static final class Log {
+        private final int retention;
+        private final ArrayDeque<Change> entries = new ArrayDeque<>();
+        private long last; // sequence number of the newest entry
+
+        Log(int retention) {
+            this.retention = retention;
+        }
+
+        synchronized void append(Change change) {
+            entries.addLast(change);
+            last++;
+            if (entries.size() > retention) entries.removeFirst();
+        }
+
+        synchronized long last() {
+            return last;
+        }
+
+        /** Up to 'max' changes after sequence 'after', and the sequence of the last one returned. */
+        synchronized PartitionedChangeFeed.Batch read(long after, int max) {
+            long first = last - entries.size() + 1;
+            long from = Math.max(after + 1, first);
+            List<Change> out = new ArrayList<>();
+            if (from > last) return new PartitionedChangeFeed.Batch(out, Long.toString(Math.max(after, 0)), false);
+            Iterator<Change> it = entries.iterator();
+            for (long seq = first; it.hasNext() && out.size() < max; seq++) {
+                Change c = it.next();
+                if (seq >= from) out.add(c);
+            }
+            long position = out.isEmpty() ? Math.max(after, 0) : from + out.size() - 1;
+            return new PartitionedChangeFeed.Batch(out, Long.toString(position), false);
+        }
+    }
+
+    private final class Feed extends PartitionedChangeFeed {
+
+        @Override
+        protected List<Partition> partitions(String collection, Checkpoint current) {
+            List<Partition> list = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) list.add(new Partition(Integer.toString(i), null));
+            return list;
+        }
+
+        @Override
+        protected PartitionReader open(String collection, Partition partition, String position, Checkpoint.Start start) {
+            Log log = log(collection)[Integer.parseInt(partition.id())];
+            long[] after = {position != null ? sequence(position) : start == Checkpoint.Start.NOW ? log.last() : 0};
+            return max -> {
+                Batch b = log.read(after[0], max);
+                after[0] = Long.parseLong(b.position());
+                return new Batch(b.changes(), epoch + ":" + b.position(), false);
+            };
+        }
+
+        /** Sequence number of an "epoch:sequence" position; 0 (the start) for another instance's. */
+        private long sequence(String position) {
+            int sep = position.lastIndexOf(':');
+            if (sep < 0 || !position.substring(0, sep).equals(epoch)) return 0;
+            return Long.parseLong(position.substring(sep + 1));
+        }
+    }
+
+    public static final class Builder {
+        private final DocumentStore delegate;
+        private int partitions = 4;
+        private int retention = 100_000;
+
+        private Builder(DocumentStore delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+        }
+
+        /** Partitions per collection, i.e. how many consumers of one collection can run in parallel. Default 4. */
+        public Builder partitions(int partitions) {
+            if (partitions < 1) throw new IllegalArgumentException("partitions must be >= 1");
+            this.partitions = partitions;
+            return this;
+        }
+
+        /** Changes kept per partition. Default 100000. */
+        public Builder retention(int retention) {
+            if (retention < 1) throw new IllegalArgumentException("retention must be >= 1");
+            this.retention = retention;
+            return this;
+        }
+
+        public ChangeCapturingDocumentStore build() {
+            return new ChangeCapturingDocumentStore(this);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+/**
+ * Incremental stream of the changes made to a collection, for cache invalidation, search
+ * indexing or projections without re-scanning the collection.
+ *
+ * Implementations:
+ *  - DynamoDB: DynamoDbChangeFeed, over DynamoDB Streams (one partition per stream shard)
+ *  - Cosmos:   CosmosChangeFeed, over the change feed (one partition per feed range)
+ *  - Firestore: FirestoreChangeFeed, over a snapshot listener (a single partition)
+ *  - local:    {@link ChangeCapturingDocumentStore}, which records writes made through it
+ *
+ * Example:
+ *   ChangeFeed feed = DocumentStoreFactory.changeFeedFromEnv();
+ *   ChangeSubscription sub = feed.changes("users", Checkpoint.parse(saved), batch -> {
+ *       batch.changes().forEach(index::apply);
+ *       checkpoints.save(batch.checkpoint().encode());
+ *   });
+ */
+public interface ChangeFeed {
+
+    /**
+     * Starts delivering the collection's changes after 'from' to 'handler', in batches, on
+     * background threads, until the subscription is closed.
+     * @throws rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException if the collection's
+     *         changes cannot be read (e.g. DynamoDB Streams not enabled on the table).
+     */
+    ChangeSubscription changes(String collection, Checkpoint from, ChangeFeedOptions options, ChangeHandler handler);
+
+    default ChangeSubscription changes(String collection, Checkpoint from, ChangeHandler handler) {
+        return changes(collection, from, ChangeFeedOptions.defaults(), handler);
+    }
+}
@@ -0,0 +1,124 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Tuning of a change-feed subscription.
+ *
+ * Example:
+ *   ChangeFeedOptions o = ChangeFeedOptions.builder()
+ *       .batchSize(500)
+ *       .parallelism(8)
+ *       .build();
+ */
+public final class ChangeFeedOptions {
+
+    private final int batchSize;
+    private final int parallelism;
+    private final Duration pollInterval;
+    private final Duration discoveryInterval;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+
+    private ChangeFeedOptions(Builder b) {
+        this.batchSize = b.batchSize;
+        this.parallelism = b.parallelism;
+        this.pollInterval = b.pollInterval;
+        this.discoveryInterval = b.discoveryInterval;
+        this.maxBackoff = b.maxBackoff;
+        this.maxAttempts = b.maxAttempts;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static ChangeFeedOptions defaults() {
+        return builder().build();
+    }
+
+    /** Most changes per batch (DynamoDB caps a read at 1000). */
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /** Partitions read concurrently. */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /** Wait before polling a partition again after it had nothing new. */
+    public Duration pollInterval() {
+        return pollInterval;
+    }
+
+    /** How often the partitions are listed again (DynamoDB shards split and roll over). */
+    public Duration discoveryInterval() {
+        return discoveryInterval;
+    }
+
+    /** Cap of the exponential backoff after handler or provider errors. */
+    public Duration maxBackoff() {
+        return maxBackoff;
+    }
+
+    /** Deliveries of one batch before the subscription gives up and stops. */
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    public static final class Builder {
+        private int batchSize = 100;
+        private int parallelism = 4;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private Duration discoveryInterval = Duration.ofSeconds(30);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+        private int maxAttempts = 10;
+
+        private Builder() {}
+
+        /** Default 100. */
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) throw new IllegalArgumentException("batchSize must be >= 1");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /** Default 4. */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /** Default 1s. */
+        public Builder pollInterval(Duration pollInterval) {
+            this.pollInterval = Objects.requireNonNull(pollInterval, "pollInterval");
+            return this;
+        }
+
+        /** Default 30s. */
+        public Builder discoveryInterval(Duration discoveryInterval) {
+            this.discoveryInterval = Objects.requireNonNull(discoveryInterval, "discoveryInterval");
+            return this;
+        }
+
+        /** Default 30s. */
+        public Builder maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = Objects.requireNonNull(maxBackoff, "maxBackoff");
+            return this;
+        }
+
+        /** Default 10. */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) throw new IllegalArgumentException("maxAttempts must be >= 1");
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public ChangeFeedOptions build() {
+            return new ChangeFeedOptions(this);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+/**
+ * Processes the batches of a change-feed subscription.
+ * Batches of one partition arrive one at a time and in order; different partitions are
+ * handled concurrently, so implementations must be thread-safe. Throwing retries the same
+ * batch after a backoff.
+ */
+@FunctionalInterface
+public interface ChangeHandler {
+
+    void accept(ChangeBatch batch);
+}
@@ -0,0 +1,20 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+/**
+ * A running change-feed subscription. Closing it stops reading; a batch being handled is
+ * allowed to finish.
+ */
+public interface ChangeSubscription extends AutoCloseable {
+
+    /** Checkpoint covering every batch handled so far. */
+    Checkpoint checkpoint();
+
+    /** False once closed, or stopped because a batch kept failing. */
+    boolean isRunning();
+
+    /** Why the subscription stopped, or null. */
+    Throwable failure();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,114 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Where a change-feed subscription resumes: the provider position reached in each partition
+ * (DynamoDB stream shard, Cosmos feed range, ...) and where to start partitions it has no
+ * position for yet.
+ *
+ * Checkpoints are immutable. Persist {@link #encode()} (e.g. after each handled batch or
+ * every few seconds) and resume with {@link #parse(String)}. Delivery is at-least-once:
+ * changes handled after the last persisted checkpoint are delivered again.
+ */
+public final class Checkpoint {
+
+    /** Where partitions without a saved position start. */
+    public enum Start { BEGINNING, NOW }
+
+    /** Position of a partition that has been read to its end (a closed DynamoDB shard). */
+    public static final String FINISHED = "~finished";
+
+    /**
+     * Position of a partition that was listed when a {@link #now()} subscription started but
+     * has not been read yet (a child shard waiting for its parent): it is opened at NOW too.
+     */
+    public static final String NOW_POSITION = "~now";
+
+    private static final Checkpoint BEGINNING = new Checkpoint(Start.BEGINNING, Map.of());
+    private static final Checkpoint NOW = new Checkpoint(Start.NOW, Map.of());
+
+    private final Start start;
+    private final Map<String, String> positions;
+
+    public Checkpoint(Start start, Map<String, String> positions) {
+        this.start = Objects.requireNonNull(start, "start");
+        this.positions = Collections.unmodifiableMap(new LinkedHashMap<>(positions));
+    }
+
+    /** Everything the provider still retains (DynamoDB: 24 hours; Firestore: the current documents). */
+    public static Checkpoint beginning() {
+        return BEGINNING;
+    }
+
+    /** Only changes made after the subscription starts. */
+    public static Checkpoint now() {
+        return NOW;
+    }
+
+    public Start start() {
+        return start;
+    }
+
+    /** Position per partition id. */
+    public Map<String, String> positions() {
+        return positions;
+    }
+
+    /** Same checkpoint with one partition's position replaced. */
+    public Checkpoint with(String partition, String position) {
+        Map<String, String> p = new LinkedHashMap<>(positions);
+        p.put(partition, position);
+        return new Checkpoint(start, p);
+    }
+
+    /** Compact string form: "start" followed by "&partition=position" pairs, URL-encoded. */
+    public String encode() {
+        StringBuilder sb = new StringBuilder(start.name().toLowerCase());
+        positions.forEach((k, v) -> sb.append('&')
+                .append(URLEncoder.encode(k, StandardCharsets.UTF_8))
+                .append('=')
+                .append(URLEncoder.encode(v, StandardCharsets.UTF_8)));
+        return sb.toString();
+    }
+
+    /** Inverse of {@link #encode()}. */
+    public static Checkpoint parse(String encoded) {
+        if (encoded == null || encoded.isBlank()) throw new IllegalArgumentException("checkpoint empty");
+        String[] parts = encoded.split("&");
+        Start start = switch (parts[0]) {
+            case "beginning" -> Start.BEGINNING;
+            case "now" -> Start.NOW;
+            default -> throw new IllegalArgumentException("Malformed checkpoint: " + encoded);
+        };
+        Map<String, String> positions = new LinkedHashMap<>();
+        for (int i = 1; i < parts.length; i++) {
+            int eq = parts[i].indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Malformed checkpoint: " + encoded);
+            positions.put(URLDecoder.decode(parts[i].substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(parts[i].substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return new Checkpoint(start, positions);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Checkpoint c && start == c.start && positions.equals(c.positions);
+    }
+
+    @Override
+    public int hashCode() {
+        return start.hashCode() * 31 + positions.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
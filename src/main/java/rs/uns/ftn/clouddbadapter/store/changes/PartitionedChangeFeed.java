@@ -0,0 +1,278 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Template for change feeds that are split into independently readable partitions
+ * (DynamoDB stream shards, Cosmos feed ranges). Subclasses list the partitions and read one
+ * partition sequentially; this class runs the subscription:
+ *  - lists the partitions every 'discoveryInterval' and starts a reader for each new one,
+ *    once its parent partition (if still listed) has been read to its end
+ *  - reads up to 'parallelism' partitions at a time, each in order, one batch at a time
+ *  - hands each non-empty batch to the handler and advances the partition's position only
+ *    after the handler returned; a failing batch is retried with exponential backoff and
+ *    stops the subscription after 'maxAttempts'
+ *  - reopens a partition from its last position after provider errors
+ *
+ * Partitions in the first listing start at the subscription's start, also those that wait
+ * for their parent (with {@link Checkpoint#now()} they are recorded as
+ * {@link Checkpoint#NOW_POSITION} until read). Partitions discovered after the first listing
+ * (new shards) always start at their beginning, so nothing written to them is skipped.
+ */
+public abstract class PartitionedChangeFeed implements ChangeFeed {
+
+    /** A unit of parallelism; 'parent' (nullable) must be read to its end first. */
+    public record Partition(String id, String parent) {}
+
+    /**
+     * Result of one read.
+     * @param position where the next read continues (null when the provider has none yet)
+     * @param finished the partition has ended (a closed shard); no further reads
+     */
+    public record Batch(List<Change> changes, String position, boolean finished) {}
+
+    /** Reads one partition in order. Used by one thread at a time. */
+    public interface PartitionReader extends AutoCloseable {
+
+        /** Returns up to 'maxChanges' changes; an empty batch means nothing new right now. */
+        Batch read(int maxChanges);
+
+        @Override
+        default void close() {}
+    }
+
+    /** Current partitions of the collection; 'current' holds the positions reached so far. */
+    protected abstract List<Partition> partitions(String collection, Checkpoint current);
+
+    /**
+     * Opens a reader after 'position', or at 'start' when position is null.
+     */
+    protected abstract PartitionReader open(String collection, Partition partition, String position, Checkpoint.Start start);
+
+    @Override
+    public final ChangeSubscription changes(String collection, Checkpoint from, ChangeFeedOptions options, ChangeHandler handler) {
+        if (collection == null || collection.isBlank()) throw new IllegalArgumentException("collection empty");
+        Subscription s = new Subscription(collection, Objects.requireNonNull(from, "from"),
+                Objects.requireNonNull(options, "options"), Objects.requireNonNull(handler, "handler"));
+        s.start();
+        return s;
+    }
+
+    private final class Subscription implements ChangeSubscription {
+        private final String collection;
+        private final Checkpoint.Start start;
+        private final ChangeFeedOptions options;
+        private final ChangeHandler handler;
+        private final Map<String, String> positions = new ConcurrentHashMap<>();
+        private final Map<String, Reading> active = new ConcurrentHashMap<>();
+        private final ScheduledThreadPoolExecutor scheduler;
+        private volatile boolean running = true;
+        private volatile boolean discovered;
+        private volatile Throwable failure;
+
+        Subscription(String collection, Checkpoint from, ChangeFeedOptions options, ChangeHandler handler) {
+            this.collection = collection;
+            this.start = from.start();
+            this.options = options;
+            this.handler = handler;
+            this.positions.putAll(from.positions());
+            AtomicInteger n = new AtomicInteger();
+            this.scheduler = new ScheduledThreadPoolExecutor(options.parallelism() + 1, r -> {
+                Thread t = new Thread(r, "changes-" + collection + "-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            scheduler.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+        }
+
+        /** The first listing runs on the caller's thread, so a missing stream or table fails here. */
+        void start() {
+            try {
+                assign(partitions(collection, checkpoint()));
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            long every = options.discoveryInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::discover, every, every, TimeUnit.MILLISECONDS);
+        }
+
+        private void discover() {
+            if (!running) return;
+            try {
+                assign(partitions(collection, checkpoint()));
+            } catch (RuntimeException e) {
+                // transient; listed again at the next interval
+            }
+        }
+
+        private synchronized void assign(List<Partition> listed) {
+            if (!running) return;
+            Set<String> ids = new HashSet<>();
+            for (Partition p : listed) ids.add(p.id());
+            if (!discovered && start == Checkpoint.Start.NOW) {
+                // children opened only after their parent finished must still start at NOW
+                for (String id : ids) positions.putIfAbsent(id, Checkpoint.NOW_POSITION);
+            }
+            for (Partition p : listed) {
+                if (active.containsKey(p.id()) || Checkpoint.FINISHED.equals(positions.get(p.id()))) continue;
+                String parent = p.parent();
+                if (parent != null && ids.contains(parent) && !Checkpoint.FINISHED.equals(positions.get(parent))) continue;
+                Reading r = new Reading(p, discovered ? Checkpoint.Start.BEGINNING : start);
+                active.put(p.id(), r);
+                r.schedule(Duration.ZERO);
+            }
+            // finished partitions the provider no longer lists (trimmed shards) are forgotten
+            if (!listed.isEmpty()) {
+                positions.entrySet().removeIf(e -> !ids.contains(e.getKey())
+                        && (Checkpoint.FINISHED.equals(e.getValue()) || Checkpoint.NOW_POSITION.equals(e.getValue())));
+            }
+            discovered = true;
+        }
+
+        @Override
+        public Checkpoint checkpoint() {
+            // once listed, partitions unknown to the checkpoint are new ones and start at their beginning;
+            // unread partitions of the first listing of a NOW subscription hold NOW_POSITION
+            return new Checkpoint(discovered ? Checkpoint.Start.BEGINNING : start, positions);
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public Throwable failure() {
+            return failure;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            scheduler.shutdown();
+            for (Reading r : active.values()) r.stop();
+        }
+
+        private void fail(Throwable t) {
+            failure = t;
+            close();
+        }
+
+        private Duration backoff(int attempt) {
+            long millis = 200L << Math.min(attempt - 1, 16);
+            return Duration.ofMillis(Math.min(millis, options.maxBackoff().toMillis()));
+        }
+
+        /** One partition's reader; run() is rescheduled after every step. */
+        private final class Reading implements Runnable {
+            private final Partition partition;
+            private final Checkpoint.Start startAt;
+            private PartitionReader reader;
+            private Batch pending;
+            private int attempts;
+            private int errors;
+
+            Reading(Partition partition, Checkpoint.Start startAt) {
+                this.partition = partition;
+                this.startAt = startAt;
+            }
+
+            @Override
+            public synchronized void run() {
+                if (!running) {
+                    stop();
+                    return;
+                }
+                if (pending == null) {
+                    Batch b;
+                    try {
+                        if (reader == null) {
+                            String position = positions.get(partition.id());
+                            reader = Checkpoint.NOW_POSITION.equals(position)
+                                    ? open(collection, partition, null, Checkpoint.Start.NOW)
+                                    : open(collection, partition, position, startAt);
+                        }
+                        b = reader.read(options.batchSize());
+                    } catch (RuntimeException e) {
+                        closeReader(); // reopened from the last position
+                        schedule(backoff(++errors));
+                        return;
+                    }
+                    errors = 0;
+                    if (b.changes().isEmpty()) {
+                        advance(b);
+                        if (b.finished()) finish();
+                        else schedule(options.pollInterval());
+                        return;
+                    }
+                    pending = b;
+                }
+                String position = pending.finished() ? Checkpoint.FINISHED : pending.position();
+                Checkpoint after = position == null ? checkpoint() : checkpoint().with(partition.id(), position);
+                try {
+                    handler.accept(new ChangeBatch(collection, partition.id(), pending.changes(), after));
+                } catch (Throwable t) {
+                    if (++attempts >= options.maxAttempts()) fail(t);
+                    else schedule(backoff(attempts));
+                    return;
+                }
+                attempts = 0;
+                Batch done = pending;
+                pending = null;
+                advance(done);
+                if (done.finished()) finish();
+                else schedule(Duration.ZERO);
+            }
+
+            private void advance(Batch b) {
+                if (b.finished()) positions.put(partition.id(), Checkpoint.FINISHED);
+                else if (b.position() != null) positions.put(partition.id(), b.position());
+            }
+
+            private void finish() {
+                closeReader();
+                active.remove(partition.id());
+                try {
+                    scheduler.execute(Subscription.this::discover); // children may start now
+                } catch (RejectedExecutionException closed) {
+                    // shutting down
+                }
+            }
+
+            void schedule(Duration delay) {
+                if (!running) return;
+                try {
+                    scheduler.schedule(this, delay.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException closed) {
+                    stop();
+                }
+            }
+
+            synchronized void stop() {
+                closeReader();
+            }
+
+            private void closeReader() {
+                if (reader == null) return;
+                try {
+                    reader.close();
+                } catch (RuntimeException ignored) {
+                    // nothing left to do with it
+                }
+                reader = null;
+            }
+        }
+    }
+}
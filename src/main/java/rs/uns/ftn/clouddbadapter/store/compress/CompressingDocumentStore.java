@@ -0,0 +1,634 @@
+package rs.uns.ftn.clouddbadapter.store.compress;
+
+import com.google.cloud.firestore.Blob;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.ForwardingDocumentStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
+import rs.uns.ftn.clouddbadapter.store.PatchOp;
+import rs.uns.ftn.clouddbadapter.store.Projections;
+import rs.uns.ftn.clouddbadapter.store.SegmentHandler;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.Versioned;
+import rs.uns.ftn.clouddbadapter.store.transfer.SegmentCodec;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Opt-in compression of large documents in front of any DocumentStore, to cut per-KB billing
+ * (DynamoDB WCU/RCU, Cosmos RU) and stay under item size limits (DynamoDB: 400 KB).
+ *
+ * Documents whose estimated size is below 'threshold' are written unchanged. Above it:
+ *  - field mode (default): each field of at least 'threshold' bytes is stored deflated as a
+ *    binary value under "_z:<field>", if that makes it smaller
+ *  - whole-document mode: all fields except "id" and the {@link Builder#plain plain} ones are
+ *    packed into one deflated binary field "_z"
+ *  - chunking (if enabled): a document still larger than 'maxDocumentSize' has its packed
+ *    fields split into chunk items in a companion collection ('<collection>_chunks' by default,
+ *    which must exist); the document keeps a "_zc" marker naming the chunk generation
+ * Reads (get, list, query, scans) detect the markers and return the original fields; chunks of
+ * a page are fetched with one batch read. Binary values are byte[] on DynamoDB, Blobs on
+ * Firestore and base64 strings on Cosmos.
+ *
+ * Compressed fields cannot be filtered, ordered or patched in place: keep fields used by
+ * queries, indexes or PatchOps {@link Builder#plain plain}. Setting or removing a field with
+ * {@link #patch} also drops its compressed copy in field mode; increments and appends of
+ * fields that may be compressed, and in whole-document or chunking mode any patch of a field
+ * that is not plain, are rejected. With chunking enabled, writes and deletes
+ * first read the current chunk marker (batch writes read the current documents) so replaced
+ * chunks can be deleted; new chunks are written before the document and use a fresh
+ * generation, so readers never see a mix.
+ *
+ * Example:
+ *   DocumentStore store = CompressingDocumentStore.builder(DocumentStoreFactory.fromEnv())
+ *       .threshold(2048)
+ *       .plain("tenant", "createdAt")
+ *       .chunking(350_000)
+ *       .build();
+ */
+public final class CompressingDocumentStore extends ForwardingDocumentStore {
+
+    /** Prefix of compressed fields in field mode: "_z:body" holds the deflated "body". */
+    public static final String FIELD_PREFIX = "_z:";
+    /** Packed, deflated fields in whole-document mode. */
+    public static final String PACKED = "_z";
+    /** Marker of a chunked document: {"g": generation, "n": chunk count}. */
+    public static final String CHUNKED = "_zc";
+
+    private static final byte FORMAT = 1;
+    private static final int CHUNK_READ_ATTEMPTS = 3;
+    private static final String DATA = "data";
+
+    private final int threshold;
+    private final boolean wholeDocument;
+    private final Set<String> plain;
+    private final int maxDocumentSize;
+    private final int chunkSize;
+    private final UnaryOperator<String> chunkCollection;
+    private final int level;
+
+    /** A document as written: stored fields plus its chunk items (empty unless chunked). */
+    private record Encoded(Map<String, Object> document, Map<String, Map<String, Object>> chunks) {}
+
+    /** Chunk generation and count of a stored document. */
+    private record Chunks(String generation, int count) {
+        List<String> ids(String id) {
+            List<String> out = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) out.add(chunkId(id, generation, i));
+            return out;
+        }
+    }
+
+    private CompressingDocumentStore(Builder b) {
+        super(b.delegate);
+        this.threshold = b.threshold;
+        this.wholeDocument = b.wholeDocument;
+        this.plain = Set.copyOf(b.plain);
+        this.maxDocumentSize = b.maxDocumentSize;
+        this.chunkSize = b.chunkSize;
+        this.chunkCollection = b.chunkCollection;
+        this.level = b.level;
+    }
+
+    public static Builder builder(DocumentStore delegate) {
+        return new Builder(delegate);
+    }
+
+    // ==== writes ====
+
+    @Override
+    public void create(String collection, String id, Map<String, Object> data) {
+        write(collection, id, data, doc -> {
+            delegate.create(collection, id, doc);
+            return null;
+        });
+    }
+
+    @Override
+    public void updateById(String collection, String id, Map<String, Object> data) {
+        write(collection, id, data, doc -> {
+            delegate.updateById(collection, id, doc);
+            return null;
+        });
+    }
+
+    @Override
+    public String compareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        return write(collection, id, data, doc -> delegate.compareAndSet(collection, id, doc, expectedVersion));
+    }
+
+    @Override
+    public void deleteById(String collection, String id) {
+        Chunks old = chunking() && id != null ? storedChunks(collection, id) : null;
+        delegate.deleteById(collection, id);
+        if (old != null) delegate.deleteAll(chunkCollection.apply(collection), old.ids(id));
+    }
+
+    /**
+     * Patches plain fields in place. In field mode a set or removed field may also have a
+     * compressed copy, which is removed with it.
+     * @throws IllegalArgumentException for a field that may be stored compressed or packed and
+     *         cannot be changed in place.
+     */
+    @Override
+    public void patch(String collection, String id, Map<String, Object> changes) {
+        if (changes == null) {
+            delegate.patch(collection, id, null); // delegate validates
+            return;
+        }
+        boolean packing = wholeDocument || chunking();
+        Map<String, Object> out = new LinkedHashMap<>(changes);
+        for (Map.Entry<String, Object> e : changes.entrySet()) {
+            String k = e.getKey();
+            if (k == null) continue; // delegate validates
+            if (marker(k)) throw new IllegalArgumentException("Cannot patch compression marker '" + k + "'");
+            if ("id".equals(k) || plain.contains(k)) continue;
+            PatchOp.Kind kind = e.getValue() instanceof PatchOp op ? op.kind() : PatchOp.Kind.SET;
+            if (packing || kind == PatchOp.Kind.INCREMENT || kind == PatchOp.Kind.APPEND) {
+                throw new IllegalArgumentException("Field '" + k + "' may be stored compressed; declare it plain to patch it");
+            }
+            out.put(FIELD_PREFIX + k, PatchOp.remove());
+        }
+        delegate.patch(collection, id, out);
+    }
+
+    @Override
+    public void putAll(String collection, Map<String, Map<String, Object>> documents) {
+        if (documents == null) throw new IllegalArgumentException("documents null");
+        Map<String, Map<String, Object>> stored = new LinkedHashMap<>((int) (documents.size() / 0.75f) + 1);
+        Map<String, Map<String, Object>> chunks = new LinkedHashMap<>();
+        documents.forEach((id, data) -> {
+            Encoded e = encode(id, data);
+            stored.put(id, e.document());
+            chunks.putAll(e.chunks());
+        });
+        List<String> replaced = chunking() ? storedChunkIds(collection, documents.keySet()) : List.of();
+        if (!chunks.isEmpty()) delegate.putAll(chunkCollection.apply(collection), chunks);
+        delegate.putAll(collection, stored);
+        if (!replaced.isEmpty()) delegate.deleteAll(chunkCollection.apply(collection), replaced);
+    }
+
+    @Override
+    public void deleteAll(String collection, Collection<String> ids) {
+        if (ids == null) throw new IllegalArgumentException("ids null");
+        List<String> replaced = chunking() ? storedChunkIds(collection, ids) : List.of();
+        delegate.deleteAll(collection, ids);
+        if (!replaced.isEmpty()) delegate.deleteAll(chunkCollection.apply(collection), replaced);
+    }
+
+    /**
+     * Writes the chunks (if any), then the document, then deletes the chunks it replaced.
+     * New chunks are removed again if the document write fails.
+     */
+    private <T> T write(String collection, String id, Map<String, Object> data, Function<Map<String, Object>, T> call) {
+        Encoded e = id == null || data == null ? new Encoded(data, Map.of()) : encode(id, data); // delegate validates
+        Chunks old = chunking() && id != null ? storedChunks(collection, id) : null;
+        String chunks = chunkCollection.apply(collection);
+        if (!e.chunks().isEmpty()) delegate.putAll(chunks, e.chunks());
+        T result;
+        try {
+            result = call.apply(e.document());
+        } catch (RuntimeException ex) {
+            if (!e.chunks().isEmpty()) {
+                try {
+                    delegate.deleteAll(chunks, e.chunks().keySet());
+                } catch (RuntimeException suppressed) {
+                    ex.addSuppressed(suppressed);
+                }
+            }
+            throw ex;
+        }
+        if (old != null) delegate.deleteAll(chunks, old.ids(id));
+        return result;
+    }
+
+    private boolean chunking() {
+        return chunkSize > 0;
+    }
+
+    private Chunks storedChunks(String collection, String id) {
+        return delegate.getById(collection, id, Set.of(CHUNKED)).map(d -> chunks(d.get(CHUNKED))).orElse(null);
+    }
+
+    private List<String> storedChunkIds(String collection, Collection<String> ids) {
+        List<String> out = new ArrayList<>();
+        delegate.getAll(collection, ids).forEach((id, doc) -> {
+            Chunks c = chunks(doc.get(CHUNKED));
+            if (c != null) out.addAll(c.ids(id));
+        });
+        return out;
+    }
+
+    private static Chunks chunks(Object marker) {
+        if (!(marker instanceof Map<?, ?> m) || !(m.get("n") instanceof Number n)) return null;
+        return new Chunks(String.valueOf(m.get("g")), n.intValue());
+    }
+
+    /** "<id>:<generation>:<i>"; ':' is valid in ids on every provider ('#' and '/' are not on Cosmos). */
+    private static String chunkId(String id, String generation, int i) {
+        return id + ":" + generation + ":" + i;
+    }
+
+    // ==== encoding ====
+
+    private Encoded encode(String id, Map<String, Object> data) {
+        if (size(data) < threshold) return new Encoded(data, Map.of());
+        Map<String, Object> kept = new LinkedHashMap<>();
+        Map<String, Object> rest = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> e : data.entrySet()) {
+            String k = e.getKey();
+            if (marker(k)) continue; // markers of a document read without this store
+            if ("id".equals(k) || plain.contains(k)) kept.put(k, e.getValue());
+            else rest.put(k, e.getValue());
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>(kept);
+        byte[] packed = null;
+        if (wholeDocument) {
+            packed = compress(rest);
+            out.put(PACKED, packed);
+        } else {
+            boolean any = false;
+            for (Map.Entry<String, Object> e : rest.entrySet()) {
+                Object v = e.getValue();
+                long size = size(v);
+                if (size >= threshold) {
+                    Map<String, Object> single = new HashMap<>(2);
+                    single.put("v", v);
+                    byte[] c = compress(single);
+                    if (c.length < size) {
+                        out.put(FIELD_PREFIX + e.getKey(), c);
+                        any = true;
+                        continue;
+                    }
+                }
+                out.put(e.getKey(), v);
+            }
+            if (!any) out = data;
+        }
+
+        if (!chunking() || size(out) <= maxDocumentSize) return new Encoded(out, Map.of());
+        if (packed == null) packed = compress(rest);
+        String generation = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+        int count = (packed.length + chunkSize - 1) / chunkSize;
+        Map<String, Map<String, Object>> chunks = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] piece = Arrays.copyOfRange(packed, i * chunkSize, Math.min(packed.length, (i + 1) * chunkSize));
+            chunks.put(chunkId(id, generation, i), Map.of(DATA, piece));
+        }
+        out = new LinkedHashMap<>(kept);
+        out.put(CHUNKED, Map.of("g", generation, "n", count));
+        return new Encoded(out, chunks);
+    }
+
+    /** Rough encoded size in bytes (strings counted as UTF-8), without encoding anything. */
+    static long size(Object v) {
+        if (v == null || v instanceof Boolean) return 1;
+        if (v instanceof String s) return utf8Length(s);
+        if (v instanceof Number) return 8;
+        if (v instanceof byte[] b) return b.length;
+        if (v instanceof Map<?, ?> m) {
+            long n = 0;
+            for (Map.Entry<?, ?> e : m.entrySet()) n += utf8Length(String.valueOf(e.getKey())) + size(e.getValue());
+            return n;
+        }
+        if (v instanceof Collection<?> c) {
+            long n = 0;
+            for (Object o : c) n += size(o);
+            return n;
+        }
+        return utf8Length(v.toString());
+    }
+
+    private static long utf8Length(String s) {
+        long n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) n += 1;
+            else if (c < 0x800 || Character.isSurrogate(c)) n += 2; // a surrogate pair takes 4 bytes
+            else n += 3;
+        }
+        return n;
+    }
+
+    private byte[] compress(Map<String, Object> fields) {
+        byte[] raw = SegmentCodec.encode(fields);
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] out = new byte[raw.length / 2 + 64];
+            out[0] = FORMAT;
+            int n = 1;
+            while (!deflater.finished()) {
+                if (n == out.length) out = Arrays.copyOf(out, out.length * 2);
+                n += deflater.deflate(out, n, out.length - n);
+            }
+            return Arrays.copyOf(out, n);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static Map<String, Object> decompress(byte[] payload) {
+        if (payload.length == 0 || payload[0] != FORMAT) throw new StoreException("Unknown compressed value format");
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload, 1, payload.length - 1);
+            byte[] out = new byte[payload.length * 4];
+            int n = 0;
+            while (!inflater.finished()) {
+                if (n == out.length) out = Arrays.copyOf(out, out.length * 2);
+                int k = inflater.inflate(out, n, out.length - n);
+                if (k == 0 && inflater.needsInput()) throw new StoreException("Truncated compressed value");
+                n += k;
+            }
+            return SegmentCodec.decode(ByteBuffer.wrap(out, 0, n));
+        } catch (DataFormatException e) {
+            throw new StoreException("Corrupt compressed value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /** A stored binary value: byte[] (DynamoDB), Blob (Firestore) or base64 text (Cosmos JSON). */
+    private static byte[] bytes(Object v) {
+        if (v instanceof byte[] b) return b;
+        if (v instanceof Blob b) return b.toBytes();
+        if (v instanceof String s) return Base64.getDecoder().decode(s);
+        if (v instanceof ByteBuffer b) {
+            byte[] out = new byte[b.remaining()];
+            b.duplicate().get(out);
+            return out;
+        }
+        throw new StoreException("Unexpected compressed value type " + (v == null ? "null" : v.getClass().getName()));
+    }
+
+    // ==== reads ====
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id) {
+        return delegate.getById(collection, id).map(doc -> decode(collection, doc));
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id, Set<String> fields) {
+        if (!Projections.isProjection(fields)) return getById(collection, id);
+        return delegate.getById(collection, id, storedFields(fields))
+                .map(doc -> decode(collection, doc))
+                .map(doc -> Projections.apply(doc, fields));
+    }
+
+    @Override
+    public Optional<Versioned> getVersioned(String collection, String id) {
+        return delegate.getVersioned(collection, id)
+                .flatMap(v -> Optional.ofNullable(decode(collection, v.data())).map(doc -> new Versioned(doc, v.version())));
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getAll(String collection, Collection<String> ids) {
+        Map<String, Map<String, Object>> found = delegate.getAll(collection, ids);
+        List<String> keys = new ArrayList<>(found.keySet());
+        List<Map<String, Object>> decoded = decodeAll(collection, List.copyOf(found.values()));
+        Map<String, Map<String, Object>> out = new LinkedHashMap<>((int) (found.size() / 0.75f) + 1);
+        for (int i = 0; i < keys.size(); i++) {
+            if (decoded.get(i) != null) out.put(keys.get(i), decoded.get(i));
+        }
+        return out;
+    }
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit) {
+        return present(decodeAll(collection, delegate.list(collection, limit)));
+    }
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit, Set<String> fields) {
+        if (!Projections.isProjection(fields)) return list(collection, limit);
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Map<String, Object> doc : present(decodeAll(collection, delegate.list(collection, limit, storedFields(fields))))) {
+            out.add(Projections.apply(doc, fields));
+        }
+        return out;
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor) {
+        return decodePage(collection, delegate.listPage(collection, pageSize, cursor));
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor, Set<String> fields) {
+        if (!Projections.isProjection(fields)) return listPage(collection, pageSize, cursor);
+        return decodePage(collection, delegate.listPage(collection, pageSize, cursor, storedFields(fields)))
+                .map(doc -> Projections.apply(doc, fields));
+    }
+
+    @Override
+    public Stream<Map<String, Object>> stream(String collection, int pageSize, String cursor) {
+        return Page.stream(cursor, c -> listPage(collection, pageSize, c));
+    }
+
+    @Override
+    public Page<Map<String, Object>> query(String collection, DocumentQuery query) {
+        return decodePage(collection, delegate.query(collection, query));
+    }
+
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, SegmentHandler handler) {
+        delegate.parallelScan(collection, segments, pageSize, decoding(collection, handler));
+    }
+
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, ExecutorService executor, SegmentHandler handler) {
+        delegate.parallelScan(collection, segments, pageSize, executor, decoding(collection, handler));
+    }
+
+    private SegmentHandler decoding(String collection, SegmentHandler handler) {
+        return (segment, page) -> {
+            List<Map<String, Object>> docs = present(decodeAll(collection, page));
+            if (!docs.isEmpty()) handler.accept(segment, docs);
+        };
+    }
+
+    /** Stored names a projection needs: the fields, their compressed copies and the packed/chunked markers. */
+    private static Set<String> storedFields(Set<String> fields) {
+        Set<String> out = new LinkedHashSet<>();
+        for (String f : fields) {
+            out.add(f);
+            out.add(FIELD_PREFIX + f);
+        }
+        out.add(PACKED);
+        out.add(CHUNKED);
+        return out;
+    }
+
+    private Page<Map<String, Object>> decodePage(String collection, Page<Map<String, Object>> page) {
+        return new Page<>(present(decodeAll(collection, page.items())), page.cursor());
+    }
+
+    private static List<Map<String, Object>> present(List<Map<String, Object>> docs) {
+        docs.removeIf(Objects::isNull);
+        return docs;
+    }
+
+    private Map<String, Object> decode(String collection, Map<String, Object> doc) {
+        return decodeAll(collection, List.of(doc)).get(0);
+    }
+
+    /**
+     * Decodes a copy of the given documents. Chunks of all chunked documents
+     * are fetched with one batch read. A document whose chunks are gone (replaced or deleted
+     * concurrently) is read again, and becomes null if it no longer exists.
+     */
+    private List<Map<String, Object>> decodeAll(String collection, List<Map<String, Object>> docs) {
+        List<Map<String, Object>> out = new ArrayList<>(docs);
+        for (int attempt = 0; ; attempt++) {
+            List<String> wanted = new ArrayList<>();
+            for (Map<String, Object> doc : out) {
+                Chunks c = doc == null || !marked(doc) ? null : chunks(doc.get(CHUNKED));
+                if (c != null) wanted.addAll(c.ids(String.valueOf(doc.get("id"))));
+            }
+            Map<String, Map<String, Object>> chunks = wanted.isEmpty() ? Map.of()
+                    : delegate.getAll(chunkCollection.apply(collection), wanted);
+            boolean stale = false;
+            for (int i = 0; i < out.size(); i++) {
+                Map<String, Object> doc = out.get(i);
+                if (doc == null || !marked(doc)) continue;
+                Map<String, Object> decoded = decode(doc, chunks);
+                if (decoded != null) {
+                    out.set(i, decoded);
+                } else {
+                    stale = true;
+                    out.set(i, delegate.getById(collection, String.valueOf(doc.get("id"))).orElse(null));
+                }
+            }
+            if (!stale) return out;
+            if (attempt + 1 >= CHUNK_READ_ATTEMPTS) throw new StoreException("Chunks of a document in " + collection + " keep changing");
+        }
+    }
+
+    /** True if the document has compressed or chunked fields (looks at the keys only). */
+    private static boolean marked(Map<String, Object> doc) {
+        for (String k : doc.keySet()) {
+            if (marker(k)) return true;
+        }
+        return false;
+    }
+
+    private static boolean marker(String key) {
+        return key.startsWith(FIELD_PREFIX) || key.equals(PACKED) || key.equals(CHUNKED);
+    }
+
+    /** Decoded copy of a marked document, or null if its chunks are missing. */
+    private static Map<String, Object> decode(Map<String, Object> doc, Map<String, Map<String, Object>> chunks) {
+        Map<String, Object> out = new HashMap<>((int) (doc.size() / 0.75f) + 8);
+        Map<String, Object> packed = null;
+        Map<String, Object> fields = new HashMap<>();
+        for (Map.Entry<String, Object> e : doc.entrySet()) {
+            String k = e.getKey();
+            if (k.startsWith(FIELD_PREFIX)) {
+                fields.put(k.substring(FIELD_PREFIX.length()), decompress(bytes(e.getValue())).get("v"));
+            } else if (k.equals(PACKED)) {
+                packed = decompress(bytes(e.getValue()));
+            } else if (k.equals(CHUNKED)) {
+                Chunks c = chunks(e.getValue());
+                if (c == null) continue;
+                String id = String.valueOf(doc.get("id"));
+                byte[][] pieces = new byte[c.count()][];
+                int total = 0;
+                for (int i = 0; i < c.count(); i++) {
+                    Map<String, Object> chunk = chunks.get(chunkId(id, c.generation(), i));
+                    if (chunk == null) return null;
+                    pieces[i] = bytes(chunk.get(DATA));
+                    total += pieces[i].length;
+                }
+                byte[] payload = new byte[total];
+                int at = 0;
+                for (byte[] p : pieces) {
+                    System.arraycopy(p, 0, payload, at, p.length);
+                    at += p.length;
+                }
+                packed = decompress(payload);
+            } else {
+                out.put(k, e.getValue());
+            }
+        }
+        // plain fields win over packed ones (a plain field patched after the write); field-mode
+        // patches through this store remove the compressed copy, so both rarely coexist
+        if (packed != null) packed.forEach(out::putIfAbsent);
+        fields.forEach(out::putIfAbsent);
+        return out;
+    }
+
+    public static final class Builder {
+        private final DocumentStore delegate;
+        private int threshold = 4096;
+        private boolean wholeDocument;
+        private final Set<String> plain = new HashSet<>();
+        private int maxDocumentSize = 350_000;
+        private int chunkSize;
+        private UnaryOperator<String> chunkCollection = c -> c + "_chunks";
+        private int level = Deflater.BEST_SPEED;
+
+        private Builder(DocumentStore delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+        }
+
+        /** Size (estimated bytes) from which documents, and in field mode fields, are compressed. Default 4 KiB. */
+        public Builder threshold(int bytes) {
+            if (bytes < 1) throw new IllegalArgumentException("threshold must be >= 1");
+            this.threshold = bytes;
+            return this;
+        }
+
+        /** Packs all compressible fields of a large document into one value instead of compressing field by field. */
+        public Builder wholeDocument(boolean wholeDocument) {
+            this.wholeDocument = wholeDocument;
+            return this;
+        }
+
+        /** Fields never compressed: those used in queries, indexes or patches. "id" always stays plain. */
+        public Builder plain(String... fields) {
+            plain.addAll(Arrays.asList(fields));
+            return this;
+        }
+
+        /**
+         * Splits documents still larger than 'maxDocumentSize' after compression into chunk
+         * items (DynamoDB: keep it well under 400 KB). Off by default.
+         */
+        public Builder chunking(int maxDocumentSize) {
+            if (maxDocumentSize < 1024) throw new IllegalArgumentException("maxDocumentSize must be >= 1024");
+            this.maxDocumentSize = maxDocumentSize;
+            this.chunkSize = maxDocumentSize;
+            return this;
+        }
+
+        /** Collection holding the chunks of a collection. Default '<collection>_chunks'. */
+        public Builder chunkCollection(UnaryOperator<String> chunkCollection) {
+            this.chunkCollection = Objects.requireNonNull(chunkCollection, "chunkCollection");
+            return this;
+        }
+
+        /** Deflate level 1 (fastest, default) to 9 (smallest). */
+        public Builder level(int level) {
+            if (level < 1 || level > 9) throw new IllegalArgumentException("level must be 1..9");
+            this.level = level;
+            return this;
+        }
+
+        public CompressingDocumentStore build() {
+            return new CompressingDocumentStore(this);
+        }
+    }
+}
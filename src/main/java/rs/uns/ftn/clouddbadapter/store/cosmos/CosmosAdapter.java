@@ -1,31 +1,62 @@
 package rs.uns.ftn.clouddbadapter.store.cosmos;
 
+import com.azure.cosmos.implementation.RequestRateTooLargeException;
+import com.azure.cosmos.models.CosmosBatch;
+import com.azure.cosmos.models.CosmosBatchOperationResult;
+import com.azure.cosmos.models.CosmosBatchResponse;
+import com.azure.cosmos.models.CosmosBulkItemResponse;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosBulkOperations;
+import com.azure.cosmos.models.CosmosItemIdentity;
+import com.azure.cosmos.models.CosmosItemOperation;
 import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.FeedRange;
+import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
 import com.azure.cosmos.util.CosmosPagedIterable;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import rs.uns.ftn.clouddbadapter.store.BaseAdapter;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.EntityCodecStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
+import rs.uns.ftn.clouddbadapter.store.PatchOp;
+import rs.uns.ftn.clouddbadapter.store.Projections;
+import rs.uns.ftn.clouddbadapter.store.Versioned;
+import rs.uns.ftn.clouddbadapter.store.WarmableStore;
+import rs.uns.ftn.clouddbadapter.store.metrics.UsageMeter;
 
 import com.azure.cosmos.*;
 import com.azure.cosmos.models.CosmosItemRequestOptions;
+import com.azure.cosmos.models.CosmosPatchOperations;
 import com.azure.cosmos.models.CosmosItemResponse;
 import com.azure.cosmos.models.PartitionKey;
 import com.azure.cosmos.implementation.NotFoundException;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Core Cosmos DB adapter (Core/SQL API).
  * Assumes one Cosmos "container" per collection, with partition key '/id'.
- * Stores documents as Map<String,Object>.
+ * Stores documents as Map<String,Object>; JSON goes through a shared {@link CosmosCodec}.
  */
-public final class CosmosAdapter extends BaseAdapter {
+public final class CosmosAdapter extends BaseAdapter implements EntityCodecStore, WarmableStore {
 
     private final CosmosClient client;
     private final String databaseName;
+    private final CosmosCodec codec;
+    /** Container handles by collection; resolved once instead of on every operation. */
+    private final Map<String, CosmosContainer> containers = new ConcurrentHashMap<>();
 
     /**
      * Creates a Cosmos client from ENV:
@@ -53,24 +84,56 @@ public final class CosmosAdapter extends BaseAdapter {
                 .gatewayMode();
 
         this.client = builder.buildClient();
+        this.codec = CosmosCodec.shared();
     }
 
     public CosmosAdapter(CosmosClient client, String databaseName) {
+        this(client, databaseName, CosmosCodec.shared());
+    }
+
+    public CosmosAdapter(CosmosClient client, String databaseName, CosmosCodec codec) {
         this.client = client;
         this.databaseName = databaseName;
+        this.codec = codec;
     }
 
     private CosmosContainer container(String collection) {
-        return client.getDatabase(databaseName).getContainer(collection);
+        CosmosContainer c = containers.get(collection);
+        return c != null ? c : containers.computeIfAbsent(collection,
+                name -> client.getDatabase(databaseName).getContainer(name));
+    }
+
+    @Override
+    public String provider() {
+        return "azure";
+    }
+
+    /**
+     * Reads each container's properties (primes the collection and partition key range caches)
+     * and opens connections to it; in direct mode that is the TCP connections to every replica.
+     */
+    @Override
+    public void warmUp(Collection<String> collections) {
+        for (String collection : collections) {
+            validateCollection(collection);
+            try {
+                CosmosContainer c = container(collection);
+                c.read();
+                c.openConnectionsAndInitCaches();
+            } catch (CosmosException e) {
+                throw new StoreException("Cosmos warm-up failed for " + collection, e);
+            }
+        }
     }
 
     @Override
     protected void doCreate(String collection, String id, Map<String, Object> data) {
-        Map<String, Object> payload = new java.util.HashMap<>(data); // copy
-        payload.put("id", id); // ensure PK is present
+        ObjectNode payload = codec.payload(id, data);
         try {
-            container(collection).createItem(payload, new PartitionKey(id), new CosmosItemRequestOptions());
+            UsageMeter.requestUnits(container(collection).createItem(payload, new PartitionKey(id), new CosmosItemRequestOptions())
+                    .getRequestCharge());
         } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge()); // failed requests are billed too
             if (e.getStatusCode() == 409) throw new AlreadyExists("Document exists: " + id);
             throw new StoreException("Cosmos create failed", e);
         }
@@ -78,13 +141,17 @@ public final class CosmosAdapter extends BaseAdapter {
 
     @Override
     protected Optional<Map<String, Object>> doGet(String collection, String id) {
+        return read(collection, id).map(resp -> codec.document(resp.getItem()));
+    }
+
+    /** Reads the item as a Jackson tree (no Map conversion inside the SDK); empty on 404. */
+    private Optional<CosmosItemResponse<ObjectNode>> read(String collection, String id) {
         try {
-            var resp = container(collection)
-                    .readItem(id, new PartitionKey(id), Map.class);
-            @SuppressWarnings("unchecked")
-            Map<String, Object> item = (Map<String, Object>) resp.getItem();
-            return Optional.of(item);
+            CosmosItemResponse<ObjectNode> resp = container(collection).readItem(id, new PartitionKey(id), ObjectNode.class);
+            UsageMeter.requestUnits(resp.getRequestCharge());
+            return Optional.of(resp);
         } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
             if (e.getStatusCode() == 404) return Optional.empty();
             throw new StoreException("Cosmos get failed", e);
         }
@@ -92,36 +159,370 @@ public final class CosmosAdapter extends BaseAdapter {
 
     @Override
     protected void doUpdate(String collection, String id, Map<String, Object> data) {
-        Map<String, Object> payload = new java.util.HashMap<>(data); // copy
-        payload.put("id", id);
+        ObjectNode payload = codec.payload(id, data);
+        try {
+            UsageMeter.requestUnits(container(collection).upsertItem(payload, new PartitionKey(id), new CosmosItemRequestOptions())
+                    .getRequestCharge());
+        } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
+            throw new StoreException("Cosmos update failed", e);
+        }
+    }
+
+    @Override
+    protected Optional<Versioned> doGetVersioned(String collection, String id) {
+        return read(collection, id).map(resp -> new Versioned(codec.document(resp.getItem()), resp.getETag()));
+    }
+
+    // ==== entity fast path (see CosmosCodec) ====
+
+    @Override
+    public void putEntity(String collection, String id, Object entity) {
+        validate(collection, id);
+        if (entity == null) throw new IllegalArgumentException("entity null");
         try {
-            container(collection).upsertItem(payload, new PartitionKey(id), new CosmosItemRequestOptions());
+            UsageMeter.requestUnits(container(collection)
+                    .upsertItem(codec.encode(id, entity), new PartitionKey(id), new CosmosItemRequestOptions())
+                    .getRequestCharge());
         } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
             throw new StoreException("Cosmos update failed", e);
         }
     }
 
+    @Override
+    public <T> Optional<T> getEntity(String collection, String id, Class<T> type) {
+        validate(collection, id);
+        return read(collection, id).map(resp -> codec.decode(resp.getItem(), type));
+    }
+
+    /**
+     * replaceItem with an If-Match ETag precondition (412 on mismatch), or createItem
+     * (409 if it exists) when no version is expected.
+     */
+    @Override
+    protected String doCompareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        ObjectNode payload = codec.payload(id, data);
+        try {
+            CosmosItemResponse<ObjectNode> resp = expectedVersion == null
+                    ? container(collection).createItem(payload, new PartitionKey(id), new CosmosItemRequestOptions())
+                    : container(collection).replaceItem(payload, id, new PartitionKey(id),
+                            new CosmosItemRequestOptions().setIfMatchETag(expectedVersion));
+            UsageMeter.requestUnits(resp.getRequestCharge());
+            return resp.getETag();
+        } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
+            int status = e.getStatusCode();
+            if (status == 409 || status == 412 || status == 404) {
+                throw new VersionConflict("Version conflict on " + id + " (expected " + expectedVersion + ")");
+            }
+            throw new StoreException("Cosmos compare-and-set failed", e);
+        }
+    }
+
+    /** Cosmos accepts at most 10 operations per patch request... */
+    private static final int MAX_PATCH_OPERATIONS = 10;
+    /** ...and at most 100 operations per transactional batch. */
+    private static final int MAX_BATCH_OPERATIONS = 100;
+    /** Read-modify-write attempts before a patch gives up on concurrent writers. */
+    private static final int MAX_REPLACE_ATTEMPTS = 5;
+
+    /**
+     * Uses the Cosmos patch API. Each appended value is one patch operation; changes with more
+     * than 10 operations are sent as one transactional batch of patch operations (every
+     * document is its own partition, so the batch is atomic). Appending to or removing a field
+     * that does not exist, or more than 1000 operations, falls back to a read-modify-write guarded
+     * by the ETag, so the patch stays atomic either way.
+     */
+    @Override
+    protected void doPatch(String collection, String id, Map<String, PatchOp> ops) {
+        List<CosmosPatchOperations> requests = patchRequests(ops);
+        if (requests.size() > MAX_BATCH_OPERATIONS) {
+            patchByReplace(collection, id, ops);
+            return;
+        }
+        int status = requests.size() == 1 ? patchItem(collection, id, requests.get(0)) : patchBatch(collection, id, requests);
+        if (status == 404) throw new NotFound("Document not found: " + id);
+        if (status == 400 && ops.values().stream().anyMatch(op -> op.kind() == PatchOp.Kind.APPEND
+                || op.kind() == PatchOp.Kind.REMOVE)) {
+            patchByReplace(collection, id, ops); // most likely an append to, or removal of, a missing field
+        } else if (status != 200) {
+            throw new StoreException("Cosmos patch failed (status " + status + ")");
+        }
+    }
+
+    /** Splits the changes into patch requests of at most 10 operations, one per appended value. */
+    static List<CosmosPatchOperations> patchRequests(Map<String, PatchOp> ops) {
+        List<Consumer<CosmosPatchOperations>> steps = new ArrayList<>(ops.size());
+        for (Map.Entry<String, PatchOp> e : ops.entrySet()) {
+            String path = "/" + e.getKey().replace("~", "~0").replace("/", "~1"); // JSON Pointer
+            PatchOp op = e.getValue();
+            switch (op.kind()) {
+                case SET -> steps.add(p -> p.set(path, op.value()));
+                case REMOVE -> steps.add(p -> p.remove(path));
+                case INCREMENT -> steps.add(op.isIntegral()
+                        ? p -> p.increment(path, ((Number) op.value()).longValue())
+                        : p -> p.increment(path, ((Number) op.value()).doubleValue()));
+                // "/-" appends to the end of an existing array
+                case APPEND -> ((List<?>) op.value()).forEach(v -> steps.add(p -> p.add(path + "/-", v)));
+            }
+        }
+        List<CosmosPatchOperations> requests = new ArrayList<>();
+        for (List<Consumer<CosmosPatchOperations>> chunk : chunks(steps, MAX_PATCH_OPERATIONS)) {
+            CosmosPatchOperations patch = CosmosPatchOperations.create();
+            chunk.forEach(step -> step.accept(patch));
+            requests.add(patch);
+        }
+        return requests;
+    }
+
+    /** One patch request; returns 200, or the status of a 400/404 failure. */
+    private int patchItem(String collection, String id, CosmosPatchOperations patch) {
+        try {
+            UsageMeter.requestUnits(container(collection).patchItem(id, new PartitionKey(id), patch, ObjectNode.class).getRequestCharge());
+            return 200;
+        } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
+            if (e.getStatusCode() == 400 || e.getStatusCode() == 404) return e.getStatusCode();
+            throw new StoreException("Cosmos patch failed", e);
+        }
+    }
+
+    /** All patch requests in one transactional batch; returns 200, or the status of a 400/404 failure. */
+    private int patchBatch(String collection, String id, List<CosmosPatchOperations> requests) {
+        CosmosBatch batch = CosmosBatch.createCosmosBatch(new PartitionKey(id));
+        for (CosmosPatchOperations patch : requests) batch.patchItemOperation(id, patch);
+        CosmosBatchResponse resp;
+        try {
+            resp = container(collection).executeCosmosBatch(batch);
+        } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
+            throw new StoreException("Cosmos patch failed", e);
+        }
+        UsageMeter.requestUnits(resp.getRequestCharge());
+        if (resp.isSuccessStatusCode()) return 200;
+        int status = resp.getStatusCode();
+        for (CosmosBatchOperationResult r : resp.getResults()) {
+            if (r.getStatusCode() != 424) { // 424: not applied because another operation failed
+                status = r.getStatusCode();
+                break;
+            }
+        }
+        if (status == 400 || status == 404) return status;
+        if (status == 429) { // surfaced as the SDK's exception type so throttle-aware callers see it
+            throw new StoreException("Cosmos patch throttled",
+                    new RequestRateTooLargeException(null, -1, null, resp.getResponseHeaders()));
+        }
+        throw new StoreException("Cosmos patch failed (status " + status + "): " + resp.getErrorMessage());
+    }
+
+    /** Applies the changes to a fresh copy of the document and replaces it if its ETag is unchanged. */
+    private void patchByReplace(String collection, String id, Map<String, PatchOp> ops) {
+        for (int attempt = 1; ; attempt++) {
+            CosmosItemResponse<ObjectNode> current = read(collection, id)
+                    .orElseThrow(() -> new NotFound("Document not found: " + id));
+            Map<String, Object> doc = codec.document(current.getItem());
+            PatchOp.applyTo(doc, ops);
+            try {
+                UsageMeter.requestUnits(container(collection).replaceItem(codec.payload(id, doc), id, new PartitionKey(id),
+                        new CosmosItemRequestOptions().setIfMatchETag(current.getETag())).getRequestCharge());
+                return;
+            } catch (CosmosException e) {
+                UsageMeter.requestUnits(e.getRequestCharge());
+                if (e.getStatusCode() == 404) throw new NotFound("Document not found: " + id);
+                if (e.getStatusCode() != 412 || attempt == MAX_REPLACE_ATTEMPTS) {
+                    throw new StoreException("Cosmos patch failed", e);
+                }
+            }
+        }
+    }
+
     @Override
     protected void doDelete(String collection, String id) {
         try {
-            container(collection).deleteItem(id, new PartitionKey(id), new CosmosItemRequestOptions());
+            UsageMeter.requestUnits(container(collection).deleteItem(id, new PartitionKey(id), new CosmosItemRequestOptions())
+                    .getRequestCharge());
         } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
             if (e.getStatusCode() == 404) return; // no-op
             throw new StoreException("Cosmos delete failed", e);
         }
     }
 
     @Override
-    public List<Map<String, Object>> list(String collection, int limit) {
-        List<Map<String,Object>> out = new ArrayList<>();
-        CosmosContainer c = client.getDatabase(databaseName).getContainer(collection);
-        CosmosPagedIterable<ObjectNode> res = c.queryItems("SELECT * FROM c", new CosmosQueryRequestOptions(), ObjectNode.class);
-        for (ObjectNode n : res) {
-            Map<String,Object> map = new ObjectMapper().convertValue(n, Map.class);
-            out.add(map);
-            if (out.size() >= limit) break;
+    protected Page<Map<String, Object>> doListPage(String collection, int pageSize, String cursor) {
+        return queryPage(collection, new SqlQuerySpec("SELECT * FROM c"), new CosmosQueryRequestOptions(), pageSize, cursor);
+    }
+
+    @Override
+    protected Page<Map<String, Object>> doListPage(String collection, int pageSize, String cursor, Set<String> fields) {
+        return queryPage(collection, new SqlQuerySpec("SELECT " + selectList(fields) + " FROM c"),
+                new CosmosQueryRequestOptions(), pageSize, cursor);
+    }
+
+    /**
+     * Point reads cannot project, so a projected get is a single-partition query on the id.
+     * It costs a few more RUs than a point read but only the selected fields cross the wire.
+     */
+    @Override
+    protected Optional<Map<String, Object>> doGet(String collection, String id, Set<String> fields) {
+        SqlQuerySpec query = new SqlQuerySpec(
+                "SELECT " + selectList(fields) + " FROM c WHERE c.id = @id",
+                new SqlParameter("@id", id));
+        CosmosQueryRequestOptions options = new CosmosQueryRequestOptions().setPartitionKey(new PartitionKey(id));
+        List<Map<String, Object>> items = queryPage(collection, query, options, 1, null).items();
+        return items.isEmpty() ? Optional.empty() : Optional.of(items.get(0));
+    }
+
+    /**
+     * Builds 'VALUE {"id": c["id"], "a": c["a"], ...}' so result keys keep the original field names
+     * (missing fields are simply omitted).
+     */
+    private static String selectList(Set<String> fields) {
+        StringBuilder sb = new StringBuilder("VALUE {");
+        boolean first = true;
+        for (String f : Projections.withId(fields)) {
+            if (!first) sb.append(", ");
+            first = false;
+            sb.append('"').append(f).append("\": ").append(property(f));
+        }
+        return sb.append('}').toString();
+    }
+
+    /** Renders c["field"]; property names cannot be query parameters, so they are checked instead. */
+    private static String property(String field) {
+        if (field.isEmpty() || field.indexOf('"') >= 0 || field.indexOf('\\') >= 0) {
+            throw new IllegalArgumentException("Invalid field name: " + field);
+        }
+        return "c[\"" + field + "\"]";
+    }
+
+    /**
+     * Translates the query to parameterized Cosmos SQL. IN becomes ARRAY_CONTAINS(@p, c["f"]),
+     * so the value list is a single parameter. 'limit' is the page size (maxItemCount).
+     */
+    @Override
+    protected Page<Map<String, Object>> doQuery(String collection, DocumentQuery q) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM c");
+        List<SqlParameter> params = new ArrayList<>();
+        for (DocumentQuery.Filter f : q.filters()) {
+            String p = "@p" + params.size();
+            String prop = property(f.field());
+            sql.append(params.isEmpty() ? " WHERE " : " AND ");
+            sql.append(switch (f.op()) {
+                case EQ -> prop + " = " + p;
+                case LT -> prop + " < " + p;
+                case LTE -> prop + " <= " + p;
+                case GT -> prop + " > " + p;
+                case GTE -> prop + " >= " + p;
+                case IN -> "ARRAY_CONTAINS(" + p + ", " + prop + ")";
+            });
+            params.add(new SqlParameter(p, f.value()));
+        }
+        if (q.orderBy() != null) {
+            sql.append(" ORDER BY ").append(property(q.orderBy())).append(q.ascending() ? " ASC" : " DESC");
+        }
+        return queryPage(collection, new SqlQuerySpec(sql.toString(), params),
+                new CosmosQueryRequestOptions(), q.limit(), q.cursor());
+    }
+
+    /**
+     * One segment per feed range (physical partition). The number of ranges is decided by
+     * Cosmos; the requested segment count only bounds how many run concurrently.
+     */
+    @Override
+    protected List<Function<String, Page<Map<String, Object>>>> doSegments(String collection, int segments, int pageSize) {
+        List<FeedRange> ranges;
+        try {
+            ranges = container(collection).getFeedRanges();
+        } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
+            throw new StoreException("Cosmos feed range lookup failed", e);
+        }
+        List<Function<String, Page<Map<String, Object>>>> readers = new ArrayList<>(ranges.size());
+        for (FeedRange range : ranges) {
+            readers.add(cursor -> queryPage(collection, new SqlQuerySpec("SELECT * FROM c"),
+                    new CosmosQueryRequestOptions().setFeedRange(range), pageSize, cursor));
+        }
+        return readers;
+    }
+
+    private Page<Map<String, Object>> queryPage(String collection, SqlQuerySpec query,
+                                                CosmosQueryRequestOptions options, int pageSize, String cursor) {
+        try {
+            CosmosPagedIterable<ObjectNode> res = container(collection)
+                    .queryItems(query, options, ObjectNode.class);
+            // exactly one round trip: maxItemCount = pageSize, resuming at the continuation token
+            Iterator<FeedResponse<ObjectNode>> pages = res.iterableByPage(cursor, pageSize).iterator();
+            if (!pages.hasNext()) return new Page<>(List.of(), null);
+            FeedResponse<ObjectNode> page = pages.next();
+            UsageMeter.requestUnits(page.getRequestCharge());
+            List<Map<String,Object>> out = new ArrayList<>(page.getResults().size());
+            for (ObjectNode n : page.getResults()) {
+                out.add(codec.lazy(n)); // fields are decoded when first read
+            }
+            return new Page<>(out, page.getContinuationToken());
+        } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
+            throw new StoreException("Cosmos list failed", e);
+        }
+    }
+
+    @Override
+    protected Map<String, Map<String, Object>> doGetAll(String collection, Collection<String> ids) {
+        List<CosmosItemIdentity> identities = new ArrayList<>(ids.size());
+        for (String id : ids) identities.add(new CosmosItemIdentity(new PartitionKey(id), id));
+        try {
+            FeedResponse<ObjectNode> resp = container(collection).readMany(identities, ObjectNode.class);
+            UsageMeter.requestUnits(resp.getRequestCharge());
+            Map<String, Map<String, Object>> out = new HashMap<>(ids.size() * 2);
+            for (ObjectNode item : resp.getResults()) {
+                out.put(item.path("id").asText(), codec.document(item));
+            }
+            return out;
+        } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
+            throw new StoreException("Cosmos batch get failed", e);
+        }
+    }
+
+    /**
+     * Uses the bulk executor rather than CosmosBatch: a transactional batch is limited to a
+     * single partition key, and with '/id' as partition key every document is its own partition.
+     */
+    @Override
+    protected void doPutAll(String collection, Map<String, Map<String, Object>> docs) {
+        List<CosmosItemOperation> ops = new ArrayList<>(docs.size());
+        docs.forEach((id, d) -> {
+            ops.add(CosmosBulkOperations.getUpsertItemOperation(codec.payload(id, d), new PartitionKey(id)));
+        });
+        executeBulk(collection, ops, false, "Cosmos bulk upsert");
+    }
+
+    @Override
+    protected void doDeleteAll(String collection, Collection<String> ids) {
+        List<CosmosItemOperation> ops = new ArrayList<>(ids.size());
+        for (String id : ids) ops.add(CosmosBulkOperations.getDeleteItemOperation(id, new PartitionKey(id)));
+        executeBulk(collection, ops, true, "Cosmos bulk delete");
+    }
+
+    private void executeBulk(String collection, List<CosmosItemOperation> ops, boolean ignoreNotFound, String op) {
+        try {
+            Iterable<CosmosBulkOperationResponse<Object>> responses =
+                    container(collection).executeBulkOperations(ops);
+            for (CosmosBulkOperationResponse<Object> r : responses) {
+                if (r.getException() != null) throw new StoreException(op + " failed", r.getException());
+                CosmosBulkItemResponse resp = r.getResponse();
+                if (resp != null) UsageMeter.requestUnits(resp.getRequestCharge());
+                if (resp == null || resp.isSuccessStatusCode()) continue;
+                if (ignoreNotFound && resp.getStatusCode() == 404) continue;
+                throw new StoreException(op + " failed for " + r.getOperation().getId()
+                        + " (status " + resp.getStatusCode() + ")");
+            }
+        } catch (CosmosException e) {
+            UsageMeter.requestUnits(e.getRequestCharge());
+            throw new StoreException(op + " failed", e);
         }
-        return out;
     }
 
 }
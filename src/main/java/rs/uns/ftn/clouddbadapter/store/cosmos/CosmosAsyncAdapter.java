@@ -0,0 +1,145 @@
+package rs.uns.ftn.clouddbadapter.store.cosmos;
+
+import com.azure.cosmos.CosmosAsyncClient;
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosClientBuilder;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosItemRequestOptions;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.PartitionKey;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.AlreadyExists;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.BaseAsyncAdapter;
+import rs.uns.ftn.clouddbadapter.store.WarmableStore;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Non-blocking Cosmos DB adapter on top of CosmosAsyncClient (Reactor).
+ * Same container layout as {@link CosmosAdapter}: partition key '/id'.
+ */
+public final class CosmosAsyncAdapter extends BaseAsyncAdapter implements WarmableStore {
+
+    private final CosmosAsyncClient client;
+    private final String databaseName;
+    private final CosmosCodec codec;
+    /** Container handles by collection; resolved once instead of on every operation. */
+    private final Map<String, CosmosAsyncContainer> containers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an async Cosmos client from the same ENV variables as {@link CosmosAdapter#CosmosAdapter()}.
+     */
+    public CosmosAsyncAdapter() {
+        String endpoint = System.getenv("AZURE_COSMOS_ENDPOINT");
+        String key = System.getenv("AZURE_COSMOS_KEY");
+        if (endpoint == null || endpoint.isBlank() || key == null || key.isBlank()) {
+            throw new IllegalArgumentException("AZURE_COSMOS_ENDPOINT and AZURE_COSMOS_KEY must be set");
+        }
+        this.databaseName = System.getenv().getOrDefault("COSMOS_DB", "appdb");
+
+        this.client = new CosmosClientBuilder()
+                .endpoint(endpoint)
+                .key(key)
+                .gatewayMode()
+                .buildAsyncClient();
+        this.codec = CosmosCodec.shared();
+    }
+
+    public CosmosAsyncAdapter(CosmosAsyncClient client, String databaseName) {
+        this(client, databaseName, CosmosCodec.shared());
+    }
+
+    public CosmosAsyncAdapter(CosmosAsyncClient client, String databaseName, CosmosCodec codec) {
+        this.client = client;
+        this.databaseName = databaseName;
+        this.codec = codec;
+    }
+
+    private CosmosAsyncContainer container(String collection) {
+        CosmosAsyncContainer c = containers.get(collection);
+        return c != null ? c : containers.computeIfAbsent(collection,
+                name -> client.getDatabase(databaseName).getContainer(name));
+    }
+
+    /** Same as {@link CosmosAdapter#warmUp}: reads container metadata and opens connections. */
+    @Override
+    public void warmUp(Collection<String> collections) {
+        for (String collection : collections) {
+            validateCollection(collection);
+            try {
+                CosmosAsyncContainer c = container(collection);
+                c.read().then(c.openConnectionsAndInitCaches()).block();
+            } catch (CosmosException e) {
+                throw new StoreException("Cosmos warm-up failed for " + collection, e);
+            }
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Void> doCreate(String collection, String id, Map<String, Object> data) {
+        ObjectNode payload = codec.payload(id, data);
+        return container(collection)
+                .createItem(payload, new PartitionKey(id), new CosmosItemRequestOptions())
+                .toFuture()
+                .handle((resp, t) -> {
+                    if (t == null) return null;
+                    Throwable cause = unwrap(t);
+                    if (cause instanceof CosmosException ce && ce.getStatusCode() == 409) {
+                        throw new AlreadyExists("Document exists: " + id);
+                    }
+                    throw new StoreException("Cosmos create failed", cause);
+                });
+    }
+
+    @Override
+    protected CompletableFuture<Optional<Map<String, Object>>> doGet(String collection, String id) {
+        return container(collection)
+                .readItem(id, new PartitionKey(id), ObjectNode.class)
+                .toFuture()
+                .handle((resp, t) -> {
+                    if (t == null) return Optional.of(codec.document(resp.getItem()));
+                    Throwable cause = unwrap(t);
+                    if (cause instanceof CosmosException ce && ce.getStatusCode() == 404) return Optional.empty();
+                    throw new StoreException("Cosmos get failed", cause);
+                });
+    }
+
+    @Override
+    protected CompletableFuture<Void> doUpdate(String collection, String id, Map<String, Object> data) {
+        ObjectNode payload = codec.payload(id, data);
+        return translate(container(collection)
+                .upsertItem(payload, new PartitionKey(id), new CosmosItemRequestOptions())
+                .toFuture()
+                .thenApply(resp -> null), "Cosmos update failed");
+    }
+
+    @Override
+    protected CompletableFuture<Void> doDelete(String collection, String id) {
+        return container(collection)
+                .deleteItem(id, new PartitionKey(id), new CosmosItemRequestOptions())
+                .toFuture()
+                .handle((resp, t) -> {
+                    if (t == null) return null;
+                    Throwable cause = unwrap(t);
+                    if (cause instanceof CosmosException ce && ce.getStatusCode() == 404) return null; // no-op
+                    throw new StoreException("Cosmos delete failed", cause);
+                });
+    }
+
+    @Override
+    protected CompletableFuture<List<Map<String, Object>>> doList(String collection, int limit) {
+        CompletableFuture<List<Map<String, Object>>> rows = container(collection)
+                .queryItems("SELECT * FROM c", new CosmosQueryRequestOptions(), ObjectNode.class)
+                .take(limit)
+                .map(codec::lazy)
+                .collectList()
+                .toFuture();
+        return translate(rows, "Cosmos list failed");
+    }
+}
@@ -0,0 +1,102 @@
+package rs.uns.ftn.clouddbadapter.store.cosmos;
+
+import com.azure.cosmos.CosmosClient;
+import com.azure.cosmos.CosmosContainer;
+import com.azure.cosmos.models.CosmosChangeFeedRequestOptions;
+import com.azure.cosmos.models.FeedRange;
+import com.azure.cosmos.models.FeedResponse;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import rs.uns.ftn.clouddbadapter.store.changes.Change;
+import rs.uns.ftn.clouddbadapter.store.changes.Checkpoint;
+import rs.uns.ftn.clouddbadapter.store.changes.PartitionedChangeFeed;
+import rs.uns.ftn.clouddbadapter.store.metrics.UsageMeter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Change feed over the Cosmos change feed, read with the pull model: one partition per
+ * feed range of the container, whose position is the continuation token returned by Cosmos.
+ * A token keeps covering its range after the range splits, so ranges are listed only when
+ * a subscription starts without positions.
+ *
+ * The change feed runs in latest-version mode: it reports the current version of each
+ * created or replaced item, intermediate versions may be skipped, and deletes are not
+ * reported (use a soft-delete field plus TTL if consumers must see them).
+ *
+ * Example:
+ *   ChangeFeed feed = new CosmosChangeFeed(cosmosClient, "appdb");
+ */
+public final class CosmosChangeFeed extends PartitionedChangeFeed {
+
+    private final CosmosClient client;
+    private final String databaseName;
+    private final CosmosCodec codec;
+    private final Map<String, CosmosContainer> containers = new ConcurrentHashMap<>();
+
+    public CosmosChangeFeed(CosmosClient client, String databaseName) {
+        this(client, databaseName, CosmosCodec.shared());
+    }
+
+    public CosmosChangeFeed(CosmosClient client, String databaseName, CosmosCodec codec) {
+        this.client = Objects.requireNonNull(client, "client");
+        this.databaseName = Objects.requireNonNull(databaseName, "databaseName");
+        this.codec = Objects.requireNonNull(codec, "codec");
+    }
+
+    private CosmosContainer container(String collection) {
+        CosmosContainer c = containers.get(collection);
+        return c != null ? c : containers.computeIfAbsent(collection,
+                name -> client.getDatabase(databaseName).getContainer(name));
+    }
+
+    @Override
+    protected List<Partition> partitions(String collection, Checkpoint current) {
+        List<Partition> out = new ArrayList<>();
+        if (!current.positions().isEmpty()) {
+            for (String range : current.positions().keySet()) out.add(new Partition(range, null));
+            return out;
+        }
+        for (FeedRange r : container(collection).getFeedRanges()) out.add(new Partition(r.toString(), null));
+        return out;
+    }
+
+    @Override
+    protected PartitionReader open(String collection, Partition partition, String position, Checkpoint.Start start) {
+        CosmosContainer container = container(collection);
+        String[] continuation = {position};
+        return maxChanges -> {
+            CosmosChangeFeedRequestOptions options;
+            if (continuation[0] != null) {
+                options = CosmosChangeFeedRequestOptions.createForProcessingFromContinuation(continuation[0]);
+            } else {
+                FeedRange range = FeedRange.fromString(partition.id());
+                options = start == Checkpoint.Start.NOW
+                        ? CosmosChangeFeedRequestOptions.createForProcessingFromNow(range)
+                        : CosmosChangeFeedRequestOptions.createForProcessingFromBeginning(range);
+            }
+            options.setMaxItemCount(maxChanges);
+
+            Iterator<FeedResponse<ObjectNode>> pages = container.queryChangeFeed(options, ObjectNode.class)
+                    .iterableByPage()
+                    .iterator();
+            if (!pages.hasNext()) return new Batch(List.of(), continuation[0], false);
+            FeedResponse<ObjectNode> page = pages.next();
+            UsageMeter.requestUnits(page.getRequestCharge());
+
+            List<Change> changes = new ArrayList<>(page.getResults().size());
+            for (ObjectNode item : page.getResults()) {
+                long ts = item.path("_ts").asLong(0);
+                changes.add(new Change(Change.Type.UPSERT, item.path("id").asText(), codec.lazy(item),
+                        ts > 0 ? Instant.ofEpochSecond(ts) : null));
+            }
+            if (page.getContinuationToken() != null) continuation[0] = page.getContinuationToken();
+            return new Batch(changes, continuation[0], false);
+        };
+    }
+}
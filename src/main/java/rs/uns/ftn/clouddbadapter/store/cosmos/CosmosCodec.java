@@ -0,0 +1,216 @@
+package rs.uns.ftn.clouddbadapter.store.cosmos;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import rs.uns.ftn.clouddbadapter.entity.EntityMapper;
+import rs.uns.ftn.clouddbadapter.store.LazyDocument;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * JSON codec shared by the Cosmos adapters: one configured, thread-safe ObjectMapper reused
+ * for every request. Items are read as Jackson trees and decoded into documents (lazily for
+ * pages, eagerly for point reads), or straight into entity fields. Documents and entities are
+ * written as ObjectNodes built by this mapper, so the SDK's own serializer never sees a Map.
+ * Cosmos system properties (_rid, _self, _etag, _attachments, _ts) are left out of documents.
+ *
+ * Pluggable: pass a codec built on your own ObjectMapper (modules, date handling) to the
+ * adapter constructors. Decoded values have the same types as
+ * ObjectMapper.convertValue(node, Map.class).
+ */
+public final class CosmosCodec {
+
+    private static final CosmosCodec SHARED = new CosmosCodec(new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+
+    /** Properties Cosmos adds to every item. */
+    private static final Set<String> SYSTEM_FIELDS = Set.of("_rid", "_self", "_etag", "_attachments", "_ts");
+
+    private final ObjectMapper mapper;
+
+    public CosmosCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /** The process-wide default codec. */
+    public static CosmosCodec shared() {
+        return SHARED;
+    }
+
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    // ==== documents ====
+
+    /** Document -> item with 'id' set, serialized by this codec's mapper. */
+    public ObjectNode payload(String id, Map<String, Object> data) {
+        ObjectNode node = mapper.createObjectNode();
+        data.forEach((name, value) -> node.set(name, toNode(value)));
+        node.put("id", id); // ensure PK is present
+        return node;
+    }
+
+    /** Lazily decoded document over an item (nested objects are lazy too). */
+    public Map<String, Object> lazy(ObjectNode node) {
+        return new LazyDocument<>(new Fields(node, SYSTEM_FIELDS), this::value);
+    }
+
+    /** Fully decoded document, for point reads whose result is likely to be read whole or shared. */
+    public Map<String, Object> document(ObjectNode node) {
+        Map<String, Object> out = new HashMap<>((int) (node.size() / 0.75f) + 1);
+        node.fields().forEachRemaining(e -> {
+            if (!SYSTEM_FIELDS.contains(e.getKey())) out.put(e.getKey(), plain(e.getValue()));
+        });
+        return out;
+    }
+
+    // ==== entities ====
+
+    /** Entity -> item, field by field (what EntityMapper.toMap would produce, with 'id' set). */
+    public ObjectNode encode(String id, Object entity) {
+        ObjectNode node = mapper.createObjectNode();
+        EntityMapper.forEachField(entity, (name, value) -> node.set(name, toNode(value)));
+        node.put("id", id);
+        return node;
+    }
+
+    /** Item -> entity, decoding only the entity's own fields straight into the instance. */
+    public <T> T decode(ObjectNode node, Class<T> type) {
+        return EntityMapper.fromMap(type, new Fields(node, Set.of()), this::value);
+    }
+
+    private JsonNode toNode(Object v) {
+        if (v instanceof String s) return mapper.getNodeFactory().textNode(s);
+        if (v instanceof Integer i) return mapper.getNodeFactory().numberNode(i);
+        if (v instanceof Long l) return mapper.getNodeFactory().numberNode(l);
+        if (v instanceof Boolean b) return mapper.getNodeFactory().booleanNode(b);
+        return mapper.valueToTree(v);
+    }
+
+    Object value(JsonNode n) {
+        if (n.isObject()) return new LazyDocument<>(new Fields((ObjectNode) n, Set.of()), this::value);
+        if (n.isArray()) {
+            List<Object> out = new ArrayList<>(n.size());
+            for (JsonNode item : n) out.add(value(item));
+            return out;
+        }
+        return plain(n);
+    }
+
+    /** Decodes a value eagerly, nested objects included. */
+    private Object plain(JsonNode n) {
+        switch (n.getNodeType()) {
+            case NULL, MISSING:
+                return null;
+            case STRING:
+                return n.textValue();
+            case BOOLEAN:
+                return n.booleanValue();
+            case NUMBER:
+                return n.numberValue();
+            case OBJECT: {
+                Map<String, Object> out = new HashMap<>((int) (n.size() / 0.75f) + 1);
+                n.fields().forEachRemaining(e -> out.put(e.getKey(), plain(e.getValue())));
+                return out;
+            }
+            case ARRAY: {
+                List<Object> out = new ArrayList<>(n.size());
+                for (JsonNode item : n) out.add(plain(item));
+                return out;
+            }
+            case BINARY:
+                try {
+                    return n.binaryValue();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            default: // POJO nodes do not occur in parsed responses
+                return mapper.convertValue(n, Object.class);
+        }
+    }
+
+    /** Read-only Map view over an ObjectNode's fields, without copying them. */
+    private static final class Fields extends AbstractMap<String, JsonNode> {
+        private final ObjectNode node;
+        /** Fields of the node that the view leaves out. */
+        private final Set<String> hidden;
+        private final int size;
+
+        Fields(ObjectNode node, Set<String> hidden) {
+            this.node = node;
+            this.hidden = hidden;
+            int n = node.size();
+            for (String h : hidden) {
+                if (node.has(h)) n--;
+            }
+            this.size = n;
+        }
+
+        @Override
+        public JsonNode get(Object key) {
+            return key instanceof String k && !hidden.contains(k) ? node.get(k) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String k && !hidden.contains(k) && node.has(k);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, JsonNode>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, JsonNode>> iterator() {
+                    Iterator<Entry<String, JsonNode>> fields = node.fields();
+                    if (size == node.size()) return fields;
+                    return new Iterator<>() {
+                        private Entry<String, JsonNode> next = advance();
+
+                        private Entry<String, JsonNode> advance() {
+                            while (fields.hasNext()) {
+                                Entry<String, JsonNode> e = fields.next();
+                                if (!hidden.contains(e.getKey())) return e;
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != null;
+                        }
+
+                        @Override
+                        public Entry<String, JsonNode> next() {
+                            if (next == null) throw new NoSuchElementException();
+                            Entry<String, JsonNode> e = next;
+                            next = advance();
+                            return e;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package rs.uns.ftn.clouddbadapter.store.counter;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.PatchOp;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Named counters (views, likes, quotas) kept in a collection of the store and updated with
+ * server-side atomic increments through {@link DocumentStore#patch} and
+ * {@link PatchOp#increment}: DynamoDB UpdateItem ADD, Cosmos patch increment, Firestore
+ * FieldValue.increment. Concurrent increments are never lost, unlike read-modify-write
+ * through EntityManager.save.
+ *
+ * A logical counter can be spread over N shard documents ("name:0".."name:N-1"); each
+ * increment goes to a random one and reads sum them with one getAll. Use N above one for
+ * counters hotter than a single document sustains (about 1000 writes/s on a DynamoDB key,
+ * the RU budget of one Cosmos logical partition, about one sustained write/s on a Firestore
+ * document), and size it from the target rate over the per-document limit.
+ *
+ * Reads can be served from a short-lived local cache ('cacheTtl'); this instance's own
+ * increments are added to the cached value, others' show up when it expires. A value read
+ * while one of this instance's increments of the same counter was in flight is not cached.
+ *
+ * Example:
+ *   CounterStore views = CounterStore.builder(store).collection("views").shards(32)
+ *       .cacheTtl(Duration.ofSeconds(1)).build();
+ *   views.increment("post-42");
+ *   long total = views.get("post-42");
+ */
+public final class CounterStore {
+
+    /** Field holding a shard's count. */
+    public static final String VALUE = "value";
+    /** Field holding the logical counter name, for inspection. */
+    public static final String COUNTER = "counter";
+
+    private record Cached(long value, long expiresAt) {}
+
+    private static final int STRIPES = 64;
+
+    private final DocumentStore store;
+    private final String collection;
+    private final int shards;
+    private final long cacheTtlNanos;
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+    /** Increments and resets in flight per counter stripe, and those completed per stripe. */
+    private final AtomicIntegerArray active = new AtomicIntegerArray(STRIPES);
+    private final AtomicLongArray completed = new AtomicLongArray(STRIPES);
+
+    private CounterStore(Builder b) {
+        this.store = b.store;
+        this.collection = b.collection;
+        this.shards = b.shards;
+        this.cacheTtlNanos = b.cacheTtl.toNanos();
+    }
+
+    public static Builder builder(DocumentStore store) {
+        return new Builder(store);
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    // ==== writes ====
+
+    public void increment(String counter) {
+        increment(counter, 1);
+    }
+
+    /** Atomically adds 'delta' (may be negative) to the counter, creating it at 0 if needed. */
+    public void increment(String counter, long delta) {
+        validate(counter);
+        String id = shardId(counter, shards == 1 ? 0 : ThreadLocalRandom.current().nextInt(shards));
+        Map<String, Object> change = Map.of(VALUE, PatchOp.increment(delta));
+        int stripe = stripe(counter);
+        active.incrementAndGet(stripe);
+        try {
+            add(counter, id, change, delta);
+            cache.computeIfPresent(counter, (k, c) -> new Cached(c.value() + delta, c.expiresAt()));
+        } finally {
+            completed.incrementAndGet(stripe);
+            active.decrementAndGet(stripe);
+        }
+    }
+
+    private void add(String counter, String id, Map<String, Object> change, long delta) {
+        while (true) {
+            try {
+                store.patch(collection, id, change);
+                break;
+            } catch (BaseAdapter.NotFound missing) {
+                Map<String, Object> doc = new HashMap<>();
+                doc.put(COUNTER, counter);
+                doc.put(VALUE, delta);
+                try {
+                    store.compareAndSet(collection, id, doc, null);
+                    break;
+                } catch (BaseAdapter.VersionConflict created) {
+                    // another writer created the shard first; increment it instead
+                }
+            }
+        }
+    }
+
+    /** Removes every shard of the counter, so it reads as 0 again. */
+    public void reset(String counter) {
+        validate(counter);
+        int stripe = stripe(counter);
+        active.incrementAndGet(stripe);
+        try {
+            store.deleteAll(collection, shardIds(counter));
+            cache.remove(counter);
+        } finally {
+            completed.incrementAndGet(stripe);
+            active.decrementAndGet(stripe);
+        }
+    }
+
+    // ==== reads ====
+
+    /** Current value (0 for an unknown counter), served from the cache while it is fresh. */
+    public long get(String counter) {
+        validate(counter);
+        if (cacheTtlNanos > 0) {
+            Cached c = cache.get(counter);
+            if (c != null && System.nanoTime() - c.expiresAt() < 0) return c.value();
+        }
+        return getAll(List.of(counter)).get(counter);
+    }
+
+    /** Values of several counters from one batch read of all their shards; always fresh. */
+    public Map<String, Long> getAll(Collection<String> counters) {
+        Objects.requireNonNull(counters, "counters");
+        Set<String> names = new LinkedHashSet<>(counters);
+        List<String> ids = new ArrayList<>(names.size() * shards);
+        for (String name : names) {
+            validate(name);
+            ids.addAll(shardIds(name));
+        }
+        // a value is cached only if no increment of its stripe overlapped the read
+        Map<String, Long> stamps = new HashMap<>();
+        for (String name : names) {
+            int stripe = stripe(name);
+            stamps.put(name, active.get(stripe) == 0 ? completed.get(stripe) : -1);
+        }
+        Map<String, Map<String, Object>> docs = ids.isEmpty() ? Map.of() : store.getAll(collection, ids);
+        Map<String, Long> out = new LinkedHashMap<>();
+        long expiresAt = System.nanoTime() + cacheTtlNanos;
+        for (String name : names) {
+            long sum = 0;
+            for (String id : shardIds(name)) {
+                Map<String, Object> doc = docs.get(id);
+                if (doc != null && doc.get(VALUE) instanceof Number n) sum += n.longValue();
+            }
+            out.put(name, sum);
+            if (cacheTtlNanos > 0) {
+                int stripe = stripe(name);
+                long stamp = stamps.get(name);
+                long value = sum;
+                cache.compute(name, (k, current) -> stamp >= 0 && active.get(stripe) == 0
+                        && completed.get(stripe) == stamp ? new Cached(value, expiresAt) : current);
+            }
+        }
+        return out;
+    }
+
+    /** "<counter>:<shard>", also for a single shard so that raising 'shards' keeps every count. */
+    private static String shardId(String counter, int shard) {
+        return counter + ":" + shard;
+    }
+
+    private static int stripe(String counter) {
+        return counter.hashCode() & (STRIPES - 1);
+    }
+
+    private List<String> shardIds(String counter) {
+        List<String> ids = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) ids.add(shardId(counter, i));
+        return ids;
+    }
+
+    private static void validate(String counter) {
+        if (counter == null || counter.isBlank()) throw new IllegalArgumentException("counter empty");
+    }
+
+    public static final class Builder {
+        private final DocumentStore store;
+        private String collection = "counters";
+        private int shards = 1;
+        private Duration cacheTtl = Duration.ZERO;
+
+        private Builder(DocumentStore store) {
+            this.store = Objects.requireNonNull(store, "store");
+        }
+
+        /** Collection (table/container) holding the counter documents; default "counters". */
+        public Builder collection(String collection) {
+            if (collection == null || collection.isBlank()) throw new IllegalArgumentException("collection empty");
+            this.collection = collection;
+            return this;
+        }
+
+        /**
+         * Documents per counter; default 1. Changing it later hides the shards above the new
+         * count, so only ever raise it.
+         */
+        public Builder shards(int shards) {
+            if (shards < 1) throw new IllegalArgumentException("shards must be >= 1");
+            this.shards = shards;
+            return this;
+        }
+
+        /** How long get() may answer from the local cache; default zero (always read). */
+        public Builder cacheTtl(Duration cacheTtl) {
+            if (cacheTtl.isNegative()) throw new IllegalArgumentException("cacheTtl must be >= 0");
+            this.cacheTtl = cacheTtl;
+            return this;
+        }
+
+        public CounterStore build() {
+            return new CounterStore(this);
+        }
+    }
+}
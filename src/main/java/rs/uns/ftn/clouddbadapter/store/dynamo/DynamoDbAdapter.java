@@ -1,6 +1,14 @@
 package rs.uns.ftn.clouddbadapter.store.dynamo;
 
 import rs.uns.ftn.clouddbadapter.store.BaseAdapter;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.EntityCodecStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
+import rs.uns.ftn.clouddbadapter.store.PatchOp;
+import rs.uns.ftn.clouddbadapter.store.Projections;
+import rs.uns.ftn.clouddbadapter.store.Versioned;
+import rs.uns.ftn.clouddbadapter.store.WarmableStore;
+import rs.uns.ftn.clouddbadapter.store.metrics.UsageMeter;
 
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
@@ -12,18 +20,43 @@ import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Core DynamoDB adapter implementing the BaseAdapter low-level hooks.
  * Assumes each collection maps to a table with primary key "id" (String).
  */
-public final class DynamoDbAdapter extends BaseAdapter {
+public final class DynamoDbAdapter extends BaseAdapter implements EntityCodecStore, WarmableStore {
+
+    /** BatchGetItem accepts at most 100 keys per request. */
+    private static final int BATCH_GET_LIMIT = 100;
+    /** BatchWriteItem accepts at most 25 put/delete requests per call. */
+    private static final int BATCH_WRITE_LIMIT = 25;
+    /**
+     * Numeric attribute holding the optimistic-concurrency version; absent (items written
+     * before versioning) counts as 0. Stripped from every document read. Patches and
+     * compareAndSet increment it; other full writes stamp a fresh time-based version.
+     */
+    public static final String VERSION_ATTRIBUTE = "_version";
+
+    /** How many times unprocessed keys/items are resubmitted before giving up. */
+    private static final int MAX_BATCH_RETRIES = 8;
 
     private final DynamoDbClient ddb;
 
+    /** Key attributes of the base table (indexName == null) or of one secondary index; range may be null. */
+    private record KeySchema(String indexName, String hash, String range) {}
+
+    /** Table -> key schemas of the table and its indexes, described once per table. */
+    private final Map<String, List<KeySchema>> keySchemas = new ConcurrentHashMap<>();
+
     /**
      * Creates a client using default credentials and region. If the environment
      * var AWS_DYNAMO_ENDPOINT is set (e.g. http://localhost:8000), uses it.
@@ -52,6 +85,23 @@ public final class DynamoDbAdapter extends BaseAdapter {
         this.ddb = client;
     }
 
+    @Override
+    public String provider() {
+        return "aws";
+    }
+
+    /**
+     * Describes each table: opens the pooled connection (TLS handshake) and caches the key
+     * schemas that query planning would otherwise fetch on the first query.
+     */
+    @Override
+    public void warmUp(Collection<String> collections) {
+        for (String table : collections) {
+            validateCollection(table);
+            keySchemas(table);
+        }
+    }
+
     @Override
     protected void doCreate(String collection, String id, Map<String, Object> data) {
         Map<String, AttributeValue> item = DynamoMapper.toAttributes(id, data);
@@ -61,9 +111,10 @@ public final class DynamoDbAdapter extends BaseAdapter {
                 // ensure we error if id already exists
                 .conditionExpression("attribute_not_exists(#id)")
                 .expressionAttributeNames(Map.of("#id", "id"))
+                .returnConsumedCapacity(capacity())
                 .build();
         try {
-            ddb.putItem(req);
+            consumed(ddb.putItem(req).consumedCapacity());
         } catch (ConditionalCheckFailedException e) {
             throw new AlreadyExists("Document exists: " + id);
         } catch (DynamoDbException e) {
@@ -73,14 +124,31 @@ public final class DynamoDbAdapter extends BaseAdapter {
 
     @Override
     protected Optional<Map<String, Object>> doGet(String collection, String id) {
-        GetItemRequest req = GetItemRequest.builder()
+        return get(GetItemRequest.builder()
+                .tableName(collection)
+                .key(Map.of("id", AttributeValue.builder().s(id).build())));
+    }
+
+    @Override
+    protected Optional<Map<String, Object>> doGet(String collection, String id, Set<String> fields) {
+        Map<String, String> names = new HashMap<>();
+        return get(GetItemRequest.builder()
                 .tableName(collection)
                 .key(Map.of("id", AttributeValue.builder().s(id).build()))
-                .build();
+                .projectionExpression(projection(fields, names))
+                .expressionAttributeNames(names));
+    }
+
+    private Optional<Map<String, Object>> get(GetItemRequest.Builder req) {
+        return getItem(req).map(DynamoMapper::fromAttributes);
+    }
+
+    private Optional<Map<String, AttributeValue>> getItem(GetItemRequest.Builder req) {
         try {
-            GetItemResponse resp = ddb.getItem(req);
+            GetItemResponse resp = ddb.getItem(req.returnConsumedCapacity(capacity()).build());
+            consumed(resp.consumedCapacity());
             if (resp.item() == null || resp.item().isEmpty()) return Optional.empty();
-            return Optional.of(DynamoMapper.fromAttributes(resp.item()));
+            return Optional.of(resp.item());
         } catch (DynamoDbException e) {
             throw new StoreException("Dynamo get failed", e);
         }
@@ -88,43 +156,533 @@ public final class DynamoDbAdapter extends BaseAdapter {
 
     @Override
     protected void doUpdate(String collection, String id, Map<String, Object> data) {
-        Map<String, AttributeValue> item = DynamoMapper.toAttributes(id, data);
+        put(collection, DynamoMapper.toAttributes(id, data));
+    }
+
+    private void put(String collection, Map<String, AttributeValue> item) {
         PutItemRequest req = PutItemRequest.builder()
                 .tableName(collection)
                 .item(item) // full overwrite (upsert)
+                .returnConsumedCapacity(capacity())
                 .build();
         try {
-            ddb.putItem(req);
+            consumed(ddb.putItem(req).consumedCapacity());
         } catch (DynamoDbException e) {
             throw new StoreException("Dynamo update failed", e);
         }
     }
 
+    // ==== entity fast path (no intermediate Map, see DynamoEntityCodec) ====
+
+    @Override
+    public void putEntity(String collection, String id, Object entity) {
+        validate(collection, id);
+        if (entity == null) throw new IllegalArgumentException("entity null");
+        put(collection, DynamoEntityCodec.toItem(id, entity));
+    }
+
+    @Override
+    public <T> Optional<T> getEntity(String collection, String id, Class<T> type) {
+        validate(collection, id);
+        return getItem(GetItemRequest.builder()
+                .tableName(collection)
+                .key(Map.of("id", AttributeValue.builder().s(id).build())))
+                .map(item -> DynamoEntityCodec.fromItem(type, item));
+    }
+
+    /**
+     * Single UpdateItem with an UpdateExpression: SET for set/append, REMOVE, and ADD for increments.
+     * The condition makes it fail (instead of creating a new item) when the document does not exist.
+     */
+    @Override
+    protected void doPatch(String collection, String id, Map<String, PatchOp> ops) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> set = new ArrayList<>();
+        List<String> remove = new ArrayList<>();
+        List<String> add = new ArrayList<>();
+        names.put("#id", "id");
+        // every patch bumps the version so concurrent compareAndSet callers see a conflict
+        names.put("#ver", VERSION_ATTRIBUTE);
+        values.put(":one", AttributeValue.builder().n("1").build());
+        add.add("#ver :one");
+        int i = 0;
+        for (Map.Entry<String, PatchOp> e : ops.entrySet()) {
+            String name = "#f" + i;
+            String value = ":v" + i;
+            i++;
+            names.put(name, e.getKey());
+            PatchOp op = e.getValue();
+            switch (op.kind()) {
+                case SET -> {
+                    set.add(name + " = " + value);
+                    values.put(value, DynamoMapper.toAttr(op.value()));
+                }
+                case REMOVE -> remove.add(name);
+                case INCREMENT -> {
+                    add.add(name + " " + value);
+                    values.put(value, DynamoMapper.toAttr(op.value()));
+                }
+                case APPEND -> {
+                    set.add(name + " = list_append(if_not_exists(" + name + ", :empty), " + value + ")");
+                    values.put(value, DynamoMapper.toAttr(op.value()));
+                    values.putIfAbsent(":empty", AttributeValue.builder().l(List.of()).build());
+                }
+            }
+        }
+        StringBuilder expr = new StringBuilder();
+        if (!set.isEmpty()) expr.append("SET ").append(String.join(", ", set)).append(' ');
+        if (!remove.isEmpty()) expr.append("REMOVE ").append(String.join(", ", remove)).append(' ');
+        if (!add.isEmpty()) expr.append("ADD ").append(String.join(", ", add));
+
+        UpdateItemRequest.Builder req = UpdateItemRequest.builder()
+                .tableName(collection)
+                .key(Map.of("id", AttributeValue.builder().s(id).build()))
+                .updateExpression(expr.toString().trim())
+                .conditionExpression("attribute_exists(#id)")
+                .expressionAttributeNames(names)
+                .returnConsumedCapacity(capacity());
+        if (!values.isEmpty()) req.expressionAttributeValues(values);
+        try {
+            consumed(ddb.updateItem(req.build()).consumedCapacity());
+        } catch (ConditionalCheckFailedException e) {
+            throw new NotFound("Document not found: " + id);
+        } catch (DynamoDbException e) {
+            throw new StoreException("Dynamo patch failed", e);
+        }
+    }
+
+    @Override
+    protected Optional<Versioned> doGetVersioned(String collection, String id) {
+        return getItem(GetItemRequest.builder()
+                .tableName(collection)
+                .key(Map.of("id", AttributeValue.builder().s(id).build())))
+                .map(item -> {
+                    AttributeValue v = item.get(VERSION_ATTRIBUTE);
+                    return new Versioned(DynamoMapper.fromAttributes(item), v == null ? "0" : v.n());
+                });
+    }
+
+    /**
+     * PutItem with the version attribute incremented, conditioned on the stored version
+     * (or on the item not existing when no version is expected).
+     */
+    @Override
+    protected String doCompareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        long next;
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        String condition;
+        names.put("#id", "id");
+        if (expectedVersion == null) {
+            next = 1;
+            condition = "attribute_not_exists(#id)";
+        } else {
+            long expected;
+            try {
+                expected = Long.parseLong(expectedVersion);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a DynamoDB version: " + expectedVersion);
+            }
+            next = expected + 1;
+            names.put("#ver", VERSION_ATTRIBUTE);
+            values.put(":expected", AttributeValue.builder().n(Long.toString(expected)).build());
+            condition = expected == 0
+                    ? "attribute_exists(#id) AND (attribute_not_exists(#ver) OR #ver = :expected)"
+                    : "attribute_exists(#id) AND #ver = :expected";
+        }
+
+        Map<String, AttributeValue> item = DynamoMapper.toAttributes(id, data);
+        item.put(VERSION_ATTRIBUTE, AttributeValue.builder().n(Long.toString(next)).build());
+        PutItemRequest.Builder req = PutItemRequest.builder()
+                .tableName(collection)
+                .item(item)
+                .conditionExpression(condition)
+                .expressionAttributeNames(names)
+                .returnConsumedCapacity(capacity());
+        if (!values.isEmpty()) req.expressionAttributeValues(values);
+        try {
+            consumed(ddb.putItem(req.build()).consumedCapacity());
+            return Long.toString(next);
+        } catch (ConditionalCheckFailedException e) {
+            throw new VersionConflict("Version conflict on " + id + " (expected " + expectedVersion + ")");
+        } catch (DynamoDbException e) {
+            throw new StoreException("Dynamo compare-and-set failed", e);
+        }
+    }
+
     @Override
     protected void doDelete(String collection, String id) {
         DeleteItemRequest req = DeleteItemRequest.builder()
                 .tableName(collection)
                 .key(Map.of("id", AttributeValue.builder().s(id).build()))
+                .returnConsumedCapacity(capacity())
                 .build();
         try {
-            ddb.deleteItem(req);
+            consumed(ddb.deleteItem(req).consumedCapacity());
         } catch (DynamoDbException e) {
             throw new StoreException("Dynamo delete failed", e);
         }
     }
 
     @Override
-    public List<Map<String, Object>> list(String table, int limit) {
-        List<Map<String,Object>> result = new ArrayList<>();
-        ScanRequest req = ScanRequest.builder()
+    protected Page<Map<String, Object>> doListPage(String table, int pageSize, String cursor) {
+        return scanPage(ScanRequest.builder().tableName(table).limit(pageSize), cursor);
+    }
+
+    @Override
+    protected Page<Map<String, Object>> doListPage(String table, int pageSize, String cursor, Set<String> fields) {
+        Map<String, String> names = new HashMap<>();
+        return scanPage(ScanRequest.builder()
                 .tableName(table)
-                .limit(limit)
-                .build();
-        ScanResponse res = ddb.scan(req);
-        for (Map<String, AttributeValue> item : res.items()) {
-            result.add(DynamoMapper.fromAttributes(item));
+                .limit(pageSize)
+                .projectionExpression(projection(fields, names))
+                .expressionAttributeNames(names), cursor);
+    }
+
+    /**
+     * Builds a ProjectionExpression ("#p0, #p1, ...") and fills 'names' with the aliases,
+     * so reserved words such as "name" or "status" can be projected too.
+     */
+    private static String projection(Set<String> fields, Map<String, String> names) {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        for (String f : Projections.withId(fields)) {
+            String alias = "#p" + i++;
+            names.put(alias, f);
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(alias);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Translates the query to a DynamoDB Query on the table or the best-fitting GSI/LSI:
+     * an equality filter on the index partition key plus at most one range (or a >= / <= pair)
+     * on its sort key become the KeyConditionExpression, everything else the FilterExpression.
+     * Without a fitting index the query fails unless it allows a Scan with a FilterExpression.
+     * Note that Limit is applied before filtering, so pages can be short.
+     */
+    @Override
+    protected Page<Map<String, Object>> doQuery(String table, DocumentQuery q) {
+        KeySchema index = pickIndex(table, q);
+        if (index == null) {
+            if (!q.allowScan()) {
+                throw new StoreException("No key or index of table '" + table + "' can serve " + q
+                        + "; use allowScan() to permit a filtered Scan");
+            }
+            if (q.orderBy() != null) throw new IllegalArgumentException("orderBy needs an index with that sort key");
+            return filteredScan(table, q);
+        }
+
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> keyConditions = new ArrayList<>();
+        List<String> filters = new ArrayList<>();
+        List<DocumentQuery.Filter> rangeFilters = new ArrayList<>();
+        boolean hashUsed = false;
+        int n = 0;
+        for (DocumentQuery.Filter f : q.filters()) {
+            if (!hashUsed && f.field().equals(index.hash()) && f.op() == DocumentQuery.Op.EQ) {
+                keyConditions.add(condition(f, n++, names, values));
+                hashUsed = true;
+            } else if (f.field().equals(index.hash()) || f.field().equals(index.range())) {
+                // key attributes are not allowed in a FilterExpression
+                if (f.op() == DocumentQuery.Op.IN || f.field().equals(index.hash())) {
+                    throw new IllegalArgumentException("Unsupported condition on key attribute: " + f);
+                }
+                rangeFilters.add(f);
+            } else {
+                filters.add(condition(f, n++, names, values));
+            }
+        }
+        if (rangeFilters.size() == 1) {
+            keyConditions.add(condition(rangeFilters.get(0), n++, names, values));
+        } else if (rangeFilters.size() == 2) {
+            keyConditions.add(between(rangeFilters, n++, names, values));
+        } else if (rangeFilters.size() > 2) {
+            throw new IllegalArgumentException("At most two conditions on sort key '" + index.range() + "'");
+        }
+
+        QueryRequest.Builder req = QueryRequest.builder()
+                .tableName(table)
+                .indexName(index.indexName())
+                .keyConditionExpression(String.join(" AND ", keyConditions))
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .scanIndexForward(q.orderBy() == null || q.ascending())
+                .limit(q.limit());
+        if (!filters.isEmpty()) req.filterExpression(String.join(" AND ", filters));
+        if (q.cursor() != null) req.exclusiveStartKey(DynamoMapper.decodeKey(q.cursor()));
+        try {
+            QueryResponse res = ddb.query(req.returnConsumedCapacity(capacity()).build());
+            consumed(res.consumedCapacity());
+            return toPage(res.items(), res.hasLastEvaluatedKey() ? res.lastEvaluatedKey() : null);
+        } catch (DynamoDbException e) {
+            throw new StoreException("Dynamo query failed", e);
+        }
+    }
+
+    private Page<Map<String, Object>> filteredScan(String table, DocumentQuery q) {
+        ScanRequest.Builder req = ScanRequest.builder().tableName(table).limit(q.limit());
+        if (!q.filters().isEmpty()) {
+            Map<String, String> names = new HashMap<>();
+            Map<String, AttributeValue> values = new HashMap<>();
+            List<String> filters = new ArrayList<>();
+            int n = 0;
+            for (DocumentQuery.Filter f : q.filters()) filters.add(condition(f, n++, names, values));
+            req.filterExpression(String.join(" AND ", filters))
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values);
+        }
+        if (q.cursor() != null) req.exclusiveStartKey(DynamoMapper.decodeKey(q.cursor()));
+        try {
+            ScanResponse res = ddb.scan(req.returnConsumedCapacity(capacity()).build());
+            consumed(res.consumedCapacity());
+            return toPage(res.items(), res.hasLastEvaluatedKey() ? res.lastEvaluatedKey() : null);
+        } catch (DynamoDbException e) {
+            throw new StoreException("Dynamo query failed", e);
+        }
+    }
+
+    private static Page<Map<String, Object>> toPage(List<Map<String, AttributeValue>> items,
+                                                    Map<String, AttributeValue> lastKey) {
+        List<Map<String, Object>> out = new ArrayList<>(items.size());
+        for (Map<String, AttributeValue> item : items) out.add(DynamoMapper.lazyAttributes(item));
+        String next = lastKey == null || lastKey.isEmpty() ? null : DynamoMapper.encodeKey(lastKey);
+        return new Page<>(out, next);
+    }
+
+    /**
+     * Picks the table or index whose partition key has an equality filter, preferring one whose
+     * sort key is also constrained, then the base table (indexes may not project every attribute).
+     */
+    private KeySchema pickIndex(String table, DocumentQuery q) {
+        KeySchema best = null;
+        int bestScore = -1;
+        for (KeySchema k : keySchemas(table)) {
+            boolean hashEq = false;
+            boolean rangeUsed = false;
+            for (DocumentQuery.Filter f : q.filters()) {
+                if (f.field().equals(k.hash()) && f.op() == DocumentQuery.Op.EQ) hashEq = true;
+                if (f.field().equals(k.range()) && f.op() != DocumentQuery.Op.IN) rangeUsed = true;
+            }
+            if (!hashEq) continue;
+            if (q.orderBy() != null && !q.orderBy().equals(k.range())) continue;
+            int score = (rangeUsed ? 2 : 0) + (k.indexName() == null ? 1 : 0);
+            if (score > bestScore) {
+                best = k;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private List<KeySchema> keySchemas(String table) {
+        return keySchemas.computeIfAbsent(table, t -> {
+            try {
+                TableDescription d = ddb.describeTable(DescribeTableRequest.builder().tableName(t).build()).table();
+                List<KeySchema> out = new ArrayList<>();
+                out.add(keySchema(null, d.keySchema()));
+                for (GlobalSecondaryIndexDescription g : d.globalSecondaryIndexes()) {
+                    out.add(keySchema(g.indexName(), g.keySchema()));
+                }
+                for (LocalSecondaryIndexDescription l : d.localSecondaryIndexes()) {
+                    out.add(keySchema(l.indexName(), l.keySchema()));
+                }
+                return out;
+            } catch (DynamoDbException e) {
+                throw new StoreException("Dynamo describe table failed", e);
+            }
+        });
+    }
+
+    private static KeySchema keySchema(String indexName, List<KeySchemaElement> elements) {
+        String hash = null;
+        String range = null;
+        for (KeySchemaElement e : elements) {
+            if (e.keyType() == KeyType.HASH) hash = e.attributeName();
+            else range = e.attributeName();
+        }
+        return new KeySchema(indexName, hash, range);
+    }
+
+    /** Renders one filter as "#qN op :qN" (or "#qN IN (:qN_0, ...)"), registering names and values. */
+    private static String condition(DocumentQuery.Filter f, int n, Map<String, String> names,
+                                    Map<String, AttributeValue> values) {
+        String name = "#q" + n;
+        String value = ":q" + n;
+        names.put(name, f.field());
+        if (f.op() == DocumentQuery.Op.IN) {
+            List<String> placeholders = new ArrayList<>();
+            int i = 0;
+            for (Object v : (List<?>) f.value()) {
+                String p = value + "_" + i++;
+                values.put(p, DynamoMapper.toAttr(v));
+                placeholders.add(p);
+            }
+            return name + " IN (" + String.join(", ", placeholders) + ")";
+        }
+        values.put(value, DynamoMapper.toAttr(f.value()));
+        String op = switch (f.op()) {
+            case EQ -> "=";
+            case LT -> "<";
+            case LTE -> "<=";
+            case GT -> ">";
+            case GTE -> ">=";
+            case IN -> throw new IllegalStateException();
+        };
+        return name + " " + op + " " + value;
+    }
+
+    /** Key conditions allow a single sort key clause, so a >= / <= pair becomes BETWEEN. */
+    private static String between(List<DocumentQuery.Filter> range, int n, Map<String, String> names,
+                                  Map<String, AttributeValue> values) {
+        DocumentQuery.Filter low = null;
+        DocumentQuery.Filter high = null;
+        for (DocumentQuery.Filter f : range) {
+            if (f.op() == DocumentQuery.Op.GTE) low = f;
+            else if (f.op() == DocumentQuery.Op.LTE) high = f;
+        }
+        if (low == null || high == null) {
+            throw new IllegalArgumentException("Two sort key conditions must be a >= / <= pair: " + range);
+        }
+        String name = "#q" + n;
+        names.put(name, low.field());
+        values.put(":q" + n + "_lo", DynamoMapper.toAttr(low.value()));
+        values.put(":q" + n + "_hi", DynamoMapper.toAttr(high.value()));
+        return name + " BETWEEN :q" + n + "_lo AND :q" + n + "_hi";
+    }
+
+    /** Uses DynamoDB's native parallel scan: one reader per Segment of TotalSegments. */
+    @Override
+    protected List<Function<String, Page<Map<String, Object>>>> doSegments(String table, int segments, int pageSize) {
+        List<Function<String, Page<Map<String, Object>>>> readers = new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            int segment = i;
+            readers.add(cursor -> scanPage(ScanRequest.builder()
+                    .tableName(table)
+                    .limit(pageSize)
+                    .segment(segment)
+                    .totalSegments(segments), cursor));
+        }
+        return readers;
+    }
+
+    private Page<Map<String, Object>> scanPage(ScanRequest.Builder req, String cursor) {
+        if (cursor != null) {
+            // the cursor is the "id" of the last evaluated item (tables are keyed on "id" only)
+            req.exclusiveStartKey(Map.of("id", AttributeValue.builder().s(cursor).build()));
+        }
+        try {
+            ScanResponse res = ddb.scan(req.returnConsumedCapacity(capacity()).build());
+            consumed(res.consumedCapacity());
+            List<Map<String,Object>> result = new ArrayList<>(res.items().size());
+            for (Map<String, AttributeValue> item : res.items()) {
+                result.add(DynamoMapper.lazyAttributes(item));
+            }
+            String next = res.hasLastEvaluatedKey() && !res.lastEvaluatedKey().isEmpty()
+                    ? res.lastEvaluatedKey().get("id").s()
+                    : null;
+            return new Page<>(result, next);
+        } catch (DynamoDbException e) {
+            throw new StoreException("Dynamo list failed", e);
+        }
+    }
+
+    @Override
+    protected Map<String, Map<String, Object>> doGetAll(String collection, Collection<String> ids) {
+        Map<String, Map<String, Object>> out = new HashMap<>(ids.size() * 2);
+        for (List<String> chunk : chunks(ids, BATCH_GET_LIMIT)) {
+            List<Map<String, AttributeValue>> keys = new ArrayList<>(chunk.size());
+            for (String id : chunk) keys.add(Map.of("id", AttributeValue.builder().s(id).build()));
+            Map<String, KeysAndAttributes> pending =
+                    Map.of(collection, KeysAndAttributes.builder().keys(keys).build());
+            int attempt = 0;
+            try {
+                while (!pending.isEmpty()) {
+                    BatchGetItemResponse resp = ddb.batchGetItem(
+                            BatchGetItemRequest.builder().requestItems(pending).returnConsumedCapacity(capacity()).build());
+                    consumed(resp.consumedCapacity());
+                    for (Map<String, AttributeValue> item : resp.responses().getOrDefault(collection, List.of())) {
+                        out.put(item.get("id").s(), DynamoMapper.lazyAttributes(item));
+                    }
+                    // throttled or oversized responses come back as UnprocessedKeys
+                    pending = resp.unprocessedKeys();
+                    if (!pending.isEmpty()) backoff(++attempt, "Dynamo batch get");
+                }
+            } catch (DynamoDbException e) {
+                throw new StoreException("Dynamo batch get failed", e);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    protected void doPutAll(String collection, Map<String, Map<String, Object>> docs) {
+        List<WriteRequest> writes = new ArrayList<>(docs.size());
+        docs.forEach((id, d) -> writes.add(WriteRequest.builder()
+                .putRequest(PutRequest.builder().item(DynamoMapper.toAttributes(id, d)).build())
+                .build()));
+        batchWrite(collection, writes, "Dynamo batch put");
+    }
+
+    @Override
+    protected void doDeleteAll(String collection, Collection<String> ids) {
+        List<WriteRequest> writes = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            writes.add(WriteRequest.builder()
+                    .deleteRequest(DeleteRequest.builder()
+                            .key(Map.of("id", AttributeValue.builder().s(id).build()))
+                            .build())
+                    .build());
+        }
+        batchWrite(collection, writes, "Dynamo batch delete");
+    }
+
+    private void batchWrite(String collection, List<WriteRequest> writes, String op) {
+        for (List<WriteRequest> chunk : chunks(writes, BATCH_WRITE_LIMIT)) {
+            Map<String, List<WriteRequest>> pending = Map.of(collection, chunk);
+            int attempt = 0;
+            try {
+                while (!pending.isEmpty()) {
+                    BatchWriteItemResponse resp = ddb.batchWriteItem(
+                            BatchWriteItemRequest.builder().requestItems(pending).returnConsumedCapacity(capacity()).build());
+                    consumed(resp.consumedCapacity());
+                    pending = resp.unprocessedItems();
+                    if (!pending.isEmpty()) backoff(++attempt, op);
+                }
+            } catch (DynamoDbException e) {
+                throw new StoreException(op + " failed", e);
+            }
+        }
+    }
+
+    /** Asks DynamoDB for consumed capacity only while a metered call (see UsageMeter) is running. */
+    private static ReturnConsumedCapacity capacity() {
+        return UsageMeter.active() ? ReturnConsumedCapacity.TOTAL : ReturnConsumedCapacity.NONE;
+    }
+
+    private static void consumed(ConsumedCapacity c) {
+        if (c != null && c.capacityUnits() != null) UsageMeter.capacityUnits(c.capacityUnits());
+    }
+
+    private static void consumed(List<ConsumedCapacity> cs) {
+        for (ConsumedCapacity c : cs) consumed(c);
+    }
+
+    /** Exponential backoff with jitter before resubmitting unprocessed batch entries. */
+    private static void backoff(int attempt, String op) {
+        if (attempt > MAX_BATCH_RETRIES) {
+            throw new StoreException(op + " still has unprocessed entries after " + MAX_BATCH_RETRIES + " retries");
+        }
+        long cap = Math.min(2_000L, 25L << attempt);
+        try {
+            Thread.sleep(cap / 2 + java.util.concurrent.ThreadLocalRandom.current().nextLong(cap / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreException(op + " interrupted", e);
         }
-        return result;
     }
 
 }
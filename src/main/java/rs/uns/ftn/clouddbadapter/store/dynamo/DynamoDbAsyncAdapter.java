@@ -0,0 +1,139 @@
+package rs.uns.ftn.clouddbadapter.store.dynamo;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.AlreadyExists;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.BaseAsyncAdapter;
+import rs.uns.ftn.clouddbadapter.store.WarmableStore;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking DynamoDB adapter on top of DynamoDbAsyncClient (Netty NIO transport).
+ * Same table layout as {@link DynamoDbAdapter}: primary key "id" (String).
+ */
+public final class DynamoDbAsyncAdapter extends BaseAsyncAdapter implements WarmableStore {
+
+    private final DynamoDbAsyncClient ddb;
+
+    /**
+     * Creates an async client from the same ENV variables as {@link DynamoDbAdapter#defaultClient()}.
+     */
+    public static DynamoDbAsyncClient defaultClient() {
+        String accessKey = System.getenv().getOrDefault("AWS_ACCESS_KEY_ID", "dummy");
+        String secretKey = System.getenv().getOrDefault("AWS_SECRET_ACCESS_KEY", "dummy");
+
+        return DynamoDbAsyncClient.builder()
+                .credentialsProvider(
+                        StaticCredentialsProvider.create(
+                                AwsBasicCredentials.create(accessKey, secretKey)))
+                .region(Region.of(System.getenv().getOrDefault("AWS_REGION", "us-east-1")))
+                .build();
+    }
+
+    public DynamoDbAsyncAdapter() {
+        this(defaultClient());
+    }
+
+    public DynamoDbAsyncAdapter(DynamoDbAsyncClient client) {
+        this.ddb = client;
+    }
+
+    /** Describes each table, which opens the Netty connections and TLS sessions up front. */
+    @Override
+    public void warmUp(Collection<String> collections) {
+        collections.forEach(this::validateCollection);
+        try {
+            CompletableFuture.allOf(collections.stream()
+                    .map(t -> ddb.describeTable(DescribeTableRequest.builder().tableName(t).build()))
+                    .toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw new StoreException("Dynamo warm-up failed", e.getCause());
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Void> doCreate(String collection, String id, Map<String, Object> data) {
+        PutItemRequest req = PutItemRequest.builder()
+                .tableName(collection)
+                .item(DynamoMapper.toAttributes(id, data))
+                // ensure we error if id already exists
+                .conditionExpression("attribute_not_exists(#id)")
+                .expressionAttributeNames(Map.of("#id", "id"))
+                .build();
+        return ddb.putItem(req).handle((resp, t) -> {
+            if (t == null) return null;
+            Throwable cause = unwrap(t);
+            if (cause instanceof ConditionalCheckFailedException) throw new AlreadyExists("Document exists: " + id);
+            throw new StoreException("Dynamo create failed", cause);
+        });
+    }
+
+    @Override
+    protected CompletableFuture<Optional<Map<String, Object>>> doGet(String collection, String id) {
+        GetItemRequest req = GetItemRequest.builder()
+                .tableName(collection)
+                .key(Map.of("id", AttributeValue.builder().s(id).build()))
+                .build();
+        return translate(ddb.getItem(req).thenApply(resp -> {
+            if (resp.item() == null || resp.item().isEmpty()) return Optional.<Map<String, Object>>empty();
+            return Optional.of(DynamoMapper.fromAttributes(resp.item()));
+        }), "Dynamo get failed");
+    }
+
+    @Override
+    protected CompletableFuture<Void> doUpdate(String collection, String id, Map<String, Object> data) {
+        PutItemRequest req = PutItemRequest.builder()
+                .tableName(collection)
+                .item(DynamoMapper.toAttributes(id, data)) // full overwrite (upsert)
+                .build();
+        return translate(ddb.putItem(req).thenApply(resp -> null), "Dynamo update failed");
+    }
+
+    @Override
+    protected CompletableFuture<Void> doDelete(String collection, String id) {
+        DeleteItemRequest req = DeleteItemRequest.builder()
+                .tableName(collection)
+                .key(Map.of("id", AttributeValue.builder().s(id).build()))
+                .build();
+        return translate(ddb.deleteItem(req).thenApply(resp -> null), "Dynamo delete failed");
+    }
+
+    @Override
+    protected CompletableFuture<List<Map<String, Object>>> doList(String table, int limit) {
+        return translate(scan(table, limit, null, new ArrayList<>()), "Dynamo list failed");
+    }
+
+    /** Follows LastEvaluatedKey page by page until 'limit' items are collected or the table ends. */
+    private CompletableFuture<List<Map<String, Object>>> scan(String table, int limit,
+                                                            Map<String, AttributeValue> startKey,
+                                                            List<Map<String, Object>> out) {
+        int remaining = limit - out.size();
+        if (remaining <= 0) return CompletableFuture.completedFuture(out);
+        ScanRequest req = ScanRequest.builder()
+                .tableName(table)
+                .limit(remaining)
+                .exclusiveStartKey(startKey)
+                .build();
+        return ddb.scan(req).thenCompose(res -> {
+            for (Map<String, AttributeValue> item : res.items()) {
+                out.add(DynamoMapper.lazyAttributes(item));
+            }
+            if (!res.hasLastEvaluatedKey() || res.lastEvaluatedKey().isEmpty()) {
+                return CompletableFuture.completedFuture(out);
+            }
+            return scan(table, limit, res.lastEvaluatedKey(), out);
+        });
+    }
+}
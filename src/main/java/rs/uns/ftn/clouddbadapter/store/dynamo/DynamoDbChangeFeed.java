@@ -0,0 +1,154 @@
+package rs.uns.ftn.clouddbadapter.store.dynamo;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.changes.Change;
+import rs.uns.ftn.clouddbadapter.store.changes.Checkpoint;
+import rs.uns.ftn.clouddbadapter.store.changes.PartitionedChangeFeed;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.ExpiredIteratorException;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.model.StreamRecord;
+import software.amazon.awssdk.services.dynamodb.model.TrimmedDataAccessException;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Change feed over DynamoDB Streams. The table's stream must be enabled with the
+ * NEW_IMAGE or NEW_AND_OLD_IMAGES view type, so upserts carry the document.
+ *
+ * Each stream shard is one partition and its position is the sequence number of the last
+ * record handled. Shards split and roll over about every four hours; a child shard is read
+ * only after its parent has been read to its end, so changes to one item stay in order.
+ * Streams keep records for 24 hours: a checkpoint older than that resumes at the oldest
+ * record still available.
+ *
+ * Example:
+ *   ChangeFeed feed = new DynamoDbChangeFeed(DynamoDbClient.create(), DynamoDbStreamsClient.create());
+ */
+public final class DynamoDbChangeFeed extends PartitionedChangeFeed {
+
+    /** GetRecords returns at most 1000 records per call. */
+    private static final int MAX_RECORDS = 1000;
+
+    private final DynamoDbClient ddb;
+    private final DynamoDbStreamsClient streams;
+
+    /** Table -> latest stream ARN, refreshed on every listing. */
+    private final Map<String, String> streamArns = new ConcurrentHashMap<>();
+
+    public DynamoDbChangeFeed(DynamoDbClient ddb, DynamoDbStreamsClient streams) {
+        this.ddb = Objects.requireNonNull(ddb, "ddb");
+        this.streams = Objects.requireNonNull(streams, "streams");
+    }
+
+    @Override
+    protected List<Partition> partitions(String collection, Checkpoint current) {
+        String arn = ddb.describeTable(DescribeTableRequest.builder().tableName(collection).build())
+                .table().latestStreamArn();
+        if (arn == null) {
+            throw new StoreException("DynamoDB Streams is not enabled on table " + collection
+                    + " (enable it with view type NEW_IMAGE or NEW_AND_OLD_IMAGES)");
+        }
+        streamArns.put(collection, arn);
+
+        List<Partition> out = new ArrayList<>();
+        String start = null;
+        do {
+            DescribeStreamResponse r = streams.describeStream(DescribeStreamRequest.builder()
+                    .streamArn(arn)
+                    .exclusiveStartShardId(start)
+                    .build());
+            for (Shard s : r.streamDescription().shards()) out.add(new Partition(s.shardId(), s.parentShardId()));
+            start = r.streamDescription().lastEvaluatedShardId();
+        } while (start != null);
+        return out;
+    }
+
+    @Override
+    protected PartitionReader open(String collection, Partition partition, String position, Checkpoint.Start start) {
+        String arn = streamArns.get(collection);
+        if (arn == null) throw new StoreException("Stream of table " + collection + " not listed yet");
+        return new ShardReader(arn, partition.id(), position, start);
+    }
+
+    private final class ShardReader implements PartitionReader {
+        private final String streamArn;
+        private final String shardId;
+        private String sequence; // last record handed out
+        private Checkpoint.Start start;
+        private String iterator;
+
+        ShardReader(String streamArn, String shardId, String sequence, Checkpoint.Start start) {
+            this.streamArn = streamArn;
+            this.shardId = shardId;
+            this.sequence = sequence;
+            this.start = start;
+        }
+
+        @Override
+        public Batch read(int maxChanges) {
+            GetRecordsResponse r;
+            try {
+                r = getRecords(maxChanges);
+            } catch (ExpiredIteratorException e) {
+                iterator = null; // iterators live 15 minutes; ask for a new one at the same position
+                r = getRecords(maxChanges);
+            } catch (TrimmedDataAccessException e) {
+                // the position fell out of the 24 hour retention: continue at the oldest record
+                sequence = null;
+                start = Checkpoint.Start.BEGINNING;
+                iterator = null;
+                r = getRecords(maxChanges);
+            }
+            iterator = r.nextShardIterator();
+
+            List<Change> changes = new ArrayList<>(r.records().size());
+            for (Record rec : r.records()) {
+                StreamRecord s = rec.dynamodb();
+                String id = s.keys().get("id").s();
+                Change.Type type = rec.eventName() == OperationType.REMOVE ? Change.Type.DELETE : Change.Type.UPSERT;
+                Map<String, Object> doc = type == Change.Type.UPSERT && s.hasNewImage()
+                        ? DynamoMapper.fromAttributes(s.newImage()) : null;
+                changes.add(new Change(type, id, doc, s.approximateCreationDateTime()));
+                sequence = s.sequenceNumber();
+            }
+            // a closed shard has no next iterator once its last record was returned
+            return new Batch(changes, sequence, iterator == null);
+        }
+
+        private GetRecordsResponse getRecords(int maxChanges) {
+            if (iterator == null) iterator = iterator();
+            return streams.getRecords(GetRecordsRequest.builder()
+                    .shardIterator(iterator)
+                    .limit(Math.min(maxChanges, MAX_RECORDS))
+                    .build());
+        }
+
+        private String iterator() {
+            GetShardIteratorRequest.Builder b = GetShardIteratorRequest.builder()
+                    .streamArn(streamArn)
+                    .shardId(shardId);
+            if (sequence != null) {
+                b.shardIteratorType(ShardIteratorType.AFTER_SEQUENCE_NUMBER).sequenceNumber(sequence);
+            } else {
+                b.shardIteratorType(start == Checkpoint.Start.NOW ? ShardIteratorType.LATEST : ShardIteratorType.TRIM_HORIZON);
+            }
+            return streams.getShardIterator(b.build()).shardIterator();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package rs.uns.ftn.clouddbadapter.store.dynamo;
+
+import rs.uns.ftn.clouddbadapter.entity.EntityMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entity <-> DynamoDB item codec that skips the intermediate Map<String,Object>:
+ * fields go straight from the entity (generated mapper or cached accessors) to AttributeValues,
+ * and item attributes are decoded straight into the entity's fields.
+ * Produces exactly what DynamoMapper.toAttributes(id, EntityMapper.toMap(entity)) would.
+ */
+public final class DynamoEntityCodec {
+
+    private DynamoEntityCodec() {}
+
+    public static Map<String, AttributeValue> toItem(String id, Object entity) {
+        Map<String, AttributeValue> item =
+                new HashMap<>(DynamoMapper.capacity(EntityMapper.fieldNames(entity.getClass()).size() + 2));
+        EntityMapper.forEachField(entity, (name, value) -> {
+            if (!"id".equals(name)) item.put(name, DynamoMapper.toAttr(value)); // our id is authoritative
+        });
+        item.put("id", AttributeValue.builder().s(id).build());
+        item.put(DynamoDbAdapter.VERSION_ATTRIBUTE, DynamoMapper.newVersion());
+        return item;
+    }
+
+    public static <T> T fromItem(Class<T> type, Map<String, AttributeValue> item) {
+        return EntityMapper.fromMap(type, item, DynamoMapper::fromAttr);
+    }
+}
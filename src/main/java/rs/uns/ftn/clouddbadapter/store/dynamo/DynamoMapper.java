@@ -1,10 +1,22 @@
 package rs.uns.ftn.clouddbadapter.store.dynamo;
 
+import rs.uns.ftn.clouddbadapter.store.LazyDocument;
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static rs.uns.ftn.clouddbadapter.store.dynamo.DynamoDbAdapter.VERSION_ATTRIBUTE;
 
 /**
  * Minimal Map <-> AttributeValue mapper supporting basic JSON-like types:
@@ -15,38 +27,84 @@ public final class DynamoMapper {
 
     private DynamoMapper() {}
 
+    // AttributeValue is immutable, so the constant ones are shared
+    private static final AttributeValue NULL = AttributeValue.builder().nul(true).build();
+    private static final AttributeValue TRUE = AttributeValue.builder().bool(true).build();
+    private static final AttributeValue FALSE = AttributeValue.builder().bool(false).build();
+
+    /** The item for a full write, stamped with a fresh version (see {@link #newVersion()}). */
     public static Map<String, AttributeValue> toAttributes(String id, Map<String, Object> data) {
-        Map<String, AttributeValue> out = new HashMap<>();
-        out.put("id", AttributeValue.builder().s(id).build());
+        Map<String, AttributeValue> out = new HashMap<>(capacity(data.size() + 2));
         for (Map.Entry<String, Object> e : data.entrySet()) {
-            if ("id".equals(e.getKey())) continue; // ensure our id is authoritative
             out.put(e.getKey(), toAttr(e.getValue()));
         }
+        out.put("id", AttributeValue.builder().s(id).build()); // ensure our id is authoritative
+        out.put(VERSION_ATTRIBUTE, newVersion()); // and our version
         return out;
     }
 
+    /** The item's fields without the version attribute. */
     public static Map<String, Object> fromAttributes(Map<String, AttributeValue> item) {
-        Map<String, Object> out = new HashMap<>();
+        Map<String, Object> out = new HashMap<>(capacity(item.size()));
         for (Map.Entry<String, AttributeValue> e : item.entrySet()) {
-            out.put(e.getKey(), fromAttr(e.getValue()));
+            if (!VERSION_ATTRIBUTE.equals(e.getKey())) out.put(e.getKey(), fromAttr(e.getValue()));
         }
         return out;
     }
 
-    private static AttributeValue toAttr(Object v) {
-        if (v == null) return AttributeValue.builder().nul(true).build();
+    /**
+     * Lazy view over an item: attributes are decoded on first access (nested maps lazily too).
+     * Used for multi-item reads, where callers usually look at a few fields of each item.
+     */
+    public static Map<String, Object> lazyAttributes(Map<String, AttributeValue> item) {
+        if (item.containsKey(VERSION_ATTRIBUTE)) {
+            item = new HashMap<>(item);
+            item.remove(VERSION_ATTRIBUTE);
+        }
+        return new LazyDocument<>(item, DynamoMapper::fromAttrLazy);
+    }
+
+    /**
+     * Version for a full overwrite: milliseconds since the epoch in the high bits plus 20 random
+     * bits. Overwrites therefore never bring back a version a reader may still hold (which a
+     * reset to "0" would), and compare-and-set keeps counting up from there.
+     */
+    static AttributeValue newVersion() {
+        long v = System.currentTimeMillis() << 20 | ThreadLocalRandom.current().nextInt(1 << 20);
+        return AttributeValue.builder().n(Long.toString(v)).build();
+    }
+
+    private static Object fromAttrLazy(AttributeValue av) {
+        if (av.hasM()) return new LazyDocument<>(av.m(), DynamoMapper::fromAttrLazy);
+        if (av.hasL()) {
+            List<AttributeValue> l = av.l();
+            List<Object> out = new ArrayList<>(l.size());
+            for (AttributeValue item : l) out.add(fromAttrLazy(item));
+            return out;
+        }
+        return fromAttr(av);
+    }
+
+    /** HashMap capacity that holds 'n' entries without resizing. */
+    static int capacity(int n) {
+        return (int) (n / 0.75f) + 1;
+    }
+
+    static AttributeValue toAttr(Object v) {
+        if (v == null) return NULL;
         if (v instanceof String s) return AttributeValue.builder().s(s).build();
         if (v instanceof Integer i) return AttributeValue.builder().n(Integer.toString(i)).build();
         if (v instanceof Long l) return AttributeValue.builder().n(Long.toString(l)).build();
         if (v instanceof Double d) return AttributeValue.builder().n(Double.toString(d)).build();
-        if (v instanceof Boolean b) return AttributeValue.builder().bool(b).build();
+        if (v instanceof Boolean b) return b ? TRUE : FALSE;
+        if (v instanceof byte[] bytes) return AttributeValue.builder().b(SdkBytes.fromByteArray(bytes)).build();
         if (v instanceof List<?> list) {
-            return AttributeValue.builder()
-                    .l(list.stream().map(DynamoMapper::toAttr).toList())
-                    .build();
+            List<AttributeValue> items = new ArrayList<>(list.size());
+            for (Object o : list) items.add(toAttr(o));
+            return AttributeValue.builder().l(items).build();
         }
         if (v instanceof Map<?, ?> m) {
-            Map<String, AttributeValue> nested = new HashMap<>();
+            Map<String, AttributeValue> nested = new HashMap<>(capacity(m.size()));
             for (Map.Entry<?, ?> e : m.entrySet()) {
                 nested.put(String.valueOf(e.getKey()), toAttr(e.getValue()));
             }
@@ -55,7 +113,7 @@ public final class DynamoMapper {
         throw new IllegalArgumentException("Unsupported type for Dynamo mapping: " + v.getClass());
     }
 
-    private static Object fromAttr(AttributeValue av) {
+    static Object fromAttr(AttributeValue av) {
         if (av.nul() != null && av.nul()) return null;
         if (av.s() != null) return av.s();
         if (av.n() != null) {
@@ -72,12 +130,73 @@ public final class DynamoMapper {
             }
         }
         if (av.bool() != null) return av.bool();
-        if (av.l() != null) return av.l().stream().map(DynamoMapper::fromAttr).toList();
-        if (av.m() != null) {
-            Map<String, Object> m = new HashMap<>();
-            av.m().forEach((k, v) -> m.put(k, fromAttr(v)));
-            return m;
+        if (av.b() != null) return av.b().asByteArray();
+        // l()/m() are never null in SDK v2 (unset = empty auto-construct collection), so ask hasL/hasM
+        if (av.hasL()) {
+            List<AttributeValue> l = av.l();
+            List<Object> out = new ArrayList<>(l.size());
+            for (AttributeValue item : l) out.add(fromAttr(item));
+            return out;
+        }
+        if (av.hasM()) {
+            Map<String, AttributeValue> m = av.m();
+            Map<String, Object> out = new HashMap<>(capacity(m.size()));
+            for (Map.Entry<String, AttributeValue> e : m.entrySet()) out.put(e.getKey(), fromAttr(e.getValue()));
+            return out;
         }
         return null;
     }
+
+    /**
+     * Encodes a LastEvaluatedKey (string, number or binary key attributes) as an opaque, URL-safe cursor.
+     */
+    public static String encodeKey(Map<String, AttributeValue> key) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(key.size());
+            for (Map.Entry<String, AttributeValue> e : key.entrySet()) {
+                AttributeValue v = e.getValue();
+                out.writeUTF(e.getKey());
+                if (v.s() != null) {
+                    out.writeByte('S');
+                    out.writeUTF(v.s());
+                } else if (v.n() != null) {
+                    out.writeByte('N');
+                    out.writeUTF(v.n());
+                } else if (v.b() != null) {
+                    out.writeByte('B');
+                    out.writeUTF(Base64.getEncoder().encodeToString(v.b().asByteArray()));
+                } else {
+                    throw new IllegalArgumentException("Unsupported key attribute type: " + e.getKey());
+                }
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen for in-memory streams
+        }
+    }
+
+    /** Reverses {@link #encodeKey(Map)}. */
+    public static Map<String, AttributeValue> decodeKey(String cursor) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            int n = in.readUnsignedByte();
+            Map<String, AttributeValue> key = new HashMap<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                String name = in.readUTF();
+                int type = in.readUnsignedByte();
+                String value = in.readUTF();
+                key.put(name, switch (type) {
+                    case 'S' -> AttributeValue.builder().s(value).build();
+                    case 'N' -> AttributeValue.builder().n(value).build();
+                    case 'B' -> AttributeValue.builder().b(SdkBytes.fromByteArray(Base64.getDecoder().decode(value))).build();
+                    default -> throw new IllegalArgumentException("Malformed cursor");
+                });
+            }
+            return key;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
 }
@@ -1,19 +1,36 @@
 package rs.uns.ftn.clouddbadapter.store.firestore;
 
 import rs.uns.ftn.clouddbadapter.store.BaseAdapter;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.Page;
+import rs.uns.ftn.clouddbadapter.store.PatchOp;
+import rs.uns.ftn.clouddbadapter.store.Versioned;
+import rs.uns.ftn.clouddbadapter.store.WarmableStore;
+import rs.uns.ftn.clouddbadapter.store.metrics.UsageMeter;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.AlreadyExistsException;
+import com.google.api.gax.rpc.FailedPreconditionException;
+import com.google.api.gax.rpc.NotFoundException;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Core Firestore adapter.
  * Each collection maps to a Firestore collection.
  * Documents are stored and retrieved as Map<String,Object>.
+ * Billing units reported to UsageMeter are document reads, writes and deletes, one per
+ * document, and at least one read per query.
  */
-public final class FirestoreAdapter extends BaseAdapter {
+public final class FirestoreAdapter extends BaseAdapter implements WarmableStore {
 
     private final Firestore db;
+    /** Collection references by name; resolved once instead of on every operation. */
+    private final Map<String, CollectionReference> collections = new ConcurrentHashMap<>();
 
     /**
      * Creates a Firestore client using GOOGLE_APPLICATION_CREDENTIALS env var.
@@ -26,12 +43,39 @@ public final class FirestoreAdapter extends BaseAdapter {
         this.db = db;
     }
 
+    private CollectionReference collection(String name) {
+        CollectionReference c = collections.get(name);
+        return c != null ? c : collections.computeIfAbsent(name, db::collection);
+    }
+
+    @Override
+    public String provider() {
+        return "gcp";
+    }
+
+    /**
+     * Reads at most one document per collection, which opens the gRPC channel (TLS, auth
+     * token) so the first real request does not pay for it.
+     */
+    @Override
+    public void warmUp(Collection<String> names) {
+        for (String c : names) {
+            validateCollection(c);
+            try {
+                collection(c).limit(1).get().get();
+            } catch (Exception e) {
+                throw new StoreException("Firestore warm-up failed for " + c, e);
+            }
+        }
+    }
+
     @Override
     protected void doCreate(String collection, String id, Map<String, Object> data) {
         // Firestore create() fails if document exists
-        ApiFuture<WriteResult> future = db.collection(collection).document(id).create(data);
+        ApiFuture<WriteResult> future = collection(collection).document(id).create(values(data));
         try {
             future.get();
+            UsageMeter.writes(1);
         } catch (Exception e) {
             // if exists → fallback to AlreadyExists to match BaseAdapter contract
             if (e.getCause() != null && e.getCause().getMessage() != null &&
@@ -45,7 +89,8 @@ public final class FirestoreAdapter extends BaseAdapter {
     @Override
     protected Optional<Map<String, Object>> doGet(String collection, String id) {
         try {
-            DocumentSnapshot snap = db.collection(collection).document(id).get().get();
+            DocumentSnapshot snap = collection(collection).document(id).get().get();
+            UsageMeter.reads(1); // a missing document is billed as a read too
             if (!snap.exists()) return Optional.empty();
             return Optional.of(snap.getData());
         } catch (Exception e) {
@@ -56,35 +101,321 @@ public final class FirestoreAdapter extends BaseAdapter {
     @Override
     protected void doUpdate(String collection, String id, Map<String, Object> data) {
         try {
-            db.collection(collection).document(id).set(data).get(); // full overwrite (upsert)
+            collection(collection).document(id).set(values(data)).get(); // full overwrite (upsert)
+            UsageMeter.writes(1);
         } catch (Exception e) {
             throw new StoreException("Firestore update failed", e);
         }
     }
 
+    /**
+     * Uses update(), which only touches the listed fields and fails if the document is missing.
+     * Field names are passed as FieldPaths so dots are not treated as nesting.
+     * Firestore has no positional append; APPEND maps to arrayUnion, which skips values already present.
+     */
+    @Override
+    protected void doPatch(String collection, String id, Map<String, PatchOp> ops) {
+        Object[] more = new Object[(ops.size() - 1) * 2];
+        FieldPath first = null;
+        Object firstValue = null;
+        int i = 0;
+        for (Map.Entry<String, PatchOp> e : ops.entrySet()) {
+            FieldPath path = FieldPath.of(e.getKey());
+            Object value = toFieldValue(e.getValue());
+            if (first == null) {
+                first = path;
+                firstValue = value;
+            } else {
+                more[i++] = path;
+                more[i++] = value;
+            }
+        }
+        try {
+            collection(collection).document(id).update(first, firstValue, more).get();
+            UsageMeter.writes(1);
+        } catch (Exception e) {
+            if (e.getCause() instanceof NotFoundException) {
+                throw new NotFound("Document not found: " + id);
+            }
+            throw new StoreException("Firestore patch failed", e);
+        }
+    }
+
+    @Override
+    protected Optional<Versioned> doGetVersioned(String collection, String id) {
+        try {
+            DocumentSnapshot snap = collection(collection).document(id).get().get();
+            UsageMeter.reads(1);
+            if (!snap.exists()) return Optional.empty();
+            return Optional.of(new Versioned(snap.getData(), snap.getUpdateTime().toString()));
+        } catch (Exception e) {
+            throw new StoreException("Firestore get failed", e);
+        }
+    }
+
+    /**
+     * create() when no version is expected. Otherwise a full replace: Firestore only offers
+     * preconditions on update(), so the document is read and one update() guarded by
+     * Precondition.updatedAt(expected) sets every field of 'data' and deletes every other
+     * stored field. A write between the read and the update fails the precondition.
+     */
+    @Override
+    protected String doCompareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        DocumentReference ref = collection(collection).document(id);
+        try {
+            WriteResult result;
+            if (expectedVersion == null) {
+                result = ref.create(values(data)).get();
+            } else {
+                Timestamp expected = Timestamp.parseTimestamp(expectedVersion);
+                DocumentSnapshot current = ref.get().get();
+                UsageMeter.reads(1);
+                if (!current.exists() || !expected.equals(current.getUpdateTime())) {
+                    throw new VersionConflict("Version conflict on " + id + " (expected " + expectedVersion + ")");
+                }
+                Map<String, Object> replacement = new HashMap<>(values(data));
+                for (String field : current.getData().keySet()) {
+                    replacement.putIfAbsent(field, FieldValue.delete());
+                }
+                // an empty document stays empty: deleting an absent field still bumps the update time
+                if (replacement.isEmpty()) replacement.put("id", FieldValue.delete());
+                List<Object> pairs = new ArrayList<>(replacement.size() * 2);
+                replacement.forEach((k, v) -> {
+                    pairs.add(FieldPath.of(k));
+                    pairs.add(v);
+                });
+                result = ref.update(Precondition.updatedAt(expected), (FieldPath) pairs.get(0), pairs.get(1),
+                        pairs.subList(2, pairs.size()).toArray()).get();
+            }
+            UsageMeter.writes(1);
+            return result.getUpdateTime().toString();
+        } catch (VersionConflict e) {
+            throw e;
+        } catch (Exception e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AlreadyExistsException || cause instanceof FailedPreconditionException
+                    || cause instanceof NotFoundException) {
+                throw new VersionConflict("Version conflict on " + id + " (expected " + expectedVersion + ")");
+            }
+            throw new StoreException("Firestore compare-and-set failed", e);
+        }
+    }
+
+    /**
+     * Firestore has no byte[] type: binary values (e.g. compressed fields) are stored as Blobs
+     * and read back as Blobs. The caller's map is returned as is when it holds no byte[].
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> values(Map<String, Object> data) {
+        Map<String, Object> out = null;
+        for (Map.Entry<String, Object> e : data.entrySet()) {
+            Object v = e.getValue();
+            Object converted = v instanceof byte[] b ? Blob.fromBytes(b)
+                    : v instanceof Map<?, ?> m ? values((Map<String, Object>) m) : v;
+            if (converted != v && out == null) out = new HashMap<>(data);
+            if (out != null) out.put(e.getKey(), converted);
+        }
+        return out != null ? out : data;
+    }
+
+    private static Object toFieldValue(PatchOp op) {
+        return switch (op.kind()) {
+            case SET -> op.value();
+            case REMOVE -> FieldValue.delete();
+            case INCREMENT -> op.isIntegral()
+                    ? FieldValue.increment(((Number) op.value()).longValue())
+                    : FieldValue.increment(((Number) op.value()).doubleValue());
+            case APPEND -> FieldValue.arrayUnion(((List<?>) op.value()).toArray());
+        };
+    }
+
     @Override
     protected void doDelete(String collection, String id) {
         try {
-            db.collection(collection).document(id).delete().get();
+            collection(collection).document(id).delete().get();
+            UsageMeter.deletes(1);
         } catch (Exception e) {
             throw new StoreException("Firestore delete failed", e);
         }
     }
 
     @Override
-    public List<Map<String, Object>> list(String collection, int limit) {
+    protected Optional<Map<String, Object>> doGet(String collection, String id, Set<String> fields) {
         try {
-            var docs = db.collection(collection).limit(limit).get().get().getDocuments();
-            List<Map<String,Object>> out = new ArrayList<>();
+            DocumentSnapshot snap = collection(collection).document(id)
+                    .get(FieldMask.of(fields.toArray(new String[0]))).get();
+            UsageMeter.reads(1);
+            if (!snap.exists()) return Optional.empty();
+            Map<String, Object> m = new HashMap<>(snap.getData());
+            m.put("id", snap.getId());
+            return Optional.of(m);
+        } catch (Exception e) {
+            throw new StoreException("Firestore get failed", e);
+        }
+    }
+
+    @Override
+    protected Page<Map<String, Object>> doListPage(String collection, int pageSize, String cursor) {
+        return listPage(collection(collection), pageSize, cursor);
+    }
+
+    @Override
+    protected Page<Map<String, Object>> doListPage(String collection, int pageSize, String cursor, Set<String> fields) {
+        // select() sends a field mask, so only the projected fields are read and transferred
+        return listPage(collection(collection).select(fields.toArray(new String[0])), pageSize, cursor);
+    }
+
+    private Page<Map<String, Object>> listPage(Query base, int pageSize, String cursor) {
+        // order by document id so the last id of a page is a stable startAfter() cursor
+        Query q = base.orderBy(FieldPath.documentId()).limit(pageSize);
+        if (cursor != null) q = q.startAfter(cursor);
+        return queryPage(q, pageSize, null, DocumentSnapshot::getId);
+    }
+
+    /**
+     * One segment per Firestore partition query. Partitions can only be computed on the
+     * collection group, which also holds same-named subcollections; their documents are
+     * dropped from the pages (they are still read, so such subcollections cost reads).
+     */
+    @Override
+    protected List<Function<String, Page<Map<String, Object>>>> doSegments(String collection, int segments, int pageSize) {
+        List<QueryPartition> partitions;
+        try {
+            partitions = db.collectionGroup(collection).getPartitions(segments).get();
+        } catch (Exception e) {
+            throw new StoreException("Firestore partition lookup failed", e);
+        }
+        List<Function<String, Page<Map<String, Object>>>> readers = new ArrayList<>(partitions.size());
+        for (QueryPartition partition : partitions) {
+            readers.add(cursor -> {
+                // partition queries are ordered by document path; startAfter replaces the partition start
+                Query q = partition.createQuery().limit(pageSize);
+                if (cursor != null) q = q.startAfter(cursor);
+                return queryPage(q, pageSize, collection, d -> d.getReference().getPath());
+            });
+        }
+        return readers;
+    }
+
+    /**
+     * Translates the query to where()/orderBy()/limit(). Every ordering Firestore would add
+     * implicitly (inequality fields, then the document id) is made explicit, and the cursor
+     * holds the last document's values for all of them, so the next page is a plain
+     * startAfter(values...) that does not depend on that document still existing.
+     * Combined filters and orderings may need a composite index in Firestore.
+     */
+    @Override
+    protected Page<Map<String, Object>> doQuery(String collection, DocumentQuery dq) {
+        Query q = collection(collection);
+        for (DocumentQuery.Filter f : dq.filters()) {
+            FieldPath p = FieldPath.of(f.field());
+            q = switch (f.op()) {
+                case EQ -> q.whereEqualTo(p, f.value());
+                case LT -> q.whereLessThan(p, f.value());
+                case LTE -> q.whereLessThanOrEqualTo(p, f.value());
+                case GT -> q.whereGreaterThan(p, f.value());
+                case GTE -> q.whereGreaterThanOrEqualTo(p, f.value());
+                case IN -> q.whereIn(p, (List<?>) f.value());
+            };
+        }
+        List<String> order = orderFields(dq);
+        Query.Direction direction = dq.orderBy() == null || dq.ascending() ? Query.Direction.ASCENDING : Query.Direction.DESCENDING;
+        for (String field : order) q = q.orderBy(FieldPath.of(field), direction);
+        q = q.orderBy(FieldPath.documentId(), direction).limit(dq.limit());
+        if (dq.cursor() != null) q = q.startAfter(QueryCursor.decode(dq.cursor(), db));
+        return queryPage(q, dq.limit(), null, d -> {
+            List<Object> values = new ArrayList<>(order.size() + 1);
+            for (String field : order) values.add(d.get(FieldPath.of(field)));
+            values.add(d.getId());
+            return QueryCursor.encode(values);
+        });
+    }
+
+    /**
+     * Fields a query is ordered by before the document id: the requested one, then the
+     * inequality fields by name, as Firestore orders them implicitly.
+     */
+    static List<String> orderFields(DocumentQuery dq) {
+        List<String> order = new ArrayList<>();
+        if (dq.orderBy() != null) order.add(dq.orderBy());
+        SortedSet<String> inequalities = new TreeSet<>();
+        for (DocumentQuery.Filter f : dq.filters()) {
+            if (f.op() != DocumentQuery.Op.EQ && f.op() != DocumentQuery.Op.IN) inequalities.add(f.field());
+        }
+        for (String field : inequalities) if (!order.contains(field)) order.add(field);
+        return order;
+    }
+
+    /**
+     * Runs one page query; 'cursorOf' makes the cursor from the last document. For a
+     * collection group query ('group' set) only documents of the top-level collection
+     * 'group' are returned, so a page may be empty while a cursor remains.
+     */
+    private Page<Map<String, Object>> queryPage(Query q, int pageSize, String group, Function<QueryDocumentSnapshot, String> cursorOf) {
+        try {
+            var docs = q.get().get().getDocuments();
+            UsageMeter.reads(Math.max(1, docs.size()));
+            List<Map<String,Object>> out = new ArrayList<>(docs.size());
             for (var d : docs) {
+                if (group != null && !d.getReference().getParent().getPath().equals(group)) continue;
                 Map<String,Object> m = new HashMap<>(d.getData());
                 m.put("id", d.getId());
                 out.add(m);
             }
-            return out;
+            String next = docs.size() >= pageSize ? cursorOf.apply(docs.get(docs.size() - 1)) : null;
+            return new Page<>(out, next);
         } catch (Exception e) {
             throw new StoreException("Firestore list failed", e);
         }
     }
 
+    @Override
+    protected Map<String, Map<String, Object>> doGetAll(String collection, Collection<String> ids) {
+        CollectionReference col = collection(collection);
+        DocumentReference[] refs = new DocumentReference[ids.size()];
+        int i = 0;
+        for (String id : ids) refs[i++] = col.document(id);
+        try {
+            Map<String, Map<String, Object>> out = new HashMap<>(ids.size() * 2);
+            List<DocumentSnapshot> snaps = db.getAll(refs).get();
+            UsageMeter.reads(snaps.size());
+            for (DocumentSnapshot snap : snaps) {
+                if (snap.exists()) out.put(snap.getId(), snap.getData());
+            }
+            return out;
+        } catch (Exception e) {
+            throw new StoreException("Firestore batch get failed", e);
+        }
+    }
+
+    @Override
+    protected void doPutAll(String collection, Map<String, Map<String, Object>> docs) {
+        CollectionReference col = collection(collection);
+        // BulkWriter batches, parallelizes and retries throttled writes on its own
+        BulkWriter writer = db.bulkWriter();
+        List<ApiFuture<WriteResult>> results = new ArrayList<>(docs.size());
+        docs.forEach((id, d) -> results.add(writer.set(col.document(id), values(d))));
+        flush(writer, results, false, "Firestore batch put");
+    }
+
+    @Override
+    protected void doDeleteAll(String collection, Collection<String> ids) {
+        CollectionReference col = collection(collection);
+        BulkWriter writer = db.bulkWriter();
+        List<ApiFuture<WriteResult>> results = new ArrayList<>(ids.size());
+        for (String id : ids) results.add(writer.delete(col.document(id)));
+        flush(writer, results, true, "Firestore batch delete");
+    }
+
+    private static void flush(BulkWriter writer, List<ApiFuture<WriteResult>> results, boolean deletes, String op) {
+        try {
+            writer.close(); // flushes and waits for all pending writes
+            ApiFutures.allAsList(results).get();
+            if (deletes) UsageMeter.deletes(results.size());
+            else UsageMeter.writes(results.size());
+        } catch (Exception e) {
+            throw new StoreException(op + " failed", e);
+        }
+    }
+
 }
@@ -0,0 +1,116 @@
+package rs.uns.ftn.clouddbadapter.store.firestore;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.AlreadyExistsException;
+import com.google.cloud.firestore.*;
+import com.google.common.util.concurrent.MoreExecutors;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.AlreadyExists;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.BaseAsyncAdapter;
+import rs.uns.ftn.clouddbadapter.store.WarmableStore;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Non-blocking Firestore adapter. The Firestore client is already asynchronous;
+ * this adapter bridges its ApiFutures to CompletableFutures instead of calling get().
+ */
+public final class FirestoreAsyncAdapter extends BaseAsyncAdapter implements WarmableStore {
+
+    private final Firestore db;
+    /** Collection references by name; resolved once instead of on every operation. */
+    private final Map<String, CollectionReference> collections = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a Firestore client using GOOGLE_APPLICATION_CREDENTIALS env var.
+     */
+    public FirestoreAsyncAdapter() {
+        this.db = FirestoreOptions.getDefaultInstance().getService();
+    }
+
+    public FirestoreAsyncAdapter(Firestore db) {
+        this.db = db;
+    }
+
+    private CollectionReference collection(String name) {
+        CollectionReference c = collections.get(name);
+        return c != null ? c : collections.computeIfAbsent(name, db::collection);
+    }
+
+    /** Same as {@link FirestoreAdapter#warmUp}: opens the gRPC channel and touches each collection. */
+    @Override
+    public void warmUp(Collection<String> names) {
+        names.forEach(this::validateCollection);
+        try {
+            CompletableFuture.allOf(names.stream()
+                    .map(c -> toCompletable(collection(c).limit(1).get()))
+                    .toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw new StoreException("Firestore warm-up failed", e.getCause());
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Void> doCreate(String collection, String id, Map<String, Object> data) {
+        // Firestore create() fails if document exists
+        return toCompletable(collection(collection).document(id).create(FirestoreAdapter.values(data))).handle((r, t) -> {
+            if (t == null) return null;
+            Throwable cause = unwrap(t);
+            if (cause instanceof AlreadyExistsException) throw new AlreadyExists("Document exists: " + id);
+            throw new StoreException("Firestore create failed", cause);
+        });
+    }
+
+    @Override
+    protected CompletableFuture<Optional<Map<String, Object>>> doGet(String collection, String id) {
+        return translate(toCompletable(collection(collection).document(id).get())
+                .thenApply(snap -> snap.exists() ? Optional.ofNullable(snap.getData()) : Optional.empty()),
+                "Firestore get failed");
+    }
+
+    @Override
+    protected CompletableFuture<Void> doUpdate(String collection, String id, Map<String, Object> data) {
+        return translate(toCompletable(collection(collection).document(id).set(FirestoreAdapter.values(data))) // full overwrite (upsert)
+                .thenApply(r -> null), "Firestore update failed");
+    }
+
+    @Override
+    protected CompletableFuture<Void> doDelete(String collection, String id) {
+        return translate(toCompletable(collection(collection).document(id).delete())
+                .thenApply(r -> null), "Firestore delete failed");
+    }
+
+    @Override
+    protected CompletableFuture<List<Map<String, Object>>> doList(String collection, int limit) {
+        return translate(toCompletable(collection(collection).limit(limit).get()).thenApply(qs -> {
+            List<Map<String, Object>> out = new ArrayList<>(qs.size());
+            for (QueryDocumentSnapshot d : qs.getDocuments()) {
+                Map<String, Object> m = new HashMap<>(d.getData());
+                m.put("id", d.getId());
+                out.add(m);
+            }
+            return out;
+        }), "Firestore list failed");
+    }
+
+    /** Bridges an ApiFuture to a CompletableFuture; cancelling the result cancels the RPC. */
+    static <T> CompletableFuture<T> toCompletable(ApiFuture<T> future) {
+        CompletableFuture<T> out = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                future.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        ApiFutures.addCallback(future, new ApiFutureCallback<>() {
+            @Override public void onFailure(Throwable t) { out.completeExceptionally(t); }
+            @Override public void onSuccess(T result) { out.complete(result); }
+        }, MoreExecutors.directExecutor());
+        return out;
+    }
+}
@@ -0,0 +1,143 @@
+package rs.uns.ftn.clouddbadapter.store.firestore;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.changes.Change;
+import rs.uns.ftn.clouddbadapter.store.changes.Checkpoint;
+import rs.uns.ftn.clouddbadapter.store.changes.PartitionedChangeFeed;
+import rs.uns.ftn.clouddbadapter.store.metrics.UsageMeter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change feed over a Firestore snapshot listener on the collection. Firestore has no
+ * retained change log, so this feed has a single partition and its limits follow from
+ * the listener:
+ *  - the position is the read time of the last snapshot handled completely
+ *  - a listener always starts with the current documents: on resume those updated after
+ *    the position are delivered as upserts, the rest are skipped (but still billed as reads)
+ *  - deletes made while no subscription was running are not seen
+ *  - with {@link Checkpoint#beginning()} every current document is delivered once as an
+ *    upsert; with {@link Checkpoint#now()} the initial documents are skipped
+ *  - at most {@value #MAX_PENDING_SNAPSHOTS} snapshots wait for the consumer; beyond that
+ *    the listener's thread blocks, so a slow consumer holds back the listener instead of
+ *    buffering without bound
+ *
+ * Example:
+ *   ChangeFeed feed = new FirestoreChangeFeed(FirestoreOptions.getDefaultInstance().getService());
+ */
+public final class FirestoreChangeFeed extends PartitionedChangeFeed {
+
+    /** Snapshots received but not yet read, per listener. */
+    static final int MAX_PENDING_SNAPSHOTS = 64;
+
+    private static final List<Partition> SINGLE = List.of(new Partition("all", null));
+
+    private final Firestore db;
+
+    public FirestoreChangeFeed(Firestore db) {
+        this.db = Objects.requireNonNull(db, "db");
+    }
+
+    @Override
+    protected List<Partition> partitions(String collection, Checkpoint current) {
+        return SINGLE;
+    }
+
+    @Override
+    protected PartitionReader open(String collection, Partition partition, String position, Checkpoint.Start start) {
+        return new ListenerReader(collection, position == null ? null : Timestamp.parseTimestamp(position), start);
+    }
+
+    /** One listener snapshot, reduced to the changes to deliver. */
+    private record Snapshot(List<Change> changes, Timestamp readTime) {}
+
+    private final class ListenerReader implements PartitionReader {
+        private final BlockingQueue<Snapshot> snapshots = new ArrayBlockingQueue<>(MAX_PENDING_SNAPSHOTS);
+        private final ListenerRegistration registration;
+        private volatile Throwable error;
+        private volatile boolean closed;
+        private boolean initial = true; // only touched by the listener's thread
+        private Timestamp position;
+        private Snapshot current;
+        private int handed; // changes of 'current' already returned
+
+        ListenerReader(String collection, Timestamp after, Checkpoint.Start start) {
+            this.position = after;
+            this.registration = db.collection(collection).addSnapshotListener((snap, e) -> {
+                if (e != null) {
+                    error = e;
+                    return;
+                }
+                UsageMeter.reads(Math.max(1, snap.getDocumentChanges().size()));
+                List<Change> changes = new ArrayList<>();
+                for (DocumentChange dc : snap.getDocumentChanges()) {
+                    QueryDocumentSnapshot doc = dc.getDocument();
+                    if (dc.getType() == DocumentChange.Type.REMOVED) {
+                        changes.add(new Change(Change.Type.DELETE, doc.getId(), null, instant(snap.getReadTime())));
+                        continue;
+                    }
+                    if (initial && (after != null ? doc.getUpdateTime().compareTo(after) <= 0 : start == Checkpoint.Start.NOW)) {
+                        continue; // part of the state the consumer has already seen
+                    }
+                    changes.add(new Change(Change.Type.UPSERT, doc.getId(), doc.getData(), instant(doc.getUpdateTime())));
+                }
+                initial = false;
+                enqueue(new Snapshot(changes, snap.getReadTime()));
+            });
+        }
+
+        /** Waits for room in the queue, which holds back further snapshots until the consumer catches up. */
+        private void enqueue(Snapshot snapshot) {
+            try {
+                while (!closed) {
+                    if (snapshots.offer(snapshot, 100, TimeUnit.MILLISECONDS)) return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = e;
+            }
+        }
+
+        @Override
+        public Batch read(int maxChanges) {
+            if (error != null) throw new StoreException("Firestore listener failed", error);
+            List<Change> out = new ArrayList<>();
+            while (out.size() < maxChanges) {
+                if (current == null) {
+                    current = snapshots.poll();
+                    handed = 0;
+                    if (current == null) break;
+                }
+                int n = Math.min(maxChanges - out.size(), current.changes().size() - handed);
+                out.addAll(current.changes().subList(handed, handed + n));
+                handed += n;
+                if (handed < current.changes().size()) break;
+                position = current.readTime(); // position moves only at snapshot boundaries
+                current = null;
+            }
+            return new Batch(out, position == null ? null : position.toString(), false);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            registration.remove();
+            snapshots.clear();
+        }
+    }
+
+    private static Instant instant(Timestamp t) {
+        return Instant.ofEpochSecond(t.getSeconds(), t.getNanos());
+    }
+}
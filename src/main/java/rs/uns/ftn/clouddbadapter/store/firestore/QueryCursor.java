@@ -0,0 +1,113 @@
+package rs.uns.ftn.clouddbadapter.store.firestore;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Blob;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.GeoPoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Query cursor holding the order-by values of the last document of a page (its id last),
+ * in the form startAfter(values...) takes. Unlike a document id, it stays valid when that
+ * document is deleted or changed in the meantime.
+ */
+final class QueryCursor {
+
+    private QueryCursor() {}
+
+    /** Values as returned by DocumentSnapshot.get(); maps and arrays are not supported. */
+    static String encode(List<Object> values) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(values.size());
+            for (Object v : values) {
+                if (v == null) {
+                    out.writeByte('z');
+                } else if (v instanceof Boolean b) {
+                    out.writeByte('b');
+                    out.writeBoolean(b);
+                } else if (v instanceof Long || v instanceof Integer) {
+                    out.writeByte('l');
+                    out.writeLong(((Number) v).longValue());
+                } else if (v instanceof Double d) {
+                    out.writeByte('d');
+                    out.writeDouble(d);
+                } else if (v instanceof String s) {
+                    out.writeByte('s');
+                    writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+                } else if (v instanceof Timestamp t) {
+                    out.writeByte('t');
+                    out.writeLong(t.getSeconds());
+                    out.writeInt(t.getNanos());
+                } else if (v instanceof Blob b) {
+                    out.writeByte('y');
+                    writeBytes(out, b.toBytes());
+                } else if (v instanceof GeoPoint g) {
+                    out.writeByte('g');
+                    out.writeDouble(g.getLatitude());
+                    out.writeDouble(g.getLongitude());
+                } else if (v instanceof DocumentReference r) {
+                    out.writeByte('r');
+                    writeBytes(out, r.getPath().getBytes(StandardCharsets.UTF_8));
+                } else {
+                    throw new IllegalArgumentException("Cannot page a query ordered by a " + v.getClass().getSimpleName() + " value");
+                }
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen for in-memory streams
+        }
+    }
+
+    /** Reverses {@link #encode(List)}; 'db' resolves document references. */
+    static Object[] decode(String cursor, Firestore db) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            int n = in.readUnsignedByte();
+            List<Object> values = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                int type = in.readUnsignedByte();
+                values.add(switch (type) {
+                    case 'z' -> null;
+                    case 'b' -> in.readBoolean();
+                    case 'l' -> in.readLong();
+                    case 'd' -> in.readDouble();
+                    case 's' -> new String(readBytes(in), StandardCharsets.UTF_8);
+                    case 't' -> Timestamp.ofTimeSecondsAndNanos(in.readLong(), in.readInt());
+                    case 'y' -> Blob.fromBytes(readBytes(in));
+                    case 'g' -> new GeoPoint(in.readDouble(), in.readDouble());
+                    case 'r' -> db.document(new String(readBytes(in), StandardCharsets.UTF_8));
+                    default -> throw new IllegalArgumentException("Malformed cursor");
+                });
+            }
+            if (in.available() > 0) throw new IllegalArgumentException("Malformed cursor");
+            return values.toArray();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) throw new IOException("Truncated cursor");
+        byte[] b = new byte[length];
+        in.readFully(b);
+        return b;
+    }
+}
@@ -0,0 +1,452 @@
+package rs.uns.ftn.clouddbadapter.store.hedge;
+
+import rs.uns.ftn.clouddbadapter.entity.EntityMapper;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.EntityCodecStore;
+import rs.uns.ftn.clouddbadapter.store.ForwardingDocumentStore;
+import rs.uns.ftn.clouddbadapter.store.Versioned;
+import rs.uns.ftn.clouddbadapter.store.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cuts tail latency of single-document reads by hedging: when a read has not answered within
+ * the hedge delay, a second identical read goes to the secondary store (by default the same
+ * store), the first answer wins and the other attempt is cancelled (its thread is interrupted,
+ * which the SDKs treat as an abort).
+ *
+ * The primary read runs on the primary executor (by default a cached pool of daemon threads)
+ * while the caller waits for the first answer, so a winning hedge returns at once even when
+ * the client ignores interrupts (Apache HTTP socket reads do); the abandoned primary is
+ * interrupted and its thread stays busy until the client gives up, so keep its socket
+ * timeout bounded. Hedges use the hedge executor, a pool of at most 'maxConcurrentHedges'
+ * threads. When the primary executor rejects a read (e.g. after close()) it runs on the
+ * caller's thread and the caller waits for it.
+ *
+ * The delay is either fixed or adaptive: by default the 95th percentile of recent primary
+ * latencies of the collection, clamped to [minDelay, maxDelay], so only the slowest ~5% of
+ * reads are hedged. A token budget caps the extra load: every read earns 'budget' of a token,
+ * every hedge spends one, so at most that fraction of reads is duplicated even when the whole
+ * provider slows down (exactly when extra load hurts most).
+ *
+ * Hedged: getById (both forms), getVersioned and getEntity. Writes, lists, queries and batch
+ * calls go straight to the primary. close() the store to stop its hedge timer (and the
+ * executor when the store created it). A secondary in another region (e.g. a DynamoDB global table replica) may
+ * lag behind the primary; hedge to it only where eventually consistent reads are acceptable.
+ *
+ * Example:
+ *   DocumentStore primary = DocumentStoreFactory.fromEnv();
+ *   DocumentStore replica = new DynamoDbAdapter(ClientRegistry.shared().dynamo("eu-west-1", key, secret));
+ *   HedgingDocumentStore store = HedgingDocumentStore.builder(primary)
+ *       .secondary(replica)
+ *       .build();
+ */
+public final class HedgingDocumentStore extends ForwardingDocumentStore implements EntityCodecStore, AutoCloseable {
+
+    /** Primary samples between two delay recalculations. */
+    private static final int RECALC_EVERY = 256;
+    /** Samples after which a collection's histogram starts over, so the delay follows drift. */
+    private static final int WINDOW = 16_384;
+
+    private final DocumentStore secondary;
+    private final ExecutorService primaryExecutor;
+    private final boolean ownsPrimaryExecutor;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    /** Fires the hedges; its tasks only hand them to the executor. */
+    private final ScheduledThreadPoolExecutor timer;
+    private final Duration fixedDelay;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final long budgetMillis;
+    private final long maxTokensMillis;
+
+    private final Map<String, DelayEstimator> estimators = new ConcurrentHashMap<>();
+    /** Hedge tokens in thousandths. */
+    private final AtomicLong tokens;
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+
+    private HedgingDocumentStore(Builder b) {
+        super(b.delegate);
+        this.secondary = b.secondary != null ? b.secondary : b.delegate;
+        this.ownsPrimaryExecutor = b.primaryExecutor == null;
+        this.primaryExecutor = ownsPrimaryExecutor
+                ? new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), daemon("primary-read-"))
+                : b.primaryExecutor;
+        this.ownsExecutor = b.executor == null;
+        this.executor = ownsExecutor
+                ? new ThreadPoolExecutor(0, b.maxConcurrentHedges, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), daemon("hedged-read-"))
+                : b.executor;
+        this.timer = new ScheduledThreadPoolExecutor(1, daemon("hedge-timer-"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.fixedDelay = b.fixedDelay;
+        this.percentile = b.percentile;
+        this.minDelayNanos = b.minDelay.toNanos();
+        this.maxDelayNanos = b.maxDelay.toNanos();
+        this.budgetMillis = Math.round(b.budget * 1_000);
+        this.maxTokensMillis = b.maxTokens * 1_000L;
+        this.tokens = new AtomicLong(maxTokensMillis);
+    }
+
+    public static Builder builder(DocumentStore delegate) {
+        return new Builder(delegate);
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // ==== hedged reads ====
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id) {
+        return hedged(collection, s -> s.getById(collection, id));
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id, Set<String> fields) {
+        return hedged(collection, s -> s.getById(collection, id, fields));
+    }
+
+    @Override
+    public Optional<Versioned> getVersioned(String collection, String id) {
+        return hedged(collection, s -> s.getVersioned(collection, id));
+    }
+
+    @Override
+    public <T> Optional<T> getEntity(String collection, String id, Class<T> type) {
+        return hedged(collection, s -> s instanceof EntityCodecStore c
+                ? c.getEntity(collection, id, type)
+                : s.getById(collection, id).map(m -> EntityMapper.fromMap(type, m)));
+    }
+
+    @Override
+    public void putEntity(String collection, String id, Object entity) {
+        if (delegate instanceof EntityCodecStore c) c.putEntity(collection, id, entity);
+        else delegate.updateById(collection, id, EntityMapper.toMap(entity));
+    }
+
+    private <T> T hedged(String collection, Function<DocumentStore, T> read) {
+        if (collection == null) return read.apply(delegate); // let the adapter report the validation error
+        reads.increment();
+        earn();
+        DelayEstimator estimator = estimator(collection);
+        Race<T> race = new Race<>();
+        long start = System.nanoTime();
+        Future<?> fire = schedule(() -> hedge(race, read), delay(estimator));
+        Runnable primary = () -> {
+            T value = null;
+            Throwable error = null;
+            try {
+                value = read.apply(delegate);
+            } catch (Throwable t) {
+                error = t;
+            }
+            boolean lost = race.result.isDone();
+            if (fire != null) fire.cancel(false);
+            if (error == null || lost) estimator.record(System.nanoTime() - start); // a lower bound when aborted
+            race.finish(value, error, false);
+        };
+        try {
+            race.primary = primaryExecutor.submit(primary);
+        } catch (RejectedExecutionException closed) {
+            primary.run();
+        }
+        try {
+            T value = race.result.get();
+            if (race.hedgeWon) hedgeWins.increment();
+            return value;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new BaseAdapter.StoreException("Read failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BaseAdapter.StoreException("Interrupted while reading from '" + collection + "'", e);
+        } finally {
+            race.cancel();
+        }
+    }
+
+    /** Schedules the hedge of one read; null once the store is closed, which leaves the read unhedged. */
+    private Future<?> schedule(Runnable hedge, long delayNanos) {
+        try {
+            return timer.schedule(hedge, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException closed) {
+            return null;
+        }
+    }
+
+    /** Runs on the timer: sends the hedge unless the read is done, the budget spent or every hedge thread busy. */
+    private <T> void hedge(Race<T> race, Function<DocumentStore, T> read) {
+        if (race.result.isDone() || !race.join()) return;
+        if (!spend()) {
+            race.leave();
+            overBudget.increment();
+            return;
+        }
+        try {
+            race.hedge = executor.submit(() -> {
+                if (race.result.isDone()) {
+                    race.leave();
+                    return;
+                }
+                T value = null;
+                Throwable error = null;
+                try {
+                    value = read.apply(secondary);
+                } catch (Throwable t) {
+                    error = t;
+                }
+                race.finish(value, error, true);
+            });
+            hedges.increment();
+        } catch (RejectedExecutionException full) {
+            refund();
+            race.leave();
+            overBudget.increment();
+        }
+    }
+
+    /**
+     * First successful attempt completes the result; a failure does only when no other attempt
+     * is still running, so a failing primary falls back to its hedge.
+     */
+    private static final class Race<T> {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        volatile Future<?> primary;
+        volatile Future<?> hedge;
+        /** Set before the result completes, so the caller sees who answered. */
+        volatile boolean hedgeWon;
+        private final AtomicBoolean won = new AtomicBoolean();
+        private final AtomicInteger running = new AtomicInteger(1); // the primary
+        private volatile Throwable failure;
+
+        /** Records an attempt's outcome. */
+        void finish(T value, Throwable error, boolean isHedge) {
+            if (error == null && won.compareAndSet(false, true)) {
+                hedgeWon = isHedge;
+                result.complete(value);
+            }
+            if (error != null && failure == null) failure = error;
+            leave();
+        }
+
+        /** Registers a hedge; false when every attempt has already finished. */
+        boolean join() {
+            for (int n; (n = running.get()) > 0; ) {
+                if (running.compareAndSet(n, n + 1)) return true;
+            }
+            return false;
+        }
+
+        /** Ends an attempt, or undoes join() when the hedge is not sent after all. */
+        void leave() {
+            if (running.decrementAndGet() == 0 && failure != null) result.completeExceptionally(failure);
+        }
+
+        /** Interrupts whichever attempt is still running once the caller has its answer. */
+        void cancel() {
+            Future<?> p = primary;
+            if (p != null) p.cancel(true);
+            Future<?> h = hedge;
+            if (h != null) h.cancel(true);
+        }
+    }
+
+    // ==== delay and budget ====
+
+    private long delay(DelayEstimator estimator) {
+        return fixedDelay != null ? fixedDelay.toNanos() : estimator.delayNanos;
+    }
+
+    private DelayEstimator estimator(String collection) {
+        DelayEstimator e = estimators.get(collection);
+        return e != null ? e : estimators.computeIfAbsent(collection, c -> new DelayEstimator());
+    }
+
+    /** Current hedge delay of a collection. */
+    public Duration delay(String collection) {
+        return Duration.ofNanos(delay(estimator(Objects.requireNonNull(collection, "collection"))));
+    }
+
+    private void earn() {
+        long t = tokens.get();
+        if (t < maxTokensMillis) tokens.compareAndSet(t, Math.min(maxTokensMillis, t + budgetMillis)); // lost races are fine
+    }
+
+    private void refund() {
+        tokens.accumulateAndGet(1_000, (t, d) -> Math.min(maxTokensMillis, t + d));
+    }
+
+    private boolean spend() {
+        for (long t; (t = tokens.get()) >= 1_000; ) {
+            if (tokens.compareAndSet(t, t - 1_000)) return true;
+        }
+        return false;
+    }
+
+    private final class DelayEstimator {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong samples = new AtomicLong();
+        /** Until the first estimate, hedge only very slow reads. */
+        volatile long delayNanos = maxDelayNanos;
+
+        void record(long nanos) {
+            histogram.record(nanos);
+            long n = samples.incrementAndGet();
+            if (n % RECALC_EVERY != 0) return;
+            long p = (long) (histogram.percentileMillis(percentile) * 1_000_000);
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, p));
+            if (histogram.count() >= WINDOW) histogram.reset();
+        }
+    }
+
+    // ==== stats ====
+
+    /** Hedgeable reads so far. */
+    public long reads() {
+        return reads.sum();
+    }
+
+    /** Reads that sent a second attempt. */
+    public long hedges() {
+        return hedges.sum();
+    }
+
+    /** Hedges that answered first. */
+    public long hedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /** Slow reads that were not hedged because the budget was spent or every hedge thread was busy. */
+    public long overBudget() {
+        return overBudget.sum();
+    }
+
+    /**
+     * Stops hedging, and the executors the store created; reads then go to the primary only,
+     * on the caller's thread.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        if (ownsExecutor) executor.shutdownNow();
+        if (ownsPrimaryExecutor) primaryExecutor.shutdownNow();
+    }
+
+    public static final class Builder {
+        private final DocumentStore delegate;
+        private DocumentStore secondary;
+        private ExecutorService primaryExecutor;
+        private ExecutorService executor;
+        private Duration fixedDelay;
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(2);
+        private Duration maxDelay = Duration.ofMillis(500);
+        private double budget = 0.05;
+        private int maxTokens = 10;
+        private int maxConcurrentHedges = 16;
+
+        private Builder(DocumentStore delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+        }
+
+        /** Store hedges go to, e.g. another region's replica; default the primary itself. */
+        public Builder secondary(DocumentStore secondary) {
+            this.secondary = Objects.requireNonNull(secondary, "secondary");
+            return this;
+        }
+
+        /**
+         * Runs the primary reads while their callers wait; default an internal cached pool of
+         * daemon threads. It should not be bounded below the number of concurrent readers, or
+         * the rejected reads run on their callers' threads without hedging cutting them short.
+         */
+        public Builder primaryExecutor(ExecutorService primaryExecutor) {
+            this.primaryExecutor = Objects.requireNonNull(primaryExecutor, "primaryExecutor");
+            return this;
+        }
+
+        /** Runs the hedges; default an internal pool of up to 'maxConcurrentHedges' daemon threads. */
+        public Builder executor(ExecutorService executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        /** Hedges in flight at once with the internal executor; slow reads beyond it are not hedged. Default 16. */
+        public Builder maxConcurrentHedges(int maxConcurrentHedges) {
+            if (maxConcurrentHedges < 1) throw new IllegalArgumentException("maxConcurrentHedges must be >= 1");
+            this.maxConcurrentHedges = maxConcurrentHedges;
+            return this;
+        }
+
+        /** Hedges after a fixed delay instead of the adaptive one. */
+        public Builder delay(Duration delay) {
+            if (delay.isNegative()) throw new IllegalArgumentException("delay must be >= 0");
+            this.fixedDelay = delay;
+            return this;
+        }
+
+        /**
+         * Hedges after the given percentile of recent primary latencies, clamped to [min, max];
+         * default p95 within 2ms..500ms.
+         */
+        public Builder adaptiveDelay(double percentile, Duration min, Duration max) {
+            if (!(percentile > 0 && percentile < 1)) throw new IllegalArgumentException("percentile must be in (0, 1)");
+            if (min.isNegative() || max.compareTo(min) < 0) throw new IllegalArgumentException("Require 0 <= min <= max");
+            this.fixedDelay = null;
+            this.percentile = percentile;
+            this.minDelay = min;
+            this.maxDelay = max;
+            return this;
+        }
+
+        /**
+         * Extra reads allowed, as a fraction of all reads, and the burst of hedges that may be
+         * saved up; default 0.05 and 10.
+         */
+        public Builder budget(double fraction, int maxTokens) {
+            if (!(fraction >= 0 && fraction <= 1)) throw new IllegalArgumentException("fraction must be in [0, 1]");
+            if (maxTokens < 1) throw new IllegalArgumentException("maxTokens must be >= 1");
+            this.budget = fraction;
+            this.maxTokens = maxTokens;
+            return this;
+        }
+
+        public HedgingDocumentStore build() {
+            return new HedgingDocumentStore(this);
+        }
+    }
+}
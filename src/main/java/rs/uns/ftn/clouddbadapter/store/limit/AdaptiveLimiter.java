@@ -0,0 +1,233 @@
+package rs.uns.ftn.clouddbadapter.store.limit;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.Overloaded;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit for one collection.
+ *
+ * Every call holds a permit while it runs. The limit grows by about one per round of successful
+ * calls (+1/limit per success) and halves on a throttle; throttles reported while the
+ * collection is already paused belong to the same burst and do not halve it again. A throttle
+ * also pauses new calls for the provider's retry-after hint, or for an exponential backoff with
+ * jitter when there is none.
+ *
+ * Callers are online (default) or bulk. Waiting online callers always go first, and bulk calls
+ * may use at most 'bulkShare' of the limit, so a batch job runs at whatever rate the provider
+ * sustains without starving interactive traffic. Each class has a bounded wait queue; a caller
+ * that finds it full, or waits longer than its timeout, gets BaseAdapter.Overloaded (load
+ * shedding) instead of piling more work onto a throttled table.
+ */
+public final class AdaptiveLimiter {
+
+    private final String collection;
+    private final RateLimitedDocumentStore.Builder cfg;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition turn = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int bulkInFlight;
+    private int onlineWaiting;
+    private int bulkWaiting;
+    /** System.nanoTime() until which no new call starts. */
+    private long pausedUntil;
+    private int consecutiveThrottles;
+    private long throttles;
+    private long shed;
+
+    AdaptiveLimiter(String collection, RateLimitedDocumentStore.Builder cfg) {
+        this.collection = collection;
+        this.cfg = cfg;
+        this.limit = cfg.initialLimit;
+        this.pausedUntil = System.nanoTime();
+    }
+
+    /** Blocks until the call may start; throws Overloaded when shed. */
+    void acquire(boolean bulk) {
+        long timeout = (bulk ? cfg.bulkQueueTimeout : cfg.queueTimeout).toNanos();
+        lock.lock();
+        try {
+            if (!canStart(bulk, System.nanoTime())) {
+                await(bulk, timeout, true);
+            }
+            inFlight++;
+            if (bulk) bulkInFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits like acquire() but takes no permit. Used to pace work the store runs on its own
+     * threads (parallel scan segments), between pages.
+     */
+    void awaitAdmission(boolean bulk) {
+        long timeout = (bulk ? cfg.bulkQueueTimeout : cfg.queueTimeout).toNanos();
+        lock.lock();
+        try {
+            if (!canStart(bulk, System.nanoTime())) await(bulk, timeout, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void await(boolean bulk, long timeoutNanos, boolean queued) {
+        if (queued && (bulk ? bulkWaiting : onlineWaiting) >= cfg.maxQueued) {
+            shed++;
+            throw new Overloaded("Too many calls queued on '" + collection + "'");
+        }
+        if (bulk) bulkWaiting++;
+        else onlineWaiting++;
+        try {
+            long deadline = System.nanoTime() + timeoutNanos;
+            long now;
+            while (!canStart(bulk, now = System.nanoTime())) {
+                long left = deadline - now;
+                if (left <= 0) {
+                    shed++;
+                    throw new Overloaded("Timed out waiting for capacity on '" + collection + "'");
+                }
+                long paused = pausedUntil - now;
+                turn.awaitNanos(paused > 0 ? Math.min(left, paused) : left);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreException("Interrupted while waiting for capacity on '" + collection + "'", e);
+        } finally {
+            if (bulk) bulkWaiting--;
+            else onlineWaiting--;
+            turn.signalAll(); // the head of the other class may be able to go now
+        }
+    }
+
+    private boolean canStart(boolean bulk, long now) {
+        if (now - pausedUntil < 0) return false;
+        int max = Math.max(1, (int) limit);
+        if (inFlight >= max) return false;
+        if (!bulk) return true;
+        return onlineWaiting == 0 && bulkInFlight < Math.max(1, (int) (limit * cfg.bulkShare));
+    }
+
+    void onSuccess(boolean bulk) {
+        lock.lock();
+        try {
+            release(bulk);
+            consecutiveThrottles = 0;
+            limit = Math.min(cfg.maxLimit, limit + 1.0 / limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Failure unrelated to load: frees the permit, leaves the limit alone. */
+    void onError(boolean bulk) {
+        lock.lock();
+        try {
+            release(bulk);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Frees the permit, cuts the limit and pauses the collection. */
+    void onThrottle(boolean bulk, Duration retryAfter) {
+        lock.lock();
+        try {
+            release(bulk);
+            throttles++;
+            long now = System.nanoTime();
+            if (now - pausedUntil >= 0) {
+                // first throttle of a burst: back off multiplicatively
+                limit = Math.max(cfg.minLimit, limit * cfg.decrease);
+                consecutiveThrottles++;
+            }
+            long pause = retryAfter != null ? retryAfter.toNanos() : backoff();
+            if (now + pause - pausedUntil > 0) pausedUntil = now + pause;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long backoff() {
+        long cap = Math.min(cfg.maxBackoff.toNanos(), cfg.baseBackoff.toNanos() << Math.min(consecutiveThrottles, 20));
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    private void release(boolean bulk) {
+        inFlight--;
+        if (bulk) bulkInFlight--;
+        turn.signalAll();
+    }
+
+    // ==== observability ====
+
+    public String collection() {
+        return collection;
+    }
+
+    /** Current concurrency limit. */
+    public double limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return onlineWaiting + bulkWaiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Throttles reported by the provider. */
+    public long throttles() {
+        lock.lock();
+        try {
+            return throttles;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Calls rejected with Overloaded. */
+    public long shed() {
+        lock.lock();
+        try {
+            return shed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return String.format("AdaptiveLimiter{%s limit=%.1f inFlight=%d queued=%d throttles=%d shed=%d}",
+                    collection, limit, inFlight, onlineWaiting + bulkWaiting, throttles, shed);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
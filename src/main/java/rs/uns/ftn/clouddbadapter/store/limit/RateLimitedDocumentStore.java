@@ -0,0 +1,377 @@
+package rs.uns.ftn.clouddbadapter.store.limit;
+
+import rs.uns.ftn.clouddbadapter.entity.EntityMapper;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.EntityCodecStore;
+import rs.uns.ftn.clouddbadapter.store.ForwardingDocumentStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
+import rs.uns.ftn.clouddbadapter.store.PatchOp;
+import rs.uns.ftn.clouddbadapter.store.SegmentHandler;
+import rs.uns.ftn.clouddbadapter.store.Throttling;
+import rs.uns.ftn.clouddbadapter.store.Versioned;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Adapts the request rate to what the provider accepts, per collection.
+ *
+ * Every call runs under the collection's {@link AdaptiveLimiter}: concurrency grows while calls
+ * succeed and is cut when the provider throttles (DynamoDB throughput exceeded, Cosmos 429,
+ * Firestore RESOURCE_EXHAUSTED). A throttled call was not applied, so it is retried after the
+ * provider's retry-after hint or a jittered backoff, up to maxRetries (patches with increments
+ * or appends excepted, see {@link #patch}); other errors pass through untouched. When the
+ * wait queue is full or the wait times out, calls fail fast with {@link BaseAdapter.Overloaded}.
+ *
+ * {@link #bulk()} returns a view for batch jobs (imports, backfills, exports) that shares the
+ * limiters but yields to online calls and uses at most bulkShare of each limit.
+ *
+ * The SDKs retry throttles internally before the limiter sees them; lowering their retry count
+ * (for example DynamoDB's RetryPolicy or Cosmos ThrottlingRetryOptions) makes it react faster.
+ *
+ * Example:
+ *   RateLimitedDocumentStore store = RateLimitedDocumentStore.builder(DocumentStoreFactory.fromEnv())
+ *       .maxLimit(64)
+ *       .build();
+ *   EntityManager em = new SimpleEntityManager(store);
+ *   importer.run(store.bulk());
+ */
+public final class RateLimitedDocumentStore extends ForwardingDocumentStore implements EntityCodecStore {
+
+    private final Builder cfg;
+    private final Map<String, AdaptiveLimiter> limiters;
+    private final boolean bulk;
+    /** The delegate's native entity codec, or null (then the Map path is used). */
+    private final EntityCodecStore codecStore;
+
+    private RateLimitedDocumentStore(DocumentStore delegate, Builder cfg, Map<String, AdaptiveLimiter> limiters, boolean bulk) {
+        super(delegate);
+        this.cfg = cfg;
+        this.limiters = limiters;
+        this.bulk = bulk;
+        this.codecStore = delegate instanceof EntityCodecStore s ? s : null;
+    }
+
+    public static Builder builder(DocumentStore delegate) {
+        return new Builder(delegate);
+    }
+
+    /** The same store for background work: lower priority, capped share of each limit. */
+    public RateLimitedDocumentStore bulk() {
+        return bulk ? this : new RateLimitedDocumentStore(delegate, cfg, limiters, true);
+    }
+
+    public boolean isBulk() {
+        return bulk;
+    }
+
+    /** The limiter of a collection (created on first use). */
+    public AdaptiveLimiter limiter(String collection) {
+        Objects.requireNonNull(collection, "collection");
+        AdaptiveLimiter l = limiters.get(collection);
+        return l != null ? l : limiters.computeIfAbsent(collection, c -> new AdaptiveLimiter(c, cfg));
+    }
+
+    /** Limiters created so far, by collection. */
+    public Collection<AdaptiveLimiter> limiters() {
+        return List.copyOf(limiters.values());
+    }
+
+    private <T> T call(String collection, Supplier<T> op) {
+        return call(collection, true, op);
+    }
+
+    /** 'retryable': the call may be repeated after a throttle even if it sends several requests. */
+    private <T> T call(String collection, boolean retryable, Supplier<T> op) {
+        if (collection == null) return op.get(); // let the adapter report the validation error
+        AdaptiveLimiter limiter = limiter(collection);
+        for (int attempt = 0; ; attempt++) {
+            limiter.acquire(bulk);
+            boolean released = false;
+            try {
+                T r = op.get();
+                limiter.onSuccess(bulk);
+                released = true;
+                return r;
+            } catch (RuntimeException e) {
+                if (!Throttling.isThrottle(e)) throw e;
+                limiter.onThrottle(bulk, Throttling.retryAfter(e));
+                released = true;
+                if (!retryable || attempt >= cfg.maxRetries) throw e;
+            } finally {
+                if (!released) limiter.onError(bulk); // any other failure, Errors included
+            }
+        }
+    }
+
+    private void run(String collection, Runnable op) {
+        call(collection, () -> {
+            op.run();
+            return null;
+        });
+    }
+
+    // ==== single documents ====
+
+    @Override
+    public void create(String collection, String id, Map<String, Object> data) {
+        run(collection, () -> delegate.create(collection, id, data));
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id) {
+        return call(collection, () -> delegate.getById(collection, id));
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id, Set<String> fields) {
+        return call(collection, () -> delegate.getById(collection, id, fields));
+    }
+
+    @Override
+    public void updateById(String collection, String id, Map<String, Object> data) {
+        run(collection, () -> delegate.updateById(collection, id, data));
+    }
+
+    @Override
+    public void deleteById(String collection, String id) {
+        run(collection, () -> delegate.deleteById(collection, id));
+    }
+
+    /**
+     * Increments and appends are not retried: the delegate may be a decorator that spreads one
+     * patch over several requests, and repeating one that was partly applied would apply them
+     * twice. The throttle still feeds the limiter before it is rethrown.
+     */
+    @Override
+    public void patch(String collection, String id, Map<String, Object> changes) {
+        call(collection, idempotent(changes), () -> {
+            delegate.patch(collection, id, changes);
+            return null;
+        });
+    }
+
+    private static boolean idempotent(Map<String, Object> changes) {
+        if (changes == null) return true;
+        for (Object v : changes.values()) {
+            if (v instanceof PatchOp op && (op.kind() == PatchOp.Kind.INCREMENT || op.kind() == PatchOp.Kind.APPEND)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<Versioned> getVersioned(String collection, String id) {
+        return call(collection, () -> delegate.getVersioned(collection, id));
+    }
+
+    @Override
+    public String compareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        return call(collection, () -> delegate.compareAndSet(collection, id, data, expectedVersion));
+    }
+
+    @Override
+    public void putEntity(String collection, String id, Object entity) {
+        if (codecStore == null) {
+            updateById(collection, id, EntityMapper.toMap(entity));
+            return;
+        }
+        run(collection, () -> codecStore.putEntity(collection, id, entity));
+    }
+
+    @Override
+    public <T> Optional<T> getEntity(String collection, String id, Class<T> type) {
+        if (codecStore == null) return getById(collection, id).map(m -> EntityMapper.fromMap(type, m));
+        return call(collection, () -> codecStore.getEntity(collection, id, type));
+    }
+
+    // ==== lists, pages, queries ====
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit) {
+        return call(collection, () -> delegate.list(collection, limit));
+    }
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit, Set<String> fields) {
+        return call(collection, () -> delegate.list(collection, limit, fields));
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor) {
+        return call(collection, () -> delegate.listPage(collection, pageSize, cursor));
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor, Set<String> fields) {
+        return call(collection, () -> delegate.listPage(collection, pageSize, cursor, fields));
+    }
+
+    /** Pages through this store, so every page fetch is admitted (and retried) on its own. */
+    @Override
+    public Stream<Map<String, Object>> stream(String collection, int pageSize, String cursor) {
+        return Page.stream(cursor, c -> listPage(collection, pageSize, c));
+    }
+
+    @Override
+    public Page<Map<String, Object>> query(String collection, DocumentQuery query) {
+        return call(collection, () -> delegate.query(collection, query));
+    }
+
+    /**
+     * Scans always run as bulk. The segment readers live inside the adapter, so they are paced
+     * between pages (each segment waits for bulk admission before handing over the next page)
+     * rather than per request, and a throttle inside a segment is not retried here.
+     */
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, SegmentHandler handler) {
+        delegate.parallelScan(collection, segments, pageSize, paced(collection, handler));
+    }
+
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, ExecutorService executor, SegmentHandler handler) {
+        delegate.parallelScan(collection, segments, pageSize, executor, paced(collection, handler));
+    }
+
+    private SegmentHandler paced(String collection, SegmentHandler handler) {
+        Objects.requireNonNull(handler, "handler");
+        if (collection == null) return handler;
+        AdaptiveLimiter limiter = limiter(collection);
+        return (segment, page) -> {
+            handler.accept(segment, page);
+            limiter.awaitAdmission(true);
+        };
+    }
+
+    // ==== batches ====
+
+    @Override
+    public Map<String, Map<String, Object>> getAll(String collection, Collection<String> ids) {
+        return call(collection, () -> delegate.getAll(collection, ids));
+    }
+
+    /** Retried as a whole on throttle; puts are idempotent. */
+    @Override
+    public void putAll(String collection, Map<String, Map<String, Object>> documents) {
+        run(collection, () -> delegate.putAll(collection, documents));
+    }
+
+    @Override
+    public void deleteAll(String collection, Collection<String> ids) {
+        run(collection, () -> delegate.deleteAll(collection, ids));
+    }
+
+    public static final class Builder {
+        private final DocumentStore delegate;
+        int initialLimit = 16;
+        int minLimit = 1;
+        int maxLimit = 256;
+        double decrease = 0.5;
+        double bulkShare = 0.75;
+        int maxQueued = 256;
+        Duration queueTimeout = Duration.ofSeconds(2);
+        Duration bulkQueueTimeout = Duration.ofMinutes(1);
+        Duration baseBackoff = Duration.ofMillis(50);
+        Duration maxBackoff = Duration.ofSeconds(5);
+        int maxRetries = 3;
+
+        private Builder(DocumentStore delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+        }
+
+        /** Concurrent calls per collection before any feedback; default 16. */
+        public Builder initialLimit(int initialLimit) {
+            if (initialLimit < 1) throw new IllegalArgumentException("initialLimit must be >= 1");
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /** Bounds of the adaptive limit; default 1..256. */
+        public Builder limits(int minLimit, int maxLimit) {
+            if (minLimit < 1 || maxLimit < minLimit) {
+                throw new IllegalArgumentException("Require 1 <= minLimit <= maxLimit");
+            }
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public Builder maxLimit(int maxLimit) {
+            return limits(Math.min(minLimit, maxLimit), maxLimit);
+        }
+
+        /** Factor the limit is multiplied by on a throttle; default 0.5. */
+        public Builder decrease(double decrease) {
+            if (!(decrease > 0 && decrease < 1)) throw new IllegalArgumentException("decrease must be in (0, 1)");
+            this.decrease = decrease;
+            return this;
+        }
+
+        /** Largest fraction of a limit bulk calls may hold; default 0.75. */
+        public Builder bulkShare(double bulkShare) {
+            if (!(bulkShare > 0 && bulkShare <= 1)) throw new IllegalArgumentException("bulkShare must be in (0, 1]");
+            this.bulkShare = bulkShare;
+            return this;
+        }
+
+        /** Waiting calls per collection and class (online / bulk) before new ones are shed; default 256. */
+        public Builder maxQueued(int maxQueued) {
+            if (maxQueued < 0) throw new IllegalArgumentException("maxQueued must be >= 0");
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        /** How long online / bulk calls wait for capacity; default 2s / 1min. */
+        public Builder queueTimeout(Duration online, Duration bulk) {
+            this.queueTimeout = Objects.requireNonNull(online, "online");
+            this.bulkQueueTimeout = Objects.requireNonNull(bulk, "bulk");
+            return this;
+        }
+
+        /** Pause after a throttle without a retry-after hint, doubling per burst; default 50ms..5s. */
+        public Builder backoff(Duration base, Duration max) {
+            if (base.isNegative() || base.isZero() || max.compareTo(base) < 0) {
+                throw new IllegalArgumentException("Require 0 < base <= max");
+            }
+            this.baseBackoff = base;
+            this.maxBackoff = max;
+            return this;
+        }
+
+        /** Retries of a throttled call; default 3, 0 disables. */
+        public Builder maxRetries(int maxRetries) {
+            if (maxRetries < 0) throw new IllegalArgumentException("maxRetries must be >= 0");
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public RateLimitedDocumentStore build() {
+            // the limiters read their settings from a snapshot, so the builder can be reused
+            Builder cfg = new Builder(delegate);
+            cfg.initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+            cfg.minLimit = minLimit;
+            cfg.maxLimit = maxLimit;
+            cfg.decrease = decrease;
+            cfg.bulkShare = bulkShare;
+            cfg.maxQueued = maxQueued;
+            cfg.queueTimeout = queueTimeout;
+            cfg.bulkQueueTimeout = bulkQueueTimeout;
+            cfg.baseBackoff = baseBackoff;
+            cfg.maxBackoff = maxBackoff;
+            cfg.maxRetries = maxRetries;
+            return new RateLimitedDocumentStore(delegate, cfg, new ConcurrentHashMap<>(), false);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+import rs.uns.ftn.clouddbadapter.entity.EntityMapper;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.EntityCodecStore;
+import rs.uns.ftn.clouddbadapter.store.ForwardingDocumentStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
+import rs.uns.ftn.clouddbadapter.store.SegmentHandler;
+import rs.uns.ftn.clouddbadapter.store.Versioned;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Records every DocumentStore call into a {@link MetricsSink}, per provider, collection and
+ * {@link Operation}: latency, outcome (ok / rejected / throttled / error), documents read or
+ * written, estimated write payload bytes and the billing units the adapter reported through
+ * {@link UsageMeter} (DynamoDB consumed capacity, Cosmos RU, Firestore document operations).
+ *
+ * The recording path does not allocate: recorders are resolved once per key, the usage meter
+ * is a thread-local primitive and payload sizes are computed with a reused visitor. Read
+ * payloads are not sized because adapters return lazily decoded documents.
+ *
+ * Example:
+ *   DocumentStore store = InstrumentedDocumentStore.builder(DocumentStoreFactory.fromEnv())
+ *       .sink(JmxMetricsSink.platform())
+ *       .build();
+ *   EntityManager em = new SimpleEntityManager(store);
+ */
+public final class InstrumentedDocumentStore extends ForwardingDocumentStore implements EntityCodecStore {
+
+    private final Meters meters;
+    /** The delegate's native entity codec, or null (then the Map path is used). */
+    private final EntityCodecStore codecStore;
+
+    private InstrumentedDocumentStore(Builder b) {
+        super(b.delegate);
+        this.meters = new Meters(b.provider != null ? b.provider : b.delegate.provider(), b.sink);
+        this.codecStore = b.delegate instanceof EntityCodecStore s ? s : null;
+    }
+
+    public static Builder builder(DocumentStore delegate) {
+        return new Builder(delegate);
+    }
+
+    /** Provider tag the metrics are recorded under. */
+    @Override
+    public String provider() {
+        return meters.provider();
+    }
+
+    // ==== single documents ====
+
+    @Override
+    public void create(String collection, String id, Map<String, Object> data) {
+        long bytes = PayloadSize.of(data);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.create(collection, id, data);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.CREATE, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.CREATE, start, mark, 1, bytes);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Optional<Map<String, Object>> r;
+        try {
+            r = delegate.getById(collection, id);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.GET, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.GET, start, mark, r.isPresent() ? 1 : 0, 0);
+        return r;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id, Set<String> fields) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Optional<Map<String, Object>> r;
+        try {
+            r = delegate.getById(collection, id, fields);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.GET, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.GET, start, mark, r.isPresent() ? 1 : 0, 0);
+        return r;
+    }
+
+    @Override
+    public void updateById(String collection, String id, Map<String, Object> data) {
+        long bytes = PayloadSize.of(data);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.updateById(collection, id, data);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.UPDATE, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.UPDATE, start, mark, 1, bytes);
+    }
+
+    @Override
+    public void deleteById(String collection, String id) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.deleteById(collection, id);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.DELETE, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.DELETE, start, mark, 1, 0);
+    }
+
+    @Override
+    public void patch(String collection, String id, Map<String, Object> changes) {
+        long bytes = PayloadSize.of(changes);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.patch(collection, id, changes);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.PATCH, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.PATCH, start, mark, 1, bytes);
+    }
+
+    @Override
+    public Optional<Versioned> getVersioned(String collection, String id) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Optional<Versioned> r;
+        try {
+            r = delegate.getVersioned(collection, id);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.GET_VERSIONED, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.GET_VERSIONED, start, mark, r.isPresent() ? 1 : 0, 0);
+        return r;
+    }
+
+    @Override
+    public String compareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        long bytes = PayloadSize.of(data);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        String r;
+        try {
+            r = delegate.compareAndSet(collection, id, data, expectedVersion);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.COMPARE_AND_SET, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.COMPARE_AND_SET, start, mark, 1, bytes);
+        return r;
+    }
+
+    // ==== entity fast path: recorded as UPDATE / GET ====
+
+    @Override
+    public void putEntity(String collection, String id, Object entity) {
+        if (codecStore == null) {
+            updateById(collection, id, EntityMapper.toMap(entity));
+            return;
+        }
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        try {
+            codecStore.putEntity(collection, id, entity);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.UPDATE, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.UPDATE, start, mark, 1, 0);
+    }
+
+    @Override
+    public <T> Optional<T> getEntity(String collection, String id, Class<T> type) {
+        if (codecStore == null) return getById(collection, id).map(m -> EntityMapper.fromMap(type, m));
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Optional<T> r;
+        try {
+            r = codecStore.getEntity(collection, id, type);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.GET, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.GET, start, mark, r.isPresent() ? 1 : 0, 0);
+        return r;
+    }
+
+    // ==== lists, pages, queries ====
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        List<Map<String, Object>> r;
+        try {
+            r = delegate.list(collection, limit);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.LIST, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.LIST, start, mark, r.size(), 0);
+        return r;
+    }
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit, Set<String> fields) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        List<Map<String, Object>> r;
+        try {
+            r = delegate.list(collection, limit, fields);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.LIST, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.LIST, start, mark, r.size(), 0);
+        return r;
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Page<Map<String, Object>> r;
+        try {
+            r = delegate.listPage(collection, pageSize, cursor);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.LIST_PAGE, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.LIST_PAGE, start, mark, r.items().size(), 0);
+        return r;
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor, Set<String> fields) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Page<Map<String, Object>> r;
+        try {
+            r = delegate.listPage(collection, pageSize, cursor, fields);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.LIST_PAGE, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.LIST_PAGE, start, mark, r.items().size(), 0);
+        return r;
+    }
+
+    /** Pages through this store, so every page fetch is recorded as LIST_PAGE. */
+    @Override
+    public Stream<Map<String, Object>> stream(String collection, int pageSize, String cursor) {
+        return Page.stream(cursor, c -> listPage(collection, pageSize, c));
+    }
+
+    @Override
+    public Page<Map<String, Object>> query(String collection, DocumentQuery query) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Page<Map<String, Object>> r;
+        try {
+            r = delegate.query(collection, query);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.QUERY, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.QUERY, start, mark, r.items().size(), 0);
+        return r;
+    }
+
+    /** Recorded once for the whole scan; billing units of the segment threads are not attributed. */
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, SegmentHandler handler) {
+        LongAdder documents = new LongAdder();
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.parallelScan(collection, segments, pageSize, counting(handler, documents));
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.SCAN, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.SCAN, start, mark, documents.sum(), 0);
+    }
+
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, ExecutorService executor, SegmentHandler handler) {
+        LongAdder documents = new LongAdder();
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.parallelScan(collection, segments, pageSize, executor, counting(handler, documents));
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.SCAN, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.SCAN, start, mark, documents.sum(), 0);
+    }
+
+    private static SegmentHandler counting(SegmentHandler handler, LongAdder documents) {
+        Objects.requireNonNull(handler, "handler");
+        return (segment, page) -> {
+            documents.add(page.size());
+            handler.accept(segment, page);
+        };
+    }
+
+    // ==== batches ====
+
+    @Override
+    public Map<String, Map<String, Object>> getAll(String collection, Collection<String> ids) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Map<String, Map<String, Object>> r;
+        try {
+            r = delegate.getAll(collection, ids);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.GET_ALL, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.GET_ALL, start, mark, r.size(), 0);
+        return r;
+    }
+
+    @Override
+    public void putAll(String collection, Map<String, Map<String, Object>> documents) {
+        long bytes = documents == null ? 0 : PayloadSize.ofAll(documents);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.putAll(collection, documents);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.PUT_ALL, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.PUT_ALL, start, mark, documents.size(), bytes);
+    }
+
+    @Override
+    public void deleteAll(String collection, Collection<String> ids) {
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAll(collection, ids);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.DELETE_ALL, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.DELETE_ALL, start, mark, ids.size(), 0);
+    }
+
+    public static final class Builder {
+        private final DocumentStore delegate;
+        private MetricsSink sink = JmxMetricsSink.platform();
+        private String provider;
+
+        private Builder(DocumentStore delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+        }
+
+        /** Where metrics go; default {@link JmxMetricsSink#platform()}. */
+        public Builder sink(MetricsSink sink) {
+            this.sink = Objects.requireNonNull(sink, "sink");
+            return this;
+        }
+
+        /** Provider tag; by default the delegate's {@link DocumentStore#provider()} ("aws", "gcp", "azure"). */
+        public Builder provider(String provider) {
+            this.provider = Objects.requireNonNull(provider, "provider");
+            return this;
+        }
+
+        public InstrumentedDocumentStore build() {
+            return new InstrumentedDocumentStore(this);
+        }
+    }
+}
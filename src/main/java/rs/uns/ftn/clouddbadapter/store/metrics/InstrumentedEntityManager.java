@@ -0,0 +1,200 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+import rs.uns.ftn.clouddbadapter.entity.EntityMapper;
+import rs.uns.ftn.clouddbadapter.orm.EntityManager;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.Page;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Records EntityManager calls the same way {@link InstrumentedDocumentStore} records store
+ * calls, keyed by the entity's collection, so mapping overhead shows up next to store latency.
+ * The billing units of the underlying store calls are included. Wrapping both the manager and
+ * its store is fine: each layer records its own operations.
+ */
+public final class InstrumentedEntityManager implements EntityManager {
+
+    private final EntityManager delegate;
+    private final Meters meters;
+
+    /** Records to {@link JmxMetricsSink#platform()}. */
+    public InstrumentedEntityManager(EntityManager delegate, String provider) {
+        this(delegate, provider, JmxMetricsSink.platform());
+    }
+
+    public InstrumentedEntityManager(EntityManager delegate, String provider, MetricsSink sink) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.meters = new Meters(Objects.requireNonNull(provider, "provider"), Objects.requireNonNull(sink, "sink"));
+    }
+
+    @Override
+    public <T> T save(T entity) {
+        String collection = EntityMapper.collection(Objects.requireNonNull(entity, "entity").getClass());
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        T r;
+        try {
+            r = delegate.save(entity);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.SAVE, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.SAVE, start, mark, 1, 0);
+        return r;
+    }
+
+    @Override
+    public <T> Optional<T> find(Class<T> type, String id) {
+        String collection = EntityMapper.collection(type);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Optional<T> r;
+        try {
+            r = delegate.find(type, id);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.FIND, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.FIND, start, mark, r.isPresent() ? 1 : 0, 0);
+        return r;
+    }
+
+    @Override
+    public <T> void delete(Class<T> type, String id) {
+        String collection = EntityMapper.collection(type);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.delete(type, id);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.DELETE, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.DELETE, start, mark, 1, 0);
+    }
+
+    @Override
+    public <T> List<T> list(Class<T> type, int limit) {
+        String collection = EntityMapper.collection(type);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        List<T> r;
+        try {
+            r = delegate.list(type, limit);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.LIST, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.LIST, start, mark, r.size(), 0);
+        return r;
+    }
+
+    /** Recorded under the collection of the first entity. */
+    @Override
+    public <T> List<T> saveAll(List<T> entities) {
+        if (entities == null || entities.isEmpty()) return delegate.saveAll(entities);
+        String collection = EntityMapper.collection(entities.get(0).getClass());
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        List<T> r;
+        try {
+            r = delegate.saveAll(entities);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.SAVE_ALL, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.SAVE_ALL, start, mark, entities.size(), 0);
+        return r;
+    }
+
+    @Override
+    public <T> List<T> findAll(Class<T> type, Collection<String> ids) {
+        String collection = EntityMapper.collection(type);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        List<T> r;
+        try {
+            r = delegate.findAll(type, ids);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.FIND_ALL, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.FIND_ALL, start, mark, r.size(), 0);
+        return r;
+    }
+
+    @Override
+    public <T> Page<T> listPage(Class<T> type, int pageSize, String cursor) {
+        String collection = EntityMapper.collection(type);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Page<T> r;
+        try {
+            r = delegate.listPage(type, pageSize, cursor);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.LIST_PAGE, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.LIST_PAGE, start, mark, r.items().size(), 0);
+        return r;
+    }
+
+    /** Pages through this manager, so every page fetch is recorded as LIST_PAGE. */
+    @Override
+    public <T> Stream<T> stream(Class<T> type, int pageSize) {
+        return Page.stream(null, c -> listPage(type, pageSize, c));
+    }
+
+    @Override
+    public <P> Optional<P> find(Class<?> entityType, String id, Class<P> projection) {
+        String collection = EntityMapper.collection(entityType);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Optional<P> r;
+        try {
+            r = delegate.find(entityType, id, projection);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.FIND, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.FIND, start, mark, r.isPresent() ? 1 : 0, 0);
+        return r;
+    }
+
+    @Override
+    public <P> List<P> list(Class<?> entityType, int limit, Class<P> projection) {
+        String collection = EntityMapper.collection(entityType);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        List<P> r;
+        try {
+            r = delegate.list(entityType, limit, projection);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.LIST, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.LIST, start, mark, r.size(), 0);
+        return r;
+    }
+
+    @Override
+    public <T> Page<T> query(Class<T> type, DocumentQuery query) {
+        String collection = EntityMapper.collection(type);
+        int mark = Meters.begin();
+        long start = System.nanoTime();
+        Page<T> r;
+        try {
+            r = delegate.query(type, query);
+        } catch (RuntimeException e) {
+            meters.failed(collection, Operation.QUERY, start, mark, e);
+            throw e;
+        }
+        meters.ok(collection, Operation.QUERY, start, mark, r.items().size(), 0);
+        return r;
+    }
+}
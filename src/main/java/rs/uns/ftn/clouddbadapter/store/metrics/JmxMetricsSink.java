@@ -0,0 +1,88 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default sink: aggregates into {@link OperationStats} and registers one MXBean per
+ * (provider, collection, operation) as
+ * {@code rs.uns.ftn.clouddbadapter:type=DocumentStore,provider=aws,collection=users,operation=GET}
+ * (visible in JConsole/VisualVM or any JMX exporter).
+ *
+ * If another sink already registered the same name, the stats are still collected and
+ * available through {@link #stats()}, just not exported.
+ */
+public final class JmxMetricsSink implements MetricsSink, AutoCloseable {
+
+    public static final String DOMAIN = "rs.uns.ftn.clouddbadapter";
+
+    private record Key(String provider, String collection, Operation operation) {}
+
+    private final MBeanServer server;
+    private final Map<Key, OperationStats> stats = new ConcurrentHashMap<>();
+    private final Map<Key, ObjectName> registered = new ConcurrentHashMap<>();
+
+    private static final class Holder {
+        static final JmxMetricsSink PLATFORM = new JmxMetricsSink();
+    }
+
+    /** Process-wide sink on the platform MBean server; the decorators' default. */
+    public static JmxMetricsSink platform() {
+        return Holder.PLATFORM;
+    }
+
+    public JmxMetricsSink() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxMetricsSink(MBeanServer server) {
+        this.server = server;
+    }
+
+    @Override
+    public Recorder recorder(String provider, String collection, Operation operation) {
+        return stats.computeIfAbsent(new Key(provider, collection, operation), this::register);
+    }
+
+    private OperationStats register(Key k) {
+        OperationStats s = new OperationStats(k.provider(), k.collection(), k.operation());
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=DocumentStore"
+                    + ",provider=" + ObjectName.quote(k.provider())
+                    + ",collection=" + ObjectName.quote(k.collection())
+                    + ",operation=" + k.operation());
+            server.registerMBean(s, name);
+            registered.put(k, name);
+        } catch (InstanceAlreadyExistsException e) {
+            // exported by another sink; keep collecting locally
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics MBean for " + k, e);
+        }
+        return s;
+    }
+
+    /** Everything recorded so far. */
+    public Collection<OperationStats> stats() {
+        return Collections.unmodifiableCollection(stats.values());
+    }
+
+    /** Unregisters the MBeans of this sink. */
+    @Override
+    public void close() {
+        for (ObjectName name : registered.values()) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException ignored) {
+                // already gone
+            }
+        }
+        registered.clear();
+    }
+}
@@ -0,0 +1,68 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter;
+import rs.uns.ftn.clouddbadapter.store.Throttling;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recorder lookup and call bracketing shared by the instrumented decorators.
+ * Recorders are cached per collection in an array indexed by Operation.ordinal(), so the
+ * per-call path is one map lookup, one array read and the recorder itself.
+ */
+final class Meters {
+
+    private static final int OPERATIONS = Operation.values().length;
+    /** Used when a call is made with a null collection (it fails validation anyway). */
+    private static final String NO_COLLECTION = "?";
+
+    private final String provider;
+    private final MetricsSink sink;
+    private final Map<String, MetricsSink.Recorder[]> recorders = new ConcurrentHashMap<>();
+
+    Meters(String provider, MetricsSink sink) {
+        this.provider = provider;
+        this.sink = sink;
+    }
+
+    String provider() {
+        return provider;
+    }
+
+    /** Starts a call; returns the usage mark to pass to ok()/failed(). */
+    static int begin() {
+        return UsageMeter.begin();
+    }
+
+    void ok(String collection, Operation op, long start, int mark, long documents, long bytes) {
+        long nanos = System.nanoTime() - start;
+        recorder(collection, op).record(nanos, Outcome.OK, documents, bytes, UsageMeter.end(mark));
+    }
+
+    void failed(String collection, Operation op, long start, int mark, RuntimeException e) {
+        long nanos = System.nanoTime() - start;
+        recorder(collection, op).record(nanos, outcome(e), 0, 0, UsageMeter.end(mark));
+    }
+
+    static Outcome outcome(RuntimeException e) {
+        if (e instanceof BaseAdapter.AlreadyExists || e instanceof BaseAdapter.NotFound
+                || e instanceof BaseAdapter.VersionConflict) {
+            return Outcome.REJECTED;
+        }
+        return Throttling.isThrottle(e) ? Outcome.THROTTLED : Outcome.ERROR;
+    }
+
+    private MetricsSink.Recorder recorder(String collection, Operation op) {
+        String c = collection != null ? collection : NO_COLLECTION;
+        MetricsSink.Recorder[] rs = recorders.get(c);
+        if (rs == null) rs = recorders.computeIfAbsent(c, k -> new MetricsSink.Recorder[OPERATIONS]);
+        MetricsSink.Recorder r = rs[op.ordinal()];
+        if (r == null) {
+            // a racing thread may ask too; sinks return the same recorder per key
+            r = sink.recorder(provider, c, op);
+            rs[op.ordinal()] = r;
+        }
+        return r;
+    }
+}
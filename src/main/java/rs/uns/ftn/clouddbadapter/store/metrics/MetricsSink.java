@@ -0,0 +1,26 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+/**
+ * Destination of store metrics. The instrumented decorators ask for one {@link Recorder}
+ * per (provider, collection, operation) the first time they see it and cache it, so
+ * {@link Recorder#record} is the only call on the hot path and must not allocate or block.
+ *
+ * {@link JmxMetricsSink} is the default; bridge to another system (Micrometer, OpenTelemetry,
+ * StatsD, ...) by implementing this interface.
+ */
+public interface MetricsSink {
+
+    /** Returns the recorder for one key; should return the same instance for the same key. */
+    Recorder recorder(String provider, String collection, Operation operation);
+
+    interface Recorder {
+        /**
+         * @param nanos     wall-clock latency of the call
+         * @param outcome   how the call ended
+         * @param documents documents read or written (0 when unknown)
+         * @param bytes     estimated request payload size for writes, 0 for reads
+         * @param usage     billing units consumed, per kind; valid only during this call
+         */
+        void record(long nanos, Outcome outcome, long documents, long bytes, Usage usage);
+    }
+}
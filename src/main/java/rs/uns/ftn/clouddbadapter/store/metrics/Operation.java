@@ -0,0 +1,10 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+/** Operations recorded by the instrumented DocumentStore and EntityManager decorators. */
+public enum Operation {
+    // DocumentStore
+    CREATE, GET, UPDATE, DELETE, LIST, LIST_PAGE, SCAN, GET_ALL, PUT_ALL, DELETE_ALL,
+    PATCH, QUERY, GET_VERSIONED, COMPARE_AND_SET,
+    // EntityManager
+    SAVE, FIND, SAVE_ALL, FIND_ALL
+}
@@ -0,0 +1,183 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory aggregate for one (provider, collection, operation): latency histogram, outcome
+ * counters, document/payload totals and billing units per {@link Usage.Unit}. Thread-safe;
+ * record() does not allocate.
+ */
+public final class OperationStats implements MetricsSink.Recorder, OperationStatsMXBean {
+
+    private final String provider;
+    private final String collection;
+    private final Operation operation;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder throttles = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final DoubleAdder[] units = new DoubleAdder[Usage.UNITS.length];
+
+    public OperationStats(String provider, String collection, Operation operation) {
+        this.provider = provider;
+        this.collection = collection;
+        this.operation = operation;
+        for (int i = 0; i < units.length; i++) units[i] = new DoubleAdder();
+    }
+
+    @Override
+    public void record(long nanos, Outcome outcome, long documents, long bytes, Usage usage) {
+        latency.record(nanos);
+        switch (outcome) {
+            case OK -> {}
+            case REJECTED -> rejections.increment();
+            case THROTTLED -> throttles.increment();
+            case ERROR -> errors.increment();
+        }
+        if (documents > 0) this.documents.add(documents);
+        if (bytes > 0) this.bytes.add(bytes);
+        for (int i = 0; i < units.length; i++) {
+            double a = usage.amounts[i];
+            if (a > 0) units[i].add(a);
+        }
+    }
+
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    public Operation operation() {
+        return operation;
+    }
+
+    @Override
+    public String getProvider() {
+        return provider;
+    }
+
+    @Override
+    public String getCollection() {
+        return collection;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation.name();
+    }
+
+    @Override
+    public long getCount() {
+        return latency.count();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getThrottles() {
+        return throttles.sum();
+    }
+
+    @Override
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    @Override
+    public long getDocuments() {
+        return documents.sum();
+    }
+
+    @Override
+    public long getPayloadBytes() {
+        return bytes.sum();
+    }
+
+    /** Units of one kind consumed so far. */
+    public double units(Usage.Unit unit) {
+        return units[unit.ordinal()].sum();
+    }
+
+    @Override
+    public double getCapacityUnits() {
+        return units(Usage.Unit.CAPACITY_UNITS);
+    }
+
+    @Override
+    public double getRequestUnits() {
+        return units(Usage.Unit.REQUEST_UNITS);
+    }
+
+    @Override
+    public long getDocumentReads() {
+        return (long) units(Usage.Unit.DOCUMENT_READS);
+    }
+
+    @Override
+    public long getDocumentWrites() {
+        return (long) units(Usage.Unit.DOCUMENT_WRITES);
+    }
+
+    @Override
+    public long getDocumentDeletes() {
+        return (long) units(Usage.Unit.DOCUMENT_DELETES);
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.meanMillis();
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.percentileMillis(0.50);
+    }
+
+    @Override
+    public double getP95Millis() {
+        return latency.percentileMillis(0.95);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.percentileMillis(0.99);
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latency.percentileMillis(0.999);
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.maxMillis();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        throttles.reset();
+        rejections.reset();
+        documents.reset();
+        bytes.reset();
+        for (DoubleAdder u : units) u.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder usage = new StringBuilder();
+        for (Usage.Unit u : Usage.UNITS) {
+            double a = units(u);
+            if (a > 0) usage.append(' ').append(u.name().toLowerCase()).append('=').append(String.format("%.1f", a));
+        }
+        return String.format("%s %s.%s count=%d p50=%.2fms p99=%.2fms max=%.2fms errors=%d throttles=%d%s",
+                provider, collection, operation, getCount(), getP50Millis(), getP99Millis(), getMaxMillis(),
+                getErrors(), getThrottles(), usage);
+    }
+}
@@ -0,0 +1,52 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+/** JMX view of one (provider, collection, operation); latencies in milliseconds. */
+public interface OperationStatsMXBean {
+
+    String getProvider();
+
+    String getCollection();
+
+    String getOperation();
+
+    long getCount();
+
+    long getErrors();
+
+    long getThrottles();
+
+    long getRejections();
+
+    long getDocuments();
+
+    long getPayloadBytes();
+
+    /** DynamoDB consumed capacity units. */
+    double getCapacityUnits();
+
+    /** Cosmos DB request units. */
+    double getRequestUnits();
+
+    /** Firestore document reads. */
+    long getDocumentReads();
+
+    /** Firestore document writes. */
+    long getDocumentWrites();
+
+    /** Firestore document deletes. */
+    long getDocumentDeletes();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
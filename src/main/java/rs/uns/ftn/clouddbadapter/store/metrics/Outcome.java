@@ -0,0 +1,11 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+/** How a recorded call ended. */
+public enum Outcome {
+    OK,
+    /** A condition failed: AlreadyExists, NotFound or VersionConflict. */
+    REJECTED,
+    /** The provider throttled the call (see {@link rs.uns.ftn.clouddbadapter.store.Throttling}). */
+    THROTTLED,
+    ERROR
+}
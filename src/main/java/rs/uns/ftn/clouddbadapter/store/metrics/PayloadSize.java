@@ -0,0 +1,78 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Rough JSON-ish size of a document: field names and strings count their length, numbers
+ * 8 bytes, booleans and nulls 1, nested maps/lists recursively. Good enough to compare
+ * collections and spot outliers, not to predict a provider's exact item size.
+ *
+ * Walks with Map.forEach/Iterable.forEach and a per-thread visitor, so it does not allocate.
+ */
+final class PayloadSize implements BiConsumer<Object, Object>, Consumer<Object> {
+
+    private static final ThreadLocal<PayloadSize> VISITOR = ThreadLocal.withInitial(PayloadSize::new);
+
+    private long total;
+    private int depth;
+
+    private PayloadSize() {}
+
+    static long of(Map<String, ?> document) {
+        if (document == null) return 0;
+        PayloadSize v = VISITOR.get();
+        if (v.depth > 0) return 0; // re-entered from a toString()/forEach override; ignore
+        v.total = 0;
+        v.value(document);
+        return v.total;
+    }
+
+    /** Sum over a batch of documents. */
+    static long ofAll(Map<String, ? extends Map<String, ?>> documents) {
+        long sum = 0;
+        for (Map<String, ?> d : documents.values()) sum += of(d);
+        return sum;
+    }
+
+    @Override
+    public void accept(Object key, Object value) {
+        total += key instanceof String s ? s.length() : 8;
+        value(value);
+    }
+
+    @Override
+    public void accept(Object element) {
+        value(element);
+    }
+
+    private void value(Object v) {
+        if (v == null || v instanceof Boolean) {
+            total += 1;
+        } else if (v instanceof CharSequence s) {
+            total += s.length();
+        } else if (v instanceof Number) {
+            total += 8;
+        } else if (v instanceof byte[] b) {
+            total += b.length;
+        } else if (v instanceof Map<?, ?> m) {
+            depth++;
+            try {
+                m.forEach(this);
+            } finally {
+                depth--;
+            }
+        } else if (v instanceof Collection<?> c) {
+            depth++;
+            try {
+                c.forEach(this);
+            } finally {
+                depth--;
+            }
+        } else {
+            total += 8;
+        }
+    }
+}
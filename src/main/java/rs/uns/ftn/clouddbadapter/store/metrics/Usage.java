@@ -0,0 +1,50 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+/**
+ * Billing units one call consumed, per kind. The kinds are not convertible into each other,
+ * so they are kept apart: a DynamoDB call reports capacity units, a Cosmos call request
+ * units, a Firestore call document reads, writes and deletes.
+ *
+ * The instance passed to {@link MetricsSink.Recorder#record} is reused for later calls on
+ * the same thread; read it inside record() and do not keep it.
+ */
+public final class Usage {
+
+    public enum Unit {
+        /** DynamoDB consumed (read or write) capacity units. */
+        CAPACITY_UNITS,
+        /** Cosmos DB request units (RU). */
+        REQUEST_UNITS,
+        /** Firestore document reads (a query that matches nothing bills one). */
+        DOCUMENT_READS,
+        /** Firestore document writes. */
+        DOCUMENT_WRITES,
+        /** Firestore document deletes. */
+        DOCUMENT_DELETES
+    }
+
+    static final Unit[] UNITS = Unit.values();
+
+    final double[] amounts = new double[UNITS.length];
+
+    public double get(Unit unit) {
+        return amounts[unit.ordinal()];
+    }
+
+    /** True when the call reported no units (e.g. it was not served by a built-in adapter). */
+    public boolean isEmpty() {
+        for (double a : amounts) if (a != 0) return false;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Unit u : UNITS) {
+            if (amounts[u.ordinal()] == 0) continue;
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(u.name().toLowerCase()).append('=').append(amounts[u.ordinal()]);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,90 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread accumulator for billing units reported by the adapters while a metered call runs:
+ * DynamoDB consumed capacity units, Cosmos request units (RU) and Firestore document
+ * reads/writes/deletes, each kept as its own {@link Usage.Unit}.
+ *
+ * InstrumentedDocumentStore brackets each call with begin()/end(); adapters call add() after
+ * every provider response. Outside a metered call add() is a no-op and active() is false, so
+ * adapters can skip asking the provider for usage data. Units consumed on other threads
+ * (parallel scan segments) are not attributed.
+ */
+public final class UsageMeter {
+    private UsageMeter() {}
+
+    private static final class Meter {
+        int depth;
+        final double[] totals = new double[Usage.UNITS.length];
+        /** Per nesting level: the totals at begin(), and the Usage handed out at end(). */
+        double[][] marks = new double[0][];
+        Usage[] usages = new Usage[0];
+    }
+
+    private static final ThreadLocal<Meter> METER = ThreadLocal.withInitial(Meter::new);
+
+    /** True while a metered call runs on this thread. */
+    public static boolean active() {
+        return METER.get().depth > 0;
+    }
+
+    /** Adds billing units of one kind to the call running on this thread, if any. */
+    public static void add(Usage.Unit unit, double amount) {
+        Meter m = METER.get();
+        if (m.depth > 0) m.totals[unit.ordinal()] += amount;
+    }
+
+    /** DynamoDB consumed capacity units. */
+    public static void capacityUnits(double units) {
+        add(Usage.Unit.CAPACITY_UNITS, units);
+    }
+
+    /** Cosmos DB request charge. */
+    public static void requestUnits(double charge) {
+        add(Usage.Unit.REQUEST_UNITS, charge);
+    }
+
+    /** Firestore document reads. */
+    public static void reads(long documents) {
+        add(Usage.Unit.DOCUMENT_READS, documents);
+    }
+
+    /** Firestore document writes. */
+    public static void writes(long documents) {
+        add(Usage.Unit.DOCUMENT_WRITES, documents);
+    }
+
+    /** Firestore document deletes. */
+    public static void deletes(long documents) {
+        add(Usage.Unit.DOCUMENT_DELETES, documents);
+    }
+
+    /** Starts (or nests into) a metered call; pass the result to {@link #end}. */
+    static int begin() {
+        Meter m = METER.get();
+        int level = m.depth++;
+        if (level == m.marks.length) {
+            m.marks = Arrays.copyOf(m.marks, level + 1);
+            m.marks[level] = new double[Usage.UNITS.length];
+            m.usages = Arrays.copyOf(m.usages, level + 1);
+            m.usages[level] = new Usage();
+        }
+        System.arraycopy(m.totals, 0, m.marks[level], 0, m.totals.length);
+        return level;
+    }
+
+    /**
+     * Ends a metered call and returns the units added since the matching begin(). The result
+     * is reused by the next call at the same nesting level on this thread.
+     */
+    static Usage end(int level) {
+        Meter m = METER.get();
+        Usage used = m.usages[level];
+        double[] mark = m.marks[level];
+        for (int i = 0; i < mark.length; i++) used.amounts[i] = m.totals[i] - mark[i];
+        if (--m.depth == 0) Arrays.fill(m.totals, 0);
+        return used;
+    }
+}
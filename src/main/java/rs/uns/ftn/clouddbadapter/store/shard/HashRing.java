@@ -0,0 +1,58 @@
+package rs.uns.ftn.clouddbadapter.store.shard;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable consistent-hash ring. Each shard is placed at 'virtualNodes * weight' points, and
+ * a key belongs to the first point at or after its hash (wrapping around). Adding a shard
+ * therefore only moves the keys that now fall before its points, about 1/N of them.
+ */
+final class HashRing {
+
+    private final long[] points;
+    /** Index into the shard list, parallel to 'points'. */
+    private final int[] owners;
+
+    HashRing(List<Shard> shards, int virtualNodes) {
+        int total = 0;
+        for (Shard s : shards) total += virtualNodes * s.weight();
+        long[][] entries = new long[total][];
+        int n = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            Shard s = shards.get(i);
+            for (int v = 0; v < virtualNodes * s.weight(); v++) {
+                entries[n++] = new long[] {hash(s.name() + "#" + v), i};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[total];
+        this.owners = new int[total];
+        for (int i = 0; i < total; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    /** Index of the shard owning 'key'. */
+    int owner(String key) {
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) i = -i - 1;
+        return owners[i == points.length ? 0 : i];
+    }
+
+    /** FNV-1a over the UTF-16 chars, finished with the murmur3 64-bit mixer for avalanche. */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,71 @@
+package rs.uns.ftn.clouddbadapter.store.shard;
+
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * One physical backend of a {@link ShardedDocumentStore}: a store (any provider or account),
+ * the table/container/collection each logical collection maps to on it, and a weight that
+ * scales its share of the keys.
+ *
+ * Example (two tables on one account plus a second account):
+ *   Shard.of("a", dynamo).tables(c -> c + "_a")
+ *   Shard.of("b", dynamo).tables(c -> c + "_b")
+ *   Shard.of("c", otherAccount).weight(2)
+ *
+ * The name positions the shard on the hash ring, so it must stay the same across restarts.
+ */
+public final class Shard {
+
+    private final String name;
+    private final DocumentStore store;
+    private final int weight;
+    private final UnaryOperator<String> tables;
+
+    private Shard(String name, DocumentStore store, int weight, UnaryOperator<String> tables) {
+        this.name = name;
+        this.store = store;
+        this.weight = weight;
+        this.tables = tables;
+    }
+
+    public static Shard of(String name, DocumentStore store) {
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("name blank");
+        return new Shard(name, Objects.requireNonNull(store, "store"), 1, UnaryOperator.identity());
+    }
+
+    /** Relative share of the keys; default 1. */
+    public Shard weight(int weight) {
+        if (weight < 1) throw new IllegalArgumentException("weight must be >= 1");
+        return new Shard(name, store, weight, tables);
+    }
+
+    /** Maps a logical collection to its physical name on this shard; default identity. */
+    public Shard tables(UnaryOperator<String> tables) {
+        return new Shard(name, store, weight, Objects.requireNonNull(tables, "tables"));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public DocumentStore store() {
+        return store;
+    }
+
+    public int weight() {
+        return weight;
+    }
+
+    /** Physical name of a logical collection on this shard. */
+    public String table(String collection) {
+        return tables.apply(collection);
+    }
+
+    @Override
+    public String toString() {
+        return "Shard{" + name + ", weight=" + weight + "}";
+    }
+}
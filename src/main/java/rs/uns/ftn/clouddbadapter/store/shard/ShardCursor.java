@@ -0,0 +1,69 @@
+package rs.uns.ftn.clouddbadapter.store.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a page walk that merges all shards: per shard, the provider cursor of the page
+ * to (re)fetch and how many of that page's items were already returned, or done.
+ *
+ * Encoded as one entry per shard joined by '.': "-" when done, otherwise "skip~" followed by
+ * 'c' + base64url(cursor), or nothing for the first page. A cursor from a layout with fewer
+ * shards starts the extra shards from the beginning.
+ */
+final class ShardCursor {
+
+    final String[] cursors;
+    final int[] skips;
+    final boolean[] done;
+
+    private ShardCursor(int shards) {
+        this.cursors = new String[shards];
+        this.skips = new int[shards];
+        this.done = new boolean[shards];
+    }
+
+    static ShardCursor parse(String cursor, int shards) {
+        ShardCursor c = new ShardCursor(shards);
+        if (cursor == null) return c;
+        String[] entries = cursor.split("\\.", -1);
+        if (entries.length > shards) throw new IllegalArgumentException("Cursor is from a different shard layout");
+        try {
+            for (int i = 0; i < entries.length; i++) {
+                String e = entries[i];
+                if (e.equals("-")) {
+                    c.done[i] = true;
+                    continue;
+                }
+                int sep = e.indexOf('~');
+                c.skips[i] = Integer.parseInt(e.substring(0, sep));
+                String inner = e.substring(sep + 1);
+                c.cursors[i] = inner.isEmpty() ? null
+                        : new String(Base64.getUrlDecoder().decode(inner.substring(1)), StandardCharsets.UTF_8);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed sharded cursor", e);
+        }
+        return c;
+    }
+
+    /** Null when every shard is done. */
+    String encode() {
+        boolean allDone = true;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < done.length; i++) {
+            if (i > 0) sb.append('.');
+            if (done[i]) {
+                sb.append('-');
+                continue;
+            }
+            allDone = false;
+            sb.append(skips[i]).append('~');
+            if (cursors[i] != null) {
+                sb.append('c').append(Base64.getUrlEncoder().withoutPadding()
+                        .encodeToString(cursors[i].getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+        return allDone ? null : sb.toString();
+    }
+}
@@ -0,0 +1,653 @@
+package rs.uns.ftn.clouddbadapter.store.shard;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
+import rs.uns.ftn.clouddbadapter.store.SegmentHandler;
+import rs.uns.ftn.clouddbadapter.store.Versioned;
+import rs.uns.ftn.clouddbadapter.store.WarmableStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads every logical collection over several physical backends (tables, accounts,
+ * containers, even providers) by consistent hashing of the document id.
+ *
+ * Single-document calls go to the owning shard. Batch calls are split per shard and run in
+ * parallel, on at most 'maxThreads' threads per store; once they are all busy the calling
+ * thread runs the shard calls itself. list, listPage and query ask all shards in parallel and merge the answers into one
+ * page; query pages keep the requested order across shards. The merged cursor records each
+ * shard's position, so a shard's page may be fetched again to resume part-way through it.
+ * parallelScan scans all shards at once, with about segments/N segments each; the handler
+ * sees segment numbers that are unique across shards.
+ *
+ * Adding a shard is online. {@link #addShard} switches routing to the new ring at once.
+ * Until {@link #rebalance} has finished, a document whose owner changed is moved (copied with
+ * a create-if-absent, then deleted from the old shard) the first time it is touched, so reads
+ * and writes stay correct throughout. Documents may briefly be missing from, or duplicated in,
+ * list pages and scans while they move. Moves are serialized per document within this
+ * instance only; other instances must apply the same addShard, and coordinating them is up to
+ * the application.
+ *
+ * Example:
+ *   ShardedDocumentStore store = ShardedDocumentStore.builder()
+ *       .shard(Shard.of("a", dynamo).tables(c -> c + "_a"))
+ *       .shard(Shard.of("b", dynamo).tables(c -> c + "_b"))
+ *       .build();
+ *   EntityManager em = new SimpleEntityManager(store);
+ *   ...
+ *   store.addShard(Shard.of("c", otherAccount));
+ *   store.rebalance(List.of("users", "orders"));
+ */
+public final class ShardedDocumentStore implements DocumentStore, WarmableStore, AutoCloseable {
+
+    /** Page size used while moving documents during a rebalance. */
+    private static final int REBALANCE_PAGE_SIZE = 500;
+    private static final int STRIPES = 64;
+    /**
+     * Fields the providers manage themselves (Cosmos _rid/_self/_etag/_attachments/_ts,
+     * the DynamoDB version attribute); a moved document must not take them along.
+     */
+    private static final Set<String> SYSTEM_FIELDS = Set.of("id", "_rid", "_self", "_etag", "_attachments", "_ts", "_version");
+
+    /**
+     * Shards, the ring routing to them, and the ring before the last addShard while its
+     * rebalance is pending (null otherwise). Shards are only appended, so both rings index
+     * the same list.
+     */
+    private record Topology(List<Shard> shards, HashRing ring, HashRing previous) {}
+
+    private volatile Topology topology;
+    private final int virtualNodes;
+    private final int maxThreads;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Object[] stripes = new Object[STRIPES];
+    private final LongAdder moved = new LongAdder();
+
+    private ShardedDocumentStore(Builder b) {
+        this.virtualNodes = b.virtualNodes;
+        List<Shard> shards = List.copyOf(b.shards);
+        this.topology = new Topology(shards, new HashRing(shards, virtualNodes), null);
+        this.maxThreads = b.maxThreads;
+        this.ownsExecutor = b.executor == null;
+        this.executor = ownsExecutor ? defaultExecutor(maxThreads) : b.executor;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Up to 'maxThreads' threads; when all are busy the submitting thread runs the task. */
+    private static ExecutorService defaultExecutor(int maxThreads) {
+        return new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), daemon("shard-"),
+                (task, pool) -> {
+                    if (pool.isShutdown()) throw new RejectedExecutionException("Store closed");
+                    task.run();
+                });
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // ==== topology ====
+
+    public List<Shard> shards() {
+        return topology.shards();
+    }
+
+    /** The shard a document id belongs to. */
+    public Shard shardOf(String id) {
+        Topology t = topology;
+        return t.shards().get(t.ring().owner(Objects.requireNonNull(id, "id")));
+    }
+
+    public boolean isRebalancing() {
+        return topology.previous() != null;
+    }
+
+    /** Documents moved to a new owner since this store was built. */
+    public long movedDocuments() {
+        return moved.sum();
+    }
+
+    /**
+     * Adds a shard and routes to it immediately; about 1/N of the documents change owner.
+     * Call {@link #rebalance} afterwards to move them in bulk.
+     * @throws IllegalStateException while the previous addShard is still being rebalanced
+     */
+    public synchronized void addShard(Shard shard) {
+        Objects.requireNonNull(shard, "shard");
+        Topology t = topology;
+        if (t.previous() != null) throw new IllegalStateException("Rebalance in progress; call rebalance() first");
+        for (Shard s : t.shards()) {
+            if (s.name().equals(shard.name())) throw new IllegalArgumentException("Duplicate shard " + shard.name());
+        }
+        List<Shard> shards = new ArrayList<>(t.shards());
+        shards.add(shard);
+        shards = List.copyOf(shards);
+        topology = new Topology(shards, new HashRing(shards, virtualNodes), t.ring());
+    }
+
+    /**
+     * Moves every document of the given logical collections that changed owner with the last
+     * addShard, scanning the old shards in parallel, then ends the rebalance. Safe to call
+     * again after a failure.
+     * @return documents moved by this call (including those moved by concurrent calls meanwhile)
+     */
+    public long rebalance(Collection<String> collections) {
+        Objects.requireNonNull(collections, "collections");
+        Topology t = topology;
+        if (t.previous() == null) return 0;
+        long before = moved.sum();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < t.shards().size() - 1; i++) {
+            Shard old = t.shards().get(i);
+            for (String c : collections) {
+                validateCollection(c);
+                int index = i;
+                tasks.add(() -> {
+                    Page.stream(null, cur -> old.store().listPage(old.table(c), REBALANCE_PAGE_SIZE, cur, Set.of("id")))
+                            .forEach(doc -> {
+                                String id = String.valueOf(doc.get("id"));
+                                int owner = t.ring().owner(id);
+                                if (owner == index) return;
+                                synchronized (stripe(id)) {
+                                    move(c, id, old, t.shards().get(owner));
+                                }
+                            });
+                    return null;
+                });
+            }
+        }
+        fanOut(tasks);
+        synchronized (this) {
+            if (topology == t) topology = new Topology(t.shards(), t.ring(), null);
+        }
+        return moved.sum() - before;
+    }
+
+    /** Copies the document to its new owner unless a newer write got there first, then drops the old copy. */
+    private void move(String c, String id, Shard from, Shard to) {
+        Optional<Map<String, Object>> doc = from.store().getById(from.table(c), id);
+        if (doc.isEmpty()) return;
+        Map<String, Object> data = new HashMap<>(doc.get());
+        data.keySet().removeAll(SYSTEM_FIELDS);
+        try {
+            to.store().compareAndSet(to.table(c), id, data, null);
+        } catch (BaseAdapter.VersionConflict newer) {
+            // written on the new owner since the shard was added; that copy wins
+        }
+        from.store().deleteById(from.table(c), id);
+        moved.increment();
+    }
+
+    private Object stripe(String id) {
+        return stripes[(int) (HashRing.hash(id) & (STRIPES - 1))];
+    }
+
+    /** Runs 'op' on the owner of the document, moving the document there first if needed. */
+    private <T> T onOwner(String c, String id, BiFunction<DocumentStore, String, T> op) {
+        validateCollection(c);
+        if (id == null || id.isBlank()) throw new IllegalArgumentException("id empty");
+        Topology t = topology;
+        int owner = t.ring().owner(id);
+        Shard s = t.shards().get(owner);
+        if (t.previous() == null) return op.apply(s.store(), s.table(c));
+        int previous = t.previous().owner(id);
+        if (previous == owner) return op.apply(s.store(), s.table(c));
+        synchronized (stripe(id)) {
+            move(c, id, t.shards().get(previous), s);
+            return op.apply(s.store(), s.table(c));
+        }
+    }
+
+    private static void validateCollection(String c) {
+        if (c == null || c.isBlank()) throw new IllegalArgumentException("collection empty");
+    }
+
+    // ==== single documents ====
+
+    @Override
+    public void create(String collection, String id, Map<String, Object> data) {
+        onOwner(collection, id, (s, table) -> {
+            s.create(table, id, data);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id) {
+        return onOwner(collection, id, (s, table) -> s.getById(table, id));
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getById(String collection, String id, Set<String> fields) {
+        return onOwner(collection, id, (s, table) -> s.getById(table, id, fields));
+    }
+
+    @Override
+    public void updateById(String collection, String id, Map<String, Object> data) {
+        onOwner(collection, id, (s, table) -> {
+            s.updateById(table, id, data);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteById(String collection, String id) {
+        onOwner(collection, id, (s, table) -> {
+            s.deleteById(table, id);
+            return null;
+        });
+    }
+
+    @Override
+    public void patch(String collection, String id, Map<String, Object> changes) {
+        onOwner(collection, id, (s, table) -> {
+            s.patch(table, id, changes);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Versioned> getVersioned(String collection, String id) {
+        return onOwner(collection, id, (s, table) -> s.getVersioned(table, id));
+    }
+
+    @Override
+    public String compareAndSet(String collection, String id, Map<String, Object> data, String expectedVersion) {
+        return onOwner(collection, id, (s, table) -> s.compareAndSet(table, id, data, expectedVersion));
+    }
+
+    // ==== batches: split per shard, run in parallel ====
+
+    /**
+     * Ids grouped by owning shard (index). While rebalancing, ids that changed owner are left
+     * out and returned in 'moving' so they can take the single-document path.
+     */
+    private Map<Integer, List<String>> byShard(Topology t, Collection<String> ids, List<String> moving) {
+        Map<Integer, List<String>> groups = new LinkedHashMap<>();
+        for (String id : ids) {
+            int owner = t.ring().owner(id);
+            if (t.previous() != null && t.previous().owner(id) != owner) moving.add(id);
+            else groups.computeIfAbsent(owner, k -> new ArrayList<>()).add(id);
+        }
+        return groups;
+    }
+
+    private static Set<String> validateIds(String c, Collection<String> ids) {
+        validateCollection(c);
+        if (ids == null) throw new IllegalArgumentException("ids null");
+        Set<String> unique = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id == null || id.isBlank()) throw new IllegalArgumentException("id empty");
+            unique.add(id);
+        }
+        return unique;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getAll(String collection, Collection<String> ids) {
+        Set<String> unique = validateIds(collection, ids);
+        Topology t = topology;
+        List<String> moving = new ArrayList<>();
+        List<Callable<Map<String, Map<String, Object>>>> tasks = new ArrayList<>();
+        byShard(t, unique, moving).forEach((i, group) -> {
+            Shard s = t.shards().get(i);
+            tasks.add(() -> s.store().getAll(s.table(collection), group));
+        });
+        Map<String, Map<String, Object>> found = new HashMap<>();
+        for (Map<String, Map<String, Object>> part : fanOut(tasks)) found.putAll(part);
+        for (String id : moving) getById(collection, id).ifPresent(d -> found.put(id, d));
+        Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+        for (String id : unique) {
+            Map<String, Object> d = found.get(id);
+            if (d != null) out.put(id, d);
+        }
+        return out;
+    }
+
+    @Override
+    public void putAll(String collection, Map<String, Map<String, Object>> documents) {
+        validateCollection(collection);
+        if (documents == null) throw new IllegalArgumentException("documents null");
+        Topology t = topology;
+        List<String> moving = new ArrayList<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        byShard(t, validateIds(collection, documents.keySet()), moving).forEach((i, group) -> {
+            Shard s = t.shards().get(i);
+            Map<String, Map<String, Object>> part = new LinkedHashMap<>();
+            for (String id : group) part.put(id, documents.get(id));
+            tasks.add(() -> {
+                s.store().putAll(s.table(collection), part);
+                return null;
+            });
+        });
+        fanOut(tasks);
+        for (String id : moving) updateById(collection, id, documents.get(id));
+    }
+
+    @Override
+    public void deleteAll(String collection, Collection<String> ids) {
+        Set<String> unique = validateIds(collection, ids);
+        Topology t = topology;
+        List<String> moving = new ArrayList<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        byShard(t, unique, moving).forEach((i, group) -> {
+            Shard s = t.shards().get(i);
+            tasks.add(() -> {
+                s.store().deleteAll(s.table(collection), group);
+                return null;
+            });
+        });
+        fanOut(tasks);
+        for (String id : moving) deleteById(collection, id);
+    }
+
+    // ==== lists, pages, queries: merged across shards ====
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit) {
+        return list(collection, limit, null);
+    }
+
+    @Override
+    public List<Map<String, Object>> list(String collection, int limit, Set<String> fields) {
+        validateCollection(collection);
+        if (limit <= 0) return new ArrayList<>();
+        int pageSize = Math.min(limit, 1000);
+        return Page.stream(null, cursor -> listPage(collection, pageSize, cursor, fields))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor) {
+        return listPage(collection, pageSize, cursor, null);
+    }
+
+    /** Each shard is asked for an equal part of the page; items are interleaved shard by shard. */
+    @Override
+    public Page<Map<String, Object>> listPage(String collection, int pageSize, String cursor, Set<String> fields) {
+        validateCollection(collection);
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be positive");
+        Topology t = topology;
+        ShardCursor position = ShardCursor.parse(cursor, t.shards().size());
+        int live = 0;
+        for (boolean d : position.done) if (!d) live++;
+        int perShard = Math.max(1, (pageSize + Math.max(live, 1) - 1) / Math.max(live, 1));
+        return merged(t, position, pageSize, null,
+                (s, c) -> s.store().listPage(s.table(collection), perShard, c, fields));
+    }
+
+    /**
+     * Runs the query on every shard; each shard returns up to the query's limit and the first
+     * 'limit' of the merged results form the page, in the query's order when it has one.
+     */
+    @Override
+    public Page<Map<String, Object>> query(String collection, DocumentQuery query) {
+        validateCollection(collection);
+        if (query == null) throw new IllegalArgumentException("query null");
+        Topology t = topology;
+        ShardCursor position = ShardCursor.parse(query.cursor(), t.shards().size());
+        Comparator<Map<String, Object>> order = query.orderBy() == null ? null : order(query.orderBy(), query.ascending());
+        return merged(t, position, query.limit(), order,
+                (s, c) -> s.store().query(s.table(collection), query.withCursor(c)));
+    }
+
+    /** Remaining items of one shard's current page. */
+    private record Run(int shard, String pageCursor, int skip, List<Map<String, Object>> items, String next) {}
+
+    /** Fetches from 'pageCursor' on until a page has items past 'skip' or the shard is exhausted. */
+    private static Run run(Shard s, int shard, String pageCursor, int skip,
+                           BiFunction<Shard, String, Page<Map<String, Object>>> fetch) {
+        while (true) {
+            Page<Map<String, Object>> p = fetch.apply(s, pageCursor);
+            // providers may hand back empty pages that still carry a cursor
+            if (skip < p.items().size() || p.cursor() == null) {
+                return new Run(shard, pageCursor, skip, p.items(), p.cursor());
+            }
+            pageCursor = p.cursor();
+            skip = 0;
+        }
+    }
+
+    private Page<Map<String, Object>> merged(Topology t, ShardCursor position, int pageSize,
+                                             Comparator<Map<String, Object>> order,
+                                             BiFunction<Shard, String, Page<Map<String, Object>>> fetch) {
+        List<Callable<Run>> tasks = new ArrayList<>();
+        for (int i = 0; i < t.shards().size(); i++) {
+            if (position.done[i]) continue;
+            int shard = i;
+            tasks.add(() -> run(t.shards().get(shard), shard, position.cursors[shard], position.skips[shard], fetch));
+        }
+        List<Run> runs = new ArrayList<>(fanOut(tasks));
+        int[] pos = new int[runs.size()];
+        for (int r = 0; r < runs.size(); r++) pos[r] = runs.get(r).skip();
+
+        List<Map<String, Object>> out = new ArrayList<>(pageSize);
+        Set<Object> seen = t.previous() != null ? new HashSet<>() : null; // a moving document may be on both shards
+        int turn = 0;
+        while (out.size() < pageSize) {
+            int pick = -1;
+            if (order != null) {
+                // a shard's next page may hold smaller items than the others' current ones
+                for (int r = 0; r < runs.size(); r++) {
+                    Run run = runs.get(r);
+                    if (pos[r] >= run.items().size() && run.next() != null) {
+                        runs.set(r, run(t.shards().get(run.shard()), run.shard(), run.next(), 0, fetch));
+                        pos[r] = 0;
+                    }
+                }
+            }
+            for (int k = 0; k < runs.size(); k++) {
+                int r = order == null ? (turn + k) % runs.size() : k;
+                if (pos[r] >= runs.get(r).items().size()) continue;
+                if (order == null) {
+                    pick = r;
+                    break;
+                }
+                if (pick < 0 || order.compare(runs.get(r).items().get(pos[r]), runs.get(pick).items().get(pos[pick])) < 0) {
+                    pick = r;
+                }
+            }
+            if (pick < 0) break;
+            Map<String, Object> doc = runs.get(pick).items().get(pos[pick]++);
+            turn = pick + 1;
+            if (seen == null || seen.add(doc.get("id"))) out.add(doc);
+        }
+
+        for (int r = 0; r < runs.size(); r++) {
+            Run run = runs.get(r);
+            int i = run.shard();
+            if (pos[r] < run.items().size()) {
+                position.cursors[i] = run.pageCursor();
+                position.skips[i] = pos[r];
+            } else if (run.next() == null) {
+                position.done[i] = true;
+            } else {
+                position.cursors[i] = run.next();
+                position.skips[i] = 0;
+            }
+        }
+        return new Page<>(out, position.encode());
+    }
+
+    /** Orders by one field; numbers compare by value across types, nulls first. */
+    private static Comparator<Map<String, Object>> order(String field, boolean ascending) {
+        Comparator<Map<String, Object>> c = (a, b) -> compareValues(a.get(field), b.get(field));
+        return ascending ? c : c.reversed();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        if (a == null || b == null) return a == null ? (b == null ? 0 : -1) : 1;
+        if (a instanceof Number x && b instanceof Number y) return Double.compare(x.doubleValue(), y.doubleValue());
+        if (a instanceof Comparable ca && a.getClass() == b.getClass()) return ca.compareTo(b);
+        return a.toString().compareTo(b.toString());
+    }
+
+    // ==== scans ====
+
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, SegmentHandler handler) {
+        if (segments <= 0) throw new IllegalArgumentException("segments must be positive");
+        int n = topology.shards().size();
+        int total = Math.max(1, (segments + n - 1) / n) * n;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(total, maxThreads), daemon("scan-" + collection + "-"));
+        try {
+            parallelScan(collection, segments, pageSize, pool, handler);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Scans all shards at once with ceil(segments / N) segments each; shard i reports its
+     * segments as i * that + segment. 'executor' runs the segment readers of every shard;
+     * segments beyond its threads wait for a free one. Without an executor a pool of at most
+     * 'maxThreads' threads is used for the scan.
+     */
+    @Override
+    public void parallelScan(String collection, int segments, int pageSize, ExecutorService executor, SegmentHandler handler) {
+        validateCollection(collection);
+        if (segments <= 0) throw new IllegalArgumentException("segments must be positive");
+        if (executor == null || handler == null) throw new IllegalArgumentException("executor/handler null");
+        List<Shard> shards = topology.shards();
+        int perShard = Math.max(1, (segments + shards.size() - 1) / shards.size());
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            Shard s = shards.get(i);
+            int base = i * perShard;
+            tasks.add(() -> {
+                s.store().parallelScan(s.table(collection), perShard, pageSize, executor,
+                        (segment, page) -> handler.accept(base + segment, page));
+                return null;
+            });
+        }
+        fanOut(tasks);
+    }
+
+    // ==== plumbing ====
+
+    /** Runs the tasks in parallel (the first on the calling thread) and returns their results in order. */
+    private <T> List<T> fanOut(List<Callable<T>> tasks) {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (int i = 1; i < tasks.size(); i++) futures.add(executor.submit(tasks.get(i)));
+        List<T> out = new ArrayList<>(tasks.size());
+        try {
+            if (!tasks.isEmpty()) out.add(tasks.get(0).call());
+            for (Future<T> f : futures) out.add(f.get());
+            return out;
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw unchecked(e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new BaseAdapter.StoreException("Sharded call interrupted", e);
+        } catch (Exception e) {
+            futures.forEach(f -> f.cancel(true));
+            throw unchecked(e);
+        }
+    }
+
+    private static RuntimeException unchecked(Throwable t) {
+        if (t instanceof RuntimeException re) return re;
+        if (t instanceof Error err) throw err;
+        return new BaseAdapter.StoreException("Sharded call failed", t);
+    }
+
+    /** Warms every shard that supports it, with its physical names for the collections. */
+    @Override
+    public void warmUp(Collection<String> collections) {
+        for (Shard s : topology.shards()) {
+            if (s.store() instanceof WarmableStore w) {
+                w.warmUp(collections.stream().map(s::table).toList());
+            }
+        }
+    }
+
+    /** Stops the fan-out executor if the store created it; the shards' stores stay open. */
+    @Override
+    public void close() {
+        if (ownsExecutor) executor.shutdownNow();
+    }
+
+    public static final class Builder {
+        private final List<Shard> shards = new ArrayList<>();
+        private int virtualNodes = 128;
+        private int maxThreads = 64;
+        private ExecutorService executor;
+
+        private Builder() {}
+
+        public Builder shard(Shard shard) {
+            Objects.requireNonNull(shard, "shard");
+            for (Shard s : shards) {
+                if (s.name().equals(shard.name())) throw new IllegalArgumentException("Duplicate shard " + shard.name());
+            }
+            shards.add(shard);
+            return this;
+        }
+
+        /** Ring points per unit of shard weight; more points even out the split. Default 128. */
+        public Builder virtualNodes(int virtualNodes) {
+            if (virtualNodes < 1) throw new IllegalArgumentException("virtualNodes must be >= 1");
+            this.virtualNodes = virtualNodes;
+            return this;
+        }
+
+        /** Runs the per-shard calls of a fan-out; default an internal pool of up to 'maxThreads' daemon threads. */
+        public Builder executor(ExecutorService executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        /** Threads of the internal fan-out pool, and of the pool a parallelScan without an executor uses. Default 64. */
+        public Builder maxThreads(int maxThreads) {
+            if (maxThreads < 1) throw new IllegalArgumentException("maxThreads must be >= 1");
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        public ShardedDocumentStore build() {
+            if (shards.isEmpty()) throw new IllegalStateException("At least one shard is required");
+            return new ShardedDocumentStore(this);
+        }
+    }
+}
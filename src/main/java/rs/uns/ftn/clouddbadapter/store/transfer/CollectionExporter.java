@@ -0,0 +1,275 @@
+package rs.uns.ftn.clouddbadapter.store.transfer;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streams a collection of any DocumentStore into segment files ({@link SegmentWriter}):
+ * "<collection>-00000.seg", "<collection>-00001.seg", ... in the target directory. Memory use
+ * is bounded by 'prefetch' pages plus one block, whatever the collection's size.
+ *
+ * Pages are fetched by a background thread while the caller's thread encodes, compresses
+ * and writes the previous ones. Progress (file, flushed size, page cursor) is checkpointed
+ * to "<collection>.export" every 'checkpointInterval' and when a file is rolled over; running
+ * the export again with the same directory resumes there, discarding anything written after
+ * the checkpoint. A finished export is not repeated.
+ *
+ * Example:
+ *   TransferStats s = CollectionExporter.builder(DocumentStoreFactory.from(Provider.AWS))
+ *       .compression(Compression.DEFLATE)
+ *       .build()
+ *       .export("users", Path.of("/data/export"));
+ */
+public final class CollectionExporter {
+
+    static final String DONE = "done";
+
+    private final DocumentStore store;
+    private final int pageSize;
+    private final Compression compression;
+    private final int blockSize;
+    private final long maxFileSize;
+    private final int prefetch;
+    private final Duration checkpointInterval;
+
+    private CollectionExporter(Builder b) {
+        this.store = b.store;
+        this.pageSize = b.pageSize;
+        this.compression = b.compression;
+        this.blockSize = b.blockSize;
+        this.maxFileSize = b.maxFileSize;
+        this.prefetch = b.prefetch;
+        this.checkpointInterval = b.checkpointInterval;
+    }
+
+    public static Builder builder(DocumentStore store) {
+        return new Builder(store);
+    }
+
+    /** Name of the n-th segment file of a collection. */
+    static String segmentName(String collection, int n) {
+        return String.format("%s-%05d.seg", collection, n);
+    }
+
+    static Path checkpointFile(Path dir, String collection) {
+        return dir.resolve(collection + ".export");
+    }
+
+    /**
+     * Exports 'collection' into 'dir', resuming a previous run there.
+     * @throws StoreException if reading the store or writing the files fails; run again to resume.
+     */
+    public TransferStats export(String collection, Path dir) {
+        if (collection == null || collection.isBlank()) throw new IllegalArgumentException("collection empty");
+        Objects.requireNonNull(dir, "dir");
+        long started = System.nanoTime();
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new StoreException("Cannot create " + dir, e);
+        }
+        Path checkpointFile = checkpointFile(dir, collection);
+        Properties saved = TransferCheckpoint.load(checkpointFile);
+        if (saved != null && Boolean.parseBoolean(saved.getProperty(DONE))) {
+            return new TransferStats(0, 0, 0, Duration.ofNanos(System.nanoTime() - started), true);
+        }
+
+        int file = saved == null ? 0 : Integer.parseInt(saved.getProperty("file"));
+        String cursor = saved == null ? null : emptyToNull(saved.getProperty("cursor"));
+        long total = saved == null ? 0 : Long.parseLong(saved.getProperty("documents"));
+        SegmentWriter writer = saved == null
+                ? SegmentWriter.create(dir.resolve(segmentName(collection, 0)), compression)
+                : SegmentWriter.append(dir.resolve(segmentName(collection, file)), Long.parseLong(saved.getProperty("offset")), compression);
+
+        Prefetcher pages = new Prefetcher(collection, cursor);
+        pages.start();
+        long documents = 0;
+        long bytes = 0;
+        long base = writer.size();
+        int files = 1;
+        long lastCheckpoint = System.nanoTime();
+        try {
+            while (true) {
+                Page<Map<String, Object>> page = pages.take();
+                for (Map<String, Object> doc : page.items()) writer.add(doc);
+                documents += page.items().size();
+                if (writer.buffered() < blockSize && page.hasMore()) continue;
+
+                writer.flush();
+                if (!page.hasMore()) break;
+                boolean roll = writer.size() >= maxFileSize;
+                if (roll || System.nanoTime() - lastCheckpoint >= checkpointInterval.toNanos()) {
+                    if (roll) {
+                        writer.close();
+                        bytes += writer.size() - base;
+                        writer = SegmentWriter.create(dir.resolve(segmentName(collection, ++file)), compression);
+                        base = writer.size();
+                        files++;
+                    } else {
+                        writer.sync(); // blocks must be durable before the checkpoint points past them
+                    }
+                    save(checkpointFile, file, writer.size(), page.cursor(), total + documents, false);
+                    lastCheckpoint = System.nanoTime();
+                }
+            }
+            writer.close();
+            bytes += writer.size() - base;
+            save(checkpointFile, file, writer.size(), null, total + documents, true);
+        } catch (RuntimeException e) {
+            pages.stop();
+            try {
+                writer.close();
+            } catch (RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return new TransferStats(documents, bytes, files, Duration.ofNanos(System.nanoTime() - started), saved != null);
+    }
+
+    private static void save(Path checkpointFile, int file, long offset, String cursor, long documents, boolean done) {
+        Properties p = new Properties();
+        p.setProperty("file", Integer.toString(file));
+        p.setProperty("offset", Long.toString(offset));
+        p.setProperty("cursor", cursor == null ? "" : cursor);
+        p.setProperty("documents", Long.toString(documents));
+        p.setProperty(DONE, Boolean.toString(done));
+        TransferCheckpoint.save(checkpointFile, p);
+    }
+
+    private static String emptyToNull(String s) {
+        return s == null || s.isEmpty() ? null : s;
+    }
+
+    /** Reads pages ahead on a daemon thread; failures are rethrown by take(). */
+    private final class Prefetcher implements Runnable {
+        private final String collection;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(prefetch);
+        private final Thread thread;
+        private volatile String cursor;
+        private volatile boolean stopped;
+
+        Prefetcher(String collection, String cursor) {
+            this.collection = collection;
+            this.cursor = cursor;
+            this.thread = new Thread(this, "export-" + collection);
+            thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void stop() {
+            stopped = true;
+            thread.interrupt();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    Page<Map<String, Object>> page;
+                    try {
+                        page = store.listPage(collection, pageSize, cursor);
+                    } catch (RuntimeException e) {
+                        queue.put(e);
+                        return;
+                    }
+                    queue.put(page);
+                    if (!page.hasMore()) return;
+                    cursor = page.cursor();
+                }
+            } catch (InterruptedException e) {
+                // stopped
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Page<Map<String, Object>> take() {
+            Object o;
+            try {
+                o = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StoreException("Export interrupted", e);
+            }
+            if (o instanceof RuntimeException e) throw new StoreException("Export of " + collection + " failed", e);
+            return (Page<Map<String, Object>>) o;
+        }
+    }
+
+    public static final class Builder {
+        private final DocumentStore store;
+        private int pageSize = 1000;
+        private Compression compression = Compression.DEFLATE;
+        private int blockSize = 1 << 20;
+        private long maxFileSize = 1L << 30;
+        private int prefetch = 4;
+        private Duration checkpointInterval = Duration.ofSeconds(10);
+
+        private Builder(DocumentStore store) {
+            this.store = Objects.requireNonNull(store, "store");
+        }
+
+        /** Documents per listPage call. Default 1000. */
+        public Builder pageSize(int pageSize) {
+            if (pageSize < 1) throw new IllegalArgumentException("pageSize must be >= 1");
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /** Default DEFLATE. */
+        public Builder compression(Compression compression) {
+            this.compression = Objects.requireNonNull(compression, "compression");
+            return this;
+        }
+
+        /** Encoded bytes per block before it is compressed and written; at most 256 MiB. Default 1 MiB. */
+        public Builder blockSize(int blockSize) {
+            if (blockSize < 1024 || blockSize > 1 << 28) throw new IllegalArgumentException("blockSize must be between 1 KiB and 256 MiB");
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        /**
+         * Size at which the next segment file is started; at most 1 GiB. Default 1 GiB. A file
+         * ends up to one block past it, and must stay below the 2 GiB {@link SegmentReader} can map.
+         */
+        public Builder maxFileSize(long maxFileSize) {
+            if (maxFileSize < 1 << 16 || maxFileSize > 1L << 30) {
+                throw new IllegalArgumentException("maxFileSize must be between 64 KiB and 1 GiB");
+            }
+            this.maxFileSize = maxFileSize;
+            return this;
+        }
+
+        /** Pages read ahead of the writer. Default 4. */
+        public Builder prefetch(int prefetch) {
+            if (prefetch < 1) throw new IllegalArgumentException("prefetch must be >= 1");
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        /** How often progress is saved (each save syncs the current file). Default 10s. */
+        public Builder checkpointInterval(Duration checkpointInterval) {
+            this.checkpointInterval = Objects.requireNonNull(checkpointInterval, "checkpointInterval");
+            return this;
+        }
+
+        public CollectionExporter build() {
+            return new CollectionExporter(this);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package rs.uns.ftn.clouddbadapter.store.transfer;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.DocumentStore;
+import rs.uns.ftn.clouddbadapter.store.Throttling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Loads the segment files written by {@link CollectionExporter} into a collection of any
+ * DocumentStore (the same or another provider).
+ *
+ * Files are memory-mapped and their blocks handed to 'writers' threads without copying; each
+ * thread verifies, inflates and decodes its block and upserts the documents with putAll in
+ * batches. The batch size adapts: it grows while writes succeed and halves when the provider
+ * throttles, and throttled batches are retried after the provider's retry-after hint or an
+ * exponential backoff. At most two blocks per writer are in memory.
+ *
+ * Blocks finish out of order; the number of leading blocks completed per file (and the
+ * documents in them) is saved to "<collection>.import" every 'checkpointInterval', and
+ * running the import again resumes after them. Writes are upserts, so blocks replayed after
+ * a crash are harmless. Once every block is in, the documents imported over all runs must
+ * add up to the count in the export's checkpoint, or the import fails.
+ *
+ * Example:
+ *   TransferStats s = CollectionImporter.builder(DocumentStoreFactory.from(Provider.AZURE))
+ *       .writers(16)
+ *       .build()
+ *       .importFrom(Path.of("/data/export"), "users");
+ */
+public final class CollectionImporter {
+
+    private final DocumentStore store;
+    private final int writers;
+    private final int initialBatch;
+    private final int maxBatch;
+    private final int maxRetries;
+    private final Duration maxBackoff;
+    private final Duration checkpointInterval;
+
+    private CollectionImporter(Builder b) {
+        this.store = b.store;
+        this.writers = b.writers;
+        this.initialBatch = b.initialBatch;
+        this.maxBatch = b.maxBatch;
+        this.maxRetries = b.maxRetries;
+        this.maxBackoff = b.maxBackoff;
+        this.checkpointInterval = b.checkpointInterval;
+    }
+
+    public static Builder builder(DocumentStore store) {
+        return new Builder(store);
+    }
+
+    /** Imports the export of 'collection' in 'dir' into the collection of the same name. */
+    public TransferStats importFrom(Path dir, String collection) {
+        return importFrom(dir, collection, collection);
+    }
+
+    /**
+     * Imports the export of 'exported' in 'dir' into 'collection', resuming a previous run.
+     * @throws StoreException if the export is unfinished or corrupt, or a write keeps failing;
+     *         run again to resume.
+     */
+    public TransferStats importFrom(Path dir, String exported, String collection) {
+        if (collection == null || collection.isBlank()) throw new IllegalArgumentException("collection empty");
+        if (exported == null || exported.isBlank()) throw new IllegalArgumentException("exported empty");
+        Objects.requireNonNull(dir, "dir");
+        long started = System.nanoTime();
+
+        Properties export = TransferCheckpoint.load(CollectionExporter.checkpointFile(dir, exported));
+        if (export != null && !Boolean.parseBoolean(export.getProperty(CollectionExporter.DONE))) {
+            throw new StoreException("Export of " + exported + " in " + dir + " is not finished");
+        }
+        List<Path> files = segments(dir, exported);
+        Path checkpointFile = dir.resolve(collection + ".import");
+        Properties saved = TransferCheckpoint.load(checkpointFile);
+        Progress progress = new Progress(checkpointFile, saved);
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers, r -> {
+            Thread t = new Thread(r, "import-" + collection);
+            t.setDaemon(true);
+            return t;
+        });
+        Semaphore inFlight = new Semaphore(writers * 2);
+        BatchSize batch = new BatchSize(initialBatch, maxBatch);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicLong documents = new AtomicLong();
+        long bytes = 0;
+        int touched = 0;
+        try {
+            for (Path file : files) {
+                if (failure.get() != null) break;
+                String name = file.getFileName().toString();
+                int skip = progress.completed(name);
+                SegmentReader reader = SegmentReader.open(file);
+                // the file is unmapped once this loop and every block handed out are done with it
+                AtomicInteger users = new AtomicInteger(1);
+                boolean any = false;
+                try {
+                    for (SegmentReader.Block block; (block = reader.next()) != null && failure.get() == null; ) {
+                        if (block.index() < skip) continue;
+                        any = true;
+                        bytes += block.data().remaining();
+                        inFlight.acquireUninterruptibly();
+                        SegmentReader.Block b = block;
+                        users.incrementAndGet();
+                        pool.execute(() -> {
+                            try {
+                                List<Map<String, Object>> docs = b.documents();
+                                write(collection, docs, batch);
+                                documents.addAndGet(docs.size());
+                                progress.done(name, b.index(), docs.size());
+                            } catch (Throwable t) {
+                                failure.compareAndSet(null, t);
+                            } finally {
+                                if (users.decrementAndGet() == 0) reader.close();
+                                inFlight.release();
+                            }
+                        });
+                    }
+                    if (reader.torn()) failure.compareAndSet(null, new StoreException("Segment file ends in an incomplete block: " + file));
+                } finally {
+                    if (users.decrementAndGet() == 0) reader.close();
+                }
+                if (any) touched++;
+            }
+            inFlight.acquireUninterruptibly(writers * 2); // every submitted block has finished
+        } finally {
+            pool.shutdownNow();
+            progress.save();
+        }
+        Throwable t = failure.get();
+        if (t != null) {
+            if (t instanceof StoreException se) throw se;
+            throw new StoreException("Import of " + exported + " into " + collection + " failed", t);
+        }
+        long imported = progress.documents();
+        String expected = export == null ? null : export.getProperty("documents");
+        if (imported >= 0 && expected != null && imported != Long.parseLong(expected)) {
+            throw new StoreException("Imported " + imported + " documents of " + exported + " but the export holds " + expected
+                    + "; the segment files do not match the export checkpoint");
+        }
+        progress.finish();
+        return new TransferStats(documents.get(), bytes, touched, Duration.ofNanos(System.nanoTime() - started), saved != null);
+    }
+
+    private static List<Path> segments(Path dir, String exported) {
+        String prefix = exported + "-";
+        try (Stream<Path> s = Files.list(dir)) {
+            List<Path> files = s.filter(p -> {
+                String n = p.getFileName().toString();
+                return n.startsWith(prefix) && n.endsWith(".seg") && n.substring(prefix.length(), n.length() - 4).chars().allMatch(Character::isDigit);
+            }).sorted().toList();
+            if (files.isEmpty()) throw new StoreException("No segment files of " + exported + " in " + dir);
+            return files;
+        } catch (IOException e) {
+            throw new StoreException("Cannot list " + dir, e);
+        }
+    }
+
+    private void write(String collection, List<Map<String, Object>> docs, BatchSize batch) {
+        int i = 0;
+        int attempt = 0;
+        while (i < docs.size()) {
+            int n = Math.min(batch.get(), docs.size() - i);
+            Map<String, Map<String, Object>> chunk = new LinkedHashMap<>((int) (n / 0.75f) + 1);
+            for (Map<String, Object> doc : docs.subList(i, i + n)) {
+                Object id = doc.get("id");
+                if (id == null) throw new StoreException("Exported document without id in " + collection);
+                chunk.put(id.toString(), doc);
+            }
+            try {
+                store.putAll(collection, chunk);
+            } catch (RuntimeException e) {
+                if (!Throttling.isThrottle(e) || ++attempt > maxRetries) throw e;
+                batch.throttled();
+                sleep(backoff(e, attempt));
+                continue;
+            }
+            batch.succeeded();
+            attempt = 0;
+            i += n;
+        }
+    }
+
+    private Duration backoff(Throwable e, int attempt) {
+        Duration hint = Throttling.retryAfter(e);
+        if (hint != null) return hint;
+        long cap = Math.min(maxBackoff.toMillis(), 50L << Math.min(attempt, 16));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap / 2, cap + 1));
+    }
+
+    private static void sleep(Duration d) {
+        try {
+            Thread.sleep(d.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreException("Import interrupted", e);
+        }
+    }
+
+    /** putAll batch size shared by the writers: additive increase, halved on throttling. */
+    private static final class BatchSize {
+        private final int max;
+        private final AtomicInteger size;
+
+        BatchSize(int initial, int max) {
+            this.max = max;
+            this.size = new AtomicInteger(initial);
+        }
+
+        int get() {
+            return size.get();
+        }
+
+        void succeeded() {
+            size.updateAndGet(s -> Math.min(max, s + Math.max(1, s / 8)));
+        }
+
+        void throttled() {
+            size.updateAndGet(s -> Math.max(1, s / 2));
+        }
+    }
+
+    /**
+     * Completed blocks per file and the documents in them; only the leading run of completed
+     * blocks is saved, as "<file>" = blocks and "<file>.documents" = their documents.
+     */
+    private final class Progress {
+        private static final String DOCUMENTS = ".documents";
+
+        private final Path file;
+        private final Map<String, Integer> completed = new HashMap<>();
+        private final Map<String, Long> counted = new HashMap<>();
+        /** Per file: documents of the blocks done ahead of the leading run, by block index. */
+        private final Map<String, Map<Integer, Integer>> ahead = new HashMap<>();
+        private long lastSave = System.nanoTime();
+
+        Progress(Path file, Properties saved) {
+            this.file = file;
+            if (saved == null) return;
+            for (String k : saved.stringPropertyNames()) {
+                if (k.endsWith(DOCUMENTS)) counted.put(k.substring(0, k.length() - DOCUMENTS.length()), Long.parseLong(saved.getProperty(k)));
+                else completed.put(k, Integer.parseInt(saved.getProperty(k)));
+            }
+        }
+
+        synchronized int completed(String segment) {
+            return completed.getOrDefault(segment, 0);
+        }
+
+        synchronized void done(String segment, int block, int documents) {
+            int next = completed.getOrDefault(segment, 0);
+            long count = counted.getOrDefault(segment, 0L);
+            Map<Integer, Integer> later = ahead.computeIfAbsent(segment, k -> new HashMap<>());
+            later.put(block, documents);
+            for (Integer n; (n = later.remove(next)) != null; next++) count += n;
+            completed.put(segment, next);
+            counted.put(segment, count);
+            if (System.nanoTime() - lastSave >= checkpointInterval.toNanos()) save();
+        }
+
+        /** Documents in the completed blocks of every file, or -1 if a checkpoint did not record them. */
+        synchronized long documents() {
+            long total = 0;
+            for (Map.Entry<String, Integer> e : completed.entrySet()) {
+                Long n = counted.get(e.getKey());
+                if (n == null) {
+                    if (e.getValue() > 0) return -1;
+                } else {
+                    total += n;
+                }
+            }
+            return total;
+        }
+
+        synchronized void save() {
+            Properties p = new Properties();
+            completed.forEach((k, v) -> p.setProperty(k, Integer.toString(v)));
+            counted.forEach((k, v) -> p.setProperty(k + DOCUMENTS, Long.toString(v)));
+            TransferCheckpoint.save(file, p);
+            lastSave = System.nanoTime();
+        }
+
+        /** The import is complete: a later run starts over. */
+        synchronized void finish() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new StoreException("Cannot remove checkpoint " + file, e);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final DocumentStore store;
+        private int writers = 8;
+        private int initialBatch = 100;
+        private int maxBatch = 1000;
+        private int maxRetries = 10;
+        private Duration maxBackoff = Duration.ofSeconds(10);
+        private Duration checkpointInterval = Duration.ofSeconds(10);
+
+        private Builder(DocumentStore store) {
+            this.store = Objects.requireNonNull(store, "store");
+        }
+
+        /** Concurrent putAll calls. Default 8. */
+        public Builder writers(int writers) {
+            if (writers < 1) throw new IllegalArgumentException("writers must be >= 1");
+            this.writers = writers;
+            return this;
+        }
+
+        /** Starting and largest putAll batch sizes. Default 100 and 1000. */
+        public Builder batchSize(int initial, int max) {
+            if (initial < 1 || max < initial) throw new IllegalArgumentException("need 1 <= initial <= max");
+            this.initialBatch = initial;
+            this.maxBatch = max;
+            return this;
+        }
+
+        /** Retries of a throttled batch before the import fails. Default 10. */
+        public Builder maxRetries(int maxRetries) {
+            if (maxRetries < 0) throw new IllegalArgumentException("maxRetries must be >= 0");
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /** Cap of the backoff between retries when the provider gives no hint. Default 10s. */
+        public Builder maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = Objects.requireNonNull(maxBackoff, "maxBackoff");
+            return this;
+        }
+
+        /** How often progress is saved. Default 10s. */
+        public Builder checkpointInterval(Duration checkpointInterval) {
+            this.checkpointInterval = Objects.requireNonNull(checkpointInterval, "checkpointInterval");
+            return this;
+        }
+
+        public CollectionImporter build() {
+            return new CollectionImporter(this);
+        }
+    }
+}
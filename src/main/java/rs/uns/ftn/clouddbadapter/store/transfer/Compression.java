@@ -0,0 +1,11 @@
+package rs.uns.ftn.clouddbadapter.store.transfer;
+
+/**
+ * Block compression of segment files. Blocks that do not shrink are stored as is, so
+ * DEFLATE costs nothing on already-compressed data beyond the attempt.
+ */
+public enum Compression {
+    NONE,
+    /** java.util.zip deflate at BEST_SPEED: typically 3-5x smaller for JSON-like documents. */
+    DEFLATE
+}
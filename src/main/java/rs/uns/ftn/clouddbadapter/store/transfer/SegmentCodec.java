@@ -0,0 +1,228 @@
+package rs.uns.ftn.clouddbadapter.store.transfer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of documents in segment files: a tag byte per value, varint
+ * lengths and zigzag varint integers. Covers the value types the adapters return (strings,
+ * numbers, booleans, null, binary, lists/sets and nested maps); anything else is written as
+ * its toString(). Also the payload format of compressed fields (CompressingDocumentStore).
+ */
+public final class SegmentCodec {
+
+    private static final byte NULL = 0, FALSE = 1, TRUE = 2, INT = 3, LONG = 4, DOUBLE = 5,
+            STRING = 6, BYTES = 7, LIST = 8, MAP = 9, DECIMAL = 10, BIG_INTEGER = 11;
+
+    private SegmentCodec() {}
+
+    /** Growable byte array the records of a block are encoded into. */
+    static final class Buf {
+        byte[] bytes;
+        int size;
+
+        Buf(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void writeVarint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        void writeLong(long v) {
+            ensure(8);
+            for (int i = 56; i >= 0; i -= 8) bytes[size++] = (byte) (v >>> i);
+        }
+
+        void writeBytes(byte[] b) {
+            writeVarint(b.length);
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+    }
+
+    /** Appends one record: varint length followed by the encoded document ('scratch' is reused). */
+    static void writeRecord(Buf out, Buf scratch, Map<String, Object> doc) {
+        scratch.reset();
+        writeMap(scratch, doc);
+        out.writeVarint(scratch.size);
+        out.ensure(scratch.size);
+        System.arraycopy(scratch.bytes, 0, out.bytes, out.size, scratch.size);
+        out.size += scratch.size;
+    }
+
+    /** Encodes one document. */
+    public static byte[] encode(Map<String, Object> document) {
+        Buf out = new Buf(256);
+        writeMap(out, document);
+        return Arrays.copyOf(out.bytes, out.size);
+    }
+
+    /** Inverse of {@link #encode(Map)}. */
+    public static Map<String, Object> decode(ByteBuffer in) {
+        if (in.get() != MAP) throw new IllegalStateException("Corrupt document");
+        return readMap(in);
+    }
+
+    /** Reads every record of a decoded block. */
+    static List<Map<String, Object>> readRecords(ByteBuffer in) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        while (in.hasRemaining()) {
+            int length = (int) readVarint(in);
+            int end = in.position() + length;
+            in.get(); // MAP tag
+            out.add(readMap(in));
+            if (in.position() != end) throw new IllegalStateException("Corrupt record");
+        }
+        return out;
+    }
+
+    private static void writeMap(Buf out, Map<?, ?> map) {
+        out.writeByte(MAP);
+        out.writeVarint(map.size());
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            out.writeBytes(String.valueOf(e.getKey()).getBytes(StandardCharsets.UTF_8));
+            writeValue(out, e.getValue());
+        }
+    }
+
+    private static void writeValue(Buf out, Object v) {
+        if (v == null) {
+            out.writeByte(NULL);
+        } else if (v instanceof String s) {
+            out.writeByte(STRING);
+            out.writeBytes(s.getBytes(StandardCharsets.UTF_8));
+        } else if (v instanceof Boolean b) {
+            out.writeByte(b ? TRUE : FALSE);
+        } else if (v instanceof Integer || v instanceof Short || v instanceof Byte) {
+            out.writeByte(INT);
+            out.writeVarint(zigzag(((Number) v).longValue()));
+        } else if (v instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeVarint(zigzag(l));
+        } else if (v instanceof Double || v instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(((Number) v).doubleValue()));
+        } else if (v instanceof BigDecimal d) {
+            out.writeByte(DECIMAL);
+            out.writeBytes(d.toString().getBytes(StandardCharsets.UTF_8));
+        } else if (v instanceof BigInteger i) {
+            out.writeByte(BIG_INTEGER);
+            out.writeBytes(i.toByteArray());
+        } else if (v instanceof byte[] b) {
+            out.writeByte(BYTES);
+            out.writeBytes(b);
+        } else if (v instanceof ByteBuffer b) {
+            byte[] copy = new byte[b.remaining()];
+            b.duplicate().get(copy);
+            out.writeByte(BYTES);
+            out.writeBytes(copy);
+        } else if (v instanceof Map<?, ?> m) {
+            writeMap(out, m);
+        } else if (v instanceof Collection<?> c) {
+            out.writeByte(LIST);
+            out.writeVarint(c.size());
+            for (Object o : c) writeValue(out, o);
+        } else {
+            out.writeByte(STRING);
+            out.writeBytes(v.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case FALSE -> Boolean.FALSE;
+            case TRUE -> Boolean.TRUE;
+            case INT -> (int) unzigzag(readVarint(in));
+            case LONG -> unzigzag(readVarint(in));
+            case DOUBLE -> Double.longBitsToDouble(in.getLong());
+            case STRING -> readString(in);
+            case DECIMAL -> new BigDecimal(readString(in));
+            case BIG_INTEGER -> new BigInteger(readBytes(in));
+            case BYTES -> readBytes(in);
+            case MAP -> readMap(in);
+            case LIST -> {
+                int n = (int) readVarint(in);
+                List<Object> list = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) list.add(readValue(in));
+                yield list;
+            }
+            default -> throw new IllegalStateException("Corrupt record: unknown tag " + tag);
+        };
+    }
+
+    private static Map<String, Object> readMap(ByteBuffer in) {
+        int n = (int) readVarint(in);
+        Map<String, Object> map = new HashMap<>((int) (n / 0.75f) + 1);
+        for (int i = 0; i < n; i++) {
+            String key = readString(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int n = (int) readVarint(in);
+        if (in.hasArray()) {
+            String s = new String(in.array(), in.arrayOffset() + in.position(), n, StandardCharsets.UTF_8);
+            in.position(in.position() + n);
+            return s;
+        }
+        byte[] b = new byte[n];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] b = new byte[(int) readVarint(in)];
+        in.get(b);
+        return b;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IllegalStateException("Corrupt record: varint too long");
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
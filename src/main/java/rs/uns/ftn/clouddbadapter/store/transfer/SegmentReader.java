@@ -0,0 +1,152 @@
+package rs.uns.ftn.clouddbadapter.store.transfer;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the blocks of a segment file written by {@link SegmentWriter}.
+ *
+ * The file is memory-mapped: {@link #next()} only slices the mapping, so handing blocks to
+ * other threads copies nothing, and each {@link Block} is verified, inflated and decoded by
+ * whoever calls {@link Block#documents()}. A torn block at the end of the file (an export
+ * that crashed mid-write) ends the iteration.
+ *
+ * A file is one mapping, so it can be at most 2 GiB (the largest ByteBuffer). The exporter
+ * relies on that: {@link CollectionExporter.Builder#maxFileSize} is capped at 1 GiB and a file
+ * only overshoots it by its last block (at most 256 MiB). Raising either cap past that needs
+ * this reader to map files in windows.
+ *
+ * {@link #close()} unmaps the file right away instead of whenever the mapping is collected;
+ * neither the reader nor any block it returned may be used after that.
+ */
+public final class SegmentReader implements AutoCloseable {
+
+    /** sun.misc.Unsafe.invokeCleaner bound to the Unsafe instance, or null if unavailable. */
+    private static final MethodHandle UNMAP = unmapper();
+
+    /** One block of a segment file; 'data' is a read-only view of the mapped stored bytes. */
+    public record Block(Path file, int index, ByteBuffer data, int rawLength, int crc) {
+
+        /** Verifies the checksum and decodes the block's documents. */
+        public List<Map<String, Object>> documents() {
+            ByteBuffer stored = data.duplicate();
+            CRC32C c = new CRC32C();
+            c.update(stored.duplicate());
+            if ((int) c.getValue() != crc) throw new StoreException("Checksum mismatch in block " + index + " of " + file);
+            ByteBuffer raw = stored;
+            if (stored.remaining() != rawLength) {
+                raw = ByteBuffer.allocate(rawLength);
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(stored);
+                    while (raw.hasRemaining() && !inflater.finished()) {
+                        if (inflater.inflate(raw) == 0 && inflater.needsInput()) break;
+                    }
+                } catch (DataFormatException e) {
+                    throw new StoreException("Corrupt block " + index + " of " + file, e);
+                } finally {
+                    inflater.end();
+                }
+                if (raw.hasRemaining()) throw new StoreException("Corrupt block " + index + " of " + file);
+                raw.flip();
+            }
+            try {
+                return SegmentCodec.readRecords(raw);
+            } catch (RuntimeException e) {
+                throw new StoreException("Corrupt block " + index + " of " + file, e);
+            }
+        }
+    }
+
+    private final Path file;
+    private MappedByteBuffer map;
+    private int index;
+    private boolean torn;
+
+    private SegmentReader(Path file, MappedByteBuffer map) {
+        this.file = file;
+        this.map = map;
+    }
+
+    public static SegmentReader open(Path file) {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new StoreException("Segment file larger than 2 GiB: " + file);
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size); // stays valid after close
+            if (size < SegmentWriter.HEADER || map.getInt(0) != SegmentWriter.MAGIC) {
+                throw new StoreException("Not a segment file: " + file);
+            }
+            if (map.get(4) != SegmentWriter.VERSION) throw new StoreException("Unsupported segment format " + map.get(4) + ": " + file);
+            map.position(SegmentWriter.HEADER);
+            return new SegmentReader(file, map);
+        } catch (IOException e) {
+            throw new StoreException("Cannot open segment file " + file, e);
+        }
+    }
+
+    /** The next block, or null at the end of the file. */
+    public Block next() {
+        if (map == null) throw new IllegalStateException("Segment reader closed: " + file);
+        if (map.remaining() < SegmentWriter.BLOCK_HEADER) {
+            torn |= map.hasRemaining();
+            return null;
+        }
+        int at = map.position();
+        int raw = map.getInt(at);
+        int stored = map.getInt(at + 4);
+        int crc = map.getInt(at + 8);
+        if (stored < 0 || raw < 0 || stored > map.remaining() - SegmentWriter.BLOCK_HEADER) {
+            torn = true;
+            map.position(map.limit());
+            return null;
+        }
+        ByteBuffer data = map.slice(at + SegmentWriter.BLOCK_HEADER, stored).asReadOnlyBuffer();
+        map.position(at + SegmentWriter.BLOCK_HEADER + stored);
+        return new Block(file, index++, data, raw, crc);
+    }
+
+    /** True if the file ended in an incomplete block. */
+    public boolean torn() {
+        return torn;
+    }
+
+    @Override
+    public synchronized void close() {
+        MappedByteBuffer m = map;
+        map = null;
+        if (m == null || UNMAP == null) return; // left to the garbage collector
+        try {
+            UNMAP.invokeExact((ByteBuffer) m);
+        } catch (Throwable ignored) {
+            // the mapping is released when collected
+        }
+    }
+
+    private static MethodHandle unmapper() {
+        try {
+            Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+            Field f = unsafe.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafe, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(f.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
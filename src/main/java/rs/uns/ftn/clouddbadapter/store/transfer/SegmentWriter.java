@@ -0,0 +1,161 @@
+package rs.uns.ftn.clouddbadapter.store.transfer;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+
+/**
+ * Writes documents to a segment file.
+ *
+ * Layout: a 6 byte header (magic "CDBS", format version, compression) followed by blocks.
+ * A block is a 12 byte header (raw length, stored length, CRC32C of the stored bytes) and the
+ * stored bytes: the block's records, deflated when that made them smaller. A record is a
+ * varint length followed by one encoded document (see SegmentCodec). Blocks are
+ * independent, so readers can decode them in parallel and a torn last block is detected by
+ * its length.
+ *
+ * Documents are buffered until {@link #flush()}; callers flush at page boundaries so a
+ * checkpoint never points into the middle of a block.
+ */
+public final class SegmentWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x43444253; // "CDBS"
+    static final byte VERSION = 1;
+    static final int HEADER = 6;
+    static final int BLOCK_HEADER = 12;
+
+    private final FileChannel channel;
+    private final Compression compression;
+    private final SegmentCodec.Buf block = new SegmentCodec.Buf(1 << 16);
+    private final SegmentCodec.Buf scratch = new SegmentCodec.Buf(1 << 12);
+    private final CRC32C crc = new CRC32C();
+    private Deflater deflater;
+    private byte[] deflated = new byte[0];
+    private int documents; // buffered, not yet flushed
+    private long size;
+
+    private SegmentWriter(FileChannel channel, Compression compression, long size) {
+        this.channel = channel;
+        this.compression = compression;
+        this.size = size;
+    }
+
+    /** Creates (or overwrites) a segment file. */
+    public static SegmentWriter create(Path file, Compression compression) {
+        try {
+            FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).put(VERSION).put((byte) compression.ordinal()).flip();
+            while (header.hasRemaining()) ch.write(header);
+            return new SegmentWriter(ch, compression, HEADER);
+        } catch (IOException e) {
+            throw new StoreException("Cannot create segment file " + file, e);
+        }
+    }
+
+    /**
+     * Reopens a segment file to append after its first 'validLength' bytes (a flushed size
+     * recorded in a checkpoint); anything written after that is discarded.
+     */
+    public static SegmentWriter append(Path file, long validLength, Compression compression) {
+        try {
+            FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE);
+            ch.truncate(validLength);
+            ch.position(validLength);
+            return new SegmentWriter(ch, compression, validLength);
+        } catch (IOException e) {
+            throw new StoreException("Cannot reopen segment file " + file, e);
+        }
+    }
+
+    /** Buffers one document. */
+    public void add(Map<String, Object> document) {
+        SegmentCodec.writeRecord(block, scratch, document);
+        documents++;
+    }
+
+    /** Encoded bytes buffered since the last flush. */
+    public int buffered() {
+        return block.size;
+    }
+
+    /** Documents buffered since the last flush. */
+    public int bufferedDocuments() {
+        return documents;
+    }
+
+    /** Writes the buffered documents as one block and returns the file size. */
+    public long flush() {
+        if (block.size == 0) return size;
+        byte[] stored = block.bytes;
+        int storedLength = block.size;
+        if (compression == Compression.DEFLATE) {
+            if (deflater == null) deflater = new Deflater(Deflater.BEST_SPEED);
+            if (deflated.length < block.size) deflated = new byte[block.size];
+            deflater.reset();
+            deflater.setInput(block.bytes, 0, block.size);
+            deflater.finish();
+            int n = deflater.deflate(deflated, 0, deflated.length);
+            if (deflater.finished() && n < block.size) { // otherwise stored as is
+                stored = deflated;
+                storedLength = n;
+            }
+        }
+        crc.reset();
+        crc.update(stored, 0, storedLength);
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER).putInt(block.size).putInt(storedLength).putInt((int) crc.getValue()).flip();
+        try {
+            write(header);
+            write(ByteBuffer.wrap(stored, 0, storedLength));
+        } catch (IOException e) {
+            throw new StoreException("Segment write failed", e);
+        }
+        size += BLOCK_HEADER + storedLength;
+        block.reset();
+        documents = 0;
+        return size;
+    }
+
+    /** Bytes written to the file so far (excluding buffered documents). */
+    public long size() {
+        return size;
+    }
+
+    private void write(ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) channel.write(b);
+    }
+
+    /** Flushes, syncs the file to disk and closes it. */
+    @Override
+    public void close() {
+        try {
+            flush();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new StoreException("Segment sync failed", e);
+        } finally {
+            if (deflater != null) deflater.end();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // data was forced already
+            }
+        }
+    }
+
+    /** Syncs flushed blocks to disk, before a checkpoint that refers to them is saved. */
+    void sync() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new StoreException("Segment sync failed", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package rs.uns.ftn.clouddbadapter.store.transfer;
+
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Progress file of an export or import, next to the segment files. Replaced atomically,
+ * so a crash leaves either the previous or the new checkpoint.
+ */
+final class TransferCheckpoint {
+
+    private TransferCheckpoint() {}
+
+    /** The saved checkpoint, or null if there is none. */
+    static Properties load(Path file) {
+        if (!Files.exists(file)) return null;
+        Properties p = new Properties();
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            p.load(r);
+            return p;
+        } catch (IOException e) {
+            throw new StoreException("Cannot read checkpoint " + file, e);
+        }
+    }
+
+    static void save(Path file, Properties p) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                p.store(w, null);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new StoreException("Cannot write checkpoint " + file, e);
+        }
+    }
+}
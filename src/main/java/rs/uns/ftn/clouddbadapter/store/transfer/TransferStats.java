@@ -0,0 +1,20 @@
+package rs.uns.ftn.clouddbadapter.store.transfer;
+
+import java.time.Duration;
+
+/**
+ * Outcome of an export or import run.
+ *
+ * @param documents documents transferred by this run (not counting a resumed run's earlier part)
+ * @param bytes     segment bytes written (export) or read (import) by this run
+ * @param files     segment files touched
+ * @param resumed   true if the run continued from a checkpoint
+ */
+public record TransferStats(long documents, long bytes, int files, Duration elapsed, boolean resumed) {
+
+    /** Documents per second. */
+    public double throughput() {
+        long millis = Math.max(1, elapsed.toMillis());
+        return documents * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,28 @@
+package rs.uns.ftn.clouddbadapter.core;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRegistryTest {
+
+    @Test
+    void dynamoClientsAreSharedPerCredentials() {
+        try (ClientRegistry registry = new ClientRegistry(ClientSettings.defaults())) {
+            DynamoDbClient a = registry.dynamo("us-east-1", "AKIA1", "secret-1");
+            assertSame(a, registry.dynamo("us-east-1", "AKIA1", "secret-1"));
+            assertNotSame(a, registry.dynamo("us-east-1", "AKIA1", "secret-2")); // rotated secret
+            assertNotSame(a, registry.dynamo("us-east-1", "AKIA2", "secret-1"));
+            assertNotSame(a, registry.dynamo("eu-west-1", "AKIA1", "secret-1"));
+        }
+    }
+
+    @Test
+    void closedRegistryRejectsLookups() {
+        ClientRegistry registry = new ClientRegistry(ClientSettings.defaults());
+        registry.dynamo("us-east-1", "AKIA1", "secret-1");
+        registry.close();
+        assertThrows(IllegalStateException.class, () -> registry.dynamo("us-east-1", "AKIA1", "secret-1"));
+    }
+}
@@ -0,0 +1,108 @@
+package rs.uns.ftn.clouddbadapter.entity;
+
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.orm.SimpleEntityManager;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityMapperTest {
+
+    @Entity(collection = "people")
+    record Person(@Id String id, String name, int age, List<String> tags) {}
+
+    @Entity(collection = "people")
+    record VersionedPerson(@Id String id, @Version String version) {}
+
+    /** Gets a generated mapper (the processor runs on the test sources). */
+    @Entity(collection = "counters")
+    static class Counter {
+        @Id long id;
+        int hits;
+    }
+
+    /** Mapped reflectively: no @Entity, so no generated mapper is looked up. */
+    static class PlainCounter {
+        @Id long id;
+        int hits;
+    }
+
+    /** Projection class with a final field, written through its setter handle like any other. */
+    static final class Frozen {
+        final String name;
+        int age;
+
+        Frozen() {
+            this.name = "unset";
+        }
+    }
+
+    @Test
+    void recordsAreBuiltThroughTheCanonicalConstructor() {
+        Person p = new Person("p1", "Ana", 41, List.of("a"));
+        assertEquals("people", EntityMapper.collection(Person.class));
+        assertEquals("p1", EntityMapper.idValue(p));
+        assertEquals(Map.of("id", "p1", "name", "Ana", "age", 41, "tags", List.of("a")), EntityMapper.toMap(p));
+
+        Map<String, Object> stored = new HashMap<>(EntityMapper.toMap(p));
+        stored.put("age", 41L); // stores hand numbers back as Long
+        stored.put("extra", true);
+        assertEquals(p, EntityMapper.fromMap(Person.class, stored));
+
+        Person partial = EntityMapper.fromMap(Person.class, Map.of("id", "p2"));
+        assertEquals(new Person("p2", null, 0, null), partial); // primitive components default
+    }
+
+    @Test
+    void recordsRoundTripThroughTheEntityManager() {
+        SimpleEntityManager em = new SimpleEntityManager(new InMemoryStore());
+        Person p = new Person("p1", "Ana", 41, List.of("a", "b"));
+        em.save(p);
+        assertEquals(p, em.find(Person.class, "p1").orElseThrow());
+    }
+
+    @Test
+    void recordIdsCannotBeAssigned() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> EntityMapper.setId(new Person(null, "Ana", 1, null), "p1"));
+        assertTrue(e.getCause().getMessage().contains("record"), e.getCause().getMessage());
+    }
+
+    @Test
+    void versionedRecordsAreRejected() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> EntityMapper.isVersioned(VersionedPerson.class));
+        assertTrue(e.getMessage().contains("@Version"), e.getMessage());
+    }
+
+    @Test
+    void finalFieldsAreMapped() {
+        assertEquals(Set.of("name", "age"), EntityMapper.fieldNames(Frozen.class));
+        Frozen f = EntityMapper.fromMap(Frozen.class, Map.of("name", "Ana", "age", 41L));
+        assertEquals("Ana", f.name);
+        assertEquals(41, f.age);
+        assertEquals(Map.of("name", "Ana", "age", 41), EntityMapper.toMap(f));
+    }
+
+    @Test
+    void nullLeavesAPrimitiveIdUnchanged() {
+        assertNotNull(EntityMetadata.of(Counter.class).mapper);
+        Counter c = new Counter();
+        EntityMapper.setId(c, null);
+        assertEquals(0, c.id);
+        EntityMapper.setId(c, "42");
+        assertEquals(42, c.id);
+        EntityMapper.setId(c, null);
+        assertEquals(42, c.id);
+        assertEquals("42", EntityMapper.idValue(c));
+
+        assertNull(EntityMetadata.of(PlainCounter.class).mapper);
+        PlainCounter p = new PlainCounter();
+        EntityMapper.setId(p, "7");
+        EntityMapper.setId(p, null);
+        assertEquals(7, p.id);
+    }
+}
@@ -0,0 +1,113 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaseAdapterTest {
+
+    private final InMemoryStore store = new InMemoryStore();
+
+    @Test
+    void batchCallsValidateTheCollectionEvenWhenEmpty() {
+        assertThrows(IllegalArgumentException.class, () -> store.putAll(null, Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> store.putAll(" ", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> store.getAll(null, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> store.deleteAll("", List.of("a")));
+        assertThrows(IllegalArgumentException.class, () -> store.putAll("c", null));
+        assertThrows(IllegalArgumentException.class, () -> store.putAll("c", Map.of("", Map.of())));
+    }
+
+    @Test
+    void batchRoundTrip() {
+        store.putAll("c", Map.of("a", Map.of("n", 1), "b", Map.of("n", 2)));
+        Map<String, Map<String, Object>> found = store.getAll("c", List.of("a", "b", "a", "missing"));
+        assertEquals(Set.of("a", "b"), found.keySet());
+        assertEquals(2, found.get("b").get("n"));
+        store.deleteAll("c", List.of("a", "missing"));
+        assertEquals(Set.of("b"), store.getAll("c", List.of("a", "b")).keySet());
+    }
+
+    @Test
+    void parallelScanVisitsEverySegment() {
+        for (int i = 0; i < 25; i++) store.create("c", "d" + i, Map.of("n", i));
+        Set<Object> seen = ConcurrentHashMap.newKeySet();
+        store.parallelScan("c", 4, 3, (segment, page) -> page.forEach(d -> seen.add(d.get("id"))));
+        assertEquals(25, seen.size());
+    }
+
+    @Test
+    void firstFailingSegmentCancelsTheOthers() {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        InMemoryStore failing = new InMemoryStore() {
+            @Override
+            protected List<Function<String, Page<Map<String, Object>>>> doSegments(String c, int segments, int pageSize) {
+                return List.of(
+                        cursor -> { // never finishes on its own
+                            started.countDown();
+                            try {
+                                Thread.sleep(60_000);
+                            } catch (InterruptedException e) {
+                                interrupted.countDown();
+                            }
+                            return new Page<>(List.of(), null);
+                        },
+                        cursor -> {
+                            try {
+                                started.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            throw new StoreException("segment 1 failed");
+                        });
+            }
+        };
+        StoreException e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(StoreException.class, () -> failing.parallelScan("c", 2, 10, (s, p) -> {})));
+        assertEquals("segment 1 failed", e.getMessage());
+        assertDoesNotThrow(() -> assertTrue(interrupted.await(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void defaultPatchRetriesWhenAWriteSlipsIn() {
+        AtomicBoolean raced = new AtomicBoolean();
+        InMemoryStore racing = new InMemoryStore() {
+            @Override
+            protected String doCompareAndSet(String c, String id, Map<String, Object> d, String expectedVersion) {
+                if (raced.compareAndSet(false, true)) doUpdate(c, id, Map.of("n", 10, "other", "kept"));
+                return super.doCompareAndSet(c, id, d, expectedVersion);
+            }
+        };
+        racing.create("c", "a", Map.of("n", 1));
+        racing.patch("c", "a", Map.of("n", PatchOp.increment(1), "m", "x"));
+        Map<String, Object> doc = racing.getById("c", "a").orElseThrow();
+        assertEquals(11L, ((Number) doc.get("n")).longValue());
+        assertEquals("kept", doc.get("other"));
+        assertEquals("x", doc.get("m"));
+        assertThrows(BaseAdapter.NotFound.class, () -> racing.patch("c", "missing", Map.of("n", 1)));
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws InterruptedException {
+        store.create("c", "a", Map.of("n", 0));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) pool.execute(() -> store.patch("c", "a", Map.of("n", PatchOp.increment(1))));
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(400L, ((Number) store.getById("c", "a").orElseThrow().get("n")).longValue());
+    }
+}
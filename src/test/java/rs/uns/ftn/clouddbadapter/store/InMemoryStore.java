@@ -0,0 +1,143 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in store for tests and for benchmarking the layers above the SDKs.
+ * Documents are copied on the way in and out, like a real store's serialization boundary,
+ * so the numbers include the allocation a caller would see (minus the network).
+ *
+ * Every write gives the document a new version (never reused, also across deletes), and
+ * queries are evaluated by scanning the collection; cursors are offsets into the result.
+ */
+public class InMemoryStore extends BaseAdapter {
+
+    private final Map<String, NavigableMap<String, Map<String, Object>>> collections = new ConcurrentHashMap<>();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    private NavigableMap<String, Map<String, Object>> collection(String c) {
+        return collections.computeIfAbsent(c, k -> new ConcurrentSkipListMap<>());
+    }
+
+    private void written(String c, String id) {
+        versions.put(c + '/' + id, clock.incrementAndGet());
+    }
+
+    @Override
+    protected synchronized void doCreate(String c, String id, Map<String, Object> d) {
+        if (collection(c).putIfAbsent(id, new HashMap<>(d)) != null) throw new AlreadyExists("Document exists: " + id);
+        written(c, id);
+    }
+
+    @Override
+    protected Optional<Map<String, Object>> doGet(String c, String id) {
+        Map<String, Object> doc = collection(c).get(id);
+        if (doc == null) return Optional.empty();
+        Map<String, Object> out = new HashMap<>(doc);
+        out.put("id", id);
+        return Optional.of(out);
+    }
+
+    @Override
+    protected synchronized void doUpdate(String c, String id, Map<String, Object> d) {
+        collection(c).put(id, new HashMap<>(d));
+        written(c, id);
+    }
+
+    @Override
+    protected synchronized void doDelete(String c, String id) {
+        collection(c).remove(id);
+        versions.remove(c + '/' + id);
+    }
+
+    @Override
+    protected Page<Map<String, Object>> doListPage(String c, int pageSize, String cursor) {
+        NavigableMap<String, Map<String, Object>> docs = cursor == null ? collection(c) : collection(c).tailMap(cursor, false);
+        List<Map<String, Object>> out = new ArrayList<>(pageSize);
+        String last = null;
+        for (Map.Entry<String, Map<String, Object>> e : docs.entrySet()) {
+            if (out.size() == pageSize) return new Page<>(out, last);
+            Map<String, Object> doc = new HashMap<>(e.getValue());
+            doc.put("id", e.getKey());
+            out.add(doc);
+            last = e.getKey();
+        }
+        return new Page<>(out, null);
+    }
+
+    @Override
+    protected Page<Map<String, Object>> doQuery(String c, DocumentQuery q) {
+        List<Map.Entry<String, Map<String, Object>>> matches = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> e : collection(c).entrySet()) {
+            if (q.filters().stream().allMatch(f -> matches(e.getValue().get(f.field()), f))) matches.add(e);
+        }
+        if (q.orderBy() != null) {
+            matches.removeIf(e -> e.getValue().get(q.orderBy()) == null); // like an index, skips documents without the field
+            Comparator<Map.Entry<String, Map<String, Object>>> order = (a, b) ->
+                    compare(a.getValue().get(q.orderBy()), b.getValue().get(q.orderBy()));
+            matches.sort((q.ascending() ? order : order.reversed()).thenComparing(Map.Entry::getKey));
+        }
+        int from = q.cursor() == null ? 0 : Integer.parseInt(q.cursor());
+        int to = Math.min(matches.size(), from + q.limit());
+        List<Map<String, Object>> out = new ArrayList<>(Math.max(0, to - from));
+        for (Map.Entry<String, Map<String, Object>> e : matches.subList(Math.min(from, to), to)) {
+            Map<String, Object> doc = new HashMap<>(e.getValue());
+            doc.put("id", e.getKey());
+            out.add(doc);
+        }
+        return new Page<>(out, to < matches.size() ? Integer.toString(to) : null);
+    }
+
+    private static boolean matches(Object value, DocumentQuery.Filter f) {
+        if (value == null) return false;
+        if (f.op() == DocumentQuery.Op.IN) {
+            for (Object candidate : (List<?>) f.value()) {
+                if (comparable(value, candidate) && compare(value, candidate) == 0) return true;
+            }
+            return false;
+        }
+        if (!comparable(value, f.value())) return false;
+        int cmp = compare(value, f.value());
+        return switch (f.op()) {
+            case EQ -> cmp == 0;
+            case LT -> cmp < 0;
+            case LTE -> cmp <= 0;
+            case GT -> cmp > 0;
+            case GTE -> cmp >= 0;
+            case IN -> throw new AssertionError();
+        };
+    }
+
+    private static boolean comparable(Object a, Object b) {
+        return a instanceof Number && b instanceof Number || a.getClass() == b.getClass() && a instanceof Comparable;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) return new BigDecimal(x.toString()).compareTo(new BigDecimal(y.toString()));
+        if (!comparable(a, b)) return a.getClass().getName().compareTo(b.getClass().getName());
+        return ((Comparable) a).compareTo(b);
+    }
+
+    @Override
+    protected synchronized Optional<Versioned> doGetVersioned(String c, String id) {
+        return doGet(c, id).map(d -> new Versioned(d, String.valueOf(versions.get(c + '/' + id))));
+    }
+
+    @Override
+    protected synchronized String doCompareAndSet(String c, String id, Map<String, Object> d, String expectedVersion) {
+        boolean exists = collection(c).containsKey(id);
+        String current = String.valueOf(versions.get(c + '/' + id));
+        if (expectedVersion == null ? exists : !exists || !current.equals(expectedVersion)) {
+            throw new VersionConflict("Version conflict on " + id);
+        }
+        collection(c).put(id, new HashMap<>(d));
+        written(c, id);
+        return String.valueOf(versions.get(c + '/' + id));
+    }
+}
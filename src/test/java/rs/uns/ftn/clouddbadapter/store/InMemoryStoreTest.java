@@ -0,0 +1,73 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryStoreTest {
+
+    private InMemoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryStore();
+        store.create("users", "a", Map.of("tenant", "acme", "age", 30, "status", "active"));
+        store.create("users", "b", Map.of("tenant", "acme", "age", 17L, "status", "trial"));
+        store.create("users", "c", Map.of("tenant", "acme", "age", 45.5, "status", "gone"));
+        store.create("users", "d", Map.of("tenant", "other", "age", 50, "status", "active"));
+        store.create("users", "e", Map.of("tenant", "acme", "status", "active"));
+    }
+
+    @Test
+    void queryFiltersAndOrders() {
+        DocumentQuery q = DocumentQuery.builder()
+                .eq("tenant", "acme")
+                .gte("age", 18)
+                .in("status", List.of("active", "gone"))
+                .orderBy("age", false)
+                .build();
+        Page<Map<String, Object>> page = store.query("users", q);
+        assertEquals(List.of("c", "a"), ids(page.items()));
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    void queryPagesWithCursor() {
+        DocumentQuery q = DocumentQuery.builder().eq("tenant", "acme").orderBy("age", true).limit(2).build();
+        List<String> seen = new ArrayList<>();
+        Page<Map<String, Object>> page = store.query("users", q);
+        seen.addAll(ids(page.items()));
+        assertTrue(page.hasMore());
+        page = store.query("users", q.withCursor(page.cursor()));
+        seen.addAll(ids(page.items()));
+        assertFalse(page.hasMore());
+        assertEquals(List.of("b", "a", "c"), seen); // "e" has no age
+    }
+
+    @Test
+    void deletingAMissingDocumentIsANoOp() {
+        store.deleteById("users", "missing");
+        store.deleteAll("users", List.of("a", "missing"));
+        assertTrue(store.getById("users", "a").isEmpty());
+    }
+
+    @Test
+    void everyWriteChangesTheVersion() {
+        String v1 = store.getVersioned("users", "a").orElseThrow().version();
+        store.updateById("users", "a", Map.of("age", 31));
+        String v2 = store.getVersioned("users", "a").orElseThrow().version();
+        assertNotEquals(v1, v2);
+        assertThrows(BaseAdapter.VersionConflict.class, () -> store.compareAndSet("users", "a", Map.of(), v1));
+        store.deleteById("users", "a");
+        assertNotEquals(v2, store.compareAndSet("users", "a", Map.of(), null));
+    }
+
+    private static List<String> ids(List<Map<String, Object>> docs) {
+        return docs.stream().map(d -> (String) d.get("id")).toList();
+    }
+}
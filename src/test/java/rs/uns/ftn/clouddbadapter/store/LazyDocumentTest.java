@@ -0,0 +1,75 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyDocumentTest {
+
+    private static Map<String, String> raw(int fields) {
+        Map<String, String> raw = new HashMap<>();
+        for (int i = 0; i < fields; i++) raw.put("f" + i, Integer.toString(i));
+        raw.put("nothing", "null");
+        return raw;
+    }
+
+    private static Object decode(String s) {
+        return "null".equals(s) ? null : new StringBuilder(s); // a fresh instance per decode
+    }
+
+    @Test
+    void decodesOnRead() {
+        LazyDocument<String> doc = new LazyDocument<>(raw(3), LazyDocumentTest::decode);
+        assertEquals("1", doc.get("f1").toString());
+        assertSame(doc.get("f1"), doc.get("f1"));
+        assertNull(doc.get("nothing"));
+        assertTrue(doc.containsKey("nothing"));
+        assertNull(doc.get(42));
+        assertTrue(doc.isLazy());
+        assertEquals(4, doc.keySet().size());
+        assertFalse(doc.isLazy());
+    }
+
+    @Test
+    void concurrentReadersSeeOneDecodedInstance() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 50; round++) {
+                LazyDocument<String> doc = new LazyDocument<>(raw(64), LazyDocumentTest::decode);
+                CountDownLatch start = new CountDownLatch(1);
+                List<CompletableFuture<List<Object>>> readers = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    boolean materialize = t == 7;
+                    readers.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        List<Object> seen = new ArrayList<>();
+                        for (int i = 0; i < 64; i++) seen.add(doc.get("f" + i));
+                        if (materialize) assertEquals(65, doc.entrySet().size());
+                        return seen;
+                    }, pool));
+                }
+                start.countDown();
+                for (CompletableFuture<List<Object>> r : readers) {
+                    List<Object> seen = r.get();
+                    for (int i = 0; i < 64; i++) assertEquals(Integer.toString(i), seen.get(i).toString());
+                }
+                for (int i = 0; i < 64; i++) assertSame(doc.get("f" + i), doc.get("f" + i));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
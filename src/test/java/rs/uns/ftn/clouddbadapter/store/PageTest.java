@@ -0,0 +1,100 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageTest {
+
+    private final InMemoryStore store = new InMemoryStore();
+
+    @BeforeEach
+    void setUp() {
+        for (String id : List.of("a", "b", "c", "d", "e")) store.create("c", id, Map.of("n", id));
+    }
+
+    private static List<Object> ids(Page<Map<String, Object>> page) {
+        return page.items().stream().map(d -> d.get("id")).collect(Collectors.toList());
+    }
+
+    @Test
+    void cursorsWalkTheCollectionPageByPage() {
+        Page<Map<String, Object>> first = store.listPage("c", 2, null);
+        assertEquals(List.of("a", "b"), ids(first));
+        assertTrue(first.hasMore());
+
+        Page<Map<String, Object>> second = store.listPage("c", 2, first.cursor());
+        assertEquals(List.of("c", "d"), ids(second));
+        assertTrue(second.hasMore());
+
+        Page<Map<String, Object>> last = store.listPage("c", 2, second.cursor());
+        assertEquals(List.of("e"), ids(last));
+        assertNull(last.cursor());
+        assertFalse(last.hasMore());
+    }
+
+    @Test
+    void listPageRejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> store.listPage("c", 0, null));
+        assertThrows(IllegalArgumentException.class, () -> store.listPage(" ", 2, null));
+    }
+
+    @Test
+    void streamFollowsCursorsToTheEnd() {
+        List<String> cursors = new ArrayList<>();
+        List<Object> all = Page.stream(null, cursor -> {
+            cursors.add(cursor);
+            return store.listPage("c", 2, cursor);
+        }).map(d -> d.get("id")).collect(Collectors.toList());
+        assertEquals(List.of("a", "b", "c", "d", "e"), all);
+        assertEquals(Arrays.asList(null, "b", "d"), cursors);
+    }
+
+    @Test
+    void streamFetchesPagesOnlyWhenConsumed() {
+        AtomicInteger fetches = new AtomicInteger();
+        List<Object> firstThree = Page.stream(null, cursor -> {
+            fetches.incrementAndGet();
+            return store.listPage("c", 2, cursor);
+        }).limit(3).map(d -> d.get("id")).collect(Collectors.toList());
+        assertEquals(List.of("a", "b", "c"), firstThree);
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void streamSkipsEmptyPagesThatCarryACursor() {
+        List<Page<String>> pages = List.of(
+                new Page<>(List.of("x"), "1"),
+                new Page<>(List.of(), "2"),
+                new Page<>(List.of(), "3"),
+                new Page<>(List.of("y"), null));
+        List<String> items = Page.stream("0", cursor -> pages.get(Integer.parseInt(cursor))).collect(Collectors.toList());
+        assertEquals(List.of("x", "y"), items);
+        assertEquals(0, Page.stream(null, cursor -> new Page<String>(null, null)).count());
+    }
+
+    @Test
+    void listCollectsAcrossPages() {
+        AtomicInteger pages = new AtomicInteger();
+        InMemoryStore counting = new InMemoryStore() {
+            @Override
+            protected Page<Map<String, Object>> doListPage(String c, int pageSize, String cursor) {
+                pages.incrementAndGet();
+                return super.doListPage(c, Math.min(pageSize, 2), cursor); // a provider capping its pages
+            }
+        };
+        for (int i = 0; i < 5; i++) counting.create("c", "d" + i, Map.of());
+        assertEquals(5, counting.list("c", 10).size());
+        assertEquals(3, pages.get());
+        assertEquals(3, counting.list("c", 3).size());
+        assertTrue(counting.list("c", 0).isEmpty());
+    }
+}
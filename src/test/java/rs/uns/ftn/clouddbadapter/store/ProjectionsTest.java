@@ -0,0 +1,99 @@
+package rs.uns.ftn.clouddbadapter.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.entity.Entity;
+import rs.uns.ftn.clouddbadapter.entity.Id;
+import rs.uns.ftn.clouddbadapter.orm.SimpleEntityManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectionsTest {
+
+    @Entity(collection = "people")
+    static class Person {
+        @Id String id;
+        String name;
+        int age;
+        String email;
+    }
+
+    /** Projection of Person: no annotations, its field names select what is read. */
+    static class Summary {
+        String id;
+        String name;
+    }
+
+    /** Records the projections that reach the provider hooks. */
+    private static final class Recording extends InMemoryStore {
+        final List<Set<String>> projected = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected Optional<Map<String, Object>> doGet(String c, String id, Set<String> fields) {
+            projected.add(fields);
+            return super.doGet(c, id, fields);
+        }
+
+        @Override
+        protected Page<Map<String, Object>> doListPage(String c, int pageSize, String cursor, Set<String> fields) {
+            projected.add(fields);
+            return super.doListPage(c, pageSize, cursor, fields);
+        }
+    }
+
+    private final Recording store = new Recording();
+
+    @BeforeEach
+    void setUp() {
+        store.create("people", "p1", Map.of("name", "Ana", "age", 41, "email", "ana@example.com"));
+        store.create("people", "p2", Map.of("name", "Ivo", "age", 29, "email", "ivo@example.com"));
+    }
+
+    @Test
+    void applyKeepsTheRequestedFieldsAndTheId() {
+        Map<String, Object> doc = Map.of("id", "p1", "name", "Ana", "age", 41);
+        assertEquals(Map.of("id", "p1", "name", "Ana"), Projections.apply(doc, Set.of("name", "missing")));
+        assertSame(doc, Projections.apply(doc, null));
+        assertSame(doc, Projections.apply(doc, Set.of()));
+        assertEquals(List.of("id", "b", "a"), List.copyOf(Projections.withId(List.of("b", "a"))));
+    }
+
+    @Test
+    void projectedGetByIdAlwaysReturnsTheId() {
+        assertEquals(Map.of("id", "p1", "age", 41), store.getById("people", "p1", Set.of("age")).orElseThrow());
+        assertTrue(store.getById("people", "missing", Set.of("age")).isEmpty());
+        assertEquals(4, store.getById("people", "p1", Set.of()).orElseThrow().size()); // empty = whole document
+        assertEquals(List.of(Set.of("age"), Set.of("age")), store.projected);
+    }
+
+    @Test
+    void projectedListsAlwaysReturnTheId() {
+        List<Map<String, Object>> all = store.list("people", 10, Set.of("name"));
+        assertEquals(List.of(Map.of("id", "p1", "name", "Ana"), Map.of("id", "p2", "name", "Ivo")), all);
+
+        Page<Map<String, Object>> first = store.listPage("people", 1, null, Set.of("email"));
+        assertEquals(List.of(Map.of("id", "p1", "email", "ana@example.com")), first.items());
+        Page<Map<String, Object>> second = store.listPage("people", 1, first.cursor(), Set.of("email"));
+        assertEquals(List.of(Map.of("id", "p2", "email", "ivo@example.com")), second.items());
+        assertFalse(second.hasMore());
+    }
+
+    @Test
+    void entityManagerReadsProjections() {
+        SimpleEntityManager em = new SimpleEntityManager(store);
+        Summary s = em.find(Person.class, "p1", Summary.class).orElseThrow();
+        assertEquals("p1", s.id);
+        assertEquals("Ana", s.name);
+        assertTrue(em.find(Person.class, "missing", Summary.class).isEmpty());
+
+        List<Summary> list = em.list(Person.class, 10, Summary.class);
+        assertEquals(List.of("Ana", "Ivo"), list.stream().map(x -> x.name).toList());
+        assertTrue(store.projected.stream().allMatch(f -> f.equals(Set.of("id", "name"))), store.projected.toString());
+    }
+}
@@ -0,0 +1,163 @@
+package rs.uns.ftn.clouddbadapter.store.buffer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.Overloaded;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindDocumentStoreTest {
+
+    /**
+     * Can hold the next batch write until released, then throttle it; always throttles the
+     * 'throttled' collection and rejects documents with a "bad" field.
+     */
+    private static final class Backend extends InMemoryStore {
+        volatile CountDownLatch entered;
+        volatile CountDownLatch release;
+        volatile String throttled;
+
+        @Override
+        protected void doUpdate(String c, String id, Map<String, Object> d) {
+            if (c.equals(throttled)) throw new Overloaded("throttled");
+            if (d.containsKey("bad")) throw new StoreException("unsupported value");
+            super.doUpdate(c, id, d);
+        }
+
+        @Override
+        protected void doPutAll(String c, Map<String, Map<String, Object>> docs) {
+            CountDownLatch r = release;
+            if (r != null) {
+                entered.countDown();
+                try {
+                    r.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new Overloaded("provider busy");
+            }
+            super.doPutAll(c, docs);
+        }
+    }
+
+    private final Backend backend = new Backend();
+    private final WriteBehindDocumentStore store = WriteBehindDocumentStore.builder(backend)
+            .maxBatchSize(4)
+            .maxPending(4)
+            .flushInterval(Duration.ofHours(1))
+            .backpressureTimeout(Duration.ZERO)
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        backend.release = null;
+        store.close();
+    }
+
+    @Test
+    void coalescesAndFlushes() {
+        store.updateById("c", "a", Map.of("n", 1));
+        store.updateById("c", "a", Map.of("n", 2));
+        store.patch("c", "a", Map.of("m", 3));
+        assertEquals(Map.of("n", 2, "m", 3), store.getById("c", "a").orElseThrow());
+        assertTrue(backend.getById("c", "a").isEmpty());
+        store.flush();
+        assertEquals(2, backend.getById("c", "a").orElseThrow().get("n"));
+        assertEquals(2, store.coalescedCount());
+        assertEquals(1, store.flushedCount());
+    }
+
+    @Test
+    void keysOfAFlushInProgressCountTowardsTheBound() throws Exception {
+        store.updateById("c", "a", Map.of());
+        store.updateById("c", "b", Map.of());
+        backend.entered = new CountDownLatch(1);
+        backend.release = new CountDownLatch(1);
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(store::flush);
+        assertTrue(backend.entered.await(5, TimeUnit.SECONDS));
+
+        store.updateById("c", "c", Map.of());
+        store.updateById("c", "a", Map.of("n", 1)); // already counted
+        store.updateById("c", "d", Map.of());
+        assertThrows(StoreException.class, () -> store.updateById("c", "e", Map.of()));
+
+        backend.release.countDown();
+        assertThrows(Exception.class, flush::join);
+        assertEquals(4, store.pendingCount()); // a, b re-queued next to c, d
+        backend.release = null;
+        store.flush();
+        assertEquals(4, backend.list("c", 10).size());
+        assertEquals(1, backend.getById("c", "a").orElseThrow().get("n"));
+    }
+
+    @Test
+    void writesAfterCloseAreRejected() {
+        store.updateById("c", "a", Map.of("n", 1));
+        store.close();
+        assertEquals(1, backend.getById("c", "a").orElseThrow().get("n"));
+        assertThrows(IllegalStateException.class, () -> store.updateById("c", "b", Map.of()));
+        assertThrows(IllegalStateException.class, () -> store.patch("c", "a", Map.of("n", 2)));
+        assertThrows(IllegalStateException.class, () -> store.compareAndSet("c", "a", Map.of(), null));
+        assertEquals(1, backend.getById("c", "a").orElseThrow().get("n"));
+    }
+
+    @Test
+    void aRejectedWriteDoesNotHoldBackTheOthers() {
+        store.updateById("c", "a", Map.of("n", 1));
+        store.updateById("c", "b", Map.of("bad", 1));
+        store.updateById("d", "x", Map.of("n", 1));
+        StoreException e = assertThrows(StoreException.class, store::flush);
+        assertEquals("unsupported value", e.getMessage());
+        assertEquals(e, store.lastFailure());
+
+        assertTrue(backend.getById("c", "a").isPresent());
+        assertTrue(backend.getById("d", "x").isPresent());
+        assertEquals(0, store.pendingCount());
+        assertEquals(2, store.flushedCount());
+        assertTrue(store.getById("c", "b").isEmpty()); // no longer buffered
+
+        List<WriteBehindDocumentStore.FailedWrite> failed = store.drainFailedWrites();
+        assertEquals(1, failed.size());
+        assertEquals("b", failed.get(0).id());
+        assertEquals(Map.of("bad", 1), failed.get(0).data());
+        assertSame(e, failed.get(0).error());
+        assertTrue(store.failedWrites().isEmpty());
+
+        store.updateById("c", "c", Map.of("n", 1));
+        store.flush();
+        assertNull(store.lastFailure());
+    }
+
+    @Test
+    void retryableFailuresAreGivenUpAfterMaxAttempts() {
+        WriteBehindDocumentStore retrying = WriteBehindDocumentStore.builder(backend)
+                .flushInterval(Duration.ofHours(1))
+                .maxAttempts(2)
+                .build();
+        backend.throttled = "hot";
+        retrying.updateById("hot", "h", Map.of("n", 1));
+        retrying.updateById("c", "a", Map.of("n", 1));
+        assertThrows(Overloaded.class, retrying::flush);
+        assertTrue(backend.getById("c", "a").isPresent());
+        assertEquals(1, retrying.pendingCount()); // retried on the next flush
+        assertTrue(retrying.failedWrites().isEmpty());
+
+        assertThrows(Overloaded.class, retrying::flush);
+        assertEquals(0, retrying.pendingCount());
+        assertEquals(List.of("h"), retrying.failedWrites().stream().map(WriteBehindDocumentStore.FailedWrite::id).toList());
+
+        backend.throttled = null;
+        retrying.updateById("hot", "h", Map.of("n", 2));
+        retrying.close();
+        assertEquals(2, backend.getById("hot", "h").orElseThrow().get("n"));
+    }
+}
@@ -0,0 +1,76 @@
+package rs.uns.ftn.clouddbadapter.store.cache;
+
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingDocumentStoreTest {
+
+    /** Counts reads and can run a write between reading and returning a batch. */
+    private static final class Backend extends InMemoryStore {
+        final AtomicInteger reads = new AtomicInteger();
+        Runnable duringGetAll;
+
+        @Override
+        protected Optional<Map<String, Object>> doGet(String c, String id) {
+            reads.incrementAndGet();
+            return super.doGet(c, id);
+        }
+
+        @Override
+        protected Map<String, Map<String, Object>> doGetAll(String c, Collection<String> ids) {
+            Map<String, Map<String, Object>> docs = super.doGetAll(c, ids);
+            Runnable r = duringGetAll;
+            duringGetAll = null;
+            if (r != null) r.run();
+            return docs;
+        }
+    }
+
+    private final Backend backend = new Backend();
+    private final CachingDocumentStore cache = CachingDocumentStore.builder(backend).build();
+
+    @Test
+    void getAllServesCachedEntriesAndCachesMisses() {
+        backend.create("c", "a", Map.of("n", 1));
+        cache.getById("c", "a");
+        int before = backend.reads.get();
+        Map<String, Map<String, Object>> docs = cache.getAll("c", List.of("a", "b"));
+        assertEquals(List.of("a"), List.copyOf(docs.keySet()));
+        assertEquals(before + 1, backend.reads.get()); // only "b" was read
+        cache.getAll("c", List.of("a", "b"));
+        assertEquals(before + 1, backend.reads.get()); // "b" is cached as missing
+    }
+
+    @Test
+    void getAllDoesNotCacheAnEntryInvalidatedDuringTheLoad() {
+        backend.create("c", "a", Map.of("n", 1));
+        backend.duringGetAll = () -> cache.updateById("c", "a", Map.of("n", 2));
+        assertEquals(1, cache.getAll("c", List.of("a")).get("a").get("n")); // read before the write
+        assertEquals(2, cache.getById("c", "a").orElseThrow().get("n"));
+    }
+
+    @Test
+    void writesInvalidate() {
+        cache.create("c", "a", Map.of("n", 1));
+        assertEquals(1, cache.getById("c", "a").orElseThrow().get("n"));
+        cache.patch("c", "a", Map.of("n", 5));
+        assertEquals(5, cache.getById("c", "a").orElseThrow().get("n"));
+        cache.deleteById("c", "a");
+        assertTrue(cache.getById("c", "a").isEmpty());
+    }
+
+    @Test
+    void nullIdsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> cache.getAll("c", null));
+        assertThrows(IllegalArgumentException.class, () -> cache.getAll("c", Arrays.asList("a", null)));
+    }
+}
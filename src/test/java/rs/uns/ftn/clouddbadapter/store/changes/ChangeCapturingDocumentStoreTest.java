@@ -0,0 +1,63 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeCapturingDocumentStoreTest {
+
+    private static final ChangeFeedOptions FAST = ChangeFeedOptions.builder()
+            .pollInterval(Duration.ofMillis(5))
+            .build();
+
+    private final InMemoryStore backend = new InMemoryStore();
+
+    /** Subscribes until 'count' changes arrived; returns their ids and the checkpoint reached. */
+    private static Checkpoint consume(ChangeFeed feed, Checkpoint from, int count, List<String> ids) throws InterruptedException {
+        List<String> seen = new CopyOnWriteArrayList<>();
+        try (ChangeSubscription sub = feed.changes("c", from, FAST, batch -> batch.changes().forEach(c -> seen.add(c.id())))) {
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (seen.size() < count && System.nanoTime() < deadline) Thread.sleep(5);
+            Thread.sleep(50); // nothing more should arrive
+            ids.addAll(seen);
+            return sub.checkpoint();
+        }
+    }
+
+    @Test
+    void resumesAfterTheCheckpoint() throws InterruptedException {
+        ChangeCapturingDocumentStore store = ChangeCapturingDocumentStore.builder(backend).partitions(1).build();
+        store.create("c", "a", Map.of("n", 1));
+        store.create("c", "b", Map.of("n", 1));
+        List<String> first = new ArrayList<>();
+        Checkpoint checkpoint = consume(store, Checkpoint.beginning(), 2, first);
+        assertEquals(List.of("a", "b"), first);
+
+        store.patch("c", "a", Map.of("n", 2));
+        store.deleteById("c", "b");
+        List<String> second = new ArrayList<>();
+        consume(store, Checkpoint.parse(checkpoint.encode()), 2, second);
+        assertEquals(List.of("a", "b"), second);
+    }
+
+    @Test
+    void aCheckpointOfAnotherInstanceStartsFromItsLog() throws InterruptedException {
+        ChangeCapturingDocumentStore before = ChangeCapturingDocumentStore.builder(backend).partitions(1).build();
+        for (int i = 0; i < 3; i++) before.updateById("c", "old" + i, Map.of("n", i));
+        Checkpoint saved = consume(before, Checkpoint.beginning(), 3, new ArrayList<>());
+
+        ChangeCapturingDocumentStore restarted = ChangeCapturingDocumentStore.builder(backend).partitions(1).build();
+        restarted.updateById("c", "new0", Map.of("n", 0));
+        restarted.updateById("c", "new1", Map.of("n", 1));
+        List<String> ids = new ArrayList<>();
+        consume(restarted, saved, 2, ids);
+        assertEquals(List.of("new0", "new1"), ids); // sequence 3 of the old log must not skip them
+    }
+}
@@ -0,0 +1,91 @@
+package rs.uns.ftn.clouddbadapter.store.changes;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedChangeFeedTest {
+
+    private static final ChangeFeedOptions FAST = ChangeFeedOptions.builder()
+            .pollInterval(Duration.ofMillis(5))
+            .discoveryInterval(Duration.ofMillis(20))
+            .build();
+
+    /** How a partition was opened. */
+    private record Opened(String position, Checkpoint.Start start) {}
+
+    /**
+     * Shard layout like a DynamoDB stream: "closed" has ended and "child" continues it.
+     * Closed partitions end at once; the others never return anything.
+     */
+    private static final class Shards extends PartitionedChangeFeed {
+        final List<Partition> listed = new CopyOnWriteArrayList<>(List.of(
+                new Partition("closed", null), new Partition("child", "closed")));
+        final Map<String, Opened> opened = new ConcurrentHashMap<>();
+
+        @Override
+        protected List<Partition> partitions(String collection, Checkpoint current) {
+            return List.copyOf(listed);
+        }
+
+        @Override
+        protected PartitionReader open(String collection, Partition partition, String position, Checkpoint.Start start) {
+            opened.putIfAbsent(partition.id(), new Opened(position, start));
+            boolean closed = partition.id().equals("closed");
+            return maxChanges -> new Batch(List.of(), null, closed);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void childrenOfTheFirstListingInheritNow() throws InterruptedException {
+        Shards feed = new Shards();
+        try (ChangeSubscription sub = feed.changes("c", Checkpoint.now(), FAST, batch -> {})) {
+            await(() -> feed.opened.containsKey("child"));
+            assertEquals(new Opened(null, Checkpoint.Start.NOW), feed.opened.get("closed"));
+            assertEquals(new Opened(null, Checkpoint.Start.NOW), feed.opened.get("child"));
+
+            feed.listed.add(new PartitionedChangeFeed.Partition("split", "child"));
+            feed.listed.add(new PartitionedChangeFeed.Partition("new", null));
+            await(() -> feed.opened.containsKey("new"));
+            assertEquals(new Opened(null, Checkpoint.Start.BEGINNING), feed.opened.get("new"));
+            assertFalse(feed.opened.containsKey("split")); // its parent is still being read
+            assertEquals(Checkpoint.FINISHED, sub.checkpoint().positions().get("closed"));
+        }
+    }
+
+    @Test
+    void aWaitingChildKeepsNowAcrossACheckpoint() throws InterruptedException {
+        Checkpoint saved = new Checkpoint(Checkpoint.Start.BEGINNING, Map.of("child", Checkpoint.NOW_POSITION));
+        Shards feed = new Shards();
+        try (ChangeSubscription sub = feed.changes("c", Checkpoint.parse(saved.encode()), FAST, batch -> {})) {
+            await(() -> feed.opened.containsKey("child"));
+            assertEquals(new Opened(null, Checkpoint.Start.BEGINNING), feed.opened.get("closed"));
+            assertEquals(new Opened(null, Checkpoint.Start.NOW), feed.opened.get("child"));
+        }
+    }
+
+    @Test
+    void aBeginningSubscriptionReadsEveryPartitionFromItsStart() throws InterruptedException {
+        Shards feed = new Shards();
+        try (ChangeSubscription sub = feed.changes("c", Checkpoint.beginning(), FAST, batch -> {})) {
+            await(() -> feed.opened.containsKey("child"));
+            assertEquals(new Opened(null, Checkpoint.Start.BEGINNING), feed.opened.get("child"));
+            assertFalse(sub.checkpoint().positions().containsValue(Checkpoint.NOW_POSITION));
+        }
+    }
+}
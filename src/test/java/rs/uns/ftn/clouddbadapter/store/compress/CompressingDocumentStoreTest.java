@@ -0,0 +1,147 @@
+package rs.uns.ftn.clouddbadapter.store.compress;
+
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+import rs.uns.ftn.clouddbadapter.store.PatchOp;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static rs.uns.ftn.clouddbadapter.store.compress.CompressingDocumentStore.*;
+
+class CompressingDocumentStoreTest {
+
+    private final InMemoryStore backend = new InMemoryStore();
+
+    /** Text that deflates to roughly three quarters of its size. */
+    private static String noise(int bytes, long seed) {
+        byte[] b = new byte[bytes * 3 / 4];
+        new Random(seed).nextBytes(b);
+        return Base64.getEncoder().encodeToString(b);
+    }
+
+    private static Map<String, Object> doc(String body) {
+        Map<String, Object> d = new HashMap<>();
+        d.put("tenant", "t1");
+        d.put("n", 7);
+        d.put("body", body);
+        d.put("tags", List.of("a", "b"));
+        return d;
+    }
+
+    private Map<String, Object> stored(String collection, String id) {
+        return backend.getById(collection, id).orElseThrow();
+    }
+
+    private Set<String> chunkIds() {
+        return backend.list("c_chunks", 1000).stream().map(d -> (String) d.get("id")).collect(Collectors.toSet());
+    }
+
+    @Test
+    void fieldModeRoundTrip() {
+        CompressingDocumentStore store = builder(backend).threshold(64).build();
+        String body = "lorem ipsum ".repeat(100);
+        store.create("c", "a", doc(body));
+
+        Map<String, Object> raw = stored("c", "a");
+        assertFalse(raw.containsKey("body"));
+        assertTrue(raw.containsKey(FIELD_PREFIX + "body"));
+        assertEquals("t1", raw.get("tenant"));
+
+        Map<String, Object> read = store.getById("c", "a").orElseThrow();
+        assertEquals(body, read.get("body"));
+        assertEquals(List.of("a", "b"), read.get("tags"));
+        assertEquals(body, store.getAll("c", List.of("a")).get("a").get("body"));
+        assertEquals(body, store.list("c", 10).get(0).get("body"));
+        assertEquals(Map.of("id", "a", "body", body), store.getById("c", "a", Set.of("body")).orElseThrow());
+    }
+
+    @Test
+    void smallDocumentsAreStoredUnchanged() {
+        CompressingDocumentStore store = builder(backend).threshold(4096).build();
+        store.create("c", "a", doc("short"));
+        assertEquals("short", stored("c", "a").get("body"));
+    }
+
+    @Test
+    void wholeDocumentRoundTrip() {
+        CompressingDocumentStore store = builder(backend).threshold(64).wholeDocument(true).plain("tenant").build();
+        String body = "lorem ipsum ".repeat(100);
+        store.create("c", "a", doc(body));
+        assertEquals(Set.of("id", "tenant", PACKED), stored("c", "a").keySet());
+        Map<String, Object> read = store.getById("c", "a").orElseThrow();
+        assertEquals(body, read.get("body"));
+        assertEquals(7, ((Number) read.get("n")).intValue());
+    }
+
+    @Test
+    void chunksAreReplacedAndDeleted() {
+        CompressingDocumentStore store = builder(backend).threshold(64).chunking(1024).plain("tenant").build();
+        String first = noise(8000, 1);
+        store.create("c", "a", doc(first));
+
+        Map<String, Object> raw = stored("c", "a");
+        assertTrue(raw.containsKey(CHUNKED));
+        Set<String> generation1 = chunkIds();
+        assertTrue(generation1.size() > 1);
+        generation1.forEach(id -> assertFalse(id.contains("#") || id.contains("/"), id));
+        assertEquals(first, store.getById("c", "a").orElseThrow().get("body"));
+
+        String second = noise(6000, 2);
+        store.updateById("c", "a", doc(second));
+        Set<String> generation2 = chunkIds();
+        assertTrue(generation2.stream().noneMatch(generation1::contains)); // old generation deleted
+        assertEquals(second, store.getById("c", "a").orElseThrow().get("body"));
+
+        store.putAll("c", Map.of("a", doc("short")));
+        assertTrue(chunkIds().isEmpty());
+        assertEquals("short", store.getById("c", "a").orElseThrow().get("body"));
+
+        store.updateById("c", "a", doc(first));
+        store.deleteById("c", "a");
+        assertTrue(chunkIds().isEmpty());
+    }
+
+    @Test
+    void patchesDropTheCompressedCopy() {
+        CompressingDocumentStore store = builder(backend).threshold(64).plain("n").build();
+        store.create("c", "a", doc("lorem ipsum ".repeat(100)));
+
+        store.patch("c", "a", Map.of("body", "new"));
+        assertFalse(stored("c", "a").containsKey(FIELD_PREFIX + "body"));
+        assertEquals("new", store.getById("c", "a").orElseThrow().get("body"));
+
+        store.updateById("c", "a", doc("lorem ipsum ".repeat(100)));
+        store.patch("c", "a", Map.of("body", PatchOp.remove(), "n", PatchOp.increment(1)));
+        Map<String, Object> read = store.getById("c", "a").orElseThrow();
+        assertFalse(read.containsKey("body"));
+        assertEquals(8L, ((Number) read.get("n")).longValue());
+
+        assertThrows(IllegalArgumentException.class, () -> store.patch("c", "a", Map.of("tags", PatchOp.append(List.of("c")))));
+        assertThrows(IllegalArgumentException.class, () -> store.patch("c", "a", Map.of(FIELD_PREFIX + "body", "x")));
+    }
+
+    @Test
+    void packedFieldsCannotBePatched() {
+        CompressingDocumentStore store = builder(backend).threshold(64).wholeDocument(true).plain("tenant").build();
+        store.create("c", "a", doc("lorem ipsum ".repeat(100)));
+        assertThrows(IllegalArgumentException.class, () -> store.patch("c", "a", Map.of("body", "new")));
+        store.patch("c", "a", Map.of("tenant", "t2"));
+        assertEquals("t2", store.getById("c", "a").orElseThrow().get("tenant"));
+    }
+
+    @Test
+    void sizeCountsUtf8Bytes() {
+        assertEquals(1, CompressingDocumentStore.size("a"));
+        assertEquals(2, CompressingDocumentStore.size("ћ"));
+        assertEquals(3, CompressingDocumentStore.size("€"));
+        assertEquals(4, CompressingDocumentStore.size("😀"));
+        assertEquals(2 + 3, CompressingDocumentStore.size(Map.of("ћ", "abc")));
+    }
+}
@@ -0,0 +1,36 @@
+package rs.uns.ftn.clouddbadapter.store.cosmos;
+
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.PatchOp;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CosmosAdapterTest {
+
+    @Test
+    void patchRequestsCountEveryAppendedValue() {
+        assertEquals(1, CosmosAdapter.patchRequests(fields(10)).size());
+        assertEquals(2, CosmosAdapter.patchRequests(fields(11)).size());
+
+        Map<String, PatchOp> ops = new LinkedHashMap<>();
+        ops.put("tags", PatchOp.append(Collections.nCopies(12, "t")));
+        assertEquals(2, CosmosAdapter.patchRequests(ops).size()); // one map entry, twelve operations
+
+        ops.put("n", PatchOp.increment(1));
+        ops.put("gone", PatchOp.remove());
+        assertEquals(2, CosmosAdapter.patchRequests(ops).size());
+        ops.put("more", PatchOp.append(List.of(1, 2, 3, 4, 5, 6, 7)));
+        assertEquals(3, CosmosAdapter.patchRequests(ops).size());
+    }
+
+    private static Map<String, PatchOp> fields(int n) {
+        Map<String, PatchOp> ops = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) ops.put("f" + i, PatchOp.set(i));
+        return ops;
+    }
+}
@@ -0,0 +1,63 @@
+package rs.uns.ftn.clouddbadapter.store.cosmos;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.LazyDocument;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CosmosCodecTest {
+
+    record Money(long cents, String currency) {}
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new SimpleModule()
+            .addSerializer(Money.class, new JsonSerializer<>() {
+                @Override
+                public void serialize(Money m, JsonGenerator gen, SerializerProvider p) throws IOException {
+                    gen.writeString(m.cents() + " " + m.currency());
+                }
+            }));
+    private final CosmosCodec codec = new CosmosCodec(mapper);
+
+    private ObjectNode item() throws IOException {
+        return (ObjectNode) mapper.readTree("""
+                {"id": "a", "n": 1, "tags": ["x", {"k": "v"}], "address": {"city": "Novi Sad", "_ts": 1},
+                 "_rid": "r", "_self": "s", "_etag": "\\"e\\"", "_attachments": "att/", "_ts": 1700000000}""");
+    }
+
+    @Test
+    void payloadIsSerializedWithTheConfiguredMapper() {
+        ObjectNode node = codec.payload("a", Map.of("id", "other", "price", new Money(150, "EUR")));
+        assertEquals("a", node.get("id").textValue());
+        assertEquals("150 EUR", node.get("price").textValue());
+    }
+
+    @Test
+    void pointReadsAreMaterializedWithoutSystemFields() throws IOException {
+        Map<String, Object> doc = codec.document(item());
+        assertFalse(doc instanceof LazyDocument);
+        assertEquals(Set.of("id", "n", "tags", "address"), doc.keySet());
+        assertFalse(doc.get("address") instanceof LazyDocument);
+        assertEquals(Map.of("city", "Novi Sad", "_ts", 1), doc.get("address")); // only top-level fields are Cosmos'
+        assertEquals(List.of("x", Map.of("k", "v")), doc.get("tags"));
+    }
+
+    @Test
+    void lazyDocumentsHideSystemFields() throws IOException {
+        Map<String, Object> doc = codec.lazy(item());
+        assertEquals(4, doc.size());
+        assertNull(doc.get("_etag"));
+        assertFalse(doc.containsKey("_ts"));
+        assertEquals(codec.document(item()), doc);
+    }
+}
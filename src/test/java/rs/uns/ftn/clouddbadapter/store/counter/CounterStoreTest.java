@@ -0,0 +1,70 @@
+package rs.uns.ftn.clouddbadapter.store.counter;
+
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CounterStoreTest {
+
+    /** Can run an action between reading a batch and returning it. */
+    private static final class Backend extends InMemoryStore {
+        Runnable duringGetAll;
+
+        @Override
+        protected Map<String, Map<String, Object>> doGetAll(String c, Collection<String> ids) {
+            Map<String, Map<String, Object>> docs = super.doGetAll(c, ids);
+            Runnable r = duringGetAll;
+            duringGetAll = null;
+            if (r != null) r.run();
+            return docs;
+        }
+    }
+
+    private final Backend backend = new Backend();
+
+    private List<String> ids() {
+        return backend.list("counters", 100).stream().map(d -> (String) d.get("id")).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void incrementsAreSummedOverShards() {
+        CounterStore counters = CounterStore.builder(backend).shards(4).build();
+        for (int i = 0; i < 50; i++) counters.increment("views");
+        counters.increment("views", -5);
+        assertEquals(45, counters.get("views"));
+        assertEquals(Map.of("views", 45L, "other", 0L), counters.getAll(List.of("views", "other")));
+        ids().forEach(id -> assertTrue(id.matches("views:[0-3]"), id));
+        counters.reset("views");
+        assertEquals(0, counters.get("views"));
+    }
+
+    @Test
+    void raisingTheShardCountKeepsTheTotal() {
+        CounterStore one = CounterStore.builder(backend).build();
+        one.increment("likes", 3);
+        assertEquals(List.of("likes:0"), ids());
+
+        CounterStore four = CounterStore.builder(backend).shards(4).build();
+        four.increment("likes", 2);
+        assertEquals(5, four.get("likes"));
+    }
+
+    @Test
+    void aReadOverlappingAnIncrementIsNotCached() {
+        CounterStore counters = CounterStore.builder(backend).cacheTtl(Duration.ofMinutes(1)).build();
+        counters.increment("views", 1);
+        backend.duringGetAll = () -> counters.increment("views", 1);
+        assertEquals(1, counters.get("views")); // read before the increment landed
+        assertEquals(2, counters.get("views"));
+
+        counters.increment("views", 1); // added to the cached value
+        assertEquals(3, counters.get("views"));
+    }
+}
@@ -0,0 +1,69 @@
+package rs.uns.ftn.clouddbadapter.store.dynamo;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamoDbAdapterTest {
+
+    /** One table held in memory; conditions are ignored. */
+    private static final class TableClient implements DynamoDbClient {
+        final Map<String, Map<String, AttributeValue>> items = new HashMap<>();
+
+        @Override
+        public PutItemResponse putItem(PutItemRequest req) {
+            items.put(req.item().get("id").s(), req.item());
+            return PutItemResponse.builder().build();
+        }
+
+        @Override
+        public GetItemResponse getItem(GetItemRequest req) {
+            return GetItemResponse.builder().item(items.get(req.key().get("id").s())).build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private final TableClient client = new TableClient();
+    private final DynamoDbAdapter store = new DynamoDbAdapter(client);
+
+    @Test
+    void fullOverwritesNeverReuseAVersion() {
+        store.create("t", "a", Map.of("n", 1));
+        String created = store.getVersioned("t", "a").orElseThrow().version();
+        store.updateById("t", "a", Map.of("n", 2));
+        String updated = store.getVersioned("t", "a").orElseThrow().version();
+        store.updateById("t", "a", Map.of("n", 1, DynamoDbAdapter.VERSION_ATTRIBUTE, created));
+        String restored = store.getVersioned("t", "a").orElseThrow().version();
+
+        assertNotEquals("0", created);
+        assertEquals(3, new HashSet<>(List.of(created, updated, restored)).size()); // no ABA: the caller's version is ignored
+    }
+
+    @Test
+    void readsDoNotExposeTheVersionAttribute() {
+        store.create("t", "a", Map.of("n", 1));
+        assertTrue(client.items.get("a").containsKey(DynamoDbAdapter.VERSION_ATTRIBUTE));
+        assertEquals(Map.of("id", "a", "n", 1), store.getById("t", "a").orElseThrow());
+        assertEquals(Map.of("id", "a", "n", 1), store.getVersioned("t", "a").orElseThrow().data());
+        assertFalse(DynamoMapper.lazyAttributes(client.items.get("a")).containsKey(DynamoDbAdapter.VERSION_ATTRIBUTE));
+    }
+}
@@ -0,0 +1,70 @@
+package rs.uns.ftn.clouddbadapter.store.dynamo;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamoDbAsyncAdapterTest {
+
+    /** An endless table returning at most two items per Scan page. */
+    private static final class PagingClient implements DynamoDbAsyncClient {
+        final List<Integer> limits = new ArrayList<>();
+        int next;
+
+        @Override
+        public CompletableFuture<ScanResponse> scan(ScanRequest req) {
+            limits.add(req.limit());
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            for (int i = 0; i < Math.min(2, req.limit()); i++) {
+                items.add(Map.of("id", AttributeValue.builder().s("d" + next++).build()));
+            }
+            return CompletableFuture.completedFuture(ScanResponse.builder()
+                    .items(items)
+                    .lastEvaluatedKey(Map.of("id", AttributeValue.builder().s("d" + next).build()))
+                    .build());
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void listStopsWhenTheLimitIsReached() {
+        PagingClient client = new PagingClient();
+        List<Map<String, Object>> docs = new DynamoDbAsyncAdapter(client).list("t", 5).join();
+        assertEquals(5, docs.size());
+        assertEquals(List.of(5, 3, 1), client.limits);
+    }
+
+    @Test
+    void nonPositiveLimitSendsNoRequest() {
+        PagingClient client = new PagingClient();
+        assertTrue(new DynamoDbAsyncAdapter(client).list("t", 0).join().isEmpty());
+        assertTrue(client.limits.isEmpty());
+    }
+
+    @Test
+    void blankCollectionsAreRejectedBeforeAnyRequest() {
+        PagingClient client = new PagingClient();
+        DynamoDbAsyncAdapter adapter = new DynamoDbAsyncAdapter(client);
+        assertThrows(IllegalArgumentException.class, () -> adapter.list(null, 5));
+        assertThrows(IllegalArgumentException.class, () -> adapter.list(" ", 0));
+        assertThrows(IllegalArgumentException.class, () -> adapter.warmUp(List.of("t", "")));
+        assertTrue(client.limits.isEmpty());
+    }
+}
@@ -0,0 +1,42 @@
+package rs.uns.ftn.clouddbadapter.store.firestore;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Blob;
+import com.google.cloud.firestore.GeoPoint;
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FirestoreAdapterTest {
+
+    @Test
+    void queriesAreOrderedByEveryImplicitField() {
+        assertEquals(List.of(), FirestoreAdapter.orderFields(DocumentQuery.builder().eq("tenant", "t1").build()));
+        assertEquals(List.of("age", "score"), FirestoreAdapter.orderFields(DocumentQuery.builder()
+                .gt("score", 1).lt("age", 65).gte("score", 0).build()));
+        assertEquals(List.of("created", "age"), FirestoreAdapter.orderFields(DocumentQuery.builder()
+                .lt("age", 65).in("tenant", List.of("a", "b")).orderBy("created", false).build()));
+        assertEquals(List.of("age"), FirestoreAdapter.orderFields(DocumentQuery.builder()
+                .lt("age", 65).orderBy("age", true).build()));
+    }
+
+    @Test
+    void cursorsKeepTheOrderByValues() {
+        List<Object> values = Arrays.asList(null, true, 42L, 1.5, "ћирилица", Timestamp.ofTimeSecondsAndNanos(1_700_000_000, 123),
+                Blob.fromBytes(new byte[]{1, 2, 3}), new GeoPoint(45.25, 19.85), "doc-7");
+        assertEquals(values, Arrays.asList(QueryCursor.decode(QueryCursor.encode(values), null)));
+    }
+
+    @Test
+    void unsupportedOrMalformedCursorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> QueryCursor.encode(List.of(Map.of("a", 1), "doc-7")));
+        String cursor = QueryCursor.encode(List.of("x".repeat(20), "doc-7"));
+        assertThrows(IllegalArgumentException.class, () -> QueryCursor.decode(cursor.substring(0, 12), null));
+        assertThrows(IllegalArgumentException.class, () -> QueryCursor.decode("not a cursor!", null));
+    }
+}
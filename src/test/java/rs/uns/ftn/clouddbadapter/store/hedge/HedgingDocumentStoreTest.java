@@ -0,0 +1,160 @@
+package rs.uns.ftn.clouddbadapter.store.hedge;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgingDocumentStoreTest {
+
+    /**
+     * Stand-in for a provider with injected read latency; an interrupt aborts the read unless
+     * it ignores interrupts, like a blocking socket read.
+     */
+    private static final class SlowStore extends InMemoryStore {
+        final AtomicInteger reads = new AtomicInteger();
+        final CountDownLatch aborted = new CountDownLatch(1);
+        volatile long latencyMillis;
+        volatile boolean failing;
+        volatile boolean ignoresInterrupts;
+
+        SlowStore(String value) {
+            create("c", "a", Map.of("from", value));
+        }
+
+        @Override
+        protected Optional<Map<String, Object>> doGet(String c, String id) {
+            reads.incrementAndGet();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+            for (long left; (left = deadline - System.nanoTime()) > 0; ) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(left);
+                } catch (InterruptedException e) {
+                    if (ignoresInterrupts) continue;
+                    aborted.countDown();
+                    Thread.currentThread().interrupt();
+                    throw new StoreException("aborted", e);
+                }
+            }
+            if (failing) throw new StoreException("unavailable");
+            return super.doGet(c, id);
+        }
+    }
+
+    private final SlowStore primary = new SlowStore("primary");
+    private final SlowStore secondary = new SlowStore("secondary");
+    private HedgingDocumentStore store;
+
+    @AfterEach
+    void close() {
+        if (store != null) store.close();
+    }
+
+    private HedgingDocumentStore.Builder builder() {
+        return HedgingDocumentStore.builder(primary).secondary(secondary).delay(Duration.ofMillis(20));
+    }
+
+    private Object read() {
+        return store.getById("c", "a").orElseThrow().get("from");
+    }
+
+    @Test
+    void fastReadsAreNotHedged() {
+        store = builder().build();
+        assertEquals("primary", read());
+        assertEquals(0, store.hedges());
+        assertEquals(0, secondary.reads.get());
+    }
+
+    @Test
+    void aSlowPrimaryIsHedgedAndAborted() throws InterruptedException {
+        store = builder().build();
+        primary.latencyMillis = 5_000;
+        long start = System.nanoTime();
+        assertEquals("secondary", read());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, store.hedges());
+        assertEquals(1, store.hedgeWins());
+        assertTrue(primary.aborted.await(2, TimeUnit.SECONDS));
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void aWinningHedgeDoesNotWaitForAPrimaryThatIgnoresInterrupts() {
+        store = builder().build();
+        primary.latencyMillis = 3_000;
+        primary.ignoresInterrupts = true;
+        secondary.latencyMillis = 200; // the primary is surely reading by the time the hedge answers
+        long start = System.nanoTime();
+        assertEquals("secondary", read());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, store.hedgeWins());
+        assertEquals(1, primary.reads.get());
+    }
+
+    @Test
+    void readsRunOnTheCallerAfterClose() {
+        store = builder().build();
+        store.close();
+        primary.latencyMillis = 100;
+        assertEquals("primary", read());
+        assertEquals(0, store.hedges());
+    }
+
+    @Test
+    void aLosingHedgeIsCancelled() throws InterruptedException {
+        store = builder().build();
+        primary.latencyMillis = 100;
+        secondary.latencyMillis = 5_000;
+        assertEquals("primary", read());
+        assertEquals(1, store.hedges());
+        assertEquals(0, store.hedgeWins());
+        assertTrue(secondary.aborted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void aFailingPrimaryFallsBackToTheHedge() {
+        store = builder().build();
+        primary.latencyMillis = 100;
+        primary.failing = true;
+        assertEquals("secondary", read());
+
+        secondary.failing = true;
+        assertThrows(StoreException.class, this::read);
+    }
+
+    @Test
+    void hedgesStopWhenTheBudgetIsSpent() {
+        store = builder().budget(0, 1).build();
+        primary.latencyMillis = 100;
+        secondary.latencyMillis = 5_000;
+        assertEquals("primary", read());
+        assertEquals("primary", read());
+        assertEquals(1, store.hedges());
+        assertEquals(1, store.overBudget());
+        assertEquals(1, secondary.reads.get());
+    }
+
+    @Test
+    void hedgesBeyondTheThreadLimitAreSkipped() throws InterruptedException {
+        store = builder().maxConcurrentHedges(1).budget(1, 10).build();
+        primary.latencyMillis = 300;
+        secondary.latencyMillis = 5_000;
+        Thread other = new Thread(this::read);
+        other.start();
+        Thread.sleep(100); // its hedge holds the only hedge thread
+        assertEquals("primary", read());
+        other.join();
+        assertEquals(1, store.hedges());
+        assertEquals(1, store.overBudget());
+    }
+}
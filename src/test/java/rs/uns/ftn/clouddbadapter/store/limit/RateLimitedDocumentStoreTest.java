@@ -0,0 +1,77 @@
+package rs.uns.ftn.clouddbadapter.store.limit;
+
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.Overloaded;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+import rs.uns.ftn.clouddbadapter.store.PatchOp;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitedDocumentStoreTest {
+
+    /** Throttles the next 'throttles' patches; can fail reads with an Error. */
+    private static final class Backend extends InMemoryStore {
+        final AtomicInteger patches = new AtomicInteger();
+        volatile int throttles;
+        volatile boolean broken;
+
+        @Override
+        protected void doPatch(String c, String id, Map<String, PatchOp> ops) {
+            patches.incrementAndGet();
+            if (throttles > 0) {
+                throttles--;
+                throw new Overloaded("slow down");
+            }
+            super.doPatch(c, id, ops);
+        }
+
+        @Override
+        protected Optional<Map<String, Object>> doGet(String c, String id) {
+            if (broken) throw new AssertionError("broken");
+            return super.doGet(c, id);
+        }
+    }
+
+    private final Backend backend = new Backend();
+    private final RateLimitedDocumentStore store = RateLimitedDocumentStore.builder(backend)
+            .backoff(Duration.ofMillis(1), Duration.ofMillis(2))
+            .maxRetries(3)
+            .build();
+
+    @Test
+    void throttledSetsAreRetried() {
+        backend.create("c", "a", Map.of("n", 1));
+        backend.throttles = 2;
+        store.patch("c", "a", Map.of("n", 5));
+        assertEquals(3, backend.patches.get());
+        assertEquals(5, backend.getById("c", "a").orElseThrow().get("n"));
+        assertEquals(2, store.limiter("c").throttles());
+    }
+
+    @Test
+    void throttledIncrementsAreNotRetried() {
+        backend.create("c", "a", Map.of("n", 1));
+        backend.throttles = 1;
+        assertThrows(Overloaded.class, () -> store.patch("c", "a", Map.of("n", PatchOp.increment(1))));
+        assertEquals(1, backend.patches.get());
+        assertEquals(1, store.limiter("c").throttles());
+        assertEquals(0, store.limiter("c").inFlight());
+        store.patch("c", "a", Map.of("tags", PatchOp.append(List.of("x"))));
+        assertEquals(1, backend.getById("c", "a").orElseThrow().get("n"));
+    }
+
+    @Test
+    void errorsReleaseThePermit() {
+        backend.broken = true;
+        for (int i = 0; i < 20; i++) assertThrows(AssertionError.class, () -> store.getById("c", "a"));
+        assertEquals(0, store.limiter("c").inFlight());
+        backend.broken = false;
+        assertTrue(store.getById("c", "a").isEmpty());
+    }
+}
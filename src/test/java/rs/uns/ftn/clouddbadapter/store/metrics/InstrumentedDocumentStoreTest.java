@@ -0,0 +1,96 @@
+package rs.uns.ftn.clouddbadapter.store.metrics;
+
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+import rs.uns.ftn.clouddbadapter.store.cache.CachingDocumentStore;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedDocumentStoreTest {
+
+    /** Reports usage the way the Firestore adapter does. */
+    private static final class Backend extends InMemoryStore {
+        @Override
+        public String provider() {
+            return "gcp";
+        }
+
+        @Override
+        protected void doUpdate(String c, String id, Map<String, Object> d) {
+            super.doUpdate(c, id, d);
+            UsageMeter.writes(1);
+        }
+
+        @Override
+        protected Optional<Map<String, Object>> doGet(String c, String id) {
+            UsageMeter.reads(1);
+            return super.doGet(c, id);
+        }
+
+        @Override
+        protected void doDelete(String c, String id) {
+            super.doDelete(c, id);
+            UsageMeter.deletes(1);
+        }
+    }
+
+    /** Keeps the stats per (collection, operation). */
+    private static final class Sink implements MetricsSink {
+        final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+
+        @Override
+        public Recorder recorder(String provider, String collection, Operation operation) {
+            return stats.computeIfAbsent(collection + "/" + operation, k -> new OperationStats(provider, collection, operation));
+        }
+    }
+
+    private final Sink sink = new Sink();
+
+    @Test
+    void theProviderComesFromTheWrappedAdapter() {
+        Backend backend = new Backend();
+        assertEquals("gcp", InstrumentedDocumentStore.builder(CachingDocumentStore.builder(backend).build()).sink(sink).build().provider());
+        assertEquals("InMemoryStore", InstrumentedDocumentStore.builder(new InMemoryStore()).sink(sink).build().provider());
+        assertEquals("test", InstrumentedDocumentStore.builder(backend).sink(sink).provider("test").build().provider());
+    }
+
+    @Test
+    void usageIsRecordedPerKind() {
+        InstrumentedDocumentStore store = InstrumentedDocumentStore.builder(new Backend()).sink(sink).build();
+        store.updateById("c", "a", Map.of("n", 1));
+        store.getById("c", "a");
+        store.getById("c", "missing");
+        store.deleteById("c", "a");
+
+        OperationStats update = sink.stats.get("c/" + Operation.UPDATE);
+        assertEquals(1, update.getDocumentWrites());
+        assertEquals(0, update.getDocumentReads());
+        OperationStats get = sink.stats.get("c/" + Operation.GET);
+        assertEquals(2, get.getDocumentReads());
+        assertEquals(0, get.getRequestUnits());
+        assertEquals(1, sink.stats.get("c/" + Operation.DELETE).getDocumentDeletes());
+    }
+
+    @Test
+    void nestedCallsSeeOnlyTheirOwnUsage() {
+        UsageMeter.reads(5); // outside a metered call: dropped
+        int outer = UsageMeter.begin();
+        UsageMeter.requestUnits(2.5);
+        int inner = UsageMeter.begin();
+        UsageMeter.requestUnits(1);
+        UsageMeter.capacityUnits(0.5);
+        Usage innerUsage = UsageMeter.end(inner);
+        assertEquals(1, innerUsage.get(Usage.Unit.REQUEST_UNITS));
+        assertEquals(0.5, innerUsage.get(Usage.Unit.CAPACITY_UNITS));
+        Usage outerUsage = UsageMeter.end(outer);
+        assertEquals(3.5, outerUsage.get(Usage.Unit.REQUEST_UNITS));
+        assertEquals(0, outerUsage.get(Usage.Unit.DOCUMENT_READS));
+        assertFalse(UsageMeter.active());
+
+        assertTrue(UsageMeter.end(UsageMeter.begin()).isEmpty()); // totals start over after the outermost call
+    }
+}
@@ -0,0 +1,137 @@
+package rs.uns.ftn.clouddbadapter.store.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import rs.uns.ftn.clouddbadapter.store.DocumentQuery;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedDocumentStoreTest {
+
+    /** Reads come back with provider-managed fields, like a Cosmos item. */
+    private static final class SystemFieldsStore extends InMemoryStore {
+        @Override
+        protected Optional<Map<String, Object>> doGet(String c, String id) {
+            return super.doGet(c, id).map(d -> {
+                d.put("_etag", "\"0000\"");
+                d.put("_ts", 1700000000);
+                return d;
+            });
+        }
+    }
+
+    private ShardedDocumentStore store;
+
+    @AfterEach
+    void close() {
+        if (store != null) store.close();
+    }
+
+    private static ShardedDocumentStore.Builder shards(InMemoryStore... backends) {
+        ShardedDocumentStore.Builder b = ShardedDocumentStore.builder();
+        for (int i = 0; i < backends.length; i++) b.shard(Shard.of("s" + i, backends[i]));
+        return b;
+    }
+
+    private static Map<String, Map<String, Object>> docs(int n) {
+        Map<String, Map<String, Object>> docs = new HashMap<>();
+        for (int i = 0; i < n; i++) docs.put("doc-" + i, Map.of("n", i));
+        return docs;
+    }
+
+    @Test
+    void batchesAreSplitPerShard() {
+        store = shards(new InMemoryStore(), new InMemoryStore(), new InMemoryStore()).build();
+        store.putAll("c", docs(100));
+        for (String id : docs(100).keySet()) {
+            for (Shard s : store.shards()) {
+                assertEquals(s == store.shardOf(id), s.store().getById("c", id).isPresent(), id);
+            }
+        }
+        assertEquals(100, store.getAll("c", docs(100).keySet()).size());
+        assertEquals(100, store.list("c", 1000).size());
+        store.deleteAll("c", docs(100).keySet());
+        assertTrue(store.list("c", 1000).isEmpty());
+    }
+
+    @Test
+    void addedShardsTakeOverDocumentsWithoutSystemFields() {
+        store = shards(new SystemFieldsStore(), new SystemFieldsStore()).build();
+        store.putAll("c", docs(200));
+        InMemoryStore added = new InMemoryStore();
+        store.addShard(Shard.of("new", added));
+        assertTrue(store.isRebalancing());
+
+        String moving = docs(200).keySet().stream().filter(id -> store.shardOf(id).name().equals("new")).findFirst().orElseThrow();
+        assertEquals(Map.of("id", moving, "n", docs(200).get(moving).get("n")), store.getById("c", moving).orElseThrow());
+        assertEquals(1, store.movedDocuments());
+
+        store.rebalance(List.of("c"));
+        assertFalse(store.isRebalancing());
+        assertTrue(store.movedDocuments() > 1);
+        List<Map<String, Object>> taken = added.list("c", 1000);
+        assertEquals(store.movedDocuments(), taken.size());
+        for (Map<String, Object> d : taken) assertEquals(Set.of("id", "n"), d.keySet());
+        for (String id : docs(200).keySet()) {
+            for (Shard s : store.shards()) assertEquals(s == store.shardOf(id), s.store().getById("c", id).isPresent(), id);
+        }
+    }
+
+    @Test
+    void queryPagesKeepTheOrderAcrossShards() {
+        store = shards(new InMemoryStore(), new InMemoryStore(), new InMemoryStore()).build();
+        store.putAll("c", docs(50));
+        List<Object> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Map<String, Object>> p = store.query("c", DocumentQuery.builder().gte("n", 0).orderBy("n", true).limit(7).build().withCursor(cursor));
+            p.items().forEach(d -> seen.add(d.get("n")));
+            cursor = p.cursor();
+        } while (cursor != null);
+        List<Object> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) expected.add(i);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void scansEveryShardOnABoundedPool() {
+        store = shards(new InMemoryStore(), new InMemoryStore(), new InMemoryStore()).maxThreads(2).build();
+        store.putAll("c", docs(60));
+        Map<Object, Integer> seen = new ConcurrentHashMap<>();
+        Set<Integer> segments = ConcurrentHashMap.newKeySet();
+        store.parallelScan("c", 6, 10, (segment, page) -> {
+            segments.add(segment);
+            page.forEach(d -> seen.merge(d.get("id"), 1, Integer::sum));
+        });
+        assertEquals(docs(60).keySet(), seen.keySet());
+        assertTrue(seen.values().stream().allMatch(n -> n == 1));
+        assertTrue(segments.stream().allMatch(s -> s >= 0 && s < 6));
+    }
+
+    @Test
+    void fanOutsBeyondTheThreadLimitRunOnTheCaller() throws Exception {
+        store = shards(new InMemoryStore(), new InMemoryStore(), new InMemoryStore(), new InMemoryStore()).maxThreads(1).build();
+        store.putAll("c", docs(100));
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> reads = new ArrayList<>();
+            for (int i = 0; i < 32; i++) reads.add(callers.submit(() -> store.getAll("c", docs(100).keySet()).size()));
+            for (Future<Integer> r : reads) assertEquals(100, r.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package rs.uns.ftn.clouddbadapter.store.transfer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rs.uns.ftn.clouddbadapter.store.BaseAdapter.StoreException;
+import rs.uns.ftn.clouddbadapter.store.InMemoryStore;
+import rs.uns.ftn.clouddbadapter.store.Page;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollectionImporterTest {
+
+    private static final int DOCUMENTS = 1000;
+
+    /** Fails listPage and putAll once their countdowns run out; -1 never fails. */
+    private static final class Backend extends InMemoryStore {
+        final AtomicInteger pagesLeft = new AtomicInteger(-1);
+        final AtomicInteger batchesLeft = new AtomicInteger(-1);
+
+        @Override
+        protected Page<Map<String, Object>> doListPage(String c, int pageSize, String cursor) {
+            if (pagesLeft.getAndDecrement() == 0) throw new StoreException("list failed");
+            return super.doListPage(c, pageSize, cursor);
+        }
+
+        @Override
+        protected void doPutAll(String c, Map<String, Map<String, Object>> docs) {
+            if (batchesLeft.getAndDecrement() == 0) throw new StoreException("write failed");
+            super.doPutAll(c, docs);
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private final Backend source = new Backend();
+    private final Backend target = new Backend();
+
+    private void fill() {
+        Random random = new Random(1);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Map<String, Object> doc = new HashMap<>();
+            doc.put("n", i);
+            doc.put("name", "user-" + i);
+            byte[] noise = new byte[150];
+            random.nextBytes(noise);
+            doc.put("bio", "lorem ipsum " + Base64.getEncoder().encodeToString(noise)); // hardly deflates
+            doc.put("tags", List.of("a", "b" + i % 7));
+            source.create("users", String.format("u%04d", i), doc);
+        }
+    }
+
+    private CollectionExporter exporter() {
+        return CollectionExporter.builder(source).pageSize(50).blockSize(4096).maxFileSize(1 << 16)
+                .checkpointInterval(Duration.ZERO).build();
+    }
+
+    private CollectionImporter importer() {
+        return CollectionImporter.builder(target).writers(4).batchSize(10, 25).checkpointInterval(Duration.ZERO).build();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private void assertCopied() {
+        assertEquals(source.list("users", 2 * DOCUMENTS), target.list("users", 2 * DOCUMENTS));
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        fill();
+        TransferStats exported = exporter().export("users", dir);
+        assertEquals(DOCUMENTS, exported.documents());
+        assertTrue(exported.files() > 1, "files: " + exported.files());
+        assertEquals(exported.files(), segments().size());
+
+        TransferStats imported = importer().importFrom(dir, "users");
+        assertEquals(DOCUMENTS, imported.documents());
+        assertFalse(imported.resumed());
+        assertCopied();
+        assertFalse(Files.exists(dir.resolve("users.import")));
+    }
+
+    @Test
+    void tornLastBlockFailsTheImport() throws IOException {
+        fill();
+        exporter().export("users", dir);
+        Path last = segments().get(segments().size() - 1);
+        try (FileChannel ch = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 5);
+        }
+
+        StoreException e = assertThrows(StoreException.class, () -> importer().importFrom(dir, "users"));
+        assertTrue(e.getMessage().contains("incomplete block"), e.getMessage());
+        assertTrue(Files.exists(dir.resolve("users.import")));
+    }
+
+    @Test
+    void exportResumesAfterATornWrite() throws IOException {
+        fill();
+        source.pagesLeft.set(7);
+        assertThrows(StoreException.class, () -> exporter().export("users", dir));
+        Properties checkpoint = TransferCheckpoint.load(CollectionExporter.checkpointFile(dir, "users"));
+        assertNotNull(checkpoint);
+        assertFalse(Boolean.parseBoolean(checkpoint.getProperty(CollectionExporter.DONE)));
+
+        // a crash mid-block leaves bytes past the checkpointed offset
+        Path current = dir.resolve(CollectionExporter.segmentName("users", Integer.parseInt(checkpoint.getProperty("file"))));
+        Files.write(current, new byte[] {0, 0, 1, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        TransferStats resumed = exporter().export("users", dir);
+        assertTrue(resumed.resumed());
+        importer().importFrom(dir, "users");
+        assertCopied();
+    }
+
+    @Test
+    void importResumesAfterAFailedWrite() {
+        fill();
+        exporter().export("users", dir);
+        target.batchesLeft.set(20);
+        assertThrows(StoreException.class, () -> importer().importFrom(dir, "users"));
+        assertTrue(Files.exists(dir.resolve("users.import")));
+        assertTrue(target.list("users", 2 * DOCUMENTS).size() < DOCUMENTS);
+
+        TransferStats resumed = importer().importFrom(dir, "users");
+        assertTrue(resumed.resumed());
+        assertTrue(resumed.documents() < DOCUMENTS);
+        assertCopied();
+    }
+
+    @Test
+    void countMismatchWithTheExportFailsTheImport() {
+        fill();
+        exporter().export("users", dir);
+        Path file = CollectionExporter.checkpointFile(dir, "users");
+        Properties checkpoint = TransferCheckpoint.load(file);
+        checkpoint.setProperty("documents", Integer.toString(DOCUMENTS + 1));
+        TransferCheckpoint.save(file, checkpoint);
+
+        StoreException e = assertThrows(StoreException.class, () -> importer().importFrom(dir, "users"));
+        assertTrue(e.getMessage().contains("the export holds " + (DOCUMENTS + 1)), e.getMessage());
+        assertTrue(Files.exists(dir.resolve("users.import")));
+    }
+
+    @Test
+    void closedReaderRejectsNext() throws IOException {
+        fill();
+        exporter().export("users", dir);
+        SegmentReader reader = SegmentReader.open(segments().get(0));
+        assertFalse(reader.next().documents().isEmpty());
+        reader.close();
+        reader.close();
+        assertThrows(IllegalStateException.class, reader::next);
+    }
+}